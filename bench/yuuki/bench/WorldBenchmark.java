@@ -0,0 +1,393 @@
+package yuuki.bench;
+
+import java.awt.Dimension;
+import java.awt.Point;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import yuuki.ui.Displayable;
+import yuuki.util.InvalidIndexException;
+import yuuki.world.Land;
+import yuuki.world.Movable;
+import yuuki.world.Portal;
+import yuuki.world.Tile;
+import yuuki.world.TileFactory;
+import yuuki.world.TileTable;
+import yuuki.world.WalkGraph;
+import yuuki.world.World;
+
+/**
+ * Measures how World.advance() scales with the number of residents. For each
+ * resident count, a World of two synthetic lands joined by portals is filled
+ * with residents that wander at random, some of which walk through the
+ * portals. The inactive land is advanced in the background every tick so
+ * that residents keep flowing both ways.
+ * 
+ * After a warm-up, each tick is timed on its own. The ticks per second, the
+ * 99th percentile tick time and the number of bytes allocated per tick by
+ * all threads are then printed as one row of a table.
+ * 
+ * Every run is seeded, so the same arguments always give the same lands and
+ * the same moves.
+ */
+public class WorldBenchmark {
+	
+	/**
+	 * A headless resident that steps in a random walkable direction each
+	 * tick.
+	 */
+	private static class Wanderer implements Movable, Displayable {
+		
+		/**
+		 * The location of this Wanderer.
+		 */
+		private Point location;
+		
+		/**
+		 * Chooses the steps of this Wanderer.
+		 */
+		private final Random random;
+		
+		/**
+		 * Whether this Wanderer may walk through portals.
+		 */
+		private final boolean transferrable;
+		
+		/**
+		 * Creates a new Wanderer.
+		 * 
+		 * @param location Where the Wanderer starts.
+		 * @param seed The seed for the Wanderer's steps.
+		 * @param transferrable Whether the Wanderer may walk through portals.
+		 */
+		public Wanderer(Point location, long seed, boolean transferrable) {
+			this.location = location;
+			this.random = new Random(seed);
+			this.transferrable = transferrable;
+		}
+		
+		@Override
+		public String getBattleImage() {
+			return null;
+		}
+		
+		@Override
+		public char getDisplayChar() {
+			return 'w';
+		}
+		
+		@Override
+		public Displayable getDisplayable() {
+			return this;
+		}
+		
+		@Override
+		public Point getLocation() {
+			return location;
+		}
+		
+		@Override
+		public Point getNextMove(Land land) {
+			byte mask = land.getWalkMask(location.x, location.y, false);
+			int count = WalkGraph.getValidCount(mask);
+			if (count == 0) {
+				return null;
+			}
+			int choice = random.nextInt(count);
+			for (int d = 0; d < WalkGraph.DIRECTION_COUNT; d++) {
+				if (WalkGraph.isValid(mask, d) && choice-- == 0) {
+					return new Point(location.x + WalkGraph.getDeltaX(d),
+							location.y + WalkGraph.getDeltaY(d));
+				}
+			}
+			return null;
+		}
+		
+		@Override
+		public String getOverworldImage() {
+			return "wanderer";
+		}
+		
+		@Override
+		public boolean isAutonomous() {
+			return true;
+		}
+		
+		@Override
+		public boolean isTransferrable() {
+			return transferrable;
+		}
+		
+		@Override
+		public void setLocation(Point l) {
+			location = l;
+		}
+		
+	}
+	
+	/**
+	 * The resident counts that are measured if none are given.
+	 */
+	public static final int[] DEFAULT_RESIDENT_COUNTS = {10, 100, 1000, 10000};
+	
+	/**
+	 * The number of ticks that are measured if none is given.
+	 */
+	public static final int DEFAULT_TICKS = 2000;
+	
+	/**
+	 * The number of ticks that are run before measuring if none is given.
+	 */
+	public static final int DEFAULT_WARMUP_TICKS = 500;
+	
+	/**
+	 * The smallest width and height of a land.
+	 */
+	private static final int MIN_LAND_SIZE = 32;
+	
+	/**
+	 * The number of portals in each land.
+	 */
+	private static final int PORTAL_COUNT = 8;
+	
+	/**
+	 * The seed of every run.
+	 */
+	private static final long SEED = 0x59755546L;
+	
+	/**
+	 * The number of tiles in each land per resident.
+	 */
+	private static final int TILES_PER_RESIDENT = 8;
+	
+	/**
+	 * The one-in-n chance of a resident being able to use portals.
+	 */
+	private static final int TRAVELLER_CHANCE = 4;
+	
+	/**
+	 * The one-in-n chance of a tile being a wall.
+	 */
+	private static final int WALL_CHANCE = 10;
+	
+	/**
+	 * Runs the benchmark.
+	 * 
+	 * @param args The resident counts to measure, separated by commas,
+	 * followed optionally by the number of ticks to measure and the number of
+	 * warm-up ticks.
+	 * 
+	 * @throws Exception If the World fails to advance.
+	 */
+	public static void main(String[] args) throws Exception {
+		int[] counts = DEFAULT_RESIDENT_COUNTS;
+		int ticks = DEFAULT_TICKS;
+		int warmup = DEFAULT_WARMUP_TICKS;
+		if (args.length > 0 && !args[0].isEmpty()) {
+			String[] parts = args[0].split(",");
+			counts = new int[parts.length];
+			for (int i = 0; i < parts.length; i++) {
+				counts[i] = Integer.parseInt(parts[i].trim());
+			}
+		}
+		if (args.length > 1) {
+			ticks = Integer.parseInt(args[1]);
+		}
+		if (args.length > 2) {
+			warmup = Integer.parseInt(args[2]);
+		}
+		System.out.println(String.format("%10s %10s %12s %12s %14s",
+				"residents", "land", "ticks/sec", "p99 (ms)", "bytes/tick"));
+		for (int count : counts) {
+			run(count, ticks, warmup);
+		}
+	}
+	
+	/**
+	 * Adds portals from one land to another. Each portal is on an empty floor
+	 * tile and leads to an empty floor tile.
+	 * 
+	 * @param from The land to add the portals to.
+	 * @param to The land that the portals lead to.
+	 * @param random Chooses where the portals go.
+	 */
+	private static void addPortals(Land from, Land to, Random random) {
+		for (int i = 0; i < PORTAL_COUNT; i++) {
+			Point at = findFloor(from, random);
+			Point link = findFloor(to, random);
+			String name = from.getName() + "-" + i;
+			Portal p = new Portal(name, to.getName(), link, "portal");
+			p.setLocation(at);
+			from.addPortal(p);
+		}
+	}
+	
+	/**
+	 * Creates a land of open floor with scattered walls.
+	 * 
+	 * @param name The name of the land.
+	 * @param side The width and height of the land.
+	 * @param table The tile types.
+	 * @param random Chooses where the walls go.
+	 * 
+	 * @return The land.
+	 */
+	private static Land createLand(String name, int side, TileTable table,
+			Random random) {
+		short floor = (short) table.indexOf('.');
+		short wall = (short) table.indexOf('#');
+		short[] data = new short[side * side];
+		for (int i = 0; i < data.length; i++) {
+			data[i] = (random.nextInt(WALL_CHANCE) == 0) ? wall : floor;
+		}
+		Dimension size = new Dimension(side, side);
+		return new Land(name, size, new Point(0, 0), table, data);
+	}
+	
+	/**
+	 * Creates the tile types of the synthetic lands.
+	 * 
+	 * @return A table of void, floor and wall tiles.
+	 */
+	private static TileTable createTileTable() {
+		Map<Integer, Tile.Definition> defs;
+		defs = new HashMap<Integer, Tile.Definition>();
+		defs.put((int) TileFactory.VOID_CHAR, createTileType("void", false));
+		defs.put((int) '.', createTileType("floor", true));
+		defs.put((int) '#', createTileType("wall", false));
+		return new TileTable(defs);
+	}
+	
+	/**
+	 * Creates a tile type.
+	 * 
+	 * @param name The name of the type.
+	 * @param walkable Whether tiles of the type can be walked on.
+	 * 
+	 * @return The tile type.
+	 */
+	private static Tile.Definition createTileType(String name,
+			boolean walkable) {
+		Tile.Definition def = new Tile.Definition();
+		def.name = name;
+		def.walkable = walkable;
+		def.image = name;
+		return def;
+	}
+	
+	/**
+	 * Finds a random walkable tile with nothing on it.
+	 * 
+	 * @param land The land to search.
+	 * @param random Chooses the tile.
+	 * 
+	 * @return The location of the tile.
+	 */
+	private static Point findFloor(Land land, Random random) {
+		Dimension size = land.getSize();
+		while (true) {
+			int x = random.nextInt(size.width);
+			int y = random.nextInt(size.height);
+			Point p = new Point(x, y);
+			if (land.getTiles().itemAt(x, y).isWalkable() &&
+					!land.hasOccupantAt(p) && land.portalAt(p) == null) {
+				return p;
+			}
+		}
+	}
+	
+	/**
+	 * Gets the number of bytes that have been allocated by all live threads.
+	 * 
+	 * @param bean The bean to get the counts from.
+	 * 
+	 * @return The number of bytes, or -1 if the JVM does not count them.
+	 */
+	private static long getAllocatedBytes(ThreadMXBean bean) {
+		if (!(bean instanceof com.sun.management.ThreadMXBean)) {
+			return -1;
+		}
+		com.sun.management.ThreadMXBean sunBean;
+		sunBean = (com.sun.management.ThreadMXBean) bean;
+		if (!sunBean.isThreadAllocatedMemoryEnabled()) {
+			return -1;
+		}
+		long total = 0;
+		for (long bytes : sunBean.getThreadAllocatedBytes(
+				bean.getAllThreadIds())) {
+			if (bytes > 0) {
+				total += bytes;
+			}
+		}
+		return total;
+	}
+	
+	/**
+	 * Builds a World with a number of residents and measures it.
+	 * 
+	 * @param residents The number of residents.
+	 * @param ticks The number of ticks to measure.
+	 * @param warmup The number of ticks to run before measuring.
+	 * 
+	 * @throws InterruptedException If the World is interrupted while
+	 * advancing.
+	 * @throws InvalidIndexException If the first land cannot be found.
+	 */
+	private static void run(int residents, int ticks, int warmup) throws
+	InterruptedException, InvalidIndexException {
+		Random random = new Random(SEED + residents);
+		int side = (int) Math.ceil(Math.sqrt(residents * TILES_PER_RESIDENT));
+		side = Math.max(MIN_LAND_SIZE, side);
+		TileTable table = createTileTable();
+		Land first = createLand("bench-a", side, table, random);
+		Land second = createLand("bench-b", side, table, random);
+		addPortals(first, second, random);
+		addPortals(second, first, random);
+		for (int i = 0; i < residents; i++) {
+			Land land = (i % 2 == 0) ? first : second;
+			boolean traveller = (random.nextInt(TRAVELLER_CHANCE) == 0);
+			Point start = findFloor(land, random);
+			land.addResident(new Wanderer(start, random.nextLong(),
+					traveller));
+		}
+		Map<String, Land> lands = new HashMap<String, Land>();
+		lands.put(first.getName(), first);
+		lands.put(second.getName(), second);
+		World world = new World();
+		world.setSeed(SEED);
+		world.merge(lands);
+		world.changeLand(first.getName());
+		world.setBackgroundInterval(1);
+		for (int i = 0; i < warmup; i++) {
+			world.advance();
+		}
+		ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		long[] times = new long[ticks];
+		long allocatedBefore = getAllocatedBytes(bean);
+		long start = System.nanoTime();
+		for (int i = 0; i < ticks; i++) {
+			long tickStart = System.nanoTime();
+			world.advance();
+			times[i] = System.nanoTime() - tickStart;
+		}
+		long elapsed = System.nanoTime() - start;
+		long allocatedAfter = getAllocatedBytes(bean);
+		world.setBackgroundInterval(0);
+		Arrays.sort(times);
+		int p99Index = Math.min(ticks - 1, (int) Math.ceil(ticks * 0.99) - 1);
+		double p99 = times[Math.max(0, p99Index)] / 1e6;
+		double rate = ticks / (elapsed / 1e9);
+		String allocation = "n/a";
+		if (allocatedBefore >= 0 && allocatedAfter >= 0) {
+			long perTick = (allocatedAfter - allocatedBefore) / ticks;
+			allocation = Long.toString(perTick);
+		}
+		System.out.println(String.format("%10d %10s %12.1f %12.3f %14s",
+				residents, side + "x" + side, rate, p99, allocation));
+	}
+	
+}
@@ -0,0 +1,4 @@
+/**
+ * Measures the performance of the game engine.
+ */
+package yuuki.bench;
\ No newline at end of file
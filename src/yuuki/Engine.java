@@ -3,7 +3,6 @@ package yuuki;
 import java.awt.Point;
 import java.io.File;
 import java.io.IOException;
-import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.Set;
 
@@ -26,7 +25,9 @@ import yuuki.ui.Interactable;
 import yuuki.ui.UiExecutor;
 import yuuki.util.InvalidIndexException;
 import yuuki.util.Progressable;
+import yuuki.util.TickScheduler;
 import yuuki.world.InvalidLinkNameException;
+import yuuki.world.LandLoadException;
 import yuuki.world.World;
 
 /**
@@ -77,8 +78,12 @@ public class Engine implements Runnable, UiExecutor {
 	 * Handles the execution of a world in its own thread.
 	 */
 	private class WorldRunner implements Runnable {
-		private volatile boolean paused = false;
+		private final TickScheduler scheduler = new TickScheduler(
+				WORLD_TICK_RATE, TickScheduler.Policy.SKIP);
 		private Thread worldThread = null;
+		public TickScheduler getScheduler() {
+			return scheduler;
+		}
 		public boolean isRunning() {
 			return (worldThread != null);
 		}
@@ -86,20 +91,23 @@ public class Engine implements Runnable, UiExecutor {
 		public void run() {
 			try {
 				while (true) {
-					while (paused) {
-						Thread.sleep(10);
-					}
+					scheduler.beginTick();
 					advanceWorld();
+					scheduler.endTick();
 				}
 			} catch (InterruptedException e) {
 				Thread.currentThread().interrupt();
 			} catch (InvalidLinkNameException e) {
 				DialogHandler.showFatalError("Invalid portal link: '" +
 						e.getMessage() + "'");
+			} catch (LandLoadException e) {
+				DialogHandler.showFatalError(e);
+			} finally {
+				world.setBackgroundInterval(0);
 			}
 		}
 		public void setPaused(boolean paused) {
-			this.paused = paused;
+			scheduler.setPaused(paused);
 		}
 		public void start() {
 			setPaused(false);
@@ -112,11 +120,34 @@ public class Engine implements Runnable, UiExecutor {
 		}
 	}
 	
+	/**
+	 * The number of world ticks between each advancement of the lands that
+	 * the player is not in.
+	 */
+	private static final int BACKGROUND_LAND_INTERVAL = 4;
+	
+	/**
+	 * The number of tiles around the player that residents heading for the
+	 * player can find their way from.
+	 */
+	private static final int FLOW_FIELD_RADIUS = 24;
+	
+	/**
+	 * The estimated number of bytes of memory that loaded lands may use before
+	 * idle lands are let go of.
+	 */
+	private static final long LAND_MEMORY_BUDGET = 64L * 1024 * 1024;
+	
 	/**
 	 * The path to the mods directory.
 	 */
 	private static final String PATH_MODS = "./mods";
 	
+	/**
+	 * The number of times per second that the world is advanced.
+	 */
+	private static final int WORLD_TICK_RATE = 10;
+	
 	/**
 	 * Program execution hook. Creates a new instance of Engine and then runs
 	 * it.
@@ -196,6 +227,16 @@ public class Engine implements Runnable, UiExecutor {
 		worldRunner = new WorldRunner();
 	}
 	
+	/**
+	 * Gets the scheduler that paces the world. Its tick metrics can be
+	 * queried while the game is running.
+	 * 
+	 * @return The world's TickScheduler.
+	 */
+	public TickScheduler getWorldScheduler() {
+		return worldRunner.getScheduler();
+	}
+	
 	@Override
 	public void requestBattle(boolean isMain, Character[] t1, Character[] t2) {
 		Character[][] fighters = {t1, t2};
@@ -247,6 +288,7 @@ public class Engine implements Runnable, UiExecutor {
 	@Override
 	public void requestCharacterCreation(String name, int level) {
 		player = entityMaker.createPlayer(name, level, ui);
+		player.setTickScheduler(worldRunner.getScheduler());
 		(new Thread(new Runnable() {
 			@Override
 			public void run() {
@@ -259,9 +301,13 @@ public class Engine implements Runnable, UiExecutor {
 					DialogHandler.showFatalError(e);
 				}
 				World w = resourceManager.getWorldEngine();
+				w.setBackgroundInterval(BACKGROUND_LAND_INTERVAL);
+				w.setLandBudget(LAND_MEMORY_BUDGET);
 				setInitialLand(w);
 				player.setLocation(w.getPlayerStart());
 				w.addResident(player);
+				w.setFlowTarget(player, FLOW_FIELD_RADIUS);
+				w.flushChanges();
 				world = w;
 				enterOverworldMode();
 				ui.setLoadingIndeterminate(false);
@@ -282,18 +328,12 @@ public class Engine implements Runnable, UiExecutor {
 	
 	@Override
 	public void requestGetItem() {
-		Item[] items = world.getItemsAt(player.getFacingPoint());
-		if (items.length == 0) {
-			ui.display(null, "There are no items in front of you.", false);
-		} else {
-			Item picked = items[0];
-			Item[] obtainableItems = new Item[]{picked};
-			int added = player.giveItems(obtainableItems);
-			world.clearItems(player.getFacingPoint(), added);
-			ui.removeWorldItems(obtainableItems, added);
-			ui.updateInventory(player.getInventory());
-			ui.display(null, "Got " + picked.getName(), false);
-		}
+		world.queueChange(new Runnable() {
+			@Override
+			public void run() {
+				pickUpItem();
+			}
+		});
 	}
 	
 	@Override
@@ -307,28 +347,13 @@ public class Engine implements Runnable, UiExecutor {
 	}
 	
 	@Override
-	public void requestItemDrop(Item item) {
-		boolean removed = false;
-		try {
-			player.getInventory().removeItem(item);
-			removed = true;
-		} catch (ItemNotInPouchException e) {
-			e.printStackTrace();
-		}
-		if (removed) {
-			Point dropPoint = player.getFacingPoint();
-			if (world.getTiles().itemAt(dropPoint).isWalkable()) {
-				item.setLocation(dropPoint);
-				ArrayList<Item> itemList = new ArrayList<Item>();
-				itemList.add(item);
-				world.addItem(item);
-				ui.addWorldItems(itemList);
-				ui.updateInventory(player.getInventory());
-				ui.display(null, "Dropped " + item.getName(), false);
-			} else {
-				ui.display(null, "Can't drop items there.", false);
+	public void requestItemDrop(final Item item) {
+		world.queueChange(new Runnable() {
+			@Override
+			public void run() {
+				dropItem(item);
 			}
-		}
+		});
 	}
 	
 	@Override
@@ -461,8 +486,8 @@ public class Engine implements Runnable, UiExecutor {
 			} catch (InvalidIndexException e) {
 				DialogHandler.showFatalError("Could not transfer to new map");
 			}
-			updateWorldViewData();
 		}
+		updateWorldViewData();
 		ui.updateWorldView(player.getLocation());
 	}
 	
@@ -474,6 +499,33 @@ public class Engine implements Runnable, UiExecutor {
 		ui.applyOptions(options);
 	}
 	
+	/**
+	 * Drops an item from the player's inventory in front of the player. This
+	 * is called by the world thread between ticks.
+	 * 
+	 * @param item The item to drop.
+	 */
+	private void dropItem(Item item) {
+		boolean removed = false;
+		try {
+			player.getInventory().removeItem(item);
+			removed = true;
+		} catch (ItemNotInPouchException e) {
+			e.printStackTrace();
+		}
+		if (removed) {
+			Point dropPoint = player.getFacingPoint();
+			if (world.isReachable(player.getLocation(), dropPoint)) {
+				item.setLocation(dropPoint);
+				world.addItem(item);
+				ui.updateInventory(player.getInventory());
+				ui.display(null, "Dropped " + item.getName(), false);
+			} else {
+				ui.display(null, "Can't drop items there.", false);
+			}
+		}
+	}
+	
 	/**
 	 * Switches to the overworld screen and begins overworld advancement.
 	 */
@@ -551,6 +603,24 @@ public class Engine implements Runnable, UiExecutor {
 		ui.setLoadingIndeterminate(false);
 	}
 	
+	/**
+	 * Gives the player the top item in front of them. This is called by the
+	 * world thread between ticks.
+	 */
+	private void pickUpItem() {
+		Point facing = player.getFacingPoint();
+		Item picked = world.getTopItemAt(facing);
+		if (picked == null) {
+			ui.display(null, "There are no items in front of you.", false);
+		} else {
+			Item[] obtainableItems = new Item[]{picked};
+			int added = player.giveItems(obtainableItems);
+			world.clearItems(facing, added);
+			ui.updateInventory(player.getInventory());
+			ui.display(null, "Got " + picked.getName(), false);
+		}
+	}
+	
 	/**
 	 * Scans a folder called 'mods' at the same location as the root and loads
 	 * any valid mods found.
@@ -583,6 +653,8 @@ public class Engine implements Runnable, UiExecutor {
 		} catch (InvalidIndexException e) {
 			// should never happen
 			DialogHandler.showFatalError(e);
+		} catch (LandLoadException e) {
+			DialogHandler.showFatalError(e);
 		}
 	}
 	
@@ -606,14 +678,10 @@ public class Engine implements Runnable, UiExecutor {
 	}
 	
 	/**
-	 * Updates the world view with the active land.
+	 * Updates the world view with the latest snapshot of the active land.
 	 */
 	private void updateWorldViewData() {
-		ui.clearWorldLocatables();
-		ui.setWorldView(world.getTiles(), world.getLandName());
-		ui.addWorldPortals(world.getPortals());
-		ui.addWorldEntities(world.getResidents());
-		ui.addWorldItems(world.getItems());
+		ui.setWorldView(world.getSnapshot());
 	}
 	
 }
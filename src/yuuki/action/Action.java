@@ -1,7 +1,9 @@
 package yuuki.action;
 
 import java.util.ArrayList;
-import java.util.HashSet;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
 import java.util.List;
 
 import yuuki.buff.Buff;
@@ -11,6 +13,10 @@ import yuuki.entity.Stat;
 /**
  * A character's action during the fight. This gives information on what type
  * of effect it has and who its target is.
+ * 
+ * Actions that are taken from an ActionPool are reset and reused once they
+ * are released, so a battle turn does not need to create a new Action. An
+ * Action must not be used after it has been released.
  */
 public abstract class Action implements Cloneable {
 	
@@ -32,22 +38,46 @@ public abstract class Action implements Cloneable {
 	}
 	
 	/**
-	 * The teams that were affected by this Action.
+	 * The teams that were affected by this Action, by team ID.
 	 */
-	private HashSet<Integer> affectedTeams;
+	private BitSet affectedTeams;
+	
+	/**
+	 * Whether the buffs of this Action may have been given to a Character
+	 * since it was last reset.
+	 */
+	private boolean buffsGiven;
 	
 	/**
 	 * The name of this Action; used for display purposes.
 	 */
 	private String name;
 	
+	/**
+	 * The pool that this Action returns to when it is released, or null if
+	 * it is not pooled.
+	 */
+	private ActionPool pool;
+	
+	/**
+	 * Whether this Action is waiting in its pool.
+	 */
+	private boolean released;
+	
 	/**
 	 * Whether to skip cost application and force success.
 	 */
 	private boolean skipCost = false;
 	
 	/**
-	 * The actual effects after application of this action.
+	 * A read-only view of the targets.
+	 */
+	private List<Character> targetView;
+	
+	/**
+	 * The actual effects after application of this action, in the order of
+	 * the targets. This may be longer than the number of targets; the
+	 * elements past the last target are not used.
 	 */
 	protected int[] actualEffects;
 	
@@ -113,9 +143,10 @@ public abstract class Action implements Cloneable {
 		this.targetBuff = targetBuff;
 		this.originBuff = originBuff;
 		targets = new ArrayList<Character>();
+		targetView = Collections.unmodifiableList(targets);
 		actualEffects = new int[0];
 		origin = null;
-		affectedTeams = new HashSet<Integer>();
+		affectedTeams = new BitSet();
 	}
 	
 	/**
@@ -125,12 +156,11 @@ public abstract class Action implements Cloneable {
 	 */
 	public void addTarget(Character t) {
 		targets.add(t);
-		int[] newEffects = new int[actualEffects.length + 1];
-		for (int i = 0; i < actualEffects.length; i++) {
-			newEffects[i] = actualEffects[i];
+		int count = targets.size();
+		if (count > actualEffects.length) {
+			actualEffects = Arrays.copyOf(actualEffects, count);
 		}
-		newEffects[newEffects.length - 1] = 0;
-		actualEffects = newEffects;
+		actualEffects[count - 1] = 0;
 		setCostAndEffectStats(t);
 	}
 	
@@ -160,6 +190,7 @@ public abstract class Action implements Cloneable {
 		if (successful) {
 			applyEffect();
 			applyBuffs();
+			buffsGiven = true;
 		}
 		return successful;
 	}
@@ -194,12 +225,15 @@ public abstract class Action implements Cloneable {
 		}
 		// targets contents shallow-copied
 		a2.targets = (ArrayList<Character>) this.targets.clone();
+		a2.targetView = Collections.unmodifiableList(a2.targets);
 		// origin shallow-copied
 		// name shallow-copied
-		a2.actualEffects = new int[this.actualEffects.length];
-		for (int i = 0; i < this.actualEffects.length; i++) {
-			a2.actualEffects[i] = this.actualEffects[i];
-		}
+		a2.actualEffects = this.actualEffects.clone();
+		a2.affectedTeams = (BitSet) this.affectedTeams.clone();
+		a2.buffsGiven = false;
+		// a clone is never part of a pool until it is added to one
+		a2.pool = null;
+		a2.released = false;
 		// origin should be kept as the same reference
 		return a2;
 	}
@@ -211,14 +245,29 @@ public abstract class Action implements Cloneable {
 	 */
 	public abstract Action createInstance(String[] args);
 	
+	/**
+	 * Gets the actual damage caused by this Action to one target.
+	 * 
+	 * @param index The index of the target.
+	 * 
+	 * @return The actual caused damage.
+	 */
+	public int getActualEffect(int index) {
+		return actualEffects[index];
+	}
+	
 	/**
 	 * Gets the actual damage caused by this Action, in the order of the
-	 * targets.
+	 * targets. Use getActualEffect() to avoid creating a new array.
 	 *
 	 * @return The actual caused damages.
 	 */
 	public int[] getActualEffects() {
-		return actualEffects;
+		int count = targets.size();
+		if (actualEffects.length == count) {
+			return actualEffects;
+		}
+		return Arrays.copyOf(actualEffects, count);
 	}
 	
 	/**
@@ -228,10 +277,11 @@ public abstract class Action implements Cloneable {
 	 * which will be empty if no targets have been set.
 	 */
 	public int[] getAffectedTeams() {
-		int[] teams = new int[affectedTeams.size()];
+		int[] teams = new int[affectedTeams.cardinality()];
 		int k = 0;
-		for (Integer i : affectedTeams) {
-			teams[k++] = i.intValue();
+		for (int i = affectedTeams.nextSetBit(0); i >= 0;
+				i = affectedTeams.nextSetBit(i + 1)) {
+			teams[k++] = i;
 		}
 		return teams;
 	}
@@ -300,6 +350,15 @@ public abstract class Action implements Cloneable {
 		return originBuff;
 	}
 	
+	/**
+	 * Gets the pool that this Action returns to when it is released.
+	 * 
+	 * @return The pool, or null if this Action is not pooled.
+	 */
+	public ActionPool getPool() {
+		return pool;
+	}
+	
 	/**
 	 * Gets whether cost is skipped for this action.
 	 * 
@@ -325,7 +384,31 @@ public abstract class Action implements Cloneable {
 	 * targets have been set.
 	 */
 	public List<Character> getTargets() {
-		return java.util.Collections.unmodifiableList(targets);
+		return targetView;
+	}
+	
+	/**
+	 * Checks whether a team was affected by the last application of this
+	 * Action.
+	 * 
+	 * @param team The ID of the team.
+	 * 
+	 * @return Whether one of the targets was on the team.
+	 */
+	public boolean isTeamAffected(int team) {
+		return affectedTeams.get(team);
+	}
+	
+	/**
+	 * Gives this Action back to the pool that it came from so that it can be
+	 * reused. This Action must not be used afterwards. If it did not come
+	 * from a pool, this method has no effect.
+	 */
+	public void release() {
+		if (pool != null && !released) {
+			released = true;
+			pool.release(this);
+		}
 	}
 	
 	/**
@@ -366,14 +449,45 @@ public abstract class Action implements Cloneable {
 		return successful;
 	}
 	
+	/**
+	 * Clears the state of this Action that is left over from its last use,
+	 * so that it can be used again as if it had just been cloned from a
+	 * template. Subclasses that keep state of their own should override this
+	 * and call the super method.
+	 * 
+	 * @param template The Action that this one was first cloned from. Its
+	 * buffs are cloned again if this Action's buffs may still be in use.
+	 */
+	protected void reset(Action template) {
+		targets.clear();
+		for (int i = 0; i < template.targets.size(); i++) {
+			targets.add(template.targets.get(i));
+		}
+		if (actualEffects.length < targets.size()) {
+			actualEffects = new int[targets.size()];
+		} else {
+			Arrays.fill(actualEffects, 0);
+		}
+		affectedTeams.clear();
+		successful = false;
+		if (buffsGiven) {
+			targetBuff = (template.targetBuff != null) ?
+					template.targetBuff.clone() : null;
+			originBuff = (template.originBuff != null) ?
+					template.originBuff.clone() : null;
+			buffsGiven = false;
+		}
+	}
+	
 	/**
 	 * Sets the teams affected by this action. The teams are set by iterating
 	 * over the target list and adding each fighter's team ID to the affected
-	 * teams if it isn't there already.
+	 * teams.
 	 */
 	private void setAffectedTeams() {
-		for (Character t : targets) {
-			affectedTeams.add(t.getTeamId());
+		affectedTeams.clear();
+		for (int i = 0; i < targets.size(); i++) {
+			affectedTeams.set(targets.get(i).getTeamId());
 		}
 	}
 	
@@ -392,6 +506,24 @@ public abstract class Action implements Cloneable {
 		}
 	}
 	
+	/**
+	 * Marks this Action as belonging to a pool.
+	 * 
+	 * @param pool The pool that the Action is to return to.
+	 */
+	void setPool(ActionPool pool) {
+		this.pool = pool;
+	}
+	
+	/**
+	 * Sets whether this Action is waiting in its pool.
+	 * 
+	 * @param released Whether the Action is in the pool.
+	 */
+	void setReleased(boolean released) {
+		this.released = released;
+	}
+	
 	/**
 	 * Returns whether this Action has a positive effect on the stat.
 	 * 
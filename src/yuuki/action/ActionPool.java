@@ -0,0 +1,74 @@
+package yuuki.action;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Hands out copies of one Action and takes them back once they have been
+ * used, so that the same few copies can be used for every turn instead of a
+ * new clone being made each time. Copies are only cloned from the template
+ * when all of the ones that have been made are in use.
+ * 
+ * An ActionPool is not thread-safe; each Character has its own pools.
+ */
+public class ActionPool {
+	
+	/**
+	 * The copies that are not in use.
+	 */
+	private final Deque<Action> free;
+	
+	/**
+	 * The Action that the copies are cloned from.
+	 */
+	private final Action template;
+	
+	/**
+	 * Creates a new ActionPool.
+	 * 
+	 * @param template The Action to hand out copies of. It is not changed by
+	 * the pool and must not be released to it.
+	 */
+	public ActionPool(Action template) {
+		this.template = template;
+		this.free = new ArrayDeque<Action>();
+	}
+	
+	/**
+	 * Gets a copy of the template that is not in use. It must be given back
+	 * by calling its release() method once it is no longer needed.
+	 * 
+	 * @return A copy of the template, reset to the state that the template
+	 * is in.
+	 */
+	public Action acquire() {
+		Action a = free.poll();
+		if (a == null) {
+			a = template.clone();
+			a.setPool(this);
+		} else {
+			a.reset(template);
+			a.setReleased(false);
+		}
+		return a;
+	}
+	
+	/**
+	 * Gets the Action that copies are made from.
+	 * 
+	 * @return The template.
+	 */
+	public Action getTemplate() {
+		return template;
+	}
+	
+	/**
+	 * Takes back a copy that is no longer in use.
+	 * 
+	 * @param a The copy to take back.
+	 */
+	void release(Action a) {
+		free.push(a);
+	}
+	
+}
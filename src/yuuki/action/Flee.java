@@ -56,7 +56,7 @@ public class Flee extends Action implements Cloneable {
 	 */
 	private boolean calculateFlee()	{
 		boolean flee = false;
-		Random rand;
+		Random rand = origin.getRandom();
 		int playerLevel = origin.getLevel();
 		int monsterLevel = 0;
 		for (Character c : targets) {
@@ -64,7 +64,6 @@ public class Flee extends Action implements Cloneable {
 		}
 		double advantageLevel = (double) playerLevel / monsterLevel;
 		int randomNumber;
-		rand = new Random();
 		//Get Character agility level.
 		int agility = origin.getAgility();
 		advantageLevel += (agility * 0.2);
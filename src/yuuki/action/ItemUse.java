@@ -53,13 +53,6 @@ public class ItemUse extends Action {
 		return iu;
 	}
 	
-	@Override
-	public ItemUse clone() {
-		ItemUse iu = (ItemUse) super.clone();
-		iu.item = null; // never copy the item
-		return iu;
-	}
-	
 	/**
 	 * Takes no arguments.
 	 */
@@ -77,6 +70,11 @@ public class ItemUse extends Action {
 		}
 	}
 	
+	@Override
+	public int getActualEffect(int index) {
+		return item.getAction().getActualEffect(index);
+	}
+	
 	@Override
 	public int[] getActualEffects() {
 		return item.getAction().getActualEffects();
@@ -162,6 +160,11 @@ public class ItemUse extends Action {
 		}
 	}
 	
+	@Override
+	public boolean isTeamAffected(int team) {
+		return item.getAction().isTeamAffected(team);
+	}
+	
 	/**
 	 * Sets the Item to be used.
 	 * 
@@ -204,6 +207,12 @@ public class ItemUse extends Action {
 	@Override
 	protected void applyEffect() {}
 	
+	@Override
+	protected void reset(Action template) {
+		super.reset(template);
+		item = null; // never reuse the item
+	}
+	
 	@Override
 	protected void applyBuffs() {}
 	
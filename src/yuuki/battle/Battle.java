@@ -1,7 +1,10 @@
 package yuuki.battle;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
 
 import yuuki.action.Action;
 import yuuki.entity.Character;
@@ -10,6 +13,18 @@ import yuuki.entity.Character;
  * The battle engine for all fights in the Yuuki system. It is not
  * independently-driven. It must be explicitly instructed to advance its
  * execution. This allows it to be decoupled from any interfaces.
+ * 
+ * Turns are taken in the order of a TurnTimeline. Each fighter waits a time
+ * between its turns that is shorter the higher its agility is, so faster
+ * fighters act more often; fighters with the same agility take turns in the
+ * order that they were given in. Each fighter's fighter ID and team ID are
+ * set when the battle starts and do not change when other fighters or teams
+ * are removed.
+ * 
+ * Everything in a battle that is left to chance comes from one source of
+ * randomness that is made from the battle's seed and shared by its fighters.
+ * A battle between AI fighters that is started again with the same fighters
+ * and seed plays out exactly the same way.
  */
 public class Battle {
 	
@@ -34,7 +49,23 @@ public class Battle {
 	private static final double MANA_GEN = 0.05;
 	
 	/**
-	 * The player whose turn it currently is.
+	 * The time that a fighter with an agility of 1 waits between turns.
+	 */
+	private static final long TURN_LENGTH = 1L << 20;
+	
+	/**
+	 * All fighters that started the battle, by fighter ID.
+	 */
+	private Character[] combatants;
+	
+	/**
+	 * The team IDs of the teams that have had fighters removed this turn.
+	 * Those teams still hold the removed fighters until the turn ends.
+	 */
+	private BitSet changedTeams;
+	
+	/**
+	 * The fighter ID of the player whose turn it currently is.
 	 */
 	private int currentFighter;
 	
@@ -42,7 +73,8 @@ public class Battle {
 	 * The currently active fighters. The first array is the list of teams and
 	 * the second array is the fighter on that team. For example, you would use
 	 * the notation fighters.get(1).get(0) to get the first fighter of the
-	 * second team.
+	 * second team. Teams are removed from this list once they are empty, so
+	 * the index of a team here is not always its team ID.
 	 */
 	private ArrayList<ArrayList<Character>> fighters;
 	
@@ -62,6 +94,11 @@ public class Battle {
 	 */
 	private State lastState;
 	
+	/**
+	 * The source of randomness for the battle.
+	 */
+	private Random random;
+	
 	/**
 	 * Amount of mana last regenerated.
 	 */
@@ -72,6 +109,11 @@ public class Battle {
 	 */
 	private ArrayList<Character> removedFighters;
 	
+	/**
+	 * The seed that the source of randomness was made from.
+	 */
+	private long seed;
+	
 	/**
 	 * The current state of this Battle. This determines what action is
 	 * taken the next time advance() is called.
@@ -79,9 +121,16 @@ public class Battle {
 	private State state;
 	
 	/**
-	 * The Characters arranged in the order that they take their turns.
+	 * Every team that started the battle, by team ID. Unlike the teams in
+	 * fighters, these are never removed.
 	 */
-	private ArrayList<Character> turnOrder;
+	private ArrayList<ArrayList<Character>> teams;
+	
+	/**
+	 * The fighters that are still in the battle, ordered by when their next
+	 * turns are.
+	 */
+	private TurnTimeline timeline;
 	
 	/**
 	 * Begins a new battle with the given participants.
@@ -91,10 +140,26 @@ public class Battle {
 	 * the Characters on that team.
 	 */
 	public Battle(Character[][] participants) {
+		this(participants, ThreadLocalRandom.current().nextLong());
+	}
+	
+	/**
+	 * Begins a new battle with the given participants and a given seed for
+	 * everything left to chance.
+	 *
+	 * @param participants The Characters involved in the battle. The array
+	 * is the teams of the Characters; each of these is an array containing
+	 * the Characters on that team.
+	 * @param seed The seed of the battle's source of randomness.
+	 */
+	public Battle(Character[][] participants, long seed) {
+		this.seed = seed;
+		random = new Random(seed);
 		removedFighters = new ArrayList<Character>();
+		changedTeams = new BitSet();
 		assignToFighters(participants);
 		orderFighters();
-		currentFighter = 0;
+		currentFighter = timeline.peek();
 		state = State.STARTING_TURN;
 	}
 	
@@ -146,6 +211,7 @@ public class Battle {
 			case ENDING_TURN:
 				emptyRemovedFighters();
 				checkTeamStatus();
+				lastAction.release();
 				switchState(State.CHECKING_VICTORY);
 				break;
 				
@@ -185,13 +251,14 @@ public class Battle {
 	 * @return The current fighter.
 	 */
 	public Character getCurrentFighter() {
-		return turnOrder.get(currentFighter);
+		return combatants[currentFighter];
 	}
 	
 	/**
-	 * Gets the fighters that are on a team.
+	 * Gets the fighters that are on a team that is still in the battle.
 	 *
-	 * @param team The team to get the fighters for.
+	 * @param team The index of the team among the teams that are left. Once
+	 * the battle is over, the winning team is at index 0.
 	 *
 	 * @return The fighters on the given team.
 	 */
@@ -201,7 +268,9 @@ public class Battle {
 	
 	/**
 	 * Gets the last action that a Character chose. This will be null if the
-	 * last advancement did not produce an Action.
+	 * last advancement did not produce an Action. The Action is released
+	 * back to its pool when the turn ends, so it must not be kept past the
+	 * ENDING_TURN state.
 	 *
 	 * @return The last Action that a fighter chose, or null if the fighter did
 	 * not just choose an Action.
@@ -237,6 +306,15 @@ public class Battle {
 		return removedFighters;
 	}
 	
+	/**
+	 * Gets the seed of this Battle's source of randomness.
+	 *
+	 * @return The seed.
+	 */
+	public long getSeed() {
+		return seed;
+	}
+	
 	/**
 	 * Gets where in the battle process this Battle currently is.
 	 *
@@ -247,7 +325,7 @@ public class Battle {
 	}
 	
 	/**
-	 * Gets the number of teams in this Battle.
+	 * Gets the number of teams that are still in this Battle.
 	 *
 	 * @return The number of teams.
 	 */
@@ -264,7 +342,7 @@ public class Battle {
 	public String toString() {
 		String str = "";
 		str += state + "/" + lastState + ":" + lastAction + " - \n";
-		str += currentFighter + " - " + turnOrder + "\n";
+		str += currentFighter + " - " + getCurrentFighter() + "\n";
 		str += fighters;
 		return str;
 	}
@@ -272,18 +350,27 @@ public class Battle {
 	/**
 	 * Assigns characters to the fighters list. Each character's fighter ID and
 	 * team ID is set and they are added to the internal array. The team ID is
-	 * arbitrary; as long as Characters on the same team have the same team ID,
-	 * the actual number doesn't matter. The fighter ID is simply set in the
-	 * order that the participants are given.
-	 */
-	private void assignToFighters(Character[][] teams) {
-		this.fighters = new ArrayList<ArrayList<Character>>(teams.length);
-		for (Character[] t : teams) {
+	 * the index of the Character's team in the participants. The fighter ID
+	 * is unique across all teams and is simply set in the order that the
+	 * participants are given. Neither is changed for the rest of the battle.
+	 */
+	private void assignToFighters(Character[][] participants) {
+		int count = 0;
+		for (Character[] t : participants) {
+			count += t.length;
+		}
+		combatants = new Character[count];
+		teams = new ArrayList<ArrayList<Character>>(participants.length);
+		fighters = new ArrayList<ArrayList<Character>>(participants.length);
+		int id = 0;
+		for (Character[] t : participants) {
 			ArrayList<Character> team = new ArrayList<Character>(t.length);
 			for (Character c : t) {
-				c.startFighting(team.size(), fighters.size());
+				c.startFighting(id, teams.size(), random);
+				combatants[id++] = c;
 				team.add(c);
 			}
+			teams.add(team);
 			fighters.add(team);
 		}
 	}
@@ -294,7 +381,7 @@ public class Battle {
 	 * @return True if only one team remains in active play; otherwise false.
 	 */
 	private boolean battleIsOver() {
-		return (fighters.size() == 1);
+		return (fighters.size() <= 1);
 	}
 	
 	/**
@@ -310,7 +397,8 @@ public class Battle {
 	 */
 	private void checkDeath() {
 		List<Character> targets = lastAction.getTargets();
-		for (Character c : targets) {
+		for (int i = 0; i < targets.size(); i++) {
+			Character c = targets.get(i);
 			if (!c.isAlive()) {
 				removeFighter(c);
 			}
@@ -330,22 +418,45 @@ public class Battle {
 	}
 	
 	/**
-	 * Removes the targeted fighter's team if there is no longer anyone on
-	 * it.
+	 * Removes the targeted fighters' teams if there is no longer anyone on
+	 * them.
 	 */
 	private void checkTeamStatus() {
-		int[] affectedTeams = lastAction.getAffectedTeams();
-		for (int t : affectedTeams) {
-			if (fighters.get(t).size() == 0) {
-				removeTeam(t);
+		for (int t = 0; t < teams.size(); t++) {
+			if (lastAction.isTeamAffected(t) && teams.get(t).isEmpty()) {
+				removeEmptyTeams();
+				break;
 			}
 		}
 	}
 	
+	/**
+	 * Takes the removed fighters out of their teams. Each team that lost a
+	 * fighter this turn is compacted once, keeping the order of the fighters
+	 * that are left.
+	 */
+	private void compactTeams() {
+		int t = changedTeams.nextSetBit(0);
+		while (t >= 0) {
+			ArrayList<Character> team = teams.get(t);
+			int kept = 0;
+			for (int i = 0; i < team.size(); i++) {
+				Character c = team.get(i);
+				if (timeline.contains(c.getFighterId())) {
+					team.set(kept++, c);
+				}
+			}
+			team.subList(kept, team.size()).clear();
+			t = changedTeams.nextSetBit(t + 1);
+		}
+		changedTeams.clear();
+	}
+	
 	/**
 	 * Empties the removed fighters array.
 	 */
 	private void emptyRemovedFighters() {
+		compactTeams();
 		for (int i = 0; i < removedFighters.size(); i++) {
 			Character f = removedFighters.get(i);
 			f.stopFighting();
@@ -354,45 +465,24 @@ public class Battle {
 	}
 	
 	/**
-	 * Sets the play order for the battle.
+	 * Gets the time that a fighter waits between its turns.
+	 * 
+	 * @param c The fighter.
+	 * 
+	 * @return The time until the fighter's next turn.
 	 */
-	private void orderFighters() {
-		turnOrder = new ArrayList<Character>();
-		for (ArrayList<Character> team: fighters) {
-			for (Character c : team) {
-				turnOrder.add(c);
-			}
-		}
+	private long getTurnInterval(Character c) {
+		return TURN_LENGTH / Math.max(1, c.getAgility());
 	}
 	
 	/**
-	 * Decrements the ID of all fighters on the given team with an higher than
-	 * the given one.
-	 *
-	 * @param teamId The ID of the team whose fighters to reassign.
-	 * @param id The ID to shift all fighters left towards.
-	 */
-	private void reassignIds(int teamId, int id) {
-		ArrayList<Character> team = fighters.get(teamId);
-		for (Character c : team) {
-			if (c.getFighterId() > id) {
-				c.setFighterId(c.getFighterId() - 1);
-			}
-		}
-	}
-	
-	/**
-	 * Decrements the team ID of all fighters on teams higher than the given
-	 * team.
-	 *
-	 * @param teamId The ID to shift all fighters left towards.
+	 * Sets the play order for the battle. Each fighter's first turn is one
+	 * turn interval after the start.
 	 */
-	private void reassignTeams(int teamId) {
-		for (int i = teamId; i < fighters.size(); i++) {
-			ArrayList<Character> team = fighters.get(i);
-			for (Character c : team) {
-				c.setTeamId(i);
-			}
+	private void orderFighters() {
+		timeline = new TurnTimeline(combatants.length);
+		for (int id = 0; id < combatants.length; id++) {
+			timeline.add(id, getTurnInterval(combatants[id]));
 		}
 	}
 	
@@ -409,43 +499,48 @@ public class Battle {
 	}
 	
 	/**
-	 * Removes a fighter from the field. All of the Character's battle params
-	 * are reset and it is removed from the list of fighters.
-	 *
-	 * @param f The fighter to remove.
+	 * Removes the teams that no longer have anyone on them from the field.
+	 * The teams that are left keep their order.
 	 */
-	private void removeFighter(Character f) {
-		int team = f.getTeamId();
-		int id = f.getFighterId();
-		int turnId = turnOrder.indexOf(f);
-		turnOrder.remove(turnId);
-		if (currentFighter > turnId) {
-			currentFighter--;
+	private void removeEmptyTeams() {
+		int kept = 0;
+		for (int i = 0; i < fighters.size(); i++) {
+			ArrayList<Character> team = fighters.get(i);
+			if (!team.isEmpty()) {
+				fighters.set(kept++, team);
+			}
 		}
-		fighters.get(team).remove(id);
-		reassignIds(team, id);
-		removedFighters.add(f);
+		fighters.subList(kept, fighters.size()).clear();
 	}
 	
 	/**
-	 * Removes a team from the field.
+	 * Removes a fighter from the field. The fighter stops taking turns at
+	 * once, but it is only taken out of its team and has its battle params
+	 * reset when the turn ends. Fighters that have already been removed are
+	 * ignored.
 	 *
-	 * @param teamId The id of the team to remove.
+	 * @param f The fighter to remove.
 	 */
-	private void removeTeam(int teamId) {
-		fighters.remove(teamId);
-		reassignTeams(teamId);
+	private void removeFighter(Character f) {
+		int id = f.getFighterId();
+		if (id >= 0 && timeline.remove(id)) {
+			changedTeams.set(f.getTeamId());
+			removedFighters.add(f);
+		}
 	}
 	
 	/**
-	 * Sets the current player to the player whose turn is next.
+	 * Sets the current player to the player whose turn is next. The current
+	 * player's next turn is put one turn interval after this one.
 	 */
 	private void setNextPlayer() {
 		fled = false;
-		currentFighter++;
-		if (currentFighter >= turnOrder.size()) {
-			currentFighter = 0;
+		if (timeline.contains(currentFighter)) {
+			Character c = combatants[currentFighter];
+			long next = timeline.getTime(currentFighter) + getTurnInterval(c);
+			timeline.reschedule(currentFighter, next);
 		}
+		currentFighter = timeline.peek();
 	}
 	
 	/**
@@ -0,0 +1,574 @@
+package yuuki.battle;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import yuuki.action.Action;
+import yuuki.entity.Character;
+import yuuki.entity.EntityFactory;
+import yuuki.util.InvalidIndexException;
+
+/**
+ * A compact record of one Battle between AI fighters. It holds the seed of
+ * the battle, the definition name and level of every fighter, and for each
+ * turn the move that was chosen, its targets and the effect that it had on
+ * each of them. Since a Battle that is started again with the same fighters
+ * and seed plays out the same way, a BattleLog is enough to replay its
+ * battle and check that it still turns out the same.
+ * 
+ * Logs are stored in archives of any number of logs. All values are
+ * big-endian. An archive starts with:
+ * 
+ * <pre>
+ * int   magic        'BTLG'
+ * short version      FORMAT_VERSION
+ * short reserved     0
+ * int   logCount
+ * </pre>
+ * 
+ * Each log then follows:
+ * 
+ * <pre>
+ * long  seed
+ * byte  ended        1 if the battle ended, 0 if it was stopped
+ * int   winner       team ID of the winner, or -1
+ * short teamCount
+ *       for each team: short fighterCount, then for each fighter a
+ *       modified UTF-8 definition name and a short level
+ * int   turnCount
+ * int   turnBytes
+ * byte  turns[turnBytes]
+ * </pre>
+ * 
+ * Each turn is a sequence of variable-length integers, seven bits to a byte
+ * with the high bit set on all but the last byte: the fighter ID of the
+ * fighter whose turn it was, the index of its move, 1 if the move succeeded
+ * or 0 if it did not, the number of targets, and then the fighter ID and
+ * actual effect of each target. Effects are zigzag-encoded so that small
+ * negative values stay small.
+ */
+public class BattleLog {
+	
+	/**
+	 * Reads the turns of a BattleLog in order.
+	 */
+	public static class Reader {
+		
+		/**
+		 * The encoded turns.
+		 */
+		private final byte[] bytes;
+		
+		/**
+		 * The offset of the next turn.
+		 */
+		private int position;
+		
+		/**
+		 * Creates a new Reader.
+		 * 
+		 * @param bytes The encoded turns.
+		 */
+		private Reader(byte[] bytes) {
+			this.bytes = bytes;
+		}
+		
+		/**
+		 * Reads the next turn.
+		 * 
+		 * @param turn The Turn to read into.
+		 * 
+		 * @return Whether there was another turn to read.
+		 */
+		public boolean next(Turn turn) {
+			if (position >= bytes.length) {
+				return false;
+			}
+			turn.fighter = readVarInt();
+			turn.move = readVarInt();
+			turn.successful = readVarInt() != 0;
+			turn.setTargetCount(readVarInt());
+			for (int i = 0; i < turn.targetCount; i++) {
+				turn.targets[i] = readVarInt();
+				int zigzag = readVarInt();
+				turn.effects[i] = (zigzag >>> 1) ^ -(zigzag & 1);
+			}
+			return true;
+		}
+		
+		/**
+		 * Reads a variable-length integer.
+		 * 
+		 * @return The integer.
+		 */
+		private int readVarInt() {
+			int value = 0;
+			int shift = 0;
+			byte b;
+			do {
+				b = bytes[position++];
+				value |= (b & 0x7f) << shift;
+				shift += 7;
+			} while (b < 0);
+			return value;
+		}
+		
+	}
+	
+	/**
+	 * One turn of a battle. A Turn is reused for every turn that is recorded
+	 * or read, so it must be copied if it is to be kept.
+	 */
+	public static class Turn {
+		
+		/**
+		 * The actual effect on each target.
+		 */
+		private int[] effects = new int[1];
+		
+		/**
+		 * The fighter ID of the fighter whose turn it was.
+		 */
+		private int fighter;
+		
+		/**
+		 * The index of the move among the fighter's moves.
+		 */
+		private int move;
+		
+		/**
+		 * Whether the move succeeded.
+		 */
+		private boolean successful;
+		
+		/**
+		 * The number of targets.
+		 */
+		private int targetCount;
+		
+		/**
+		 * The fighter ID of each target.
+		 */
+		private int[] targets = new int[1];
+		
+		/**
+		 * Checks whether this Turn is the same as another.
+		 * 
+		 * @param obj The other Turn.
+		 * 
+		 * @return Whether the same move was done by the same fighter to the
+		 * same targets with the same results.
+		 */
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Turn)) {
+				return false;
+			}
+			Turn t = (Turn) obj;
+			if (fighter != t.fighter || move != t.move ||
+					successful != t.successful ||
+					targetCount != t.targetCount) {
+				return false;
+			}
+			for (int i = 0; i < targetCount; i++) {
+				if (targets[i] != t.targets[i] || effects[i] != t.effects[i]) {
+					return false;
+				}
+			}
+			return true;
+		}
+		
+		/**
+		 * Gets the actual effect on one of the targets.
+		 * 
+		 * @param index The index of the target.
+		 * 
+		 * @return The actual effect.
+		 */
+		public int getEffect(int index) {
+			return effects[index];
+		}
+		
+		/**
+		 * Gets the fighter whose turn it was.
+		 * 
+		 * @return The fighter ID.
+		 */
+		public int getFighter() {
+			return fighter;
+		}
+		
+		/**
+		 * Gets the move that was done.
+		 * 
+		 * @return The index of the move among the fighter's moves.
+		 */
+		public int getMove() {
+			return move;
+		}
+		
+		/**
+		 * Gets one of the targets of the move.
+		 * 
+		 * @param index The index of the target.
+		 * 
+		 * @return The fighter ID of the target.
+		 */
+		public int getTarget(int index) {
+			return targets[index];
+		}
+		
+		/**
+		 * Gets the number of targets of the move.
+		 * 
+		 * @return The target count.
+		 */
+		public int getTargetCount() {
+			return targetCount;
+		}
+		
+		@Override
+		public int hashCode() {
+			int hash = (fighter * 31 + move) * 31 + targetCount;
+			for (int i = 0; i < targetCount; i++) {
+				hash = (hash * 31 + targets[i]) * 31 + effects[i];
+			}
+			return successful ? hash : ~hash;
+		}
+		
+		/**
+		 * Checks whether the move succeeded.
+		 * 
+		 * @return Whether it succeeded.
+		 */
+		public boolean isSuccessful() {
+			return successful;
+		}
+		
+		/**
+		 * Converts this Turn to a String.
+		 * 
+		 * @return The String version.
+		 */
+		@Override
+		public String toString() {
+			StringBuilder sb = new StringBuilder();
+			sb.append("fighter ").append(fighter).append(" move ").append(move);
+			sb.append(successful ? " succeeded" : " failed");
+			for (int i = 0; i < targetCount; i++) {
+				sb.append(i == 0 ? " " : ", ");
+				sb.append(targets[i]).append(':').append(effects[i]);
+			}
+			return sb.toString();
+		}
+		
+		/**
+		 * Sets this Turn to an Action that has just been applied.
+		 * 
+		 * @param a The Action. Its origin and targets must still be in the
+		 * battle.
+		 */
+		void set(Action a) {
+			Character origin = a.getOrigin();
+			List<Character> t = a.getTargets();
+			fighter = origin.getFighterId();
+			move = origin.getMoveIndex(a);
+			successful = a.wasSuccessful();
+			setTargetCount(t.size());
+			for (int i = 0; i < targetCount; i++) {
+				targets[i] = t.get(i).getFighterId();
+				effects[i] = a.getActualEffect(i);
+			}
+		}
+		
+		/**
+		 * Sets the number of targets, making room for them if needed.
+		 * 
+		 * @param count The number of targets.
+		 */
+		private void setTargetCount(int count) {
+			if (count > targets.length) {
+				targets = new int[count];
+				effects = new int[count];
+			}
+			targetCount = count;
+		}
+		
+	}
+	
+	/**
+	 * The version of the format that is read and written.
+	 */
+	public static final short FORMAT_VERSION = 1;
+	
+	/**
+	 * The first four bytes of every battle log archive.
+	 */
+	public static final int MAGIC = 0x42544c47;
+	
+	/**
+	 * Whether the battle ended on its own, rather than being stopped.
+	 */
+	private boolean ended;
+	
+	/**
+	 * The level of each fighter on each team.
+	 */
+	private final int[][] levels;
+	
+	/**
+	 * The definition name of each fighter on each team.
+	 */
+	private final String[][] names;
+	
+	/**
+	 * The seed of the battle.
+	 */
+	private final long seed;
+	
+	/**
+	 * The number of turns in the log.
+	 */
+	private int turnCount;
+	
+	/**
+	 * The encoded turns.
+	 */
+	private final ByteArrayOutputStream turns;
+	
+	/**
+	 * The team ID of the team that won, or -1 if no team did.
+	 */
+	private int winner;
+	
+	/**
+	 * Creates a new BattleLog with no turns.
+	 * 
+	 * @param seed The seed of the battle.
+	 * @param names The definition name of each fighter on each team.
+	 * @param levels The level of each fighter, in the same layout as the
+	 * names.
+	 */
+	public BattleLog(long seed, String[][] names, int[][] levels) {
+		this.seed = seed;
+		this.names = names;
+		this.levels = levels;
+		this.turns = new ByteArrayOutputStream();
+		this.winner = -1;
+	}
+	
+	/**
+	 * Reads an archive of battle logs.
+	 * 
+	 * @param in The stream to read the archive from.
+	 * 
+	 * @return The logs in the archive.
+	 * 
+	 * @throws IOException If the stream is not a battle log archive of a
+	 * known version, or if an I/O error occurs.
+	 */
+	public static List<BattleLog> readAll(DataInput in) throws IOException {
+		if (in.readInt() != MAGIC) {
+			throw new IOException("not a battle log archive");
+		}
+		short version = in.readShort();
+		if (version != FORMAT_VERSION) {
+			throw new IOException("unknown battle log version " + version);
+		}
+		in.readShort();
+		int count = in.readInt();
+		List<BattleLog> logs = new ArrayList<BattleLog>(count);
+		for (int i = 0; i < count; i++) {
+			logs.add(readLog(in));
+		}
+		return logs;
+	}
+	
+	/**
+	 * Writes an archive of battle logs.
+	 * 
+	 * @param out The stream to write the archive to.
+	 * @param logs The logs to write.
+	 * 
+	 * @throws IOException If an I/O error occurs.
+	 */
+	public static void writeAll(DataOutput out, List<BattleLog> logs) throws
+	IOException {
+		out.writeInt(MAGIC);
+		out.writeShort(FORMAT_VERSION);
+		out.writeShort(0);
+		out.writeInt(logs.size());
+		for (BattleLog log : logs) {
+			log.write(out);
+		}
+	}
+	
+	
+	/**
+	 * Creates a new set of the fighters of the battle, in the state they were
+	 * in when the battle started.
+	 * 
+	 * @param entities Creates the fighters.
+	 * 
+	 * @return The fighters of each team.
+	 * 
+	 * @throws InvalidIndexException If one of the fighter names does not
+	 * have a definition.
+	 */
+	public Character[][] createTeams(EntityFactory entities) throws
+	InvalidIndexException {
+		return BattleSimulator.createTeams(entities, names, levels);
+	}
+	
+	/**
+	 * Gets the seed of the battle.
+	 * 
+	 * @return The seed.
+	 */
+	public long getSeed() {
+		return seed;
+	}
+	
+	/**
+	 * Gets the number of turns in this BattleLog.
+	 * 
+	 * @return The turn count.
+	 */
+	public int getTurnCount() {
+		return turnCount;
+	}
+	
+	/**
+	 * Gets the team that won the battle.
+	 * 
+	 * @return The team ID of the winner, or -1 if the battle was stopped
+	 * before it ended or ended with no team left.
+	 */
+	public int getWinner() {
+		return winner;
+	}
+	
+	/**
+	 * Checks whether the battle ended on its own.
+	 * 
+	 * @return False if the battle was stopped before it ended, such as by a
+	 * turn limit.
+	 */
+	public boolean isEnded() {
+		return ended;
+	}
+	
+	
+	
+	/**
+	 * Creates a Reader that reads the turns of this BattleLog from the
+	 * start.
+	 * 
+	 * @return The Reader.
+	 */
+	public Reader read() {
+		return new Reader(turns.toByteArray());
+	}
+	
+	/**
+	 * Adds a turn to the end of this BattleLog.
+	 * 
+	 * @param turn The turn to add.
+	 */
+	void addTurn(Turn turn) {
+		writeVarInt(turn.fighter);
+		writeVarInt(turn.move);
+		writeVarInt(turn.successful ? 1 : 0);
+		writeVarInt(turn.targetCount);
+		for (int i = 0; i < turn.targetCount; i++) {
+			writeVarInt(turn.targets[i]);
+			writeVarInt((turn.effects[i] << 1) ^ (turn.effects[i] >> 31));
+		}
+		turnCount++;
+	}
+	
+	/**
+	 * Records that the battle ended on its own.
+	 * 
+	 * @param winner The team ID of the team that won, or -1 if no team did.
+	 */
+	void setEnded(int winner) {
+		this.ended = true;
+		this.winner = winner;
+	}
+	
+	
+	/**
+	 * Reads a log from an archive.
+	 * 
+	 * @param in The stream to read from.
+	 * 
+	 * @return The log.
+	 * 
+	 * @throws IOException If an I/O error occurs.
+	 */
+	private static BattleLog readLog(DataInput in) throws IOException {
+		long seed = in.readLong();
+		boolean ended = in.readByte() != 0;
+		int winner = in.readInt();
+		String[][] names = new String[in.readShort()][];
+		int[][] levels = new int[names.length][];
+		for (int i = 0; i < names.length; i++) {
+			names[i] = new String[in.readShort()];
+			levels[i] = new int[names[i].length];
+			for (int j = 0; j < names[i].length; j++) {
+				names[i][j] = in.readUTF();
+				levels[i][j] = in.readShort();
+			}
+		}
+		BattleLog log = new BattleLog(seed, names, levels);
+		log.ended = ended;
+		log.winner = winner;
+		log.turnCount = in.readInt();
+		byte[] bytes = new byte[in.readInt()];
+		in.readFully(bytes);
+		log.turns.write(bytes, 0, bytes.length);
+		return log;
+	}
+	/**
+	 * Writes this BattleLog to an archive.
+	 * 
+	 * @param out The stream to write to.
+	 * 
+	 * @throws IOException If an I/O error occurs.
+	 */
+	private void write(DataOutput out) throws IOException {
+		out.writeLong(seed);
+		out.writeByte(ended ? 1 : 0);
+		out.writeInt(winner);
+		out.writeShort(names.length);
+		for (int i = 0; i < names.length; i++) {
+			out.writeShort(names[i].length);
+			for (int j = 0; j < names[i].length; j++) {
+				out.writeUTF(names[i][j]);
+				out.writeShort(levels[i][j]);
+			}
+		}
+		out.writeInt(turnCount);
+		out.writeInt(turns.size());
+		out.write(turns.toByteArray());
+	}
+	
+	/**
+	 * Adds a variable-length integer to the encoded turns.
+	 * 
+	 * @param value The integer. Negative values take five bytes.
+	 */
+	private void writeVarInt(int value) {
+		while ((value & ~0x7f) != 0) {
+			turns.write((value & 0x7f) | 0x80);
+			value >>>= 7;
+		}
+		turns.write(value);
+	}
+	
+}
@@ -0,0 +1,92 @@
+package yuuki.battle;
+
+import java.util.List;
+
+import yuuki.entity.Character;
+
+/**
+ * Records a Battle between AI fighters into a BattleLog as it is advanced.
+ * The recorder does not drive the battle; record() must be called after
+ * every call to the battle's advance() method.
+ */
+public class BattleRecorder {
+	
+	/**
+	 * The battle being recorded.
+	 */
+	private final Battle battle;
+	
+	/**
+	 * The log that the battle is recorded in.
+	 */
+	private final BattleLog log;
+	
+	/**
+	 * Holds each turn while it is encoded.
+	 */
+	private final BattleLog.Turn turn;
+	
+	/**
+	 * Creates a new BattleRecorder. It must be created before the battle is
+	 * first advanced.
+	 * 
+	 * @param battle The battle to record.
+	 * @param participants The fighters that the battle was started with.
+	 * Each must have the name of its entity definition.
+	 */
+	public BattleRecorder(Battle battle, Character[][] participants) {
+		String[][] names = new String[participants.length][];
+		int[][] levels = new int[participants.length][];
+		for (int i = 0; i < participants.length; i++) {
+			names[i] = new String[participants[i].length];
+			levels[i] = new int[participants[i].length];
+			for (int j = 0; j < participants[i].length; j++) {
+				names[i][j] = participants[i][j].getName();
+				levels[i][j] = participants[i][j].getLevel();
+			}
+		}
+		this.battle = battle;
+		this.log = new BattleLog(battle.getSeed(), names, levels);
+		this.turn = new BattleLog.Turn();
+	}
+	
+	/**
+	 * Gets the log that the battle has been recorded in so far.
+	 * 
+	 * @return The log.
+	 */
+	public BattleLog getLog() {
+		return log;
+	}
+	
+	/**
+	 * Records the step that the battle has just taken.
+	 */
+	public void record() {
+		if (battle.getLastState() == Battle.State.APPLYING_ACTION) {
+			turn.set(battle.getLastAction());
+			log.addTurn(turn);
+		} else if (battle.getState() == Battle.State.ENDING &&
+				!log.isEnded()) {
+			log.setEnded(getWinner(battle));
+		}
+	}
+	
+	/**
+	 * Finds the team that won a battle that has ended.
+	 * 
+	 * @param battle The battle.
+	 * 
+	 * @return The team ID of the winner, or -1 if no team is left.
+	 */
+	static int getWinner(Battle battle) {
+		if (battle.getTeamCount() > 0) {
+			List<Character> survivors = battle.getFighters(0);
+			if (!survivors.isEmpty()) {
+				return survivors.get(0).getTeamId();
+			}
+		}
+		return -1;
+	}
+	
+}
@@ -0,0 +1,241 @@
+package yuuki.battle;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import yuuki.entity.Character;
+import yuuki.entity.EntityFactory;
+import yuuki.util.InvalidIndexException;
+
+/**
+ * Replays recorded battles without a user interface and checks that they
+ * still play out the way they did when they were recorded. Each battle is
+ * started again with the same fighters and seed and advanced straight
+ * through, and every turn is compared with the one in the log. A battle
+ * differs as soon as a fighter chooses a different move or target or its
+ * move has a different effect, so replaying an archive of battles after a
+ * balance change shows which of them the change affected.
+ */
+public class BattleReplayer {
+	
+	/**
+	 * Holds the turn that the replayed battle took.
+	 */
+	private final BattleLog.Turn actual;
+	
+	/**
+	 * Creates the fighters of each battle.
+	 */
+	private final EntityFactory entities;
+	
+	/**
+	 * Holds the turn that the log says was taken.
+	 */
+	private final BattleLog.Turn expected;
+	
+	/**
+	 * Creates a new BattleReplayer.
+	 * 
+	 * @param entities Creates the fighters of the replayed battles.
+	 */
+	public BattleReplayer(EntityFactory entities) {
+		this.entities = entities;
+		this.actual = new BattleLog.Turn();
+		this.expected = new BattleLog.Turn();
+	}
+	
+	/**
+	 * Runs the replayer from the command line. It either records battles
+	 * into an archive or replays every battle in an archive.
+	 * 
+	 * @param args Either "record", the resource root that contains the
+	 * definition files, the archive to write, the number of battles to
+	 * record and two or more teams given as for BattleSimulator; or
+	 * "verify", the resource root and the archive to replay.
+	 * 
+	 * @throws Exception If the definitions or archive cannot be loaded or
+	 * a battle fails.
+	 */
+	public static void main(String[] args) throws Exception {
+		boolean record = args.length >= 6 && args[0].equals("record");
+		boolean verify = args.length == 3 && args[0].equals("verify");
+		if (!record && !verify) {
+			System.err.println("usage: BattleReplayer record <resource root> "
+					+ "<archive> <battles> <team> <team> [<team>...]");
+			System.err.println("       BattleReplayer verify <resource root> "
+					+ "<archive>");
+			System.exit(1);
+		}
+		EntityFactory entities;
+		entities = BattleSimulator.loadEntities(new File(args[1]));
+		File archive = new File(args[2]);
+		if (record) {
+			long battles = Long.parseLong(args[3]);
+			String[][] names = new String[args.length - 4][];
+			int[][] levels = new int[names.length][];
+			BattleSimulator.parseTeams(args, 4, names, levels);
+			recordArchive(entities, archive, battles, names, levels);
+		} else if (!verifyArchive(entities, archive)) {
+			System.exit(2);
+		}
+	}
+	
+	/**
+	 * Records a battle between AI fighters.
+	 * 
+	 * @param teams The fighters of each team. They must not have been in a
+	 * battle yet, and each must have the name of its entity definition.
+	 * @param seed The seed of the battle.
+	 * @param turnLimit The most turns to record. The battle is stopped once
+	 * it reaches this many turns.
+	 * 
+	 * @return The log of the battle.
+	 */
+	public static BattleLog record(Character[][] teams, long seed,
+			int turnLimit) {
+		Battle battle = new Battle(teams, seed);
+		BattleRecorder recorder = new BattleRecorder(battle, teams);
+		BattleLog log = recorder.getLog();
+		while (battle.advance()) {
+			recorder.record();
+			if (log.getTurnCount() >= turnLimit) {
+				break;
+			}
+		}
+		return log;
+	}
+	
+	/**
+	 * Replays a battle and compares it with its log.
+	 * 
+	 * @param log The log of the battle.
+	 * 
+	 * @return A description of the first way in which the replayed battle
+	 * differs from the log, or null if it plays out the same.
+	 * 
+	 * @throws InvalidIndexException If one of the fighter names does not
+	 * have a definition.
+	 */
+	public String replay(BattleLog log) throws InvalidIndexException {
+		Battle battle = new Battle(log.createTeams(entities), log.getSeed());
+		BattleLog.Reader reader = log.read();
+		int turns = 0;
+		while (battle.advance()) {
+			if (battle.getLastState() != Battle.State.APPLYING_ACTION) {
+				continue;
+			}
+			if (!reader.next(expected)) {
+				if (log.isEnded()) {
+					return "turn " + turns + ": battle went on past its end";
+				}
+				return null;
+			}
+			actual.set(battle.getLastAction());
+			if (!actual.equals(expected)) {
+				return "turn " + turns + ": expected " + expected + "; was "
+						+ actual;
+			}
+			turns++;
+		}
+		if (turns < log.getTurnCount()) {
+			return "turn " + turns + ": battle ended early";
+		} else if (!log.isEnded()) {
+			return null;
+		}
+		int winner = BattleRecorder.getWinner(battle);
+		if (winner != log.getWinner()) {
+			return "expected team " + log.getWinner() + " to win; was team "
+					+ winner;
+		}
+		return null;
+	}
+	
+	/**
+	 * Records battles between new copies of the same teams into an archive.
+	 * The battles are stopped at BattleSimulator.DEFAULT_TURN_LIMIT turns.
+	 * 
+	 * @param entities Creates the fighters.
+	 * @param archive The file to write the archive to.
+	 * @param battles The number of battles to record.
+	 * @param names The definition names of the fighters on each team.
+	 * @param levels The levels of the fighters, in the same layout as the
+	 * names.
+	 * 
+	 * @throws InvalidIndexException If one of the fighter names does not
+	 * have a definition.
+	 * @throws IOException If the archive cannot be written.
+	 */
+	private static void recordArchive(EntityFactory entities, File archive,
+			long battles, String[][] names, int[][] levels) throws
+			InvalidIndexException, IOException {
+		long start = System.nanoTime();
+		List<BattleLog> logs = new ArrayList<BattleLog>();
+		Random random = new Random();
+		for (long i = 0; i < battles; i++) {
+			Character[][] teams;
+			teams = BattleSimulator.createTeams(entities, names, levels);
+			logs.add(record(teams, random.nextLong(),
+					BattleSimulator.DEFAULT_TURN_LIMIT));
+		}
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+				new FileOutputStream(archive)));
+		try {
+			BattleLog.writeAll(out, logs);
+		} finally {
+			out.close();
+		}
+		double secs = (System.nanoTime() - start) / 1e9;
+		System.out.println(String.format("%d battles recorded in %.2f s",
+				battles, secs));
+	}
+	
+	/**
+	 * Replays every battle in an archive and prints the ones that differ.
+	 * 
+	 * @param entities Creates the fighters.
+	 * @param archive The archive to replay.
+	 * 
+	 * @return Whether every battle played out the same.
+	 * 
+	 * @throws InvalidIndexException If one of the fighter names does not
+	 * have a definition.
+	 * @throws IOException If the archive cannot be read.
+	 */
+	private static boolean verifyArchive(EntityFactory entities, File archive)
+			throws InvalidIndexException, IOException {
+		DataInputStream in = new DataInputStream(new BufferedInputStream(
+				new FileInputStream(archive)));
+		List<BattleLog> logs;
+		try {
+			logs = BattleLog.readAll(in);
+		} finally {
+			in.close();
+		}
+		BattleReplayer replayer = new BattleReplayer(entities);
+		int differed = 0;
+		long start = System.nanoTime();
+		for (int i = 0; i < logs.size(); i++) {
+			String difference = replayer.replay(logs.get(i));
+			if (difference != null) {
+				System.out.println("battle " + i + ": " + difference);
+				differed++;
+			}
+		}
+		double secs = (System.nanoTime() - start) / 1e9;
+		System.out.println(String.format(
+				"%d battles replayed in %.2f s (%.1f battles/sec), %d differed",
+				logs.size(), secs, (secs > 0) ? logs.size() / secs : 0.0,
+				differed));
+		return differed == 0;
+	}
+	
+}
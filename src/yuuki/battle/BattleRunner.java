@@ -183,11 +183,10 @@ public class BattleRunner implements Runnable {
 	 * @param a The Action to output.
 	 */
 	private void outputActionEffects(Action a) throws InterruptedException {
-		int[] effects = a.getActualEffects();
 		List<Character> targets = a.getTargets();
-		for (int i = 0; i < effects.length; i++) {
+		for (int i = 0; i < targets.size(); i++) {
 			Character t = targets.get(i);
-			int change = effects[i];
+			int change = a.getActualEffect(i);
 			if (a.hasPositiveEffect()) {
 				ui.showRecovery(t, a.getEffectStat(), change);
 			} else {
@@ -0,0 +1,410 @@
+package yuuki.battle;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import yuuki.action.Action;
+import yuuki.action.ActionFactory;
+import yuuki.entity.Character;
+import yuuki.entity.EntityFactory;
+import yuuki.file.ActionLoader;
+import yuuki.file.EntityLoader;
+import yuuki.file.ResourceFormatException;
+import yuuki.file.ResourceNotFoundException;
+import yuuki.util.InvalidIndexException;
+
+/**
+ * Runs many AI-controlled Battles between the same teams without a user
+ * interface, to see how balanced the teams are. Each Battle is advanced
+ * straight through to its end with no pauses, and the battles are spread
+ * across a number of threads. The wins, turn counts and damage of every
+ * battle are gathered into a SimulationReport.
+ * 
+ * Every fighter is a NonPlayerCharacter created from the entity definitions,
+ * so the player character may be simulated by giving its definition name.
+ */
+public class BattleSimulator {
+	
+	/**
+	 * Runs a share of the battles of a simulation.
+	 */
+	private class Worker implements Callable<SimulationReport> {
+		
+		/**
+		 * The number of battles to run.
+		 */
+		private final long battles;
+		
+		/**
+		 * Creates a new Worker.
+		 * 
+		 * @param battles The number of battles to run.
+		 */
+		public Worker(long battles) {
+			this.battles = battles;
+		}
+		
+		@Override
+		public SimulationReport call() throws InvalidIndexException {
+			SimulationReport report;
+			report = new SimulationReport(names.length, turnLimit);
+			for (long i = 0; i < battles; i++) {
+				runBattle(report);
+			}
+			return report;
+		}
+		
+	}
+	
+	/**
+	 * The most turns that a battle may take if no limit is given. A battle
+	 * that reaches the limit is counted as a draw.
+	 */
+	public static final int DEFAULT_TURN_LIMIT = 1000;
+	
+	/**
+	 * The path of the action definitions file, relative to the resource
+	 * root.
+	 */
+	private static final String ACTIONS_FILE = "data/actions.def";
+	
+	/**
+	 * The path of the entity definitions file, relative to the resource
+	 * root.
+	 */
+	private static final String ENTITIES_FILE = "data/monsters.def";
+	
+	/**
+	 * Creates the fighters of each battle.
+	 */
+	private final EntityFactory entities;
+	
+	/**
+	 * The levels of the fighters on each team.
+	 */
+	private final int[][] levels;
+	
+	/**
+	 * The definition names of the fighters on each team.
+	 */
+	private final String[][] names;
+	
+	/**
+	 * The number of threads that battles are run on.
+	 */
+	private int threadCount;
+	
+	/**
+	 * The most turns that a battle may take.
+	 */
+	private int turnLimit;
+	
+	/**
+	 * Creates a new BattleSimulator. It runs on as many threads as there are
+	 * processors.
+	 * 
+	 * @param entities Creates the fighters. It must not be changed while a
+	 * simulation is running.
+	 * @param names The definition names of the fighters on each team. There
+	 * must be at least two teams.
+	 * @param levels The levels of the fighters, in the same layout as the
+	 * names.
+	 */
+	public BattleSimulator(EntityFactory entities, String[][] names,
+			int[][] levels) {
+		if (names.length < 2) {
+			throw new IllegalArgumentException("at least two teams needed");
+		}
+		this.entities = entities;
+		this.names = names;
+		this.levels = levels;
+		this.threadCount = Runtime.getRuntime().availableProcessors();
+		this.turnLimit = DEFAULT_TURN_LIMIT;
+	}
+	
+	/**
+	 * Runs the simulator from the command line. The report is printed to
+	 * standard output.
+	 * 
+	 * @param args The resource root that contains the definition files, the
+	 * number of battles to run, and then two or more teams. Each team is a
+	 * comma-separated list of definition names, each optionally followed by
+	 * a colon and a level, such as "Slime:3,Slime:3". Fighters are level 1 if
+	 * no level is given.
+	 * 
+	 * @throws Exception If the definitions cannot be loaded or the
+	 * simulation fails.
+	 */
+	public static void main(String[] args) throws Exception {
+		if (args.length < 4) {
+			System.err.println("usage: BattleSimulator <resource root> "
+					+ "<battles> <team> <team> [<team>...]");
+			System.exit(1);
+		}
+		File root = new File(args[0]);
+		long battles = Long.parseLong(args[1]);
+		String[][] names = new String[args.length - 2][];
+		int[][] levels = new int[names.length][];
+		parseTeams(args, 2, names, levels);
+		EntityFactory entities = loadEntities(root);
+		BattleSimulator sim = new BattleSimulator(entities, names, levels);
+		System.out.println(sim.run(battles));
+	}
+	
+	/**
+	 * Gets the number of threads that battles are run on.
+	 * 
+	 * @return The thread count.
+	 */
+	public int getThreadCount() {
+		return threadCount;
+	}
+	
+	/**
+	 * Gets the most turns that a battle may take before it is a draw.
+	 * 
+	 * @return The turn limit.
+	 */
+	public int getTurnLimit() {
+		return turnLimit;
+	}
+	
+	/**
+	 * Runs a number of battles and reports their results. This blocks until
+	 * every battle is over.
+	 * 
+	 * @param battles The number of battles to run.
+	 * 
+	 * @return The merged results of all battles.
+	 * 
+	 * @throws InvalidIndexException If one of the fighter names does not
+	 * have a definition.
+	 * @throws InterruptedException If the current thread is interrupted while
+	 * waiting for the battles.
+	 */
+	public SimulationReport run(long battles) throws InvalidIndexException,
+	InterruptedException {
+		createTeams(entities, names, levels);
+		SimulationReport report;
+		report = new SimulationReport(names.length, turnLimit);
+		int threads = (int) Math.max(1, Math.min(threadCount, battles));
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		long start = System.nanoTime();
+		try {
+			List<Future<SimulationReport>> parts;
+			parts = new ArrayList<Future<SimulationReport>>(threads);
+			for (int i = 0; i < threads; i++) {
+				long share = battles / threads;
+				share += (i < battles % threads) ? 1 : 0;
+				parts.add(pool.submit(new Worker(share)));
+			}
+			for (Future<SimulationReport> f : parts) {
+				report.merge(f.get());
+			}
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof InvalidIndexException) {
+				throw (InvalidIndexException) cause;
+			} else if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			} else {
+				throw new RuntimeException(cause);
+			}
+		} finally {
+			pool.shutdownNow();
+		}
+		report.setElapsedTime(System.nanoTime() - start);
+		return report;
+	}
+	
+	/**
+	 * Sets the number of threads that battles are run on.
+	 * 
+	 * @param threads The thread count. This must be at least 1.
+	 */
+	public void setThreadCount(int threads) {
+		if (threads < 1) {
+			throw new IllegalArgumentException("thread count must be positive");
+		}
+		threadCount = threads;
+	}
+	
+	/**
+	 * Sets the most turns that a battle may take before it is a draw.
+	 * 
+	 * @param limit The turn limit. This must be at least 1.
+	 */
+	public void setTurnLimit(int limit) {
+		if (limit < 1) {
+			throw new IllegalArgumentException("turn limit must be positive");
+		}
+		turnLimit = limit;
+	}
+	
+	/**
+	 * Creates a new set of fighters for a battle.
+	 * 
+	 * @param entities Creates the fighters.
+	 * @param names The definition names of the fighters on each team.
+	 * @param levels The levels of the fighters, in the same layout as the
+	 * names.
+	 * 
+	 * @return The fighters of each team.
+	 * 
+	 * @throws InvalidIndexException If one of the fighter names does not
+	 * have a definition.
+	 */
+	static Character[][] createTeams(EntityFactory entities,
+			String[][] names, int[][] levels) throws InvalidIndexException {
+		Character[][] teams = new Character[names.length][];
+		for (int i = 0; i < names.length; i++) {
+			teams[i] = new Character[names[i].length];
+			for (int j = 0; j < names[i].length; j++) {
+				teams[i][j] = entities.createNpc(names[i][j], levels[i][j]);
+			}
+		}
+		return teams;
+	}
+	
+	/**
+	 * Loads the action and entity definitions from a resource root.
+	 * 
+	 * @param root The directory that contains the definition files.
+	 * 
+	 * @return An EntityFactory with the entity definitions.
+	 * 
+	 * @throws ResourceNotFoundException If a definition file does not exist.
+	 * @throws ResourceFormatException If a definition file is invalid.
+	 * @throws IOException If an I/O error occurs.
+	 */
+	static EntityFactory loadEntities(File root) throws
+	ResourceNotFoundException, ResourceFormatException, IOException {
+		Map<Integer, Action.Definition> actionDefs;
+		actionDefs = new ActionLoader(root).load(ACTIONS_FILE);
+		Map<String, Character.Definition> entityDefs;
+		entityDefs = new EntityLoader(root).load(ENTITIES_FILE);
+		ActionFactory actions = new ActionFactory();
+		actions.merge(actionDefs);
+		EntityFactory entities = new EntityFactory(actions);
+		entities.merge(entityDefs);
+		return entities;
+	}
+	
+	/**
+	 * Parses teams given on the command line.
+	 * 
+	 * @param args The command line arguments.
+	 * @param start The index of the first team in the arguments.
+	 * @param names Set to the definition names of the fighters on each team.
+	 * It must have one element for each team.
+	 * @param levels Set to the levels of the fighters, in the same layout as
+	 * the names.
+	 */
+	static void parseTeams(String[] args, int start, String[][] names,
+			int[][] levels) {
+		for (int i = 0; i < names.length; i++) {
+			String[] fighters = args[i + start].split(",");
+			names[i] = new String[fighters.length];
+			levels[i] = new int[fighters.length];
+			for (int j = 0; j < fighters.length; j++) {
+				String[] parts = fighters[j].trim().split(":");
+				names[i][j] = parts[0];
+				levels[i][j] = (parts.length > 1) ?
+						Integer.parseInt(parts[1]) : 1;
+			}
+		}
+	}
+	
+	/**
+	 * Finds the team that a fighter started the battle on. The team IDs of
+	 * the fighters change as teams are knocked out, so they cannot be used.
+	 * 
+	 * @param teams The fighters of each team at the start of the battle.
+	 * @param fighter The fighter to find.
+	 * 
+	 * @return The index of the fighter's team, or -1 if it is on none of
+	 * them.
+	 */
+	private int findTeam(Character[][] teams, Character fighter) {
+		for (int i = 0; i < teams.length; i++) {
+			for (Character c : teams[i]) {
+				if (c == fighter) {
+					return i;
+				}
+			}
+		}
+		return -1;
+	}
+	
+	/**
+	 * Runs one battle to its end and records its results.
+	 * 
+	 * @param report The report to record the results in.
+	 * 
+	 * @throws InvalidIndexException If one of the fighter names does not
+	 * have a definition.
+	 */
+	private void runBattle(SimulationReport report) throws
+	InvalidIndexException {
+		Character[][] teams = createTeams(entities, names, levels);
+		Battle battle = new Battle(teams);
+		int turns = 0;
+		while (battle.advance()) {
+			switch (battle.getLastState()) {
+				case STARTING_TURN:
+					turns++;
+					break;
+				
+				case APPLYING_ACTION:
+					recordDamage(teams, battle.getLastAction(), report);
+					break;
+				
+				default:
+					break;
+			}
+			if (turns > turnLimit) {
+				break;
+			}
+		}
+		int winner = -1;
+		if (battle.getState() == Battle.State.ENDING &&
+				battle.getTeamCount() > 0) {
+			List<Character> survivors = battle.getFighters(0);
+			if (!survivors.isEmpty()) {
+				winner = findTeam(teams, survivors.get(0));
+			}
+		}
+		report.addResult(winner, Math.min(turns, turnLimit));
+	}
+	
+	/**
+	 * Records the damage done by an Action that was just applied.
+	 * 
+	 * @param teams The fighters of each team at the start of the battle.
+	 * @param a The Action.
+	 * @param report The report to record the damage in.
+	 */
+	private void recordDamage(Character[][] teams, Action a,
+			SimulationReport report) {
+		if (!a.wasSuccessful() || a.hasPositiveEffect() ||
+				a.getEffectStat() == null) {
+			return;
+		}
+		int team = findTeam(teams, a.getOrigin());
+		if (team >= 0) {
+			int count = a.getTargets().size();
+			for (int i = 0; i < count; i++) {
+				report.addHit(team, a.getActualEffect(i));
+			}
+		}
+	}
+	
+}
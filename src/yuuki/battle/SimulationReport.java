@@ -0,0 +1,336 @@
+package yuuki.battle;
+
+/**
+ * The results of a number of simulated battles between the same teams. Each
+ * worker of a BattleSimulator fills in its own SimulationReport, and the
+ * reports are then merged into one.
+ */
+public class SimulationReport {
+	
+	/**
+	 * The largest amount of damage that is counted on its own in the damage
+	 * histogram. Hits that do more damage than this are counted together.
+	 */
+	public static final int MAX_HISTOGRAM_DAMAGE = 1024;
+	
+	/**
+	 * The number of battles that were simulated.
+	 */
+	private long battles;
+	
+	/**
+	 * The number of hits that did each amount of damage. The last element
+	 * counts the hits that did more than MAX_HISTOGRAM_DAMAGE.
+	 */
+	private final long[] damageHistogram;
+	
+	/**
+	 * The total damage done by the fighters of each team.
+	 */
+	private final long[] damageTotals;
+	
+	/**
+	 * The number of battles that hit the turn limit before a team won.
+	 */
+	private long draws;
+	
+	/**
+	 * The time that the battles took to simulate, in nanoseconds.
+	 */
+	private long elapsed;
+	
+	/**
+	 * The number of hits that did damage.
+	 */
+	private long hits;
+	
+	/**
+	 * The most damage that a single hit did.
+	 */
+	private int maxDamage;
+	
+	/**
+	 * The number of battles that took each number of turns.
+	 */
+	private final long[] turnHistogram;
+	
+	/**
+	 * The total number of turns taken in all battles.
+	 */
+	private long turns;
+	
+	/**
+	 * The number of battles won by each team.
+	 */
+	private final long[] wins;
+	
+	/**
+	 * Creates a new, empty SimulationReport.
+	 * 
+	 * @param teamCount The number of teams in each battle.
+	 * @param turnLimit The most turns that a battle may take.
+	 */
+	public SimulationReport(int teamCount, int turnLimit) {
+		wins = new long[teamCount];
+		damageTotals = new long[teamCount];
+		turnHistogram = new long[turnLimit + 1];
+		damageHistogram = new long[MAX_HISTOGRAM_DAMAGE + 2];
+	}
+	
+	/**
+	 * Gets the number of battles that were simulated.
+	 * 
+	 * @return The number of battles.
+	 */
+	public long getBattleCount() {
+		return battles;
+	}
+	
+	/**
+	 * Gets the number of battles simulated per second.
+	 * 
+	 * @return The throughput of the simulation.
+	 */
+	public double getBattlesPerSecond() {
+		return (elapsed > 0) ? battles / (elapsed / 1e9) : 0.0;
+	}
+	
+	/**
+	 * Gets the amount of damage that a given fraction of hits did no more
+	 * than.
+	 * 
+	 * @param fraction The fraction of hits, from 0 to 1.
+	 * 
+	 * @return The damage at the given percentile, or MAX_HISTOGRAM_DAMAGE + 1
+	 * if it is more than MAX_HISTOGRAM_DAMAGE.
+	 */
+	public int getDamagePercentile(double fraction) {
+		return getPercentile(damageHistogram, hits, fraction);
+	}
+	
+	/**
+	 * Gets the fraction of battles that hit the turn limit.
+	 * 
+	 * @return The draw rate, from 0 to 1.
+	 */
+	public double getDrawRate() {
+		return (battles > 0) ? (double) draws / battles : 0.0;
+	}
+	
+	/**
+	 * Gets the time that the simulation took.
+	 * 
+	 * @return The elapsed time, in nanoseconds.
+	 */
+	public long getElapsedTime() {
+		return elapsed;
+	}
+	
+	/**
+	 * Gets the most damage done by a single hit.
+	 * 
+	 * @return The largest hit.
+	 */
+	public int getMaxDamage() {
+		return maxDamage;
+	}
+	
+	/**
+	 * Gets the average damage of a hit.
+	 * 
+	 * @return The mean damage per hit.
+	 */
+	public double getMeanDamage() {
+		long total = 0;
+		for (long t : damageTotals) {
+			total += t;
+		}
+		return (hits > 0) ? (double) total / hits : 0.0;
+	}
+	
+	/**
+	 * Gets the average damage that a team did in a battle.
+	 * 
+	 * @param team The index of the team.
+	 * 
+	 * @return The mean damage dealt per battle.
+	 */
+	public double getMeanDamageDealt(int team) {
+		return (battles > 0) ? (double) damageTotals[team] / battles : 0.0;
+	}
+	
+	/**
+	 * Gets the average number of turns that a battle took.
+	 * 
+	 * @return The mean turn count.
+	 */
+	public double getMeanTurns() {
+		return (battles > 0) ? (double) turns / battles : 0.0;
+	}
+	
+	/**
+	 * Gets the number of teams in each battle.
+	 * 
+	 * @return The number of teams.
+	 */
+	public int getTeamCount() {
+		return wins.length;
+	}
+	
+	/**
+	 * Gets the number of turns that a given fraction of battles took no more
+	 * than.
+	 * 
+	 * @param fraction The fraction of battles, from 0 to 1.
+	 * 
+	 * @return The turn count at the given percentile.
+	 */
+	public int getTurnPercentile(double fraction) {
+		return getPercentile(turnHistogram, battles, fraction);
+	}
+	
+	/**
+	 * Gets the fraction of battles that a team won.
+	 * 
+	 * @param team The index of the team.
+	 * 
+	 * @return The win rate, from 0 to 1.
+	 */
+	public double getWinRate(int team) {
+		return (battles > 0) ? (double) wins[team] / battles : 0.0;
+	}
+	
+	/**
+	 * Adds the results of another SimulationReport to this one. The elapsed
+	 * time is not added, as the reports being merged are expected to have
+	 * been filled in at the same time.
+	 * 
+	 * @param other The report to add. It must be for the same number of
+	 * teams and the same turn limit.
+	 */
+	public void merge(SimulationReport other) {
+		battles += other.battles;
+		draws += other.draws;
+		turns += other.turns;
+		hits += other.hits;
+		maxDamage = Math.max(maxDamage, other.maxDamage);
+		addAll(wins, other.wins);
+		addAll(damageTotals, other.damageTotals);
+		addAll(turnHistogram, other.turnHistogram);
+		addAll(damageHistogram, other.damageHistogram);
+	}
+	
+	/**
+	 * Converts this SimulationReport to a table of its results.
+	 * 
+	 * @return The String version.
+	 */
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		String nl = System.getProperty("line.separator");
+		sb.append(String.format("%d battles in %.2f s (%.1f battles/sec)",
+				battles, elapsed / 1e9, getBattlesPerSecond()));
+		sb.append(nl);
+		sb.append(String.format("%6s %10s %16s", "team", "win rate",
+				"damage/battle"));
+		sb.append(nl);
+		for (int i = 0; i < wins.length; i++) {
+			sb.append(String.format("%6d %9.2f%% %16.1f", i + 1,
+					getWinRate(i) * 100, getMeanDamageDealt(i)));
+			sb.append(nl);
+		}
+		sb.append(String.format("draws: %.2f%%", getDrawRate() * 100));
+		sb.append(nl);
+		sb.append(String.format("turns: mean %.1f, p50 %d, p90 %d, p99 %d",
+				getMeanTurns(), getTurnPercentile(0.5),
+				getTurnPercentile(0.9), getTurnPercentile(0.99)));
+		sb.append(nl);
+		sb.append(String.format(
+				"damage per hit: mean %.1f, p50 %d, p90 %d, p99 %d, max %d",
+				getMeanDamage(), getDamagePercentile(0.5),
+				getDamagePercentile(0.9), getDamagePercentile(0.99),
+				maxDamage));
+		return sb.toString();
+	}
+	
+	/**
+	 * Records a hit that did damage.
+	 * 
+	 * @param team The index of the team of the fighter that made the hit.
+	 * @param damage The amount of damage done.
+	 */
+	void addHit(int team, int damage) {
+		damage = Math.max(0, damage);
+		hits++;
+		damageTotals[team] += damage;
+		maxDamage = Math.max(maxDamage, damage);
+		damageHistogram[Math.min(damage, MAX_HISTOGRAM_DAMAGE + 1)]++;
+	}
+	
+	/**
+	 * Records the end of a battle.
+	 * 
+	 * @param winner The index of the team that won, or -1 if the battle was a
+	 * draw.
+	 * @param turnCount The number of turns that the battle took.
+	 */
+	void addResult(int winner, int turnCount) {
+		battles++;
+		turns += turnCount;
+		turnHistogram[Math.min(turnCount, turnHistogram.length - 1)]++;
+		if (winner < 0) {
+			draws++;
+		} else {
+			wins[winner]++;
+		}
+	}
+	
+	/**
+	 * Sets the time that the simulation took.
+	 * 
+	 * @param nanos The elapsed time, in nanoseconds.
+	 */
+	void setElapsedTime(long nanos) {
+		elapsed = nanos;
+	}
+	
+	/**
+	 * Adds each element of one array to the matching element of another.
+	 * 
+	 * @param to The array to add to.
+	 * @param from The array to add.
+	 */
+	private static void addAll(long[] to, long[] from) {
+		for (int i = 0; i < to.length; i++) {
+			to[i] += from[i];
+		}
+	}
+	
+	/**
+	 * Finds the value below which a given fraction of a histogram's counts
+	 * fall.
+	 * 
+	 * @param histogram The number of samples of each value.
+	 * @param total The total number of samples.
+	 * @param fraction The fraction of samples, from 0 to 1.
+	 * 
+	 * @return The value at the given percentile.
+	 */
+	private static int getPercentile(long[] histogram, long total,
+			double fraction) {
+		if (total == 0) {
+			return 0;
+		}
+		long needed = Math.max(1, (long) Math.ceil(total * fraction));
+		long seen = 0;
+		for (int i = 0; i < histogram.length; i++) {
+			seen += histogram[i];
+			if (seen >= needed) {
+				return i;
+			}
+		}
+		return histogram.length - 1;
+	}
+	
+}
@@ -0,0 +1,222 @@
+package yuuki.battle;
+
+import java.util.Arrays;
+
+/**
+ * Orders the turns of the fighters in a Battle by the time at which each is
+ * next due to act. Fighters are referred to by handles, which are small
+ * non-negative integers that stay the same for as long as the fighter is in
+ * the timeline. The fighter with the earliest time is always at the front;
+ * fighters with the same time are ordered by handle, lowest first.
+ * 
+ * The timeline is a binary heap that also records where each handle is in
+ * the heap, so adding, removing and rescheduling any fighter takes
+ * O(log n) time, and finding the next fighter takes O(1) time. No objects
+ * are created once the timeline has been made.
+ */
+public class TurnTimeline {
+	
+	/**
+	 * The handles in heap order.
+	 */
+	private final int[] heap;
+	
+	/**
+	 * The index in the heap of each handle, or -1 for handles that are not
+	 * in the timeline.
+	 */
+	private final int[] positions;
+	
+	/**
+	 * The number of handles in the timeline.
+	 */
+	private int size;
+	
+	/**
+	 * The time at which each handle is next due to act.
+	 */
+	private final long[] times;
+	
+	/**
+	 * Creates a new, empty TurnTimeline.
+	 * 
+	 * @param capacity The number of handles. Handles must be less than this.
+	 */
+	public TurnTimeline(int capacity) {
+		heap = new int[capacity];
+		positions = new int[capacity];
+		times = new long[capacity];
+		Arrays.fill(positions, -1);
+	}
+	
+	/**
+	 * Adds a fighter to this TurnTimeline.
+	 * 
+	 * @param handle The handle of the fighter. It must not already be in the
+	 * timeline.
+	 * @param time The time at which the fighter is first due to act.
+	 */
+	public void add(int handle, long time) {
+		if (positions[handle] != -1) {
+			throw new IllegalArgumentException("handle already added");
+		}
+		times[handle] = time;
+		heap[size] = handle;
+		positions[handle] = size;
+		siftUp(size++);
+	}
+	
+	/**
+	 * Checks whether a fighter is in this TurnTimeline.
+	 * 
+	 * @param handle The handle of the fighter.
+	 * 
+	 * @return Whether the fighter has been added and not removed.
+	 */
+	public boolean contains(int handle) {
+		return positions[handle] != -1;
+	}
+	
+	/**
+	 * Gets the time at which a fighter is next due to act.
+	 * 
+	 * @param handle The handle of the fighter.
+	 * 
+	 * @return The time of the fighter's next turn.
+	 */
+	public long getTime(int handle) {
+		return times[handle];
+	}
+	
+	/**
+	 * Checks whether there are no fighters in this TurnTimeline.
+	 * 
+	 * @return Whether it is empty.
+	 */
+	public boolean isEmpty() {
+		return size == 0;
+	}
+	
+	/**
+	 * Gets the fighter that is due to act next.
+	 * 
+	 * @return The handle of the fighter with the earliest time, or -1 if the
+	 * timeline is empty.
+	 */
+	public int peek() {
+		return (size > 0) ? heap[0] : -1;
+	}
+	
+	/**
+	 * Removes a fighter from this TurnTimeline.
+	 * 
+	 * @param handle The handle of the fighter.
+	 * 
+	 * @return Whether the fighter was in the timeline.
+	 */
+	public boolean remove(int handle) {
+		int index = positions[handle];
+		if (index == -1) {
+			return false;
+		}
+		positions[handle] = -1;
+		size--;
+		if (index < size) {
+			heap[index] = heap[size];
+			positions[heap[index]] = index;
+			if (!siftUp(index)) {
+				siftDown(index);
+			}
+		}
+		return true;
+	}
+	
+	/**
+	 * Changes the time at which a fighter is next due to act.
+	 * 
+	 * @param handle The handle of the fighter. It must be in the timeline.
+	 * @param time The new time of the fighter's next turn.
+	 */
+	public void reschedule(int handle, long time) {
+		int index = positions[handle];
+		if (index == -1) {
+			throw new IllegalArgumentException("handle not in timeline");
+		}
+		times[handle] = time;
+		if (!siftUp(index)) {
+			siftDown(index);
+		}
+	}
+	
+	/**
+	 * Gets the number of fighters in this TurnTimeline.
+	 * 
+	 * @return The number of fighters.
+	 */
+	public int size() {
+		return size;
+	}
+	
+	/**
+	 * Checks whether one handle is due before another.
+	 * 
+	 * @param a The first handle.
+	 * @param b The second handle.
+	 * 
+	 * @return Whether a comes before b.
+	 */
+	private boolean isBefore(int a, int b) {
+		return (times[a] < times[b]) || (times[a] == times[b] && a < b);
+	}
+	
+	/**
+	 * Moves a handle down the heap until it is before both of its children.
+	 * 
+	 * @param index The index in the heap of the handle.
+	 */
+	private void siftDown(int index) {
+		int handle = heap[index];
+		while (true) {
+			int child = 2 * index + 1;
+			if (child >= size) {
+				break;
+			}
+			if (child + 1 < size && isBefore(heap[child + 1], heap[child])) {
+				child++;
+			}
+			if (!isBefore(heap[child], handle)) {
+				break;
+			}
+			heap[index] = heap[child];
+			positions[heap[index]] = index;
+			index = child;
+		}
+		heap[index] = handle;
+		positions[handle] = index;
+	}
+	
+	/**
+	 * Moves a handle up the heap until it is after its parent.
+	 * 
+	 * @param index The index in the heap of the handle.
+	 * 
+	 * @return Whether the handle moved.
+	 */
+	private boolean siftUp(int index) {
+		int handle = heap[index];
+		int start = index;
+		while (index > 0) {
+			int parent = (index - 1) / 2;
+			if (!isBefore(handle, heap[parent])) {
+				break;
+			}
+			heap[index] = heap[parent];
+			positions[heap[index]] = index;
+			index = parent;
+		}
+		heap[index] = handle;
+		positions[handle] = index;
+		return index != start;
+	}
+	
+}
@@ -13,6 +13,7 @@ import yuuki.entity.Character;
 
 import yuuki.item.Item;
 import yuuki.world.Land;
+import yuuki.world.LandSource;
 import yuuki.world.Portal;
 import yuuki.world.Tile;
 
@@ -61,6 +62,11 @@ class Content implements Mergeable<Content> {
 	 */
 	private List<Land> lands;
 	
+	/**
+	 * Contains the sources of lands that are loaded when needed.
+	 */
+	private List<LandSource> landSources;
+	
 	/**
 	 * Contains paths to land files.
 	 */
@@ -169,6 +175,15 @@ class Content implements Mergeable<Content> {
 		return map;
 	}
 	
+	/**
+	 * Gets the sources of lands that are loaded when needed.
+	 * 
+	 * @return The land sources.
+	 */
+	public List<LandSource> getLandSources() {
+		return landSources;
+	}
+	
 	/**
 	 * Gets music data.
 	 * 
@@ -229,6 +244,7 @@ class Content implements Mergeable<Content> {
 		items = mergeMaps(items, content.items);
 		entities = mergeMaps(entities, content.entities);
 		lands = mergeLists(lands, content.lands);
+		landSources = mergeLists(landSources, content.landSources);
 		portals = mergeMaps(portals, content.portals);
 		tiles = mergeMaps(tiles, content.tiles);
 		map = mergeLists(map, content.map);
@@ -264,6 +280,7 @@ class Content implements Mergeable<Content> {
 	 */
 	public void resetMaps() {
 		lands = null;
+		landSources = null;
 		map = null;
 	}
 	
@@ -339,6 +356,15 @@ class Content implements Mergeable<Content> {
 		lands = data;
 	}
 	
+	/**
+	 * Sets the sources of lands that are loaded when needed.
+	 * 
+	 * @param data The land sources.
+	 */
+	public void setLandSources(List<LandSource> data) {
+		landSources = data;
+	}
+	
 	/**
 	 * Sets music data.
 	 * 
@@ -399,6 +425,7 @@ class Content implements Mergeable<Content> {
 		items = subtractMaps(items, content.items);
 		entities = subtractMaps(entities, content.entities);
 		lands = subtractLists(lands, content.lands);
+		landSources = subtractLists(landSources, content.landSources);
 		portals = subtractMaps(portals, content.portals);
 		tiles = subtractMaps(tiles, content.tiles);
 		map = subtractLists(map, content.map);
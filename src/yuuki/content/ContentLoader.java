@@ -6,6 +6,12 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 
 import yuuki.action.Action;
 import yuuki.entity.Character;
@@ -24,8 +30,10 @@ import yuuki.ui.DialogHandler;
 import yuuki.util.Progressable;
 import yuuki.util.Progression;
 import yuuki.world.Land;
+import yuuki.world.LandSource;
 import yuuki.world.PopulationFactory;
 import yuuki.world.Portal;
+import yuuki.world.PortalLink;
 import yuuki.world.Tile;
 
 /**
@@ -33,11 +41,149 @@ import yuuki.world.Tile;
  */
 public class ContentLoader {
 	
+	/**
+	 * A land file that is loaded when the World needs it. Each load uses a
+	 * new LandLoader, so the same LandFile can be loaded from any thread.
+	 */
+	private class LandFile implements LandSource {
+		
+		/**
+		 * The name of the land in the file.
+		 */
+		private final String name;
+		
+		/**
+		 * The path to the land file.
+		 */
+		private final String path;
+		
+		/**
+		 * The population factory to use for populating the land.
+		 */
+		private final PopulationFactory pop;
+		
+		/**
+		 * The portal records in the file.
+		 */
+		private final List<PortalLink> portals;
+		
+		/**
+		 * Creates a new LandFile.
+		 * 
+		 * @param name The name of the land in the file.
+		 * @param portals The portal records in the file.
+		 * @param path The path to the land file.
+		 * @param pop The population factory to use for populating the land.
+		 */
+		public LandFile(String name, List<PortalLink> portals, String path,
+				PopulationFactory pop) {
+			this.name = name;
+			this.portals = portals;
+			this.path = path;
+			this.pop = pop;
+		}
+		
+		@Override
+		public String getName() {
+			return name;
+		}
+		
+		@Override
+		public List<PortalLink> getPortalLinks() {
+			return portals;
+		}
+		
+		@Override
+		public Land load() throws Exception {
+			LandLoader loader = createLandLoader(pop);
+			loader.setChunkBudget(LAND_CHUNK_BUDGET);
+			try {
+				return loader.load(path);
+			} finally {
+				loader.close();
+			}
+		}
+		
+	}
+	
+	/**
+	 * Loads a single land file on the land loading pool. Each LandLoad has its
+	 * own LandLoader, so no loading state is shared between lands.
+	 */
+	private static class LandLoad implements Callable<Land> {
+		
+		/**
+		 * The loader to load the land with.
+		 */
+		private final LandLoader loader;
+		
+		/**
+		 * The messages that were shown while the land was loading.
+		 */
+		private List<String> messages;
+		
+		/**
+		 * The monitor for the progress of the land.
+		 */
+		private final Progressable monitor;
+		
+		/**
+		 * The path to the land file.
+		 */
+		private final String path;
+		
+		/**
+		 * Creates a new LandLoad.
+		 * 
+		 * @param loader The loader to load the land with.
+		 * @param path The path to the land file.
+		 * @param monitor The monitor for the progress of the land.
+		 */
+		public LandLoad(LandLoader loader, String path, Progressable monitor) {
+			this.loader = loader;
+			this.path = path;
+			this.monitor = monitor;
+		}
+		
+		/**
+		 * Loads the land. Messages about skipped records are held back so
+		 * that they can be shown in the order of the land files rather than
+		 * in the order that the lands happen to finish in.
+		 */
+		@Override
+		public Land call() throws Exception {
+			DialogHandler.deferMessages();
+			try {
+				loader.setProgressMonitor(monitor);
+				Land land = loader.load(path);
+				monitor.finishProgress();
+				return land;
+			} finally {
+				messages = DialogHandler.takeDeferredMessages();
+				loader.close();
+			}
+		}
+		
+	}
+	
 	/**
 	 * The name of the manifest file.
 	 */
 	public static final String MANIFEST_FILE = "content.def";
 	
+	/**
+	 * The number of bytes of tile data that each land loaded in chunked mode
+	 * may keep in memory.
+	 */
+	public static final long LAND_CHUNK_BUDGET =
+			LandLoader.DEFAULT_CHUNK_BUDGET;
+			
+	/**
+	 * The largest number of land files that are loaded at once.
+	 */
+	public static final int MAX_LAND_THREADS =
+			Runtime.getRuntime().availableProcessors();
+			
 	/**
 	 * The number of load operations completed.
 	 */
@@ -229,28 +375,109 @@ public class ContentLoader {
 	}
 	
 	/**
-	 * Loads land file data.
+	 * Reads the names of the lands in land files, and of the lands that their
+	 * portals lead to, without loading the lands themselves. Only the meta
+	 * data and portal records of each land file are parsed, so this is much
+	 * quicker than loading the lands.
 	 * 
 	 * @param text What to set the text of the monitor to.
 	 * @param paths The paths to the land files.
-	 * @param pop The population factory to use for populating the lands.
-	 * @return A list containing the land file data.
+	 * @param pop The population factory to use for populating the lands when
+	 * they are loaded.
+	 * @return The sources of the lands, in the order of the paths. Land files
+	 * whose names could not be read are left out.
 	 */
-	public List<Land> loadLands(String text, List<String> paths,
+	public List<LandSource> loadLandSources(String text, List<String> paths,
 			PopulationFactory pop) {
 		Progressable sub = startLoadingOperation(text);
+		// the tile table is built on first use, so build it before the
+		// lands can be loaded on other threads
+		pop.getTileTable();
 		LandLoader loader = createLandLoader(pop);
-		List<Land> lands = new ArrayList<Land>();
+		List<LandSource> sources = new ArrayList<LandSource>(paths.size());
 		for (String p : paths) {
 			try {
-				Progressable m = sub.getSubProgressable(1.0 / paths.size());
-				loader.setProgressMonitor(m);
-				Land land = loader.load(p);
-				lands.add(land);
-				m.finishProgress();
+				String name = loader.loadName(p);
+				List<PortalLink> portals = loader.loadPortalLinks(p);
+				sources.add(new LandFile(name, portals, p, pop));
 			} catch (Exception e) {
 				DialogHandler.showError(e);
 			}
+			sub.advanceProgress(1.0 / paths.size());
+		}
+		try {
+			loader.close();
+		} catch (IOException e) {
+			DialogHandler.showError(e);
+		}
+		finishLoadingOperation(sub);
+		return sources;
+	}
+	
+	/**
+	 * Loads land file data. The land files are loaded at the same time on a
+	 * pool of up to MAX_LAND_THREADS threads. Once they are all loaded, the
+	 * messages and errors of each land file are shown in the order of the
+	 * given paths, so they are always reported in the same order.
+	 * 
+	 * @param text What to set the text of the monitor to.
+	 * @param paths The paths to the land files.
+	 * @param pop The population factory to use for populating the lands.
+	 * @return A list containing the land file data, in the order of the
+	 * paths that they were loaded from.
+	 */
+	public List<Land> loadLands(String text, List<String> paths,
+			PopulationFactory pop) {
+		Progressable sub = startLoadingOperation(text);
+		List<Land> lands = new ArrayList<Land>();
+		if (paths.isEmpty()) {
+			finishLoadingOperation(sub);
+			return lands;
+		}
+		// the tile table is built on first use, so build it before the
+		// loaders share it
+		pop.getTileTable();
+		int threads = Math.min(paths.size(), MAX_LAND_THREADS);
+		ExecutorService pool = createLandPool(threads);
+		List<LandLoad> loads = new ArrayList<LandLoad>(paths.size());
+		List<Future<Land>> results;
+		results = new ArrayList<Future<Land>>(paths.size());
+		for (String p : paths) {
+			LandLoader loader = createLandLoader(pop);
+			loader.setChunkBudget(LAND_CHUNK_BUDGET);
+			Progressable m = sub.getSubProgressable(1.0 / paths.size());
+			LandLoad load = new LandLoad(loader, p, m);
+			loads.add(load);
+			results.add(pool.submit(load));
+		}
+		pool.shutdown();
+		boolean interrupted = false;
+		for (int i = 0; i < loads.size(); i++) {
+			Land land = null;
+			Throwable failure = null;
+			boolean done = false;
+			while (!done) {
+				try {
+					land = results.get(i).get();
+					done = true;
+				} catch (InterruptedException e) {
+					interrupted = true;
+				} catch (ExecutionException e) {
+					failure = e.getCause();
+					done = true;
+				}
+			}
+			for (String msg : loads.get(i).messages) {
+				DialogHandler.showMessage(msg);
+			}
+			if (failure != null) {
+				DialogHandler.showError(failure);
+			} else {
+				lands.add(land);
+			}
+		}
+		if (interrupted) {
+			Thread.currentThread().interrupt();
 		}
 		finishLoadingOperation(sub);
 		return lands;
@@ -354,6 +581,25 @@ public class ContentLoader {
 		return manifest;
 	}
 	
+	/**
+	 * Creates the worker pool for loading land files.
+	 * 
+	 * @param threads The number of threads in the pool.
+	 * 
+	 * @return The worker pool.
+	 */
+	private ExecutorService createLandPool(int threads) {
+		ThreadFactory factory = new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread t = new Thread(r, "LandLoader");
+				t.setDaemon(true);
+				return t;
+			}
+		};
+		return Executors.newFixedThreadPool(threads, factory);
+	}
+	
 	/**
 	 * Completes the progress of the master monitor and sets the current load
 	 * such that it is no longer considered initialized.
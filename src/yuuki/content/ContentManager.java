@@ -208,15 +208,20 @@ public class ContentManager {
 	
 	/**
 	 * Gets the world engine built of of enabled content packs that this
-	 * ContentManager controls.
+	 * ContentManager controls. The lands of content packs whose maps were
+	 * only indexed are added as sources, to be loaded when needed.
 	 * 
 	 * @return The world engine.
 	 */
 	public World getWorldEngine() {
 		World world = new World();
 		for (ContentPack cp : enabledPacks) {
-			if (cp.hasWorld() && cp.hasLands() && cp.mapsAreLoaded()) {
-				world.merge(cp.getContent().getLands());
+			if (cp.hasWorld() && cp.hasLands()) {
+				if (cp.mapsAreLoaded()) {
+					world.merge(cp.getContent().getLands());
+				} else if (cp.mapsAreIndexed()) {
+					world.addLandSources(cp.getContent().getLandSources());
+				}
 			}
 		}
 		return world;
@@ -251,7 +256,9 @@ public class ContentManager {
 	}
 	
 	/**
-	 * Loads the map data in all content packs that are enabled.
+	 * Prepares the map data in all content packs that are enabled. Only the
+	 * name of each land is read; the lands themselves are loaded by the World
+	 * from getWorldEngine() when they are first needed.
 	 * 
 	 * @throws ResourceNotFoundException
 	 * @throws IOException
@@ -260,7 +267,7 @@ public class ContentManager {
 	IOException {
 		for (ContentPack c : enabledPacks) {
 			if (c.hasWorld() && c.hasLands()) {
-				loadWorld(c.getName());
+				c.loadMapIndex(contentModel);
 			}
 		}
 	}
@@ -72,6 +72,12 @@ public class ContentPack {
 	 */
 	private final ContentManifest manifest;
 	
+	/**
+	 * Whether the names of this ContentPack's lands have been read so that
+	 * the lands can be loaded when they are needed.
+	 */
+	private boolean mapIndexed = false;
+	
 	/**
 	 * Whether this ContentPack's map data has been loaded.
 	 */
@@ -385,6 +391,44 @@ public class ContentPack {
 		loadWorld();
 		loadLands(resolver);
 		mapLoaded = true;
+		mapIndexed = false;
+	}
+	
+	/**
+	 * Loads the list of maps and reads the name of each land, without loading
+	 * the lands themselves. After the load, the sources of the lands can be
+	 * retrieved from getContent() and given to a World, which loads each land
+	 * when it is first needed.
+	 * <P>
+	 * Before the load, any content already loaded is cleared from memory.
+	 * 
+	 * @param resolver Used to satisfy requirements that are not included in
+	 * this ContentPack. Set to null if requirements should not be
+	 * automatically fulfilled.
+	 * @throws ResourceNotFoundException If any resource in the load is not
+	 * found.
+	 * @throws IOException If an I/O error occurs during the load.
+	 */
+	public void loadMapIndex(Content resolver) throws
+	ResourceNotFoundException, IOException {
+		content.resetMaps();
+		if (!loader.isInLoad()) {
+			startMapLoadMonitor();
+		}
+		loadWorld();
+		loadLandSources(resolver);
+		mapLoaded = false;
+		mapIndexed = true;
+	}
+	
+	/**
+	 * Checks whether this ContentPack has read the names of its lands with
+	 * loadMapIndex().
+	 * 
+	 * @return Whether the land sources are available.
+	 */
+	public boolean mapsAreIndexed() {
+		return mapIndexed;
 	}
 	
 	/**
@@ -789,6 +833,27 @@ public class ContentPack {
 		}
 	}
 	
+	/**
+	 * Reads the names of the lands without loading them. This method must be
+	 * called after loadWorld(), or it must be provided with an appropriate
+	 * resolver.
+	 * 
+	 * @param resolver Used to satisfy requirements that are not included in
+	 * this ContentPack. Set to null if requirements should not be
+	 * automatically fulfilled.
+	 */
+	private void loadLandSources(Content resolver) {
+		if (hasLands()) {
+			PopulationFactory pop = getPopFactory(resolver);
+			List<String> paths = null;
+			paths = resolve(content.getWorld(),
+					(resolver != null) ? resolver.getWorld() : null,
+					"Cannot load lands with no world");
+			String msg = "Reading land data...";
+			content.setLandSources(loader.loadLandSources(msg, paths, pop));
+		}
+	}
+	
 	/**
 	 * Loads music. The content is loaded from the content container if this
 	 * ContentPack contains it as indicated by the manifest. This method must
@@ -3,8 +3,11 @@ package yuuki.entity;
 import java.awt.Point;
 import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
 
 import yuuki.action.Action;
+import yuuki.action.ActionPool;
 import yuuki.action.ItemUse;
 import yuuki.buff.Buff;
 import yuuki.item.InventoryPouch;
@@ -200,6 +203,11 @@ public abstract class Character implements Movable, Displayable {
 	 */
 	private VariableStat mp;
 	
+	/**
+	 * The pools of copies of each move, in the same order as the moves.
+	 */
+	private ActionPool[] movePools;
+	
 	/**
 	 * The Name of the Character.
 	 */
@@ -215,6 +223,11 @@ public abstract class Character implements Movable, Displayable {
 	 */
 	private Point position;
 	
+	/**
+	 * The source of randomness of the battle that this Character is in.
+	 */
+	private Random random;
+	
 	/**
 	 * The sprite for this Character in the GUI.
 	 */
@@ -300,6 +313,10 @@ public abstract class Character implements Movable, Displayable {
 				itemUseAction = (ItemUse) move;
 			}
 		}
+		movePools = new ActionPool[moves.length];
+		for (int i = 0; i < moves.length; i++) {
+			movePools[i] = new ActionPool(moves[i]);
+		}
 		inventory = new InventoryPouch(10, "Lunch Box");
 	}
 	
@@ -673,6 +690,23 @@ public abstract class Character implements Movable, Displayable {
 		return mp.getMax(level);
 	}
 	
+	/**
+	 * Gets the position of a move among this Character's moves.
+	 * 
+	 * @param move The move, or a copy of it that was made for a turn.
+	 * 
+	 * @return The index of the move in the array returned by getMoves(), or
+	 * -1 if it is not one of this Character's moves.
+	 */
+	public int getMoveIndex(Action move) {
+		for (int i = 0; i < moves.length; i++) {
+			if (moves[i] == move || movePools[i] == move.getPool()) {
+				return i;
+			}
+		}
+		return -1;
+	}
+	
 	/**
 	 * Gets the moves that this Character knows.
 	 *
@@ -733,6 +767,19 @@ public abstract class Character implements Movable, Displayable {
 		return overworldArt;
 	}
 	
+	/**
+	 * Gets the source of randomness that this Character uses for anything
+	 * left to chance in a battle. Every fighter in a battle shares the
+	 * battle's source, so a battle that is started with the same seed
+	 * always makes the same choices.
+	 * 
+	 * @return The battle's source if this Character is in a Battle,
+	 * otherwise the current thread's source.
+	 */
+	public Random getRandom() {
+		return (random != null) ? random : ThreadLocalRandom.current();
+	}
+	
 	/**
 	 * Gets the sprite for this Character.
 	 * 
@@ -1005,10 +1052,12 @@ public abstract class Character implements Movable, Displayable {
 	 *
 	 * @param id The fighter ID of this Character in the battle.
 	 * @param team The team ID of this Character in the battle.
+	 * @param random The source of randomness of the battle.
 	 */
-	public void startFighting(int id, int team) {
+	public void startFighting(int id, int team, Random random) {
 		fighterId = id;
 		teamId = team;
+		this.random = random;
 		buffs = new ArrayList<Buff>();
 		expiredBuffs = new ArrayList<Buff>();
 	}
@@ -1019,6 +1068,7 @@ public abstract class Character implements Movable, Displayable {
 	public void stopFighting() {
 		fighterId = -1;
 		teamId = -1;
+		random = null;
 		buffs = null;
 		expiredBuffs = null;
 		setSprite(null);
@@ -1038,6 +1088,26 @@ public abstract class Character implements Movable, Displayable {
 		return strVer;
 	}
 	
+	/**
+	 * Gets a copy of one of this Character's moves that is ready to be used.
+	 * Copies are reused once they are released, so choosing a move does not
+	 * need to clone it each time.
+	 * 
+	 * @param move The move to get a copy of. It must be one of the moves
+	 * that this Character knows.
+	 * 
+	 * @return A copy of the move, which must be released once it has been
+	 * used.
+	 */
+	protected Action acquireMove(Action move) {
+		for (int i = 0; i < moves.length; i++) {
+			if (moves[i] == move) {
+				return movePools[i].acquire();
+			}
+		}
+		throw new IllegalArgumentException("not a move of " + name);
+	}
+	
 	/**
 	 * Selects the Action to do based on the other players. The action's
 	 * target is not set.
@@ -2,27 +2,45 @@ package yuuki.entity;
 
 import java.awt.Point;
 import java.util.ArrayList;
+import java.util.Random;
 
 import yuuki.action.Action;
+import yuuki.entity.ai.OverworldPathFinder;
 import yuuki.entity.ai.StandingPathFinder;
+import yuuki.world.FlowFollower;
 import yuuki.world.Land;
+import yuuki.world.RandomMover;
+import yuuki.world.Sleeper;
 import yuuki.world.WalkGraph;
 
 /**
  * The NPC class provides methods for battle AI and leveling up for non-player
  * characters, such as team-mates and monsters.
  */
-public class NonPlayerCharacter extends Character {
+public class NonPlayerCharacter extends Character implements Sleeper,
+FlowFollower, RandomMover {
 	
 	/**
 	 * Used in calculating experience given on death.
 	 */
 	protected static final int DEATH_XP_BASE = 2;
 	
+	/**
+	 * How close the player must come to wake an NPC that is asleep in the
+	 * overworld.
+	 */
+	public static final int WAKE_RADIUS = 8;
+	
 	/**
 	 * The AI for path finding.
 	 */
-	private StandingPathFinder overworldAi;
+	private OverworldPathFinder overworldAi;
+	
+	/**
+	 * The Random that the AI makes its random choices with, or null if the
+	 * NPC has not been given one.
+	 */
+	private Random random;
 	
 	/**
 	 * Used to calculate experience given on death.
@@ -73,12 +91,46 @@ public class NonPlayerCharacter extends Character {
 	
 	@Override
 	public Point getNextMove(Land land) {
-		WalkGraph graph = land.getWalkGraph(getLocation(), false);
-		overworldAi.setLocation(getLocation());
-		Point p = overworldAi.getNextMove(graph);
+		Point p = getLocation();
+		byte mask = land.getWalkMask(p.x, p.y, false);
+		int d = overworldAi.getNextDirection(land, p, mask);
+		if (d != WalkGraph.NO_DIRECTION) {
+			int dx = WalkGraph.getDeltaX(d);
+			int dy = WalkGraph.getDeltaY(d);
+			p = new Point(p.x + dx, p.y + dy);
+		}
 		return p;
 	}
 	
+	/**
+	 * Gets the AI that decides where this NPC moves in the overworld.
+	 * 
+	 * @return The path finding AI.
+	 */
+	public OverworldPathFinder getOverworldAi() {
+		return overworldAi;
+	}
+	
+	@Override
+	public int getWakeInterval() {
+		return overworldAi.getWakeInterval();
+	}
+	
+	@Override
+	public int getWakeRadius() {
+		return WAKE_RADIUS;
+	}
+	
+	@Override
+	public boolean isAutonomous() {
+		return true;
+	}
+	
+	@Override
+	public boolean isFollowingFlow() {
+		return overworldAi.isFollowingFlow();
+	}
+	
 	@Override
 	public boolean isTransferrable() {
 		return false;
@@ -132,6 +184,24 @@ public class NonPlayerCharacter extends Character {
 		levelUp(hp, mp, str, def, agt, acc, mag, luck);
 	}
 	
+	/**
+	 * Sets the AI that decides where this NPC moves in the overworld.
+	 * 
+	 * @param ai The new path finding AI.
+	 */
+	public void setOverworldAi(OverworldPathFinder ai) {
+		overworldAi = ai;
+		if (random != null) {
+			ai.setRandom(random);
+		}
+	}
+	
+	@Override
+	public void setRandom(Random random) {
+		this.random = random;
+		overworldAi.setRandom(random);
+	}
+	
 	/**
 	 * Selects the Action to do based on the other players. The action's
 	 * target is not set.
@@ -143,12 +213,18 @@ public class NonPlayerCharacter extends Character {
 	@Override
 	protected Action selectAction(ArrayList<ArrayList<Character>> fighters) {
 		// TODO: Make intelligent choices based on the battle state
-		int choice = (int) Math.floor(Math.random() * moves.length);
-		return moves[choice].clone();
+		Random random = getRandom();
+		int choice = random.nextInt(moves.length);
+		// NPCs have no way to choose an item, so they never use one
+		while (moves[choice] == itemUseAction && moves.length > 1) {
+			choice = random.nextInt(moves.length);
+		}
+		return acquireMove(moves[choice]);
 	}
 	
 	/**
-	 * Selects the target of an action based on the other players.
+	 * Selects the target of an action based on the other players. The target
+	 * is a random fighter on a random team other than this NPC's own.
 	 *
 	 * @param fighters The states of the other players.
 	 *
@@ -157,10 +233,18 @@ public class NonPlayerCharacter extends Character {
 	@Override
 	protected Character selectTarget(
 			ArrayList<ArrayList<Character>> fighters) {
-		int teamId = (int) Math.floor(Math.random() * (fighters.size() - 1));
-		teamId += (teamId >= getTeamId()) ? 1 : 0;
-		ArrayList<Character> team = fighters.get(teamId);
-		int fighterId = (int) Math.floor(Math.random() * team.size());
+		Random random = getRandom();
+		int own = fighters.size();
+		for (int i = 0; i < fighters.size(); i++) {
+			if (fighters.get(i).get(0).getTeamId() == getTeamId()) {
+				own = i;
+				break;
+			}
+		}
+		int index = random.nextInt(fighters.size() - 1);
+		index += (index >= own) ? 1 : 0;
+		ArrayList<Character> team = fighters.get(index);
+		int fighterId = random.nextInt(team.size());
 		return team.get(fighterId);
 	}
 	
@@ -8,6 +8,7 @@ import yuuki.action.ItemUse;
 import yuuki.item.Item;
 import yuuki.item.UsableItem;
 import yuuki.ui.Interactable;
+import yuuki.util.TickScheduler;
 import yuuki.world.Land;
 import yuuki.world.WalkGraph;
 
@@ -40,6 +41,11 @@ public class PlayerCharacter extends Character {
 	 */
 	private Interactable ui;
 	
+	/**
+	 * The scheduler of the loop that asks this PC for its moves, if any.
+	 */
+	private TickScheduler scheduler;
+	
 	/**
 	 * Allocates a new Character. Most stats are set manually, but experience
 	 * is automatically calculated from the starting level. All stats are the
@@ -78,7 +84,15 @@ public class PlayerCharacter extends Character {
 	@Override
 	public Point getNextMove(Land land) throws InterruptedException {
 		WalkGraph graph = land.getWalkGraph(getLocation(), true);
-		return ui.selectMove(graph, orientation);
+		if (scheduler == null) {
+			return ui.selectMove(graph, orientation);
+		}
+		scheduler.beginWait();
+		try {
+			return ui.selectMove(graph, orientation);
+		} finally {
+			scheduler.endWait();
+		}
 	}
 	
 	@Override
@@ -121,11 +135,27 @@ public class PlayerCharacter extends Character {
 		return baseName + "_" + ext;
 	}
 	
+	@Override
+	public boolean isAutonomous() {
+		return false;
+	}
+	
 	@Override
 	public boolean isTransferrable() {
 		return true;
 	}
 	
+	/**
+	 * Sets the scheduler of the loop that asks this PC for its moves. The
+	 * time spent waiting for the player to select a move is then left out of
+	 * the duration of the scheduler's tick.
+	 *
+	 * @param scheduler The scheduler, or null for none.
+	 */
+	public void setTickScheduler(TickScheduler scheduler) {
+		this.scheduler = scheduler;
+	}
+	
 	/**
 	 * Decides what move to do next based on input from the interface.
 	 *
@@ -144,12 +174,12 @@ public class PlayerCharacter extends Character {
 			if (item == null) {
 				return null;
 			} else {
-				Action a = m.clone();
+				Action a = acquireMove(m);
 				((ItemUse) a).setItem((UsableItem) item);
 				return a;
 			}
 		} else {
-			return m.clone();
+			return acquireMove(m);
 		}
 	}
 	
@@ -0,0 +1,58 @@
+package yuuki.entity.ai;
+
+import java.awt.Point;
+import java.util.Random;
+
+import yuuki.world.FlowField;
+import yuuki.world.Land;
+
+/**
+ * Heads for the target of the Land's FlowField, such as the player. All
+ * ChasePathFinders in a Land share the one field, so choosing a step only
+ * means looking at the neighbouring tiles. When out of range of the field,
+ * movement is left to another path finder.
+ */
+public class ChasePathFinder extends OverworldPathFinder {
+	
+	/**
+	 * Decides where to move when the FlowField does not reach.
+	 */
+	private final OverworldPathFinder idle;
+	
+	/**
+	 * Creates a new ChasePathFinder.
+	 * 
+	 * @param idle The path finder to use when out of range of the FlowField.
+	 */
+	public ChasePathFinder(OverworldPathFinder idle) {
+		this.idle = idle;
+	}
+	
+	/**
+	 * Steps to the neighbouring tile that is closest to the flow target. If
+	 * the current position is within the field but no neighbour is closer,
+	 * such as when the way is blocked, no move is made.
+	 */
+	@Override
+	public int getNextDirection(Land land, Point position, byte mask) {
+		FlowField field = land.getFlowField();
+		if (field != null) {
+			int cost = field.getCost(position.x, position.y);
+			if (cost != FlowField.UNREACHED) {
+				return field.getNextDirection(position.x, position.y, mask);
+			}
+		}
+		return idle.getNextDirection(land, position, mask);
+	}
+	
+	@Override
+	public boolean isFollowingFlow() {
+		return true;
+	}
+	
+	@Override
+	public void setRandom(Random random) {
+		idle.setRandom(random);
+	}
+	
+}
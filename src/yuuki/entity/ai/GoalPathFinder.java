@@ -0,0 +1,217 @@
+package yuuki.entity.ai;
+
+import java.awt.Point;
+
+import yuuki.world.Land;
+import yuuki.world.PathMap;
+import yuuki.world.WalkGraph;
+
+/**
+ * Moves towards a goal. A route to the goal is planned with the Land's
+ * PathMap and is then followed one step per tick, with the steps between
+ * waypoints being found as they are reached. The route is only planned again
+ * when the goal changes, the Land's tiles change, or the route cannot be
+ * followed; residents standing in the way are walked around locally.
+ */
+public class GoalPathFinder extends OverworldPathFinder {
+	
+	/**
+	 * The number of ticks to wait before trying again after a route could not
+	 * be found.
+	 */
+	public static final int REPLAN_DELAY = 16;
+	
+	/**
+	 * The packed point that the last chosen step leads to.
+	 */
+	private long expected;
+	
+	/**
+	 * Where this GoalPathFinder is trying to go.
+	 */
+	private Point goal;
+	
+	/**
+	 * The number of ticks left until a route is planned again after a failed
+	 * attempt.
+	 */
+	private int replanDelay;
+	
+	/**
+	 * The waypoints of the route being followed, or null if there is none.
+	 */
+	private long[] route;
+	
+	/**
+	 * The index of the next waypoint in the route.
+	 */
+	private int routeIndex;
+	
+	/**
+	 * The Land that the route was planned in.
+	 */
+	private Land routeLand;
+	
+	/**
+	 * The version of the PathMap that the route was planned with.
+	 */
+	private int routeVersion;
+	
+	/**
+	 * The steps to the next waypoint, or null if they have not been found.
+	 */
+	private long[] segment;
+	
+	/**
+	 * The index of the next step in the segment.
+	 */
+	private int segmentIndex;
+	
+	/**
+	 * Creates a new GoalPathFinder.
+	 * 
+	 * @param goal The point to move towards, or null to not move.
+	 */
+	public GoalPathFinder(Point goal) {
+		setGoal(goal);
+	}
+	
+	/**
+	 * Gets the point that is being moved towards.
+	 * 
+	 * @return The goal, or null if there is none.
+	 */
+	public Point getGoal() {
+		return (goal != null) ? new Point(goal) : null;
+	}
+	
+	/**
+	 * Chooses the next step of the route to the goal. No move is made once
+	 * the goal has been reached, or while the way forward is blocked.
+	 */
+	@Override
+	public int getNextDirection(Land land, Point position, byte mask) {
+		if (goal == null || position.equals(goal)) {
+			route = null;
+			return WalkGraph.NO_DIRECTION;
+		}
+		PathMap map = land.getPathMap();
+		if (route == null || land != routeLand ||
+				map.getVersion() != routeVersion) {
+			if (!planRoute(land, map, position)) {
+				return WalkGraph.NO_DIRECTION;
+			}
+		}
+		long here = PathMap.pack(position.x, position.y);
+		if (here != expected) {
+			segment = null;
+		}
+		while (routeIndex < route.length && route[routeIndex] == here) {
+			routeIndex++;
+			segment = null;
+		}
+		if (routeIndex >= route.length) {
+			route = null;
+			return WalkGraph.NO_DIRECTION;
+		}
+		long waypoint = route[routeIndex];
+		if (segment == null || segmentIndex >= segment.length) {
+			segment = findSegment(map, position, waypoint,
+					PathMap.ALL_DIRECTIONS);
+			segmentIndex = 0;
+			if (segment == null) {
+				route = null;
+				return WalkGraph.NO_DIRECTION;
+			}
+		}
+		int d = getDirection(position, segment[segmentIndex]);
+		if (d == WalkGraph.NO_DIRECTION || !WalkGraph.isValid(mask, d)) {
+			long[] detour = findSegment(map, position, waypoint, mask);
+			if (detour == null || detour.length == 0) {
+				return WalkGraph.NO_DIRECTION;
+			}
+			segment = detour;
+			segmentIndex = 0;
+			d = getDirection(position, segment[0]);
+		}
+		expected = segment[segmentIndex++];
+		return d;
+	}
+	
+	/**
+	 * Sets the point to move towards.
+	 * 
+	 * @param goal The new goal, or null to stop moving.
+	 */
+	public void setGoal(Point goal) {
+		this.goal = (goal != null) ? new Point(goal) : null;
+		route = null;
+		replanDelay = 0;
+	}
+	
+	/**
+	 * Finds the steps from the current position to a waypoint.
+	 * 
+	 * @param map The PathMap to search with.
+	 * @param position The current position.
+	 * @param waypoint The packed waypoint to go to.
+	 * @param mask The directions that may be taken from the current position.
+	 * 
+	 * @return The steps to the waypoint, or null if it cannot be reached.
+	 */
+	private long[] findSegment(PathMap map, Point position, long waypoint,
+			byte mask) {
+		int wx = PathMap.unpackX(waypoint);
+		int wy = PathMap.unpackY(waypoint);
+		if (PathMap.distance(position.x, position.y, wx, wy) == 1) {
+			int d = getDirection(position, waypoint);
+			return WalkGraph.isValid(mask, d) ? new long[] {waypoint} : null;
+		}
+		return map.findLocalPath(position.x, position.y, wx, wy, mask,
+				PathMap.CLUSTER_SIZE);
+	}
+	
+	/**
+	 * Gets the direction from a position to an adjacent point.
+	 * 
+	 * @param position The position to move from.
+	 * @param point The packed point to move to.
+	 * 
+	 * @return The direction, or WalkGraph.NO_DIRECTION if the point is not
+	 * adjacent to the position.
+	 */
+	private int getDirection(Point position, long point) {
+		int dx = PathMap.unpackX(point) - position.x;
+		int dy = PathMap.unpackY(point) - position.y;
+		return WalkGraph.getDirection(dx, dy);
+	}
+	
+	/**
+	 * Plans a new route to the goal. If planning fails, it is not tried again
+	 * until REPLAN_DELAY ticks have passed.
+	 * 
+	 * @param land The Land to plan the route in.
+	 * @param map The PathMap of the Land.
+	 * @param position The current position.
+	 * 
+	 * @return Whether a route was found.
+	 */
+	private boolean planRoute(Land land, PathMap map, Point position) {
+		if (replanDelay > 0) {
+			replanDelay--;
+			return false;
+		}
+		routeVersion = map.getVersion();
+		routeLand = land;
+		route = map.findRoute(position.x, position.y, goal.x, goal.y);
+		routeIndex = 0;
+		segment = null;
+		expected = PathMap.pack(position.x, position.y);
+		if (route == null) {
+			replanDelay = REPLAN_DELAY;
+			return false;
+		}
+		return true;
+	}
+	
+}
@@ -1,8 +1,9 @@
 package yuuki.entity.ai;
 
 import java.awt.Point;
+import java.util.Random;
 
-import yuuki.world.WalkGraph;
+import yuuki.world.Land;
 
 /**
  * Overworld movement AI.
@@ -10,12 +11,49 @@ import yuuki.world.WalkGraph;
 public abstract class OverworldPathFinder {
 	
 	/**
-	 * Gets the next point to go to.
+	 * Gets the direction of the next tile to go to.
 	 * 
-	 * @param graph The WalkGraph to use for calculating the next move.
+	 * @param land The Land that the movement is taking place in.
+	 * @param position The current position.
+	 * @param mask The walk mask of the current position, as given by
+	 * Land.getWalkMask().
 	 * 
-	 * @return The next point.
+	 * @return The direction to move in, as one of the direction constants in
+	 * WalkGraph, or WalkGraph.NO_DIRECTION to stay at the current position.
 	 */
-	public abstract Point getNextMove(WalkGraph graph);
+	public abstract int getNextDirection(Land land, Point position,
+			byte mask);
+	
+	/**
+	 * Gets how long a resident using this OverworldPathFinder may sleep for
+	 * after it chooses not to move. Path finders whose choices can change
+	 * from one tick to the next without anything coming near, such as those
+	 * following a FlowField, must not allow sleeping.
+	 * 
+	 * @return The number of ticks to sleep for, or 0 to never sleep. This is
+	 * 0 unless overridden.
+	 */
+	public int getWakeInterval() {
+		return 0;
+	}
+	
+	/**
+	 * Checks whether this OverworldPathFinder heads for the target of the
+	 * Land's FlowField. A Land only keeps a FlowField while one of its
+	 * residents is following it.
+	 * 
+	 * @return Whether the FlowField is used. This is false unless overridden.
+	 */
+	public boolean isFollowingFlow() {
+		return false;
+	}
+	
+	/**
+	 * Sets the Random that this OverworldPathFinder makes its random choices
+	 * with. Path finders that make no random choices ignore it.
+	 * 
+	 * @param random The Random to use.
+	 */
+	public void setRandom(Random random) {}
 	
 }
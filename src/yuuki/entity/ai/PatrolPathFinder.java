@@ -0,0 +1,68 @@
+package yuuki.entity.ai;
+
+import java.awt.Point;
+
+import yuuki.world.Land;
+
+/**
+ * Walks back and forth between two points, planning each leg with the Land's
+ * PathMap as a GoalPathFinder does. Once one end has been reached, the other
+ * becomes the goal.
+ */
+public class PatrolPathFinder extends GoalPathFinder {
+	
+	/**
+	 * The end of the patrol that is walked to first.
+	 */
+	private final Point far;
+	
+	/**
+	 * The end of the patrol that is walked back to.
+	 */
+	private final Point near;
+	
+	/**
+	 * Creates a new PatrolPathFinder.
+	 * 
+	 * @param near The end of the patrol that is walked back to, which is
+	 * normally where the resident starts.
+	 * @param far The end of the patrol that is walked to first.
+	 */
+	public PatrolPathFinder(Point near, Point far) {
+		super(far);
+		this.near = new Point(near);
+		this.far = new Point(far);
+	}
+	
+	/**
+	 * Gets the end of the patrol that is walked to first.
+	 * 
+	 * @return The far end.
+	 */
+	public Point getFarEnd() {
+		return new Point(far);
+	}
+	
+	/**
+	 * Gets the end of the patrol that is walked back to.
+	 * 
+	 * @return The near end.
+	 */
+	public Point getNearEnd() {
+		return new Point(near);
+	}
+	
+	/**
+	 * Turns around if the current goal has been reached, and then chooses the
+	 * next step towards the goal.
+	 */
+	@Override
+	public int getNextDirection(Land land, Point position, byte mask) {
+		Point goal = getGoal();
+		if (position.equals(goal)) {
+			setGoal(goal.equals(far) ? near : far);
+		}
+		return super.getNextDirection(land, position, mask);
+	}
+	
+}
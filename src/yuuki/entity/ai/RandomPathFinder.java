@@ -1,7 +1,9 @@
 package yuuki.entity.ai;
 
 import java.awt.Point;
+import java.util.Random;
 
+import yuuki.world.Land;
 import yuuki.world.WalkGraph;
 
 /**
@@ -9,54 +11,39 @@ import yuuki.world.WalkGraph;
  */
 public class RandomPathFinder extends OverworldPathFinder {
 	
+	/**
+	 * Chooses the directions.
+	 */
+	private Random random;
+	
+	/**
+	 * Creates a new RandomPathFinder. It chooses with an unseeded Random
+	 * until another is set.
+	 */
+	public RandomPathFinder() {
+		random = new Random();
+	}
+	
+	/**
+	 * Chooses a random direction. If the chosen direction cannot be walked
+	 * in, the next valid direction clockwise from it is used instead.
+	 */
 	@Override
-	@SuppressWarnings("fallthrough")
-	public Point getNextMove(WalkGraph graph) {
-		int choice = (int) Math.floor((Math.random() * 8));
-		Point dest = null;
-		switch (choice) {
-			case 0:
-				dest = graph.getNorth();
-				if (dest != null) {
-					break;
-				}
-			case 1:
-				dest = graph.getNorthEast();
-				if (dest != null) {
-					break;
-				}
-			case 2:
-				dest = graph.getEast();
-				if (dest != null) {
-					break;
-				}
-			case 3:
-				dest = graph.getSouthEast();
-				if (dest != null) {
-					break;
-				}
-			case 4:
-				dest = graph.getSouth();
-				if (dest != null) {
-					break;
-				}
-			case 5:
-				dest = graph.getSouthWest();
-				if (dest != null) {
-					break;
-				}
-			case 6:
-				dest = graph.getWest();
-				if (dest != null) {
-					break;
-				}
-			case 7:
-				dest = graph.getNorthWest();
-				if (dest != null) {
-					break;
-				}
+	public int getNextDirection(Land land, Point position, byte mask) {
+		if (mask == 0) {
+			return WalkGraph.NO_DIRECTION;
+		}
+		int count = WalkGraph.DIRECTION_COUNT;
+		int choice = random.nextInt(count);
+		while (!WalkGraph.isValid(mask, choice)) {
+			choice = (choice + 1) % count;
 		}
-		return dest;
+		return choice;
+	}
+	
+	@Override
+	public void setRandom(Random random) {
+		this.random = random;
 	}
 	
 }
@@ -2,6 +2,7 @@ package yuuki.entity.ai;
 
 import java.awt.Point;
 
+import yuuki.world.Land;
 import yuuki.world.WalkGraph;
 
 /**
@@ -10,22 +11,22 @@ import yuuki.world.WalkGraph;
 public class StandingPathFinder extends OverworldPathFinder {
 	
 	/**
-	 * The current location.
+	 * The number of ticks that a standing resident sleeps for at a time.
 	 */
-	private Point location;
+	public static final int WAKE_INTERVAL = 64;
 	
 	@Override
-	public Point getNextMove(WalkGraph graph) {
-		return new Point(location);
+	public int getNextDirection(Land land, Point position, byte mask) {
+		return WalkGraph.NO_DIRECTION;
 	}
 	
 	/**
-	 * Sets the current location.
-	 * 
-	 * @param location The current location.
+	 * Allows a standing resident to sleep, as it never moves. It still wakes
+	 * now and then so that a change of path finder is noticed.
 	 */
-	public void setLocation(Point location) {
-		this.location = new Point(location);
+	@Override
+	public int getWakeInterval() {
+		return WAKE_INTERVAL;
 	}
 	
 }
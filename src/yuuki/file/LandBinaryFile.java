@@ -0,0 +1,526 @@
+package yuuki.file;
+
+import java.awt.Dimension;
+import java.awt.Point;
+import java.nio.ByteBuffer;
+import java.nio.ShortBuffer;
+import java.nio.charset.Charset;
+
+import yuuki.ui.DialogHandler;
+import yuuki.world.TileChunkSource;
+import yuuki.world.TileTable;
+
+/**
+ * A land in the binary .lndb format. Every section of the format has a fixed
+ * layout, so the contents are read straight out of the buffer that holds the
+ * file, which is normally a memory-mapped view of it. Nothing is parsed up
+ * front except the header and the tile palette.
+ * 
+ * All values are big-endian. The file starts with a header of HEADER_SIZE
+ * bytes:
+ * 
+ * <pre>
+ * int   magic        'LNDB'
+ * short version      FORMAT_VERSION
+ * short reserved     0
+ * int   width, height
+ * int   startX, startY
+ * int   chunk        chunk size for paged loading, or 0
+ * int   name         string index of the land's name
+ * int   paletteCount
+ * int   portalCount
+ * int   itemCount
+ * int   entityCount
+ * int   stringCount
+ * </pre>
+ * 
+ * The sections then follow in this order:
+ * 
+ * <ul>
+ * <li>Palette: paletteCount chars, each the ID of a tile type. Entry 0 is
+ * the void tile.</li>
+ * <li>Tiles: width * height unsigned shorts in row-major order, each an
+ * index into the palette.</li>
+ * <li>Portals: portalCount records of six ints: x, y, linkX, linkY, name
+ * string index, land string index.</li>
+ * <li>Items: itemCount records of two ints and a long: x, y, item ID.</li>
+ * <li>Entities: entityCount records of five ints: x, y, name string index,
+ * level, movement string index. The movement is given as in text land
+ * files.</li>
+ * <li>Strings: stringCount ints giving the offset of each string from the
+ * end of this table, then the strings themselves, each an unsigned short
+ * length followed by that many bytes of UTF-8.</li>
+ * </ul>
+ */
+public class LandBinaryFile implements TileChunkSource {
+	
+	/**
+	 * The size of an entity record, in bytes.
+	 */
+	public static final int ENTITY_RECORD_SIZE = 20;
+	
+	/**
+	 * The file extension of binary land files.
+	 */
+	public static final String EXTENSION = ".lndb";
+	
+	/**
+	 * The version of the format that is read and written.
+	 */
+	public static final short FORMAT_VERSION = 2;
+	
+	/**
+	 * The size of the header, in bytes.
+	 */
+	public static final int HEADER_SIZE = 52;
+	
+	/**
+	 * The size of an item record, in bytes.
+	 */
+	public static final int ITEM_RECORD_SIZE = 16;
+	
+	/**
+	 * The first four bytes of every binary land file.
+	 */
+	public static final int MAGIC = 0x4c4e4442;
+	
+	/**
+	 * The largest number of entries in the tile palette.
+	 */
+	public static final int MAX_PALETTE_SIZE = 1 << 16;
+	
+	/**
+	 * The size of a portal record, in bytes.
+	 */
+	public static final int PORTAL_RECORD_SIZE = 24;
+	
+	/**
+	 * The encoding of strings.
+	 */
+	public static final Charset UTF_8 = Charset.forName("UTF-8");
+	
+	/**
+	 * The buffer holding the file.
+	 */
+	private final ByteBuffer buffer;
+	
+	/**
+	 * The number of entity records.
+	 */
+	private final int entityCount;
+	
+	/**
+	 * The offset of the entity section.
+	 */
+	private final int entityOffset;
+	
+	/**
+	 * The number of item records.
+	 */
+	private final int itemCount;
+	
+	/**
+	 * The offset of the item section.
+	 */
+	private final int itemOffset;
+	
+	/**
+	 * The name of the resource that the file was read from, for messages.
+	 */
+	private final String name;
+	
+	/**
+	 * The tile table index of each palette entry.
+	 */
+	private final short[] palette;
+	
+	/**
+	 * The number of portal records.
+	 */
+	private final int portalCount;
+	
+	/**
+	 * The offset of the portal section.
+	 */
+	private final int portalOffset;
+	
+	/**
+	 * The size of the land.
+	 */
+	private final Dimension size;
+	
+	/**
+	 * The number of strings.
+	 */
+	private final int stringCount;
+	
+	/**
+	 * The offset of the string data, just past the string offset table.
+	 */
+	private final int stringDataOffset;
+	
+	/**
+	 * The offset of the string offset table.
+	 */
+	private final int stringTableOffset;
+	
+	/**
+	 * A view of the tile section.
+	 */
+	private final ShortBuffer tiles;
+	
+	/**
+	 * Reads the header and palette of a binary land file.
+	 * 
+	 * @param buffer The contents of the file. Its position is ignored.
+	 * @param table The table that tile IDs are resolved with, or null if only
+	 * the header, records and strings are to be read. The tiles cannot be read
+	 * without a table.
+	 * @param name The name of the resource being read, for messages.
+	 * 
+	 * @throws ResourceFormatException If the file is not a binary land file,
+	 * is of an unknown version, or is too short for the sections that its
+	 * header describes.
+	 */
+	public LandBinaryFile(ByteBuffer buffer, TileTable table, String name)
+			throws ResourceFormatException {
+		this.buffer = buffer;
+		this.name = name;
+		if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+			throw new ResourceFormatException(name);
+		}
+		if (buffer.getShort(4) != FORMAT_VERSION) {
+			throw new ResourceFormatException(name, new RecordFormatException(
+					0, "unknown version " + buffer.getShort(4)));
+		}
+		size = new Dimension(buffer.getInt(8), buffer.getInt(12));
+		int paletteCount = buffer.getInt(32);
+		portalCount = buffer.getInt(36);
+		itemCount = buffer.getInt(40);
+		entityCount = buffer.getInt(44);
+		stringCount = buffer.getInt(48);
+		if (size.width < 0 || size.height < 0 || paletteCount < 1 ||
+				paletteCount > MAX_PALETTE_SIZE || portalCount < 0 ||
+				itemCount < 0 || entityCount < 0 || stringCount < 0) {
+			throw new ResourceFormatException(name, new RecordFormatException(
+					0, "negative or oversized section"));
+		}
+		long tileOffset = HEADER_SIZE + (2L * paletteCount);
+		long end = tileOffset + (2L * size.width * size.height);
+		portalOffset = (int) Math.min(end, Integer.MAX_VALUE);
+		end += (long) PORTAL_RECORD_SIZE * portalCount;
+		itemOffset = (int) Math.min(end, Integer.MAX_VALUE);
+		end += (long) ITEM_RECORD_SIZE * itemCount;
+		entityOffset = (int) Math.min(end, Integer.MAX_VALUE);
+		end += (long) ENTITY_RECORD_SIZE * entityCount;
+		stringTableOffset = (int) Math.min(end, Integer.MAX_VALUE);
+		end += 4L * stringCount;
+		stringDataOffset = (int) Math.min(end, Integer.MAX_VALUE);
+		if (end > buffer.capacity()) {
+			throw new ResourceFormatException(name, new RecordFormatException(
+					0, "file is truncated"));
+		}
+		palette = new short[(table != null) ? paletteCount : 0];
+		for (int i = 0; i < palette.length; i++) {
+			char id = buffer.getChar(HEADER_SIZE + (2 * i));
+			int type = table.indexOf(id);
+			if (type == TileTable.NO_INDEX) {
+				String raw = "bad tile '%s' in palette of '%s' - using void";
+				DialogHandler.showMessage(String.format(raw, id, name));
+				type = TileTable.VOID_INDEX;
+			}
+			palette[i] = (short) type;
+		}
+		ByteBuffer view = buffer.duplicate();
+		view.position((int) tileOffset);
+		tiles = view.slice().asShortBuffer();
+	}
+	
+	/**
+	 * Does nothing, as the file is held in a buffer that is released once it
+	 * is no longer referenced.
+	 */
+	@Override
+	public void close() {}
+	
+	/**
+	 * Gets the chunk size that the land is to be paged in with.
+	 * 
+	 * @return The chunk size, or 0 if the land is to be loaded in its
+	 * entirety.
+	 */
+	public int getChunkSize() {
+		return buffer.getInt(24);
+	}
+	
+	/**
+	 * Gets the number of entity records.
+	 * 
+	 * @return The number of entities.
+	 */
+	public int getEntityCount() {
+		return entityCount;
+	}
+	
+	/**
+	 * Gets the level of an entity.
+	 * 
+	 * @param index The index of the entity record.
+	 * 
+	 * @return The level.
+	 */
+	public int getEntityLevel(int index) {
+		return buffer.getInt(entityOffset + (index * ENTITY_RECORD_SIZE) + 12);
+	}
+	
+	/**
+	 * Gets the location of an entity.
+	 * 
+	 * @param index The index of the entity record.
+	 * 
+	 * @return The location.
+	 */
+	public Point getEntityLocation(int index) {
+		return getPoint(entityOffset + (index * ENTITY_RECORD_SIZE));
+	}
+	
+	/**
+	 * Gets how an entity moves in the overworld.
+	 * 
+	 * @param index The index of the entity record.
+	 * 
+	 * @return The movement, as given in text land files.
+	 * 
+	 * @throws ResourceFormatException If the record refers to a string that
+	 * does not exist.
+	 */
+	public String getEntityMovement(int index) throws ResourceFormatException {
+		int offset = entityOffset + (index * ENTITY_RECORD_SIZE) + 16;
+		return getString(buffer.getInt(offset));
+	}
+	
+	/**
+	 * Gets the name of an entity.
+	 * 
+	 * @param index The index of the entity record.
+	 * 
+	 * @return The name.
+	 * 
+	 * @throws ResourceFormatException If the record refers to a string that
+	 * does not exist.
+	 */
+	public String getEntityName(int index) throws ResourceFormatException {
+		int offset = entityOffset + (index * ENTITY_RECORD_SIZE) + 8;
+		return getString(buffer.getInt(offset));
+	}
+	
+	/**
+	 * Gets the ID of an item.
+	 * 
+	 * @param index The index of the item record.
+	 * 
+	 * @return The item ID.
+	 */
+	public long getItemId(int index) {
+		return buffer.getLong(itemOffset + (index * ITEM_RECORD_SIZE) + 8);
+	}
+	
+	/**
+	 * Gets the number of item records.
+	 * 
+	 * @return The number of items.
+	 */
+	public int getItemCount() {
+		return itemCount;
+	}
+	
+	/**
+	 * Gets the location of an item.
+	 * 
+	 * @param index The index of the item record.
+	 * 
+	 * @return The location.
+	 */
+	public Point getItemLocation(int index) {
+		return getPoint(itemOffset + (index * ITEM_RECORD_SIZE));
+	}
+	
+	/**
+	 * Gets the name of the land.
+	 * 
+	 * @return The name.
+	 * 
+	 * @throws ResourceFormatException If the header refers to a string that
+	 * does not exist.
+	 */
+	public String getName() throws ResourceFormatException {
+		return getString(buffer.getInt(28));
+	}
+	
+	/**
+	 * Gets the number of portal records.
+	 * 
+	 * @return The number of portals.
+	 */
+	public int getPortalCount() {
+		return portalCount;
+	}
+	
+	/**
+	 * Gets the name of the land that a portal leads to.
+	 * 
+	 * @param index The index of the portal record.
+	 * 
+	 * @return The name of the linked land.
+	 * 
+	 * @throws ResourceFormatException If the record refers to a string that
+	 * does not exist.
+	 */
+	public String getPortalLand(int index) throws ResourceFormatException {
+		int offset = portalOffset + (index * PORTAL_RECORD_SIZE) + 20;
+		return getString(buffer.getInt(offset));
+	}
+	
+	/**
+	 * Gets where a portal leads to in its linked land.
+	 * 
+	 * @param index The index of the portal record.
+	 * 
+	 * @return The link point.
+	 */
+	public Point getPortalLink(int index) {
+		return getPoint(portalOffset + (index * PORTAL_RECORD_SIZE) + 8);
+	}
+	
+	/**
+	 * Gets the location of a portal.
+	 * 
+	 * @param index The index of the portal record.
+	 * 
+	 * @return The location.
+	 */
+	public Point getPortalLocation(int index) {
+		return getPoint(portalOffset + (index * PORTAL_RECORD_SIZE));
+	}
+	
+	/**
+	 * Gets the name of a portal.
+	 * 
+	 * @param index The index of the portal record.
+	 * 
+	 * @return The name.
+	 * 
+	 * @throws ResourceFormatException If the record refers to a string that
+	 * does not exist.
+	 */
+	public String getPortalName(int index) throws ResourceFormatException {
+		int offset = portalOffset + (index * PORTAL_RECORD_SIZE) + 16;
+		return getString(buffer.getInt(offset));
+	}
+	
+	/**
+	 * Gets the size of the land.
+	 * 
+	 * @return The size.
+	 */
+	public Dimension getSize() {
+		return new Dimension(size);
+	}
+	
+	/**
+	 * Gets where the player starts.
+	 * 
+	 * @return The player start.
+	 */
+	public Point getStart() {
+		return getPoint(16);
+	}
+	
+	/**
+	 * Reads the tile indexes of a chunk straight out of the tile section.
+	 * Palette indexes that are out of range are read as the void tile.
+	 */
+	@Override
+	public void readChunk(int chunkX, int chunkY, int chunkSize,
+			short[] ids) {
+		int x0 = chunkX * chunkSize;
+		int y0 = chunkY * chunkSize;
+		int rows = Math.min(chunkSize, size.height - y0);
+		int columns = Math.min(chunkSize, size.width - x0);
+		for (int row = 0; row < rows; row++) {
+			int start = ((y0 + row) * size.width) + x0;
+			for (int i = 0; i < columns; i++) {
+				int entry = tiles.get(start + i) & 0xffff;
+				if (entry < palette.length) {
+					ids[(row * chunkSize) + i] = palette[entry];
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Reads the tile indexes of the whole land. Palette indexes that are out
+	 * of range are read as the void tile.
+	 * 
+	 * @param ids The array to read the indexes into, in row-major order. This
+	 * must be (width * height) long.
+	 */
+	public void readTiles(short[] ids) {
+		ShortBuffer view = tiles.duplicate();
+		view.position(0);
+		view.get(ids, 0, size.width * size.height);
+		for (int i = 0; i < ids.length; i++) {
+			int entry = ids[i] & 0xffff;
+			if (entry < palette.length) {
+				ids[i] = palette[entry];
+			} else {
+				ids[i] = TileTable.VOID_INDEX;
+			}
+		}
+	}
+	
+	/**
+	 * Reads a point stored as two ints.
+	 * 
+	 * @param offset The offset of the x-coordinate.
+	 * 
+	 * @return The point.
+	 */
+	private Point getPoint(int offset) {
+		return new Point(buffer.getInt(offset), buffer.getInt(offset + 4));
+	}
+	
+	/**
+	 * Reads a string from the string section.
+	 * 
+	 * @param index The index of the string.
+	 * 
+	 * @return The string.
+	 * 
+	 * @throws ResourceFormatException If there is no such string or it runs
+	 * past the end of the file.
+	 */
+	private String getString(int index) throws ResourceFormatException {
+		if (index < 0 || index >= stringCount) {
+			throw new ResourceFormatException(name, new RecordFormatException(
+					index, "no such string"));
+		}
+		long start = (long) stringDataOffset +
+				buffer.getInt(stringTableOffset + (4 * index));
+		if (start < stringDataOffset || start + 2 > buffer.capacity()) {
+			throw new ResourceFormatException(name, new RecordFormatException(
+					index, "string out of range"));
+		}
+		int length = buffer.getChar((int) start);
+		if (start + 2 + length > buffer.capacity()) {
+			throw new ResourceFormatException(name, new RecordFormatException(
+					index, "string out of range"));
+		}
+		byte[] bytes = new byte[length];
+		ByteBuffer view = buffer.duplicate();
+		view.position((int) start + 2);
+		view.get(bytes);
+		return new String(bytes, UTF_8);
+	}
+	
+}
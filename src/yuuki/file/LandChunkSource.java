@@ -0,0 +1,184 @@
+package yuuki.file;
+
+import java.awt.Dimension;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+
+import yuuki.ui.DialogHandler;
+import yuuki.world.TileChunkSource;
+import yuuki.world.TileTable;
+
+/**
+ * Reads chunks of map data directly out of a land file. The file is scanned
+ * once to find where each row of the map starts, after which any chunk can be
+ * read by seeking to the rows that it covers. Tile characters are read as
+ * single bytes, so chunked land files must only use single-byte tile IDs.
+ */
+public class LandChunkSource implements TileChunkSource, Closeable {
+	
+	/**
+	 * The size of the buffer used when scanning for rows.
+	 */
+	private static final int SCAN_BUFFER_SIZE = 8192;
+	
+	/**
+	 * The land file being read.
+	 */
+	private final RandomAccessFile file;
+	
+	/**
+	 * The name of the land file, for error messages.
+	 */
+	private final String name;
+	
+	/**
+	 * The length of each map row, not including its line terminator.
+	 */
+	private final int[] rowLengths;
+	
+	/**
+	 * The offset within the file of the start of each map row, or -1 if the
+	 * file ends before that row.
+	 */
+	private final long[] rowOffsets;
+	
+	/**
+	 * The table that tile characters are resolved with.
+	 */
+	private final TileTable table;
+	
+	/**
+	 * The width of the map, in tiles.
+	 */
+	private final int width;
+	
+	/**
+	 * Creates a new LandChunkSource.
+	 * 
+	 * @param landFile The land file to read.
+	 * @param firstLine The line of the file that the map data starts on, with
+	 * the first line being line 0.
+	 * @param size The size of the map.
+	 * @param table The table that tile characters are resolved with.
+	 * 
+	 * @throws IOException If an I/O error occurs while scanning the file.
+	 */
+	public LandChunkSource(File landFile, int firstLine, Dimension size,
+			TileTable table) throws IOException {
+		this.table = table;
+		this.name = landFile.getPath();
+		width = size.width;
+		rowOffsets = new long[size.height];
+		rowLengths = new int[size.height];
+		Arrays.fill(rowOffsets, -1);
+		file = new RandomAccessFile(landFile, "r");
+		try {
+			scanRows(firstLine);
+		} catch (IOException e) {
+			file.close();
+			throw e;
+		}
+	}
+	
+	/**
+	 * Closes the land file. If it cannot be closed, the error is shown.
+	 */
+	@Override
+	public synchronized void close() {
+		try {
+			file.close();
+		} catch (IOException e) {
+			String msg = "Could not close '" + name + "':";
+			DialogHandler.showMessage(msg, e);
+		}
+	}
+	
+	/**
+	 * Reads the tile indexes of a chunk. Tiles that are not in the table are
+	 * read as the void tile. If the file cannot be read, the error is shown and
+	 * the chunk is left as void tiles.
+	 */
+	@Override
+	public synchronized void readChunk(int chunkX, int chunkY, int chunkSize,
+			short[] ids) {
+		int x0 = chunkX * chunkSize;
+		int y0 = chunkY * chunkSize;
+		int rows = Math.min(chunkSize, rowOffsets.length - y0);
+		byte[] buffer = new byte[chunkSize];
+		try {
+			for (int row = 0; row < rows; row++) {
+				int y = y0 + row;
+				int count = Math.min(chunkSize, rowLengths[y] - x0);
+				count = Math.min(count, width - x0);
+				if (rowOffsets[y] < 0 || count <= 0) {
+					continue;
+				}
+				file.seek(rowOffsets[y] + x0);
+				file.readFully(buffer, 0, count);
+				for (int i = 0; i < count; i++) {
+					int type = table.indexOf(buffer[i] & 0xff);
+					if (type != TileTable.NO_INDEX) {
+						ids[(row * chunkSize) + i] = (short) type;
+					}
+				}
+			}
+		} catch (IOException e) {
+			String msg = "Could not read chunk of '" + name + "':";
+			DialogHandler.showMessage(msg, e);
+		}
+	}
+	
+	/**
+	 * Records the location of a line if it is a map row.
+	 * 
+	 * @param line The number of the line.
+	 * @param firstLine The line that the map data starts on.
+	 * @param start The offset of the start of the line.
+	 * @param end The offset of the end of the line.
+	 */
+	private void recordRow(int line, int firstLine, long start, long end) {
+		int row = line - firstLine;
+		if (row >= 0 && row < rowOffsets.length) {
+			rowOffsets[row] = start;
+			rowLengths[row] = (int) (end - start);
+		}
+	}
+	
+	/**
+	 * Records where each map row starts and how long it is.
+	 * 
+	 * @param firstLine The line that the map data starts on.
+	 * 
+	 * @throws IOException If an I/O error occurs.
+	 */
+	private void scanRows(int firstLine) throws IOException {
+		byte[] buffer = new byte[SCAN_BUFFER_SIZE];
+		long position = 0;
+		long lineStart = 0;
+		int line = 0;
+		boolean lastWasCr = false;
+		int read;
+		file.seek(0);
+		while (line - firstLine < rowOffsets.length &&
+				(read = file.read(buffer)) > 0) {
+			for (int i = 0; i < read; i++, position++) {
+				byte b = buffer[i];
+				if (b == '\n' && lastWasCr) {
+					lineStart = position + 1;
+				} else if (b == '\n' || b == '\r') {
+					recordRow(line, firstLine, lineStart, position);
+					line++;
+					lineStart = position + 1;
+				}
+				lastWasCr = (b == '\r');
+			}
+		}
+		if (position > lineStart) {
+			recordRow(line, firstLine, lineStart, position);
+		}
+	}
+	
+}
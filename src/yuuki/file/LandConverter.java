@@ -0,0 +1,437 @@
+package yuuki.file;
+
+import java.awt.Dimension;
+import java.awt.Point;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import yuuki.action.ActionFactory;
+import yuuki.entity.EntityFactory;
+import yuuki.entity.NonPlayerCharacter;
+import yuuki.entity.ai.ChasePathFinder;
+import yuuki.entity.ai.OverworldPathFinder;
+import yuuki.entity.ai.PatrolPathFinder;
+import yuuki.entity.ai.RandomPathFinder;
+import yuuki.entity.ai.StandingPathFinder;
+import yuuki.item.Item;
+import yuuki.item.ItemFactory;
+import yuuki.ui.DialogHandler;
+import yuuki.util.Grid;
+import yuuki.world.ChunkedTileGrid;
+import yuuki.world.Land;
+import yuuki.world.Movable;
+import yuuki.world.PopulationFactory;
+import yuuki.world.Portal;
+import yuuki.world.PortalFactory;
+import yuuki.world.Tile;
+import yuuki.world.TileFactory;
+
+/**
+ * Converts text land files into the binary format read by LandBinaryFile.
+ * Each land file is loaded by a LandLoader and the binary file is written
+ * from the Land that it produces, so the two formats always agree on what a
+ * land file holds. Unlike loading a land, converting one does not skip bad
+ * records; a land file that has anything that LandLoader would skip is not
+ * converted, so that a binary file always holds everything that its text
+ * file does.
+ */
+public class LandConverter {
+	
+	/**
+	 * The path to the action definitions file within the resource root.
+	 */
+	private static final String ACTIONS_FILE = "data/actions.def";
+	
+	/**
+	 * The path to the entity definitions file within the resource root.
+	 */
+	private static final String ENTITIES_FILE = "data/monsters.def";
+	
+	/**
+	 * The path to the item definitions file within the resource root.
+	 */
+	private static final String ITEMS_FILE = "data/items.def";
+	
+	/**
+	 * The path to the portal definitions file within the resource root.
+	 */
+	private static final String PORTALS_FILE = "data/portals.def";
+	
+	/**
+	 * The file extension of text land files.
+	 */
+	private static final String TEXT_EXTENSION = ".lnd";
+	
+	/**
+	 * The path to the tile definitions file within the resource root.
+	 */
+	private static final String TILES_FILE = "data/tiles.def";
+	
+	/**
+	 * Loads the land files.
+	 */
+	private final LandLoader loader;
+	
+	/**
+	 * The strings of the land being converted, in order of index.
+	 */
+	private List<String> strings;
+	
+	/**
+	 * The index of each string in the string table.
+	 */
+	private Map<String, Integer> stringIndexes;
+	
+	/**
+	 * Creates a new LandConverter for land files in a directory.
+	 * 
+	 * @param directory The directory containing the land files to convert.
+	 * @param populator Creates the portals, items and entities of the lands.
+	 */
+	public LandConverter(File directory, PopulationFactory populator) {
+		loader = new LandLoader(directory, populator);
+	}
+	
+	/**
+	 * Creates a PopulationFactory from the definition files in a resource
+	 * root.
+	 * 
+	 * @param root The resource root.
+	 * 
+	 * @return The PopulationFactory.
+	 * 
+	 * @throws ResourceNotFoundException If a definition file does not exist.
+	 * @throws ResourceFormatException If a definition file is invalid.
+	 * @throws IOException If an IOException occurs.
+	 */
+	public static PopulationFactory loadPopulator(File root) throws
+	ResourceNotFoundException, ResourceFormatException, IOException {
+		ActionFactory actions = new ActionFactory();
+		actions.merge(new ActionLoader(root).load(ACTIONS_FILE));
+		EntityFactory entities = new EntityFactory(actions);
+		entities.merge(new EntityLoader(root).load(ENTITIES_FILE));
+		ItemFactory items = new ItemFactory(actions);
+		items.merge(new ItemLoader(root).load(ITEMS_FILE));
+		PortalFactory portals = new PortalFactory();
+		portals.merge(new PortalLoader(root).load(PORTALS_FILE));
+		TileFactory tiles = new TileFactory();
+		tiles.merge(new TileLoader(root).load(TILES_FILE));
+		return new PopulationFactory(tiles, entities, portals, items);
+	}
+	
+	/**
+	 * Converts land files. The first argument is the resource root that
+	 * holds the definition files. Each other argument is either a text land
+	 * file or a directory, in which case every text land file in it is
+	 * converted. The binary files are written next to the text files.
+	 * 
+	 * @param args The resource root followed by the files and directories to
+	 * convert.
+	 */
+	public static void main(String[] args) {
+		if (args.length < 2) {
+			System.err.println("usage: LandConverter <resource root> " +
+					"<file or directory> [<file or directory>...]");
+			System.exit(1);
+		}
+		PopulationFactory populator = null;
+		try {
+			populator = loadPopulator(new File(args[0]));
+		} catch (Exception e) {
+			System.err.println(args[0] + ": " + e.getMessage());
+			System.exit(1);
+		}
+		int failures = 0;
+		for (int i = 1; i < args.length; i++) {
+			File f = new File(args[i]);
+			File[] files;
+			if (f.isDirectory()) {
+				files = f.listFiles();
+			} else {
+				files = new File[] {f};
+			}
+			for (File land : files) {
+				if (!land.getName().endsWith(TEXT_EXTENSION)) {
+					continue;
+				}
+				File dir = land.getAbsoluteFile().getParentFile();
+				LandConverter c = new LandConverter(dir, populator);
+				try {
+					File out = c.convert(land.getName());
+					System.out.println(land + " -> " + out);
+				} catch (Exception e) {
+					System.err.println(land + ": " + e.getMessage());
+					Throwable cause = e.getCause();
+					if (cause != null &&
+							!(cause instanceof RecordFormatException)) {
+						System.err.println(cause.getMessage());
+					}
+					failures++;
+				} finally {
+					c.close();
+				}
+			}
+		}
+		if (failures > 0) {
+			System.exit(1);
+		}
+	}
+	
+	/**
+	 * Closes the land loader of this LandConverter.
+	 */
+	public void close() {
+		try {
+			loader.close();
+		} catch (IOException e) {
+			// nothing is left to read from it
+		}
+	}
+	
+	/**
+	 * Converts a text land file and writes the binary file next to it. The
+	 * land is loaded with messages held back; if LandLoader shows any
+	 * message while loading it, such as for a skipped record or an unknown
+	 * tile, the land is not converted.
+	 * 
+	 * @param resource The path to the text land file, relative to the
+	 * directory of this LandConverter.
+	 * 
+	 * @return The binary file that was written.
+	 * 
+	 * @throws ResourceNotFoundException If the resource does not exist.
+	 * @throws ResourceFormatException If the text file has anything that
+	 * would be skipped when it is loaded, or holds something that the binary
+	 * format cannot.
+	 * @throws IOException If an IOException occurs.
+	 */
+	public File convert(String resource) throws ResourceNotFoundException,
+	ResourceFormatException, IOException {
+		Land land;
+		List<String> messages;
+		DialogHandler.deferMessages();
+		try {
+			land = loader.loadText(resource);
+		} finally {
+			messages = DialogHandler.takeDeferredMessages();
+		}
+		try {
+			if (!messages.isEmpty()) {
+				Exception skipped = new Exception(messages.get(0).trim());
+				throw new ResourceFormatException(resource, skipped);
+			}
+			File out = loader.getFile(LandLoader.getBinaryPath(resource));
+			try {
+				write(land, out);
+			} catch (RecordFormatException e) {
+				out.delete();
+				throw new ResourceFormatException(resource, e);
+			}
+			return out;
+		} finally {
+			land.unload();
+		}
+	}
+	
+	/**
+	 * Gets the movement of an NPC as it is given in land files.
+	 * 
+	 * @param npc The NPC.
+	 * 
+	 * @return The movement, as it is given in the movement field of text
+	 * land files.
+	 * 
+	 * @throws RecordFormatException If the NPC's AI has no movement that
+	 * land files can give.
+	 */
+	private static String getMovement(NonPlayerCharacter npc) throws
+	RecordFormatException {
+		OverworldPathFinder ai = npc.getOverworldAi();
+		if (ai instanceof PatrolPathFinder) {
+			Point end = ((PatrolPathFinder) ai).getFarEnd();
+			return LandLoader.MOVEMENT_PATROL + end.x + "," + end.y;
+		} else if (ai instanceof StandingPathFinder) {
+			return LandLoader.MOVEMENT_STAND;
+		} else if (ai instanceof RandomPathFinder) {
+			return LandLoader.MOVEMENT_WANDER;
+		} else if (ai instanceof ChasePathFinder) {
+			return LandLoader.MOVEMENT_CHASE;
+		}
+		throw new RecordFormatException(0, "unknown movement for " +
+				npc.getName());
+	}
+	
+	/**
+	 * Gets the string table index of a string, adding it to the table if it
+	 * is not already there.
+	 * 
+	 * @param s The string.
+	 * 
+	 * @return The index of the string.
+	 * 
+	 * @throws RecordFormatException If the string is too long to be stored.
+	 */
+	private int intern(String s) throws RecordFormatException {
+		Integer index = stringIndexes.get(s);
+		if (index == null) {
+			if (s.getBytes(LandBinaryFile.UTF_8).length > Character.MAX_VALUE) {
+				throw new RecordFormatException(0, "string is too long");
+			}
+			index = strings.size();
+			strings.add(s);
+			stringIndexes.put(s, index);
+		}
+		return index;
+	}
+	
+	/**
+	 * Writes a Land as a binary land file.
+	 * 
+	 * @param land The Land to write.
+	 * @param out The file to write the binary land file to.
+	 * 
+	 * @throws RecordFormatException If the Land holds something that the
+	 * binary format cannot.
+	 * @throws IOException If an IOException occurs.
+	 */
+	private void write(Land land, File out) throws RecordFormatException,
+	IOException {
+		strings = new ArrayList<String>();
+		stringIndexes = new HashMap<String, Integer>();
+		Grid<Tile> grid = land.getTiles();
+		Dimension size = grid.getSize();
+		int chunk = 0;
+		if (grid instanceof ChunkedTileGrid) {
+			chunk = ((ChunkedTileGrid) grid).getChunkSize();
+		}
+		List<Character> palette = new ArrayList<Character>();
+		Map<Character, Integer> paletteIndexes;
+		paletteIndexes = new HashMap<Character, Integer>();
+		palette.add(TileFactory.VOID_CHAR);
+		paletteIndexes.put(TileFactory.VOID_CHAR, 0);
+		char[] tiles = new char[size.width * size.height];
+		for (int y = 0; y < size.height; y++) {
+			for (int x = 0; x < size.width; x++) {
+				char c = (char) grid.itemAt(x, y).getId();
+				Integer entry = paletteIndexes.get(c);
+				if (entry == null) {
+					if (palette.size() == LandBinaryFile.MAX_PALETTE_SIZE) {
+						throw new RecordFormatException(0, "too many tile " +
+								"types");
+					}
+					entry = palette.size();
+					palette.add(c);
+					paletteIndexes.put(c, entry);
+				}
+				tiles[(y * size.width) + x] = (char) entry.intValue();
+			}
+		}
+		int nameIndex = intern(land.getName());
+		List<Portal> portals = land.getPortals();
+		int[] portalStrings = new int[2 * portals.size()];
+		for (int i = 0; i < portals.size(); i++) {
+			portalStrings[2 * i] = intern(portals.get(i).getName());
+			portalStrings[2 * i + 1] = intern(portals.get(i).getLinkedLand());
+		}
+		List<Item> items = new ArrayList<Item>(land.getItems());
+		List<NonPlayerCharacter> npcs = new ArrayList<NonPlayerCharacter>();
+		for (Movable m : land.getResidents()) {
+			if (m instanceof NonPlayerCharacter) {
+				npcs.add((NonPlayerCharacter) m);
+			}
+		}
+		int[] npcStrings = new int[2 * npcs.size()];
+		for (int i = 0; i < npcs.size(); i++) {
+			npcStrings[2 * i] = intern(npcs.get(i).getName());
+			npcStrings[2 * i + 1] = intern(getMovement(npcs.get(i)));
+		}
+		Point start = land.getPlayerStart();
+		DataOutputStream data = new DataOutputStream(new BufferedOutputStream(
+				new FileOutputStream(out)));
+		try {
+			data.writeInt(LandBinaryFile.MAGIC);
+			data.writeShort(LandBinaryFile.FORMAT_VERSION);
+			data.writeShort(0);
+			data.writeInt(size.width);
+			data.writeInt(size.height);
+			data.writeInt(start.x);
+			data.writeInt(start.y);
+			data.writeInt(chunk);
+			data.writeInt(nameIndex);
+			data.writeInt(palette.size());
+			data.writeInt(portals.size());
+			data.writeInt(items.size());
+			data.writeInt(npcs.size());
+			data.writeInt(strings.size());
+			for (char c : palette) {
+				data.writeChar(c);
+			}
+			for (char entry : tiles) {
+				data.writeChar(entry);
+			}
+			for (int i = 0; i < portals.size(); i++) {
+				Portal p = portals.get(i);
+				writeInts(data, p.getLocation().x, p.getLocation().y,
+						p.getLink().x, p.getLink().y, portalStrings[2 * i],
+						portalStrings[2 * i + 1]);
+			}
+			for (Item item : items) {
+				writeInts(data, item.getLocation().x, item.getLocation().y);
+				data.writeLong(item.getId());
+			}
+			for (int i = 0; i < npcs.size(); i++) {
+				NonPlayerCharacter npc = npcs.get(i);
+				writeInts(data, npc.getLocation().x, npc.getLocation().y,
+						npcStrings[2 * i], npc.getLevel(),
+						npcStrings[2 * i + 1]);
+			}
+			writeStrings(data);
+		} finally {
+			data.close();
+		}
+	}
+	
+	/**
+	 * Writes ints to the binary file.
+	 * 
+	 * @param data The stream to write to.
+	 * @param values The ints to write.
+	 * 
+	 * @throws IOException If an IOException occurs.
+	 */
+	private void writeInts(DataOutputStream data, int... values) throws
+	IOException {
+		for (int v : values) {
+			data.writeInt(v);
+		}
+	}
+	
+	/**
+	 * Writes the string section of the binary file.
+	 * 
+	 * @param data The stream to write to.
+	 * 
+	 * @throws IOException If an IOException occurs.
+	 */
+	private void writeStrings(DataOutputStream data) throws IOException {
+		byte[][] encoded = new byte[strings.size()][];
+		int offset = 0;
+		for (int i = 0; i < encoded.length; i++) {
+			encoded[i] = strings.get(i).getBytes(LandBinaryFile.UTF_8);
+			data.writeInt(offset);
+			offset += 2 + encoded[i].length;
+		}
+		for (byte[] bytes : encoded) {
+			data.writeShort(bytes.length);
+			data.write(bytes);
+		}
+	}
+	
+}
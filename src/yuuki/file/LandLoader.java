@@ -12,14 +12,23 @@ import java.util.List;
 import java.util.zip.ZipFile;
 
 import yuuki.entity.NonPlayerCharacter;
+import yuuki.entity.ai.ChasePathFinder;
+import yuuki.entity.ai.OverworldPathFinder;
+import yuuki.entity.ai.PatrolPathFinder;
+import yuuki.entity.ai.RandomPathFinder;
+import yuuki.entity.ai.StandingPathFinder;
 import yuuki.item.Item;
 import yuuki.ui.DialogHandler;
-import yuuki.util.InvalidIndexException;
+import yuuki.util.Grid;
+import yuuki.world.ChunkedTileGrid;
 import yuuki.world.Land;
 import yuuki.world.Movable;
 import yuuki.world.PopulationFactory;
 import yuuki.world.Portal;
+import yuuki.world.PortalLink;
 import yuuki.world.Tile;
+import yuuki.world.TileGrid;
+import yuuki.world.TileTable;
 
 /**
  * Loads a Land resource file.
@@ -31,6 +40,12 @@ public class LandLoader extends ResourceLoader {
 	 */
 	private static class MetaData {
 		
+		/**
+		 * The size of the chunks that the map is paged in with, or 0 if the
+		 * map is to be loaded in its entirety.
+		 */
+		public int chunk;
+		
 		/**
 		 * The number of entities in the map.
 		 */
@@ -75,7 +90,38 @@ public class LandLoader extends ResourceLoader {
 	}
 	
 	/**
-	 * The number of fields in a line of entity data.
+	 * The default number of bytes of tile data that chunked lands keep in
+	 * memory.
+	 */
+	public static final long DEFAULT_CHUNK_BUDGET = 16 * 1024 * 1024;
+	
+	/**
+	 * The movement of an entity that heads for the player once the player is
+	 * within range of the land's FlowField, and stands still otherwise.
+	 */
+	public static final String MOVEMENT_CHASE = "chase";
+	
+	/**
+	 * The movement of an entity that walks back and forth between where it
+	 * starts and another point, given after MOVEMENT_PATROL as in
+	 * "patrol=x,y". The routes are planned with the land's PathMap.
+	 */
+	public static final String MOVEMENT_PATROL = "patrol=";
+	
+	/**
+	 * The movement of an entity that stands still. This is used for entities
+	 * whose movement is not given.
+	 */
+	public static final String MOVEMENT_STAND = "stand";
+	
+	/**
+	 * The movement of an entity that wanders about at random.
+	 */
+	public static final String MOVEMENT_WANDER = "wander";
+	
+	/**
+	 * The number of fields in a line of entity data, not counting the
+	 * optional movement field.
 	 */
 	private static final int ENTITY_FIELD_COUNT = 3;
 	
@@ -94,6 +140,16 @@ public class LandLoader extends ResourceLoader {
 	 */
 	private static final int PORTAL_FIELD_COUNT = 4;
 	
+	/**
+	 * The file extension of text land files.
+	 */
+	private static final String TEXT_EXTENSION = ".lnd";
+	
+	/**
+	 * The number of bytes of tile data that each chunked land keeps in memory.
+	 */
+	private long chunkBudget = DEFAULT_CHUNK_BUDGET;
+	
 	/**
 	 * The number of the line currently being read.
 	 */
@@ -139,6 +195,18 @@ public class LandLoader extends ResourceLoader {
 	 */
 	private String resourceName;
 	
+	/**
+	 * The index of the tile type at each position of the land currently being
+	 * loaded, in row-major order. Positions that the map data does not cover
+	 * are left as the void tile.
+	 */
+	private short[] tileData;
+	
+	/**
+	 * The table of tile types used by the land currently being loaded.
+	 */
+	private TileTable tileTable;
+	
 	/**
 	 * Creates a new LandLoader for land files at the specified location.
 	 * 
@@ -165,7 +233,24 @@ public class LandLoader extends ResourceLoader {
 	}
 	
 	/**
-	 * Loads the data from a land resource file into a Land object.
+	 * Gets the path of the binary form of a text land file.
+	 * 
+	 * @param resource The path to the text land file.
+	 * 
+	 * @return The path that the binary form of the land file has.
+	 */
+	public static String getBinaryPath(String resource) {
+		String base = resource;
+		if (base.endsWith(TEXT_EXTENSION)) {
+			base = base.substring(0, base.length() - TEXT_EXTENSION.length());
+		}
+		return base + LandBinaryFile.EXTENSION;
+	}
+	
+	/**
+	 * Loads the data from a land resource file into a Land object. If the
+	 * resource is a text land file that has a binary form next to it, the
+	 * binary form is loaded instead, unless it is older than the text file.
 	 * 
 	 * @param resource The path to the land file to load, relative to the
 	 * resource root.
@@ -178,9 +263,37 @@ public class LandLoader extends ResourceLoader {
 	 * @throws IOException If an IOException occurs.
 	 */
 	public Land load(String resource) throws ResourceNotFoundException,
+	ResourceFormatException, IOException {
+		if (resource.endsWith(LandBinaryFile.EXTENSION)) {
+			return loadBinary(resource);
+		}
+		String binary = getBinaryPath(resource);
+		if (hasCurrentBinary(resource, binary)) {
+			return loadBinary(binary);
+		}
+		return loadText(resource);
+	}
+	
+	/**
+	 * Loads the data from a text land file into a Land object. Unlike load(),
+	 * this never reads the binary form of the land file.
+	 * 
+	 * @param resource The path to the text land file to load, relative to the
+	 * resource root.
+	 * 
+	 * @return The Land object.
+	 * 
+	 * @throws ResourceNotFoundException If the resource does not exist.
+	 * @throws ResourceFormatException If there is a problem with the format of
+	 * the given file.
+	 * @throws IOException If an IOException occurs.
+	 */
+	public Land loadText(String resource) throws ResourceNotFoundException,
 	ResourceFormatException, IOException {
 		resourceName = resource;
 		meta = null;
+		tileData = null;
+		tileTable = populator.getTileTable();
 		mode = ParserMode.METADATA;
 		portals = new ArrayList<Portal>();
 		entities = new ArrayList<Movable>();
@@ -193,9 +306,145 @@ public class LandLoader extends ResourceLoader {
 		addResidents(land);
 		addItems(land);
 		resourceName = null;
+		tileData = null;
+		tileTable = null;
 		return land;
 	}
 	
+	
+	/**
+	 * Reads only the name of the land in a land file. As with load(), the
+	 * binary form of a text land file is read if it is current.
+	 * 
+	 * @param resource The path to the land file, relative to the resource
+	 * root.
+	 * 
+	 * @return The name of the land.
+	 * 
+	 * @throws ResourceNotFoundException If the resource does not exist.
+	 * @throws ResourceFormatException If the meta data of the land file is
+	 * invalid.
+	 * @throws IOException If an IOException occurs.
+	 */
+	public String loadName(String resource) throws ResourceNotFoundException,
+	ResourceFormatException, IOException {
+		String binary = getCurrentBinary(resource);
+		if (binary != null) {
+			LandBinaryFile data;
+			data = new LandBinaryFile(getBuffer(binary), null, binary);
+			return data.getName();
+		}
+		resourceName = resource;
+		currentLine = 1;
+		BufferedReader header = new BufferedReader(new InputStreamReader(
+				getStream(resource)));
+		try {
+			String line = header.readLine();
+			if (line == null) {
+				throw new RecordFormatException(currentLine, "missing meta " +
+						"data");
+			}
+			readMetaData(line);
+			if (meta.name == null) {
+				throw new RecordFormatException(currentLine, "missing name");
+			}
+			return meta.name;
+		} catch (RecordFormatException e) {
+			throw new ResourceFormatException(resource, e);
+		} finally {
+			header.close();
+			resourceName = null;
+			meta = null;
+		}
+	}
+	
+	/**
+	 * Reads only the portal records of a land file. As with load(), the
+	 * binary form of a text land file is read if it is current. The map data
+	 * is skipped without being parsed, and portal records that cannot be
+	 * read are left out; they are reported when the land itself is loaded.
+	 * 
+	 * @param resource The path to the land file, relative to the resource
+	 * root.
+	 * 
+	 * @return Where each portal is and where it leads, in the order of the
+	 * portal records.
+	 * 
+	 * @throws ResourceNotFoundException If the resource does not exist.
+	 * @throws ResourceFormatException If the meta data of the land file is
+	 * invalid.
+	 * @throws IOException If an IOException occurs.
+	 */
+	public List<PortalLink> loadPortalLinks(String resource) throws
+	ResourceNotFoundException, ResourceFormatException, IOException {
+		List<PortalLink> links = new ArrayList<PortalLink>();
+		String binary = getCurrentBinary(resource);
+		if (binary != null) {
+			LandBinaryFile data;
+			data = new LandBinaryFile(getBuffer(binary), null, binary);
+			String name = data.getName();
+			for (int i = 0; i < data.getPortalCount(); i++) {
+				links.add(new PortalLink(name, data.getPortalLocation(i),
+						data.getPortalLand(i), data.getPortalLink(i)));
+			}
+			return links;
+		}
+		resourceName = resource;
+		currentLine = 1;
+		BufferedReader header = new BufferedReader(new InputStreamReader(
+				getStream(resource)));
+		try {
+			String line = header.readLine();
+			if (line == null) {
+				throw new RecordFormatException(currentLine, "missing meta " +
+						"data");
+			}
+			readMetaData(line);
+			if (meta.size == null) {
+				throw new RecordFormatException(currentLine, "missing size");
+			}
+			for (int i = 0; i < meta.size.height; i++) {
+				header.readLine();
+			}
+			for (int i = 0; i < meta.portals; i++) {
+				line = header.readLine();
+				if (line == null) {
+					break;
+				}
+				String[] parts = line.split(";");
+				if (parts.length >= PORTAL_FIELD_COUNT) {
+					try {
+						Point location = parsePointField("location", parts[0]);
+						Point link = parsePointField("link", parts[2]);
+						links.add(new PortalLink(meta.name, location, parts[3],
+								link));
+					} catch (FieldFormatException e) {
+						// reported when the land is loaded
+					}
+				}
+			}
+			return links;
+		} catch (RecordFormatException e) {
+			throw new ResourceFormatException(resource, e);
+		} finally {
+			header.close();
+			resourceName = null;
+			meta = null;
+		}
+	}
+	
+	/**
+	 * Sets the memory budget for lands that are loaded in chunked mode. Lands
+	 * are loaded in chunked mode when their meta data has a chunk size and
+	 * they are not in a ZIP file.
+	 * 
+	 * @param bytes The number of bytes of tile data that each chunked land
+	 * may keep in memory.
+	 */
+	public void setChunkBudget(long bytes) {
+		chunkBudget = bytes;
+	}
+	
 	/**
 	 * Adds the loaded items to a Land.
 	 * 
@@ -236,29 +485,41 @@ public class LandLoader extends ResourceLoader {
 	}
 	
 	/**
-	 * Fills the given lists of tiles with rows of void tiles until the land
-	 * height is reached.
+	 * Creates the grid of tiles for the land being loaded.
 	 * 
-	 * @param list The list of tiles to fill.
-	 * @param start The number of rows of tiles already added to the list.
-	 */
-	private void fillRemainingHeight(ArrayList<Tile> list, int start) {
-		for (int i = start; i < meta.size.height; i++) {
-			fillRemainingWidth(list, 0);
+	 * @return The tile grid.
+	 * 
+	 * @throws IOException If an IOException occurs while preparing the map
+	 * for chunked reading.
+	 */
+	private Grid<Tile> createTileGrid() throws IOException {
+		Grid<Tile> grid;
+		if (isChunked()) {
+			File f = getFile(resourceName);
+			LandChunkSource src;
+			src = new LandChunkSource(f, 1, meta.size, tileTable);
+			grid = new ChunkedTileGrid(meta.size, tileTable, meta.chunk, src,
+					chunkBudget);
+		} else {
+			grid = new TileGrid(meta.size, tileTable, tileData);
 		}
+		return grid;
 	}
 	
 	/**
-	 * Fills the given list of tiles with void tiles until the land width is
-	 * reached.
+	 * Gets the binary land file to read in place of a land file.
 	 * 
-	 * @param list The list of tiles to fill.
-	 * @param start The number of tiles already added to the list.
+	 * @param resource The path to the land file.
+	 * 
+	 * @return The path to the binary land file, which is the resource itself
+	 * if it is already binary, or null if the text file is to be read.
 	 */
-	private void fillRemainingWidth(ArrayList<Tile> list, int start) {
-		for (int i = start; i < meta.size.width; i++) {
-			list.add(populator.createVoidTile());
+	private String getCurrentBinary(String resource) {
+		if (resource.endsWith(LandBinaryFile.EXTENSION)) {
+			return resource;
 		}
+		String binary = getBinaryPath(resource);
+		return hasCurrentBinary(resource, binary) ? binary : null;
 	}
 	
 	/**
@@ -271,6 +532,73 @@ public class LandLoader extends ResourceLoader {
 		return count;
 	}
 	
+	/**
+	 * Loads a land from a binary land file. Land files that are not in a ZIP
+	 * file are memory-mapped, and if they have a chunk size, their tiles are
+	 * paged in from the mapping on demand rather than copied.
+	 * 
+	 * @param resource The path to the binary land file.
+	 * 
+	 * @return The Land object.
+	 * 
+	 * @throws ResourceNotFoundException If the resource does not exist.
+	 * @throws ResourceFormatException If the file is not a valid binary land
+	 * file.
+	 * @throws IOException If an IOException occurs.
+	 */
+	private Land loadBinary(String resource) throws ResourceNotFoundException,
+	ResourceFormatException, IOException {
+		TileTable table = populator.getTileTable();
+		LandBinaryFile data;
+		data = new LandBinaryFile(getBuffer(resource), table, resource);
+		Dimension size = data.getSize();
+		Grid<Tile> grid;
+		if (data.getChunkSize() > 0 && getFile(resource) != null) {
+			grid = new ChunkedTileGrid(size, table, data.getChunkSize(), data,
+					chunkBudget);
+		} else {
+			short[] ids = new short[size.width * size.height];
+			data.readTiles(ids);
+			grid = new TileGrid(size, table, ids);
+		}
+		Land land = new Land(data.getName(), size, data.getStart(), grid);
+		advanceProgress(0.5);
+		String msg = "Skipping record in '" + resource + "':";
+		for (int i = 0; i < data.getPortalCount(); i++) {
+			try {
+				Portal p = populator.createPortal(data.getPortalName(i),
+						data.getPortalLand(i), data.getPortalLink(i));
+				p.setLocation(data.getPortalLocation(i));
+				land.addPortal(p);
+			} catch (Exception e) {
+				DialogHandler.showMessage(msg, e);
+			}
+		}
+		for (int i = 0; i < data.getEntityCount(); i++) {
+			try {
+				NonPlayerCharacter npc = populator.createNpc(
+						data.getEntityName(i), data.getEntityLevel(i));
+				npc.setLocation(data.getEntityLocation(i));
+				npc.setOverworldAi(parseMovementField(
+						data.getEntityMovement(i), npc.getLocation()));
+				land.addResident(npc);
+			} catch (Exception e) {
+				DialogHandler.showMessage(msg, e);
+			}
+		}
+		for (int i = 0; i < data.getItemCount(); i++) {
+			try {
+				Item item = populator.createItem(data.getItemId(i));
+				item.setLocation(data.getItemLocation(i));
+				land.addItem(item);
+			} catch (Exception e) {
+				DialogHandler.showMessage(msg, e);
+			}
+		}
+		finishProgress();
+		return land;
+	}
+	
 	/**
 	 * Loads land data from the reader.
 	 * 
@@ -280,7 +608,6 @@ public class LandLoader extends ResourceLoader {
 	 * @throws IOException If an IOException occurs.
 	 */
 	private Land loadLand() throws IOException, ResourceFormatException {
-		ArrayList<Tile> tileData = new ArrayList<Tile>();
 		String line = null;
 		int heightCount = 0;
 		currentLine = 0;
@@ -294,7 +621,7 @@ public class LandLoader extends ResourceLoader {
 						break;
 						
 					case MAP:
-						complete = parseMapData(line, tileData, heightCount);
+						complete = parseMapData(line, heightCount);
 						heightCount++;
 						break;
 						
@@ -313,13 +640,41 @@ public class LandLoader extends ResourceLoader {
 			}
 			advanceProgress(1.0 / getLineCount());
 		}
-		fillRemainingHeight(tileData, heightCount);
-		Tile[] tiles = new Tile[tileData.size()];
-		tileData.toArray(tiles);
-		Land land = new Land(meta.name, meta.size, meta.start, tiles);
+		Land land = new Land(meta.name, meta.size, meta.start,
+				createTileGrid());
 		return land;
 	}
 	
+	/**
+	 * Checks whether a text land file has a binary form that is at least as
+	 * new as it is. Binary forms in a ZIP file are always taken to be current.
+	 * 
+	 * @param text The path to the text land file.
+	 * @param binary The path to the binary form.
+	 * 
+	 * @return Whether the binary form should be loaded instead.
+	 */
+	private boolean hasCurrentBinary(String text, String binary) {
+		if (!hasResource(binary)) {
+			return false;
+		}
+		File textFile = getFile(text);
+		if (textFile == null || !textFile.isFile()) {
+			return true;
+		}
+		return (getFile(binary).lastModified() >= textFile.lastModified());
+	}
+	
+	/**
+	 * Checks whether the land being loaded is to be loaded in chunked mode.
+	 * 
+	 * @return True if the land's map data is read on demand; false if it is
+	 * read while loading.
+	 */
+	private boolean isChunked() {
+		return (meta.chunk > 0 && getFile(resourceName) != null);
+	}
+	
 	/**
 	 * Parses entity data.
 	 * 
@@ -367,14 +722,15 @@ public class LandLoader extends ResourceLoader {
 	 * Parses map data.
 	 * 
 	 * @param line The line to parse.
-	 * @param tiles Where to store parsed tiles.
 	 * @param count The number of lines of map data that have already been
 	 * parsed.
 	 * @return Whether the line was parsed.
 	 */
-	private boolean parseMapData(String line, List<Tile> tiles, int count) {
+	private boolean parseMapData(String line, int count) {
 		if (count < meta.size.height) {
-			tiles.addAll(readMapData(line));
+			if (!isChunked()) {
+				readMapData(line, count);
+			}
 			return true;
 		} else {
 			mode = ParserMode.PORTALS;
@@ -395,10 +751,41 @@ public class LandLoader extends ResourceLoader {
 		} catch (RecordFormatException e) {
 			throw new ResourceFormatException(resourceName, e);
 		}
+		if (!isChunked()) {
+			tileData = new short[meta.size.width * meta.size.height];
+		}
 		mode = ParserMode.MAP;
 		return true;
 	}
 	
+	/**
+	 * Parses the movement field of an entity into the AI that drives it.
+	 * 
+	 * @param value The movement, as one of the MOVEMENT constants. Case is
+	 * ignored.
+	 * @param location Where the entity starts.
+	 * 
+	 * @return The path finding AI for the movement.
+	 * 
+	 * @throws FieldFormatException If the movement is not known or its point
+	 * is invalid.
+	 */
+	private OverworldPathFinder parseMovementField(String value,
+			Point location) throws FieldFormatException {
+		int prefix = MOVEMENT_PATROL.length();
+		if (value.regionMatches(true, 0, MOVEMENT_PATROL, 0, prefix)) {
+			Point end = parsePointField("patrol", value.substring(prefix));
+			return new PatrolPathFinder(location, end);
+		} else if (value.equalsIgnoreCase(MOVEMENT_STAND)) {
+			return new StandingPathFinder();
+		} else if (value.equalsIgnoreCase(MOVEMENT_WANDER)) {
+			return new RandomPathFinder();
+		} else if (value.equalsIgnoreCase(MOVEMENT_CHASE)) {
+			return new ChasePathFinder(new StandingPathFinder());
+		}
+		throw new FieldFormatException("movement", value);
+	}
+	
 	/**
 	 * Parses portal data.
 	 * 
@@ -422,7 +809,8 @@ public class LandLoader extends ResourceLoader {
 	}
 	
 	/**
-	 * Reads a line containing entity data.
+	 * Reads a line containing entity data. The line holds the location, name
+	 * and level of the entity, and may be followed by its movement.
 	 * 
 	 * @param line The line with the entity data.
 	 * 
@@ -439,8 +827,13 @@ public class LandLoader extends ResourceLoader {
 			Point location = parsePointField("location", parts[0]);
 			String name = parts[1];
 			int level = parseIntField("level", parts[2]);
+			String movement = MOVEMENT_STAND;
+			if (parts.length > ENTITY_FIELD_COUNT) {
+				movement = parts[ENTITY_FIELD_COUNT];
+			}
 			NonPlayerCharacter npc = populator.createNpc(name, level);
 			npc.setLocation(location);
+			npc.setOverworldAi(parseMovementField(movement, location));
 			entities.add(npc);
 		} catch (Exception e) {
 			throw new RecordFormatException(currentLine, e);
@@ -472,32 +865,26 @@ public class LandLoader extends ResourceLoader {
 	}
 	
 	/**
-	 * Parses a line of land data into an array of Tile objects.
+	 * Parses a line of land data into the tile indexes of one row. Positions
+	 * past the end of the line are left as void tiles.
 	 * 
 	 * @param line The line of land data.
-	 * 
-	 * @return The array of Tile objects parsed from the line.
+	 * @param row The row of the land that the line describes.
 	 */
-	private ArrayList<Tile> readMapData(String line) {
-		ArrayList<Tile> tileList = new ArrayList<Tile>();
+	private void readMapData(String line, int row) {
+		int offset = row * meta.size.width;
 		int limit = Math.min(line.length(), meta.size.width);
 		for (int i = 0; i < limit; i++) {
 			char c = line.charAt(i);
-			Tile t;
-			try {
-				t = populator.createTile(c);
-			} catch (InvalidIndexException e) {
-				String raw = "bad tile '%s' on line %i of '%s' - using void";
-				String msg = String.format(raw, e.getIndex(), currentLine,
-						resourceName);
+			int type = tileTable.indexOf(c);
+			if (type == TileTable.NO_INDEX) {
+				String raw = "bad tile '%s' on line %d of '%s' - using void";
+				String msg = String.format(raw, c, currentLine, resourceName);
 				DialogHandler.showMessage(msg);
-				t = populator.createVoidTile();
+				type = TileTable.VOID_INDEX;
 			}
-			tileList.add(t);
+			tileData[offset + i] = (short) type;
 		}
-		// for the remaining width, add void tiles.
-		fillRemainingWidth(tileList, limit);
-		return tileList;
 	}
 	
 	/**
@@ -530,6 +917,8 @@ public class LandLoader extends ResourceLoader {
 					meta.entities = parseIntField("entities", value);
 				} else if (key.equalsIgnoreCase("items")) {
 					meta.items = parseIntField("items", value);
+				} else if (key.equalsIgnoreCase("chunk")) {
+					meta.chunk = parseIntField("chunk", value);
 				}
 			}
 		} catch (FieldFormatException e) {
@@ -2,12 +2,16 @@ package yuuki.file;
 
 import java.awt.Dimension;
 import java.awt.Point;
+import java.io.ByteArrayOutputStream;
 import java.io.Closeable;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
 
@@ -76,6 +80,67 @@ public class ResourceLoader implements Closeable {
 		}
 	}
 	
+	/**
+	 * Gets the entire contents of a resource as a read-only buffer. Resources
+	 * that are files are memory-mapped, so their contents are only read from
+	 * disk as they are used; resources in a ZIP file are read into memory.
+	 * 
+	 * @param resource The path to the resource, relative to the resource
+	 * root.
+	 * 
+	 * @return The contents of the resource.
+	 * 
+	 * @throws ResourceNotFoundException If the resource does not exist.
+	 * @throws IOException If an I/O error occurs.
+	 */
+	public ByteBuffer getBuffer(String resource) throws
+	ResourceNotFoundException, IOException {
+		File f = getFile(resource);
+		if (f != null) {
+			if (!f.isFile()) {
+				throw new ResourceNotFoundException(f.getAbsolutePath());
+			}
+			RandomAccessFile raf = new RandomAccessFile(f, "r");
+			try {
+				FileChannel channel = raf.getChannel();
+				return channel.map(FileChannel.MapMode.READ_ONLY, 0,
+						channel.size());
+			} finally {
+				raf.close();
+			}
+		}
+		InputStream stream = getStream(resource);
+		try {
+			ByteArrayOutputStream contents = new ByteArrayOutputStream();
+			byte[] chunk = new byte[8192];
+			int read;
+			while ((read = stream.read(chunk)) > 0) {
+				contents.write(chunk, 0, read);
+			}
+			return ByteBuffer.wrap(contents.toByteArray()).asReadOnlyBuffer();
+		} finally {
+			stream.close();
+		}
+	}
+	
+	/**
+	 * Gets the file that a resource is stored in. This is only possible for
+	 * resources that are not in a ZIP file.
+	 * 
+	 * @param resource The path to the resource, relative to the resource
+	 * root.
+	 * 
+	 * @return The file containing the resource, or null if the resource is in
+	 * a ZIP file.
+	 */
+	public File getFile(String resource) {
+		File f = null;
+		if (zipRoot == null) {
+			f = new File(root, resource);
+		}
+		return f;
+	}
+	
 	/**
 	 * Obtains the InputStream for a single resource in the this ResourceLoader
 	 * instance's resource location. This will return null if the specified
@@ -106,6 +171,30 @@ public class ResourceLoader implements Closeable {
 		return stream;
 	}
 	
+	/**
+	 * Checks whether a resource exists.
+	 * 
+	 * @param resource The path to the resource, relative to the resource
+	 * root.
+	 * 
+	 * @return Whether the resource exists.
+	 */
+	public boolean hasResource(String resource) {
+		if (zipRoot == null) {
+			return getFile(resource).isFile();
+		}
+		try {
+			ZipFile archive = new ZipFile(root);
+			try {
+				return (archive.getEntry(zipRoot + resource) != null);
+			} finally {
+				archive.close();
+			}
+		} catch (IOException e) {
+			return false;
+		}
+	}
+	
 	/**
 	 * Sets the progress monitor for the next load.
 	 * 
@@ -3,6 +3,8 @@ package yuuki.file;
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.zip.ZipFile;
 
 import yuuki.ui.DialogHandler;
@@ -88,6 +90,7 @@ public class WorldLoader extends CsvResourceLoader {
 	 */
 	private void loadLands(World world, String[] paths, double percent) throws
 	ResourceNotFoundException, IOException {
+		Map<String, Land> lands = new HashMap<String, Land>();
 		for (String path : paths) {
 			Land land = null;
 			try {
@@ -96,10 +99,11 @@ public class WorldLoader extends CsvResourceLoader {
 				DialogHandler.showError(e.getMessage() + " - skipping");
 			}
 			if (land != null) {
-				world.addLand(land);
+				lands.put(land.getName(), land);
 			}
 			advanceProgress(percent);
 		}
+		world.merge(lands);
 	}
 	
 }
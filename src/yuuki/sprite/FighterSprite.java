@@ -8,9 +8,7 @@ import javax.swing.JLabel;
 import javax.swing.JLayeredPane;
 import javax.swing.JPanel;
 
-import yuuki.action.Action;
 import yuuki.animation.engine.AnimationManager;
-import yuuki.buff.Buff;
 import yuuki.entity.Character;
 import yuuki.entity.Stat;
 import yuuki.entity.VariableStat;
@@ -46,6 +44,11 @@ public class FighterSprite extends Sprite {
 	 */
 	public static final int SPRITE_WIDTH = 80;
 	
+	/**
+	 * The number of stat values read by readStats().
+	 */
+	public static final int STAT_COUNT = 10;
+	
 	/**
 	 * The area where active buff icons are displayed.
 	 */
@@ -95,57 +98,85 @@ public class FighterSprite extends Sprite {
 		addComponents();
 	}
 	
+	/**
+	 * Reads the stat values that a FighterSprite shows from a fighter. This
+	 * allows the stats to be read on one thread and shown on another.
+	 * 
+	 * @param fighter The fighter to read the stats of.
+	 * @param stats Set to the stats, in the order HP, max HP, MP, max MP,
+	 * strength, defense, agility, accuracy, magic and luck. It must have at
+	 * least STAT_COUNT elements.
+	 */
+	public static void readStats(Character fighter, int[] stats) {
+		stats[0] = fighter.getHP();
+		stats[1] = fighter.getMaxHP();
+		stats[2] = fighter.getMP();
+		stats[3] = fighter.getMaxMP();
+		stats[4] = fighter.getStrength();
+		stats[5] = fighter.getDefense();
+		stats[6] = fighter.getAgility();
+		stats[7] = fighter.getAccuracy();
+		stats[8] = fighter.getMagic();
+		stats[9] = fighter.getLuck();
+	}
+	
 	/**
 	 * Shows this sprite failing at an action.
 	 * 
-	 * @param action The action to show.
+	 * @param action The name of the action to show.
 	 */
-	public void showActionFailure(Action action) {
+	public void showActionFailure(String action) {
 		// TODO: actually do something
 	}
 	
 	/**
 	 * Shows this sprite preparing to do an action.
 	 * 
-	 * @param action The action to show.
+	 * @param action The name of the action to show.
 	 */
-	public void showActionPreparation(Action action) {
+	public void showActionPreparation(String action) {
 		// TODO: actually do something
 	}
 	
 	/**
 	 * Shows this sprite performing an action.
 	 * 
-	 * @param action The action to show.
-	 */
-	public void showActionUse(Action action) {
+	 * @param action The name of the action to show.
+	 * @param targets The names of the targets of the action. Only the first
+	 * targetCount elements are used, and the array must not be kept.
+	 * @param effects The effect of the action on each target, in the same
+	 * layout as the targets.
+	 * @param targetCount The number of targets.
+	 */
+	public void showActionUse(String action, String[] targets, int[] effects,
+			int targetCount) {
 		// TODO: actually do something
 	}
 	
 	/**
 	 * Shows a buff being activated on this sprite.
 	 * 
-	 * @param buff The buff to show being activated.
+	 * @param buff The name of the buff to show being activated.
 	 */
-	public void showBuffActivation(Buff buff) {
+	public void showBuffActivation(String buff) {
 		// TODO: actually do something
 	}
 	
 	/**
 	 * Shows a buff being applied on this sprite.
 	 * 
-	 * @param buff The buff to show being applied.
+	 * @param buff The name of the buff to show being applied.
 	 */
-	public void showBuffApplication(Buff buff) {
+	public void showBuffApplication(String buff) {
 		// TODO: actually do something
 	}
 	
 	/**
 	 * Shows a buff being deactivated on this sprite.
 	 * 
-	 * @param buff The buff to show being deactivated.
+	 * @param buff The name of the buff to show being deactivated.
 	 */
-	public void showBuffDeactivation(Buff buff) {
+	public void showBuffDeactivation(String buff) {
 		// TODO: actually do something
 	}
 	
@@ -206,16 +237,27 @@ public class FighterSprite extends Sprite {
 	 * @param fighter The fighter to show the stats for.
 	 */
 	public void showStatUpdate(Character fighter) {
-		statPanel.setHpMax(fighter.getMaxHP());
-		statPanel.setHp(fighter.getHP());
-		statPanel.setMpMax(fighter.getMaxMP());
-		statPanel.setMp(fighter.getMP());
-		statPanel.setStrength(fighter.getStrength());
-		statPanel.setDefense(fighter.getDefense());
-		statPanel.setAgility(fighter.getAgility());
-		statPanel.setAccuracy(fighter.getAccuracy());
-		statPanel.setMagic(fighter.getMagic());
-		statPanel.setLuck(fighter.getLuck());
+		int[] stats = new int[STAT_COUNT];
+		readStats(fighter, stats);
+		showStatUpdate(stats);
+	}
+	
+	/**
+	 * Updates the stat panel to show stats that have already been read.
+	 * 
+	 * @param stats The stats, in the order given by readStats().
+	 */
+	public void showStatUpdate(int[] stats) {
+		statPanel.setHp(stats[0]);
+		statPanel.setHpMax(stats[1]);
+		statPanel.setMp(stats[2]);
+		statPanel.setMpMax(stats[3]);
+		statPanel.setStrength(stats[4]);
+		statPanel.setDefense(stats[5]);
+		statPanel.setAgility(stats[6]);
+		statPanel.setAccuracy(stats[7]);
+		statPanel.setMagic(stats[8]);
+		statPanel.setLuck(stats[9]);
 	}
 	
 	/**
@@ -0,0 +1,503 @@
+package yuuki.ui;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import yuuki.action.Action;
+import yuuki.buff.Buff;
+import yuuki.entity.Character;
+import yuuki.sprite.FighterSprite;
+import yuuki.sprite.Sprite;
+
+/**
+ * Passes battle output from the battle thread to the Swing event dispatch
+ * thread. The battle thread puts events into a fixed ring of reusable slots,
+ * and the event dispatch thread drains every waiting event at once, such as
+ * once per animation frame. No locks are taken, and once every slot has been
+ * used no objects are created unless an event is larger than any before it.
+ * 
+ * Everything that an event shows is copied out of the battle when the event
+ * is put: the sprites of the fighters involved, the names of actions, buffs
+ * and targets, the effects of actions and the values of stats. Actions are
+ * pooled and reused as soon as their turn ends, and fighters lose their
+ * sprites when they leave the battle, so neither is looked at while
+ * draining.
+ * 
+ * Only one thread may put events into the queue, and only one thread may
+ * drain it. If the ring is full, the putting thread waits until the
+ * draining thread has made room.
+ * 
+ * Stat updates are coalesced while draining: however many updates a sprite
+ * gets in one drain, it is only shown once, with the stats of the last
+ * update, after the events around it. Sprite removals and victories are
+ * shown only after all stat updates before them.
+ */
+public class BattleEventQueue {
+	
+	/**
+	 * A battle event waiting to be shown. Events are owned by the queue and
+	 * neither they nor their arrays may be kept after they have been handled.
+	 */
+	public static class Event {
+		
+		/**
+		 * The effect of the event's action on each target.
+		 */
+		private int[] effects = new int[1];
+		
+		/**
+		 * The name of the event's action or buff.
+		 */
+		private String name;
+		
+		/**
+		 * The sprite that the event is shown on.
+		 */
+		private Sprite sprite;
+		
+		/**
+		 * The number of sprites in sprites.
+		 */
+		private int spriteCount;
+		
+		/**
+		 * The sprites of the fighters of a victory event.
+		 */
+		private Sprite[] sprites = new Sprite[1];
+		
+		/**
+		 * The stats of a stat update, in the order given by
+		 * FighterSprite.readStats().
+		 */
+		private final int[] stats = new int[FighterSprite.STAT_COUNT];
+		
+		/**
+		 * The number of targets of the event's action.
+		 */
+		private int targetCount;
+		
+		/**
+		 * The names of the targets of the event's action.
+		 */
+		private String[] targets = new String[1];
+		
+		/**
+		 * What the event shows.
+		 */
+		private Type type;
+		
+		/**
+		 * Gets the effects of the action of this Event on its targets.
+		 * 
+		 * @return The effects, in the same layout as the targets.
+		 */
+		public int[] getEffects() {
+			return effects;
+		}
+		
+		/**
+		 * Gets the name of the action or buff of this Event.
+		 * 
+		 * @return The name, or null if the event has no action or buff.
+		 */
+		public String getName() {
+			return name;
+		}
+		
+		/**
+		 * Gets the sprite that this Event is shown on. This is the sprite of
+		 * the fighter that did the action, has the buff, was removed or had
+		 * its stats updated, as it was when the event was put.
+		 * 
+		 * @return The sprite, or null if the fighter had none.
+		 */
+		public Sprite getSprite() {
+			return sprite;
+		}
+		
+		/**
+		 * Gets the number of sprites of a victory event.
+		 * 
+		 * @return The sprite count.
+		 */
+		public int getSpriteCount() {
+			return spriteCount;
+		}
+		
+		/**
+		 * Gets the sprites of the fighters of a victory event.
+		 * 
+		 * @return The sprites. Only the first getSpriteCount() are used, and
+		 * any of them may be null.
+		 */
+		public Sprite[] getSprites() {
+			return sprites;
+		}
+		
+		/**
+		 * Gets the stats of a stat update.
+		 * 
+		 * @return The stats, in the order given by FighterSprite.readStats().
+		 */
+		public int[] getStats() {
+			return stats;
+		}
+		
+		/**
+		 * Gets the number of targets of the action of this Event.
+		 * 
+		 * @return The target count.
+		 */
+		public int getTargetCount() {
+			return targetCount;
+		}
+		
+		/**
+		 * Gets the names of the targets of the action of this Event.
+		 * 
+		 * @return The names. Only the first getTargetCount() are used.
+		 */
+		public String[] getTargets() {
+			return targets;
+		}
+		
+		/**
+		 * Gets what this Event shows.
+		 * 
+		 * @return The type.
+		 */
+		public Type getType() {
+			return type;
+		}
+		
+		/**
+		 * Clears the references held by this Event so that it does not keep
+		 * anything from being collected.
+		 */
+		private void clear() {
+			name = null;
+			sprite = null;
+			type = null;
+			for (int i = 0; i < spriteCount; i++) {
+				sprites[i] = null;
+			}
+			spriteCount = 0;
+			for (int i = 0; i < targetCount; i++) {
+				targets[i] = null;
+			}
+			targetCount = 0;
+		}
+		
+		/**
+		 * Sets the number of sprites, making room for them if needed.
+		 * 
+		 * @param count The number of sprites.
+		 */
+		private void setSpriteCount(int count) {
+			if (count > sprites.length) {
+				sprites = new Sprite[count];
+			}
+			spriteCount = count;
+		}
+		
+		/**
+		 * Sets the number of targets, making room for them if needed.
+		 * 
+		 * @param count The number of targets.
+		 */
+		private void setTargetCount(int count) {
+			if (count > targets.length) {
+				targets = new String[count];
+				effects = new int[count];
+			}
+			targetCount = count;
+		}
+		
+	}
+	
+	/**
+	 * Shows the events drained from a BattleEventQueue.
+	 */
+	public static interface Handler {
+		
+		/**
+		 * Shows an event.
+		 * 
+		 * @param event The event. It is only valid until this method returns.
+		 */
+		public void handle(Event event);
+		
+	}
+	
+	/**
+	 * The kinds of battle event.
+	 */
+	public static enum Type {
+		ACTION_FAILURE,
+		ACTION_PREPARATION,
+		ACTION_USE,
+		BUFF_ACTIVATION,
+		BUFF_APPLICATION,
+		BUFF_DEACTIVATION,
+		CHARACTER_REMOVAL,
+		CHARACTER_VICTORY,
+		STAT_UPDATE
+	}
+	
+	/**
+	 * The number of slots in the ring if no capacity is given.
+	 */
+	public static final int DEFAULT_CAPACITY = 1024;
+	
+	/**
+	 * How long the putting thread waits between checks for room when the
+	 * ring is full, in nanoseconds.
+	 */
+	private static final long FULL_WAIT = TimeUnit.MILLISECONDS.toNanos(1);
+	
+	/**
+	 * The slots of the ring.
+	 */
+	private final Event[] events;
+	
+	/**
+	 * The number of events that have been drained. Only the draining thread
+	 * writes this.
+	 */
+	private final AtomicLong head;
+	
+	/**
+	 * Masks a count to its index in the ring.
+	 */
+	private final int mask;
+	
+	/**
+	 * The sprites with waiting stat updates, in the order that they were
+	 * first updated.
+	 */
+	private final ArrayList<Sprite> pendingSprites;
+	
+	/**
+	 * The last stat update of each sprite with a waiting stat update. The
+	 * updates stay in their slots until they are shown.
+	 */
+	private final IdentityHashMap<Sprite, Event> pendingStats;
+	
+	/**
+	 * The number of events that have been put. Only the putting thread
+	 * writes this.
+	 */
+	private final AtomicLong tail;
+	
+	/**
+	 * Creates a new BattleEventQueue with the default capacity.
+	 */
+	public BattleEventQueue() {
+		this(DEFAULT_CAPACITY);
+	}
+	
+	/**
+	 * Creates a new BattleEventQueue.
+	 * 
+	 * @param capacity The most events that may wait at once. This is rounded
+	 * up to a power of two.
+	 */
+	public BattleEventQueue(int capacity) {
+		if (capacity < 1) {
+			throw new IllegalArgumentException("capacity must be positive");
+		}
+		int size = Integer.highestOneBit(capacity);
+		if (size < capacity) {
+			size <<= 1;
+		}
+		events = new Event[size];
+		for (int i = 0; i < size; i++) {
+			events[i] = new Event();
+		}
+		mask = size - 1;
+		head = new AtomicLong();
+		tail = new AtomicLong();
+		pendingSprites = new ArrayList<Sprite>();
+		pendingStats = new IdentityHashMap<Sprite, Event>();
+	}
+	
+	/**
+	 * Shows every event that is waiting, in the order they were put. This
+	 * must only be called by the draining thread.
+	 * 
+	 * @param handler Shows each event.
+	 * 
+	 * @return The number of events that were drained.
+	 */
+	public int drain(Handler handler) {
+		long start = head.get();
+		long end = tail.get();
+		for (long i = start; i < end; i++) {
+			Event e = events[(int) i & mask];
+			switch (e.type) {
+				case STAT_UPDATE:
+					if (e.sprite == null) {
+						e.clear();
+					} else {
+						Event last = pendingStats.put(e.sprite, e);
+						if (last == null) {
+							pendingSprites.add(e.sprite);
+						} else {
+							last.clear();
+						}
+					}
+					break;
+				
+				case CHARACTER_REMOVAL:
+				case CHARACTER_VICTORY:
+					flushStats(handler);
+					handler.handle(e);
+					e.clear();
+					break;
+				
+				default:
+					handler.handle(e);
+					e.clear();
+					break;
+			}
+		}
+		flushStats(handler);
+		head.lazySet(end);
+		return (int) (end - start);
+	}
+	
+	/**
+	 * Checks whether there are no events waiting.
+	 * 
+	 * @return Whether every event that was put has been drained.
+	 */
+	public boolean isEmpty() {
+		return head.get() == tail.get();
+	}
+	
+	/**
+	 * Puts an event about an Action. The Action's name, its origin's sprite
+	 * and the names of and effects on its targets are copied. This must only
+	 * be called by the putting thread.
+	 * 
+	 * @param type The kind of event.
+	 * @param action The Action.
+	 */
+	public void put(Type type, Action action) {
+		Event e = claim();
+		if (e != null) {
+			e.type = type;
+			e.name = action.getName();
+			e.sprite = action.getOrigin().getSprite();
+			List<Character> t = action.getTargets();
+			e.setTargetCount(t.size());
+			for (int i = 0; i < e.targetCount; i++) {
+				e.targets[i] = t.get(i).getName();
+				e.effects[i] = action.getActualEffect(i);
+			}
+			publish();
+		}
+	}
+	
+	/**
+	 * Puts an event about a Buff. The Buff's name and its target's sprite
+	 * are copied. This must only be called by the putting thread.
+	 * 
+	 * @param type The kind of event.
+	 * @param buff The Buff.
+	 */
+	public void put(Type type, Buff buff) {
+		Event e = claim();
+		if (e != null) {
+			e.type = type;
+			e.name = buff.getName();
+			e.sprite = buff.getTarget().getSprite();
+			publish();
+		}
+	}
+	
+	/**
+	 * Puts an event about a Character. The Character's sprite, and for stat
+	 * updates its stats, are copied. This must only be called by the putting
+	 * thread.
+	 * 
+	 * @param type The kind of event.
+	 * @param fighter The Character.
+	 */
+	public void put(Type type, Character fighter) {
+		Event e = claim();
+		if (e != null) {
+			e.type = type;
+			e.sprite = fighter.getSprite();
+			if (type == Type.STAT_UPDATE) {
+				FighterSprite.readStats(fighter, e.stats);
+			}
+			publish();
+		}
+	}
+	
+	/**
+	 * Puts an event about several Characters. The sprites of the Characters
+	 * are copied. This must only be called by the putting thread.
+	 * 
+	 * @param type The kind of event.
+	 * @param fighters The Characters.
+	 */
+	public void put(Type type, Character[] fighters) {
+		Event e = claim();
+		if (e != null) {
+			e.type = type;
+			e.setSpriteCount(fighters.length);
+			for (int i = 0; i < fighters.length; i++) {
+				e.sprites[i] = fighters[i].getSprite();
+			}
+			publish();
+		}
+	}
+	
+	/**
+	 * Gets the next free slot of the ring, waiting for room if it is full.
+	 * 
+	 * @return The slot, or null if the putting thread was interrupted while
+	 * waiting. The interrupt status is kept so that the battle can stop.
+	 */
+	private Event claim() {
+		long t = tail.get();
+		while (t - head.get() >= events.length) {
+			if (Thread.currentThread().isInterrupted()) {
+				return null;
+			}
+			LockSupport.parkNanos(FULL_WAIT);
+		}
+		return events[(int) t & mask];
+	}
+	
+	/**
+	 * Shows the stat updates that are waiting in the current drain.
+	 * 
+	 * @param handler Shows each update.
+	 */
+	private void flushStats(Handler handler) {
+		int count = pendingSprites.size();
+		for (int i = 0; i < count; i++) {
+			Event e = pendingStats.get(pendingSprites.get(i));
+			handler.handle(e);
+			e.clear();
+		}
+		pendingSprites.clear();
+		pendingStats.clear();
+	}
+	
+	/**
+	 * Makes the slot returned by the last claim visible to the draining
+	 * thread.
+	 */
+	private void publish() {
+		tail.lazySet(tail.get() + 1);
+	}
+	
+}
@@ -2,6 +2,9 @@ package yuuki.ui;
 
 import java.awt.Dimension;
 import java.awt.Font;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
 import javax.swing.JOptionPane;
 import javax.swing.JScrollPane;
@@ -12,6 +15,23 @@ import javax.swing.JTextArea;
  */
 public class DialogHandler {
 	
+	/**
+	 * The messages that have been held back on each thread, or null for
+	 * threads that show their messages immediately.
+	 */
+	private static final ThreadLocal<List<String>> DEFERRED_MESSAGES =
+			new ThreadLocal<List<String>>();
+			
+	/**
+	 * Holds back the messages that are shown on the current thread from then
+	 * on, until takeDeferredMessages() is called. This lets work that runs on
+	 * several threads at once have its messages shown afterwards in a fixed
+	 * order instead of in whatever order the threads happen to run.
+	 */
+	public static void deferMessages() {
+		DEFERRED_MESSAGES.set(new ArrayList<String>());
+	}
+	
 	/**
 	 * Shows an error message.
 	 * 
@@ -75,6 +95,11 @@ public class DialogHandler {
 	 * @param msg The message to show.
 	 */
 	public static void showMessage(String msg) {
+		List<String> deferred = DEFERRED_MESSAGES.get();
+		if (deferred != null) {
+			deferred.add(msg);
+			return;
+		}
 		JOptionPane.showMessageDialog(null, msg, "Message",
 				JOptionPane.PLAIN_MESSAGE);
 	}
@@ -90,6 +115,21 @@ public class DialogHandler {
 				DialogHandler.getMessageTrace(t));
 	}
 	
+	/**
+	 * Stops holding back the messages of the current thread.
+	 * 
+	 * @return The messages that were held back since deferMessages() was
+	 * called on the current thread, in the order that they were shown.
+	 */
+	public static List<String> takeDeferredMessages() {
+		List<String> deferred = DEFERRED_MESSAGES.get();
+		DEFERRED_MESSAGES.remove();
+		if (deferred == null) {
+			return Collections.emptyList();
+		}
+		return deferred;
+	}
+	
 	/**
 	 * Creates a panel to display the contents of a dialog.
 	 * 
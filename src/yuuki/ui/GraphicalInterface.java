@@ -4,15 +4,17 @@ import java.awt.BorderLayout;
 import java.awt.Dimension;
 import java.awt.Image;
 import java.awt.Point;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
 import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
 import java.awt.event.WindowListener;
 import java.util.ArrayList;
-import java.util.List;
 
 import javax.swing.JFrame;
 import javax.swing.JOptionPane;
 import javax.swing.SwingUtilities;
+import javax.swing.Timer;
 import javax.swing.WindowConstants;
 
 import yuuki.Options;
@@ -45,12 +47,8 @@ import yuuki.ui.screen.OverworldMovementListener;
 import yuuki.ui.screen.OverworldScreen;
 import yuuki.ui.screen.OverworldScreenListener;
 import yuuki.ui.screen.Screen;
-import yuuki.util.Grid;
 import yuuki.util.InvalidIndexException;
-import yuuki.world.Locatable;
-import yuuki.world.Movable;
-import yuuki.world.Portal;
-import yuuki.world.Tile;
+import yuuki.world.LandSnapshot;
 import yuuki.world.WalkGraph;
 
 /**
@@ -108,6 +106,29 @@ public class GraphicalInterface implements Interactable {
 	 */
 	private AnimationManager animationEngine;
 	
+	/**
+	 * Shows the battle events drained from the battle event queue.
+	 */
+	private BattleEventQueue.Handler battleEventHandler =
+			new BattleEventQueue.Handler() {
+		
+		@Override
+		public void handle(BattleEventQueue.Event e) {
+			battleScreen.showBattleEvent(e);
+		}
+	};
+	
+	/**
+	 * Drains the battle event queue once per animation frame while the
+	 * battle screen is shown.
+	 */
+	private Timer battleEventTimer;
+	
+	/**
+	 * The output of the battle thread that is waiting to be shown.
+	 */
+	private BattleEventQueue battleEvents;
+	
 	/**
 	 * The battle screen.
 	 */
@@ -228,6 +249,7 @@ public class GraphicalInterface implements Interactable {
 		currentScreen = null;
 		formerScreen = null;
 		animationEngine = new AnimationManager(ANIMATION_FPS);
+		battleEvents = new BattleEventQueue();
 		soundEngine = null;
 	}
 	
@@ -241,37 +263,12 @@ public class GraphicalInterface implements Interactable {
 		});
 	}
 	
-	@Override
-	public void addWorldEntities(ArrayList<Movable> characters) {
-		addWorldLocatables(characters, OverworldScreen.Z_INDEX_ENTITY_LAYER);
-	}
-	
-	@Override
-	public void addWorldItems(List<Item> items) {
-		addWorldLocatables(items, OverworldScreen.Z_INDEX_ITEM_LAYER);
-	}
-	
-	@Override
-	public void addWorldPortals(ArrayList<Portal> portals) {
-		addWorldLocatables(portals, OverworldScreen.Z_INDEX_PORTAL_LAYER);
-	}
-	
 	@Override
 	public void applyOptions(Options options) {
 		soundEngine.setEffectVolume(options.sfxVolume);
 		soundEngine.setMusicVolume(options.bgmVolume);
 	}
 	
-	@Override
-	public void clearWorldLocatables() {
-		SwingUtilities.invokeLater(new Runnable() {
-			@Override
-			public void run() {
-				overworldScreen.clearWorldLocatables();
-			}
-		});
-	}
-	
 	@Override
 	public boolean confirm(String prompt, String yes, String no) {
 		String[] ops = {yes, no};
@@ -493,11 +490,6 @@ public class GraphicalInterface implements Interactable {
 		}
 	}
 	
-	@Override
-	public void removeWorldItems(Item[] items, int count) {
-		overworldScreen.removeWorldItems(items, count);
-	}
-	
 	@Override
 	public void resetPrompt() {
 		messageBox.exitPrompt();
@@ -638,63 +630,23 @@ public class GraphicalInterface implements Interactable {
 	}
 	
 	@Override
-	public void setWorldView(Grid<Tile> view, String name) {
-		class Runner implements Runnable {
-			private String name;
-			private Grid<Tile> view;
-			public Runner(Grid<Tile> tg, String n) {
-				view = tg;
-				name = n;
-			}
-			@Override
-			public void run() {
-				overworldScreen.setWorldView(view, name);
-			}
-		}
-		Runner r = new Runner(view, name);
-		SwingUtilities.invokeLater(r);
+	public void setWorldView(LandSnapshot snapshot) {
+		overworldScreen.setWorldView(snapshot);
 	}
 	
 	@Override
 	public void showActionFailure(Action action) {
-		class Runner implements Runnable {
-			public Action action;
-			@Override
-			public void run() {
-				battleScreen.showActionFailure(action);
-			}
-		}
-		Runner r = new Runner();
-		r.action = action;
-		SwingUtilities.invokeLater(r);
+		battleEvents.put(BattleEventQueue.Type.ACTION_FAILURE, action);
 	}
 	
 	@Override
 	public void showActionPreperation(Action action) {
-		class Runner implements Runnable {
-			public Action action;
-			@Override
-			public void run() {
-				battleScreen.showActionPreparation(action);
-			}
-		}
-		Runner r = new Runner();
-		r.action = action;
-		SwingUtilities.invokeLater(r);
+		battleEvents.put(BattleEventQueue.Type.ACTION_PREPARATION, action);
 	}
 	
 	@Override
 	public void showActionUse(Action action) {
-		class Runner implements Runnable {
-			public Action action;
-			@Override
-			public void run() {
-				battleScreen.showActionUse(action);
-			}
-		}
-		Runner r = new Runner();
-		r.action = action;
-		SwingUtilities.invokeLater(r);
+		battleEvents.put(BattleEventQueue.Type.ACTION_USE, action);
 	}
 	
 	@Override
@@ -704,72 +656,27 @@ public class GraphicalInterface implements Interactable {
 	
 	@Override
 	public void showBuffActivation(Buff buff) {
-		class Runner implements Runnable {
-			public Buff buff;
-			@Override
-			public void run() {
-				battleScreen.showBuffActivation(buff);
-			}
-		}
-		Runner r = new Runner();
-		r.buff = buff;
-		SwingUtilities.invokeLater(r);
+		battleEvents.put(BattleEventQueue.Type.BUFF_ACTIVATION, buff);
 	}
 	
 	@Override
 	public void showBuffApplication(Buff buff) {
-		class Runner implements Runnable {
-			public Buff buff;
-			@Override
-			public void run() {
-				battleScreen.showBuffApplication(buff);
-			}
-		}
-		Runner r = new Runner();
-		r.buff = buff;
-		SwingUtilities.invokeLater(r);
+		battleEvents.put(BattleEventQueue.Type.BUFF_APPLICATION, buff);
 	}
 	
 	@Override
 	public void showBuffDeactivation(Buff buff) {
-		class Runner implements Runnable {
-			public Buff buff;
-			@Override
-			public void run() {
-				battleScreen.showBuffDeactivation(buff);
-			}
-		}
-		Runner r = new Runner();
-		r.buff = buff;
-		SwingUtilities.invokeLater(r);
+		battleEvents.put(BattleEventQueue.Type.BUFF_DEACTIVATION, buff);
 	}
 	
 	@Override
 	public void showCharacterRemoval(Character c) {
-		class Runner implements Runnable {
-			public Character c;
-			@Override
-			public void run() {
-				battleScreen.showCharacterRemoval(c);
-			}
-		}
-		Runner r = new Runner();
-		r.c = c;
-		SwingUtilities.invokeLater(r);
+		battleEvents.put(BattleEventQueue.Type.CHARACTER_REMOVAL, c);
 	}
 	
 	@Override
 	public void showCharacterVictory(Character[] cs) {
-		class Runner implements Runnable {
-			public Character[] cs;
-			@Override
-			public void run() {
-				battleScreen.showCharacterVictory(cs);
-			}
-		}
-		Runner r = new Runner();
-		r.cs = cs;
-		SwingUtilities.invokeLater(r);
+		battleEvents.put(BattleEventQueue.Type.CHARACTER_VICTORY, cs);
 	}
 	
 	@Override
@@ -807,16 +714,7 @@ public class GraphicalInterface implements Interactable {
 	
 	@Override
 	public void showStatUpdate(Character fighter) {
-		class Runner implements Runnable {
-			public Character fighter;
-			@Override
-			public void run() {
-				battleScreen.showStatUpdate(fighter);
-			}
-		}
-		Runner r = new Runner();
-		r.fighter = fighter;
-		SwingUtilities.invokeLater(r);
+		battleEvents.put(BattleEventQueue.Type.STAT_UPDATE, fighter);
 	}
 	
 	/**
@@ -1040,30 +938,6 @@ public class GraphicalInterface implements Interactable {
 		messageBox.waitForClean();
 	}
 	
-	/**
-	 * Adds a list of Locatables to one of the layers in the world viewer.
-	 * 
-	 * @param l The list of Locatables to add.
-	 * @param zIndex The Z-index of the layer to add the Locatables to.
-	 */
-	private void addWorldLocatables(List<? extends Locatable> l, int zIndex) {
-		ArrayList<Locatable> list = new ArrayList<Locatable>(l);
-		class Runner implements Runnable {
-			private ArrayList<Locatable> list;
-			private int zIndex;
-			public Runner(ArrayList<Locatable> list, int zIndex) {
-				this.zIndex = zIndex;
-				this.list = list;
-			}
-			@Override
-			public void run() {
-				overworldScreen.addWorldLocatables(list, zIndex);
-			}
-		}
-		Runner r = new Runner(list, zIndex);
-		SwingUtilities.invokeLater(r);
-	}
-	
 	/**
 	 * Clears the main window of all components.
 	 */
@@ -1078,6 +952,13 @@ public class GraphicalInterface implements Interactable {
 		int height = getScreenHeight();
 		battleScreen = new BattleScreen(WINDOW_WIDTH, height, animationEngine);
 		battleScreen.setBackgroundMusic("BGM_BATTLE");
+		ActionListener drainer = new ActionListener() {
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				battleEvents.drain(battleEventHandler);
+			}
+		};
+		battleEventTimer = new Timer(1000 / ANIMATION_FPS, drainer);
 	}
 	
 	/**
@@ -1398,6 +1279,12 @@ public class GraphicalInterface implements Interactable {
 			}
 			@Override
 			public void run() {
+				if (screen == battleScreen) {
+					battleEventTimer.start();
+				} else if (battleEventTimer.isRunning()) {
+					battleEventTimer.stop();
+					battleEvents.drain(battleEventHandler);
+				}
 				switchToScreen(screen);
 			}
 		}
@@ -2,7 +2,6 @@ package yuuki.ui;
 
 import java.awt.Point;
 import java.util.ArrayList;
-import java.util.List;
 
 import yuuki.action.Action;
 import yuuki.buff.Buff;
@@ -13,10 +12,7 @@ import yuuki.graphic.ImageFactory;
 import yuuki.item.InventoryPouch;
 import yuuki.item.Item;
 import yuuki.sound.DualSoundEngine;
-import yuuki.util.Grid;
-import yuuki.world.Movable;
-import yuuki.world.Portal;
-import yuuki.world.Tile;
+import yuuki.world.LandSnapshot;
 import yuuki.world.WalkGraph;
 
 /**
@@ -32,27 +28,6 @@ public interface Interactable {
 	 */
 	public void addMods(String[] names, String[] ids);
 	
-	/**
-	 * Adds Characters to the world viewer.
-	 * 
-	 * @param characters The Characters to add.
-	 */
-	public void addWorldEntities(ArrayList<Movable> characters);
-	
-	/**
-	 * Adds Items to the world viewer.
-	 * 
-	 * @param items The Items to add.
-	 */
-	public void addWorldItems(List<Item> items);
-	
-	/**
-	 * Adds portals to the world viewer.
-	 * 
-	 * @param portals The portals to add.
-	 */
-	public void addWorldPortals(ArrayList<Portal> portals);
-	
 	/**
 	 * Applies applicable options to this Interactable.
 	 * 
@@ -60,11 +35,6 @@ public interface Interactable {
 	 */
 	public void applyOptions(yuuki.Options options);
 	
-	/**
-	 * Clears the Locatables from the world viewer.
-	 */
-	public void clearWorldLocatables();
-	
 	/**
 	 * Gets a confirmation from the user.
 	 *
@@ -249,14 +219,6 @@ public interface Interactable {
 	 */
 	public void playSound(String effectIndex);
 	
-	/**
-	 * Clears the items from a certain spot on the overworld screen.
-	 * 
-	 * @param items The items to remove.
-	 * @param count The number of items to remove.
-	 */
-	public void removeWorldItems(Item[] items, int count);
-	
 	/**
 	 * Resets the active prompt.
 	 */
@@ -311,12 +273,12 @@ public interface Interactable {
 	public void setLoadingIndeterminate(boolean b);
 	
 	/**
-	 * Sets the world view to the given tile grid.
+	 * Sets the snapshot of the land to show in the world view. It is shown on
+	 * the next update of the world view. This may be called from any thread.
 	 * 
-	 * @param view The tiles that make up the world view.
-	 * @param name The name of the land being displayed.
+	 * @param snapshot The snapshot to show.
 	 */
-	public void setWorldView(Grid<Tile> view, String name);
+	public void setWorldView(LandSnapshot snapshot);
 	
 	/**
 	 * Shows a character fail at an attack.
@@ -7,25 +7,24 @@ import java.awt.Image;
 import java.awt.Point;
 import java.awt.Rectangle;
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
-import java.util.SortedMap;
-import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicReference;
 
 import javax.swing.JPanel;
 
 import yuuki.graphic.ImageFactory;
-import yuuki.util.ElementGrid;
+import yuuki.util.ArrayGrid;
 import yuuki.util.Grid;
 import yuuki.util.InvalidIndexException;
-import yuuki.world.Locatable;
+import yuuki.world.LandSnapshot;
 import yuuki.world.Tile;
 import yuuki.world.TileFactory;
 
 /**
- * Displays the overworld graphically.
+ * Displays the overworld graphically. What is shown is taken from the latest
+ * LandSnapshot that has been given to this WorldViewer; since snapshots never
+ * change, drawing one needs no locking against the thread that advances the
+ * world.
  */
 @SuppressWarnings("serial")
 public class WorldViewer extends JPanel {
@@ -35,6 +34,12 @@ public class WorldViewer extends JPanel {
 	 */
 	public static final int TILE_SIZE = 32;
 	
+	/**
+	 * The number of layers of sprites. Portals are drawn on the lowest layer,
+	 * then items, and then residents.
+	 */
+	private static final int LAYER_COUNT = 3;
+	
 	/**
 	 * The current center of the map.
 	 */
@@ -46,36 +51,31 @@ public class WorldViewer extends JPanel {
 	private ImageFactory images;
 	
 	/**
-	 * The grid of tiles that make up the land being displayed.
+	 * The section of the land that is shown in the view port.
 	 */
-	private Grid<Tile> land;
+	private Grid<Tile> landView;
 	
 	/**
-	 * The section of the land that is shown in the view port.
+	 * The snapshot that was last drawn, or null if none has been drawn.
 	 */
-	private Grid<Tile> landView;
+	private LandSnapshot shown;
 	
 	/**
-	 * The Locatables on the screen. They are arranged in layers, which specify
-	 * the z-ordering of the locatables. Higher layers are drawn above lower
-	 * layers.
+	 * The latest snapshot to be given to this WorldViewer.
 	 */
-	private Map<Integer, List<Locatable>> locatables;
+	private final AtomicReference<LandSnapshot> snapshot;
 	
 	/**
-	 * The exact locatables being displayed. This mirrors the land view. Key
-	 * iteration must be guaranteed to be ordered so that painting routines may
-	 * correctly render lower layers before higher layers.
-	 * 
-	 * This is not a list because there may not necessarily be all indexes 0-n
-	 * for adding n layers.
+	 * The exact sprites being displayed, one buffer per layer. This mirrors
+	 * the land view. The buffers are in the order that they are painted in,
+	 * so that higher layers are drawn above lower layers.
 	 */
-	private SortedMap<Integer, Grid<List<Image>>> resBuffers;
+	private List<Grid<List<Image>>> spriteBuffers;
 	
 	/**
-	 * The sections of the locatables that contain the drawn residents.
+	 * The sections of the sprite buffers that contain the drawn sprites.
 	 */
-	private Map<Integer, Grid<List<Image>>> resBufferViews;
+	private List<Grid<List<Image>>> spriteBufferViews;
 	
 	/**
 	 * The exact images being displayed. This mirrors the land view.
@@ -108,74 +108,35 @@ public class WorldViewer extends JPanel {
 		tileWidth = width;
 		tileHeight = height;
 		Dimension d = new Dimension(width, height);
-		tileBuffer = new ElementGrid<Image>(d);
-		locatables = new HashMap<Integer, List<Locatable>>();
-		resBuffers = new TreeMap<Integer, Grid<List<Image>>>();
-		resBufferViews = new TreeMap<Integer, Grid<List<Image>>>();
+		tileBuffer = new ArrayGrid<Image>(d);
+		snapshot = new AtomicReference<LandSnapshot>();
+		spriteBuffers = new ArrayList<Grid<List<Image>>>(LAYER_COUNT);
+		spriteBufferViews = new ArrayList<Grid<List<Image>>>(LAYER_COUNT);
+		for (int i = 0; i < LAYER_COUNT; i++) {
+			spriteBuffers.add(new ArrayGrid<List<Image>>(d));
+			spriteBufferViews.add(null);
+		}
 		setLayout(null);
 		Dimension size = new Dimension(width * TILE_SIZE, height * TILE_SIZE);
 		setPreferredSize(size);
 	}
 	
 	/**
-	 * Adds a resident to the current display.
+	 * Gets the snapshot that was last drawn.
 	 * 
-	 * @param l The resident to add.
-	 * @param zIndex The Z-index of the layer to add the resident to.
-	 */
-	public void addLocatable(Locatable l, int zIndex) {
-		if (!layerExists(zIndex)) {
-			createLayer(zIndex);
-		}
-		List<Locatable> layer = getLayer(zIndex);
-		layer.add(l);
-	}
-	
-	/**
-	 * Removes all Locatables from the current display.
+	 * @return The snapshot, or null if nothing has been drawn yet.
 	 */
-	public void clearLocatables() {
-		locatables.clear();
-	}
-	
-	/**
-	 * Removes locatables from a point.
-	 * 
-	 * @param locs The locatables to remove.
-	 * @param count The amount to remove.
-	 * @param zIndex The layer to remove them from.
-	 */
-	public void removeLocatables(Locatable[] locs, int count, int zIndex) {
-		List<Locatable> layer = getLayer(zIndex);
-		for (int i = 0; i < count; i++) {
-			Locatable toRemove = locs[i];
-			Iterator<Locatable> it = layer.iterator();
-			while (it.hasNext()) {
-				Locatable toCompare = it.next();
-				if (toCompare == toRemove) {
-					it.remove();
-					break;
-				}
-			}
-		}
-	}
-	
-	/**
-	 * Gets the number of layers of Locatable objects. The layers with Z-index
-	 * 0 up to but not including the return value of this method are guaranteed
-	 * to exist.
-	 * 
-	 * @return The number of layers.
-	 */
-	public int getLayerCount() {
-		return locatables.size();
+	public LandSnapshot getShownSnapshot() {
+		return shown;
 	}
 	
 	/**
 	 * Redraws the view port.
 	 */
 	public void redrawDisplay() {
-		updateDisplay(currentCenter);
+		if (currentCenter != null) {
+			updateDisplay(currentCenter);
+		}
 	}
 	
 	/**
@@ -188,28 +149,34 @@ public class WorldViewer extends JPanel {
 	}
 	
 	/**
-	 * Sets the the reference to the tiles of the Land being displayed.
+	 * Sets the snapshot to show. It is drawn on the next update of the
+	 * display. This may be called from any thread.
 	 * 
-	 * @param view The view to show.
+	 * @param snapshot The snapshot to show.
 	 */
-	public void setLand(Grid<Tile> view) {
-		this.land = view;
-		this.currentCenter = null;
+	public void setSnapshot(LandSnapshot snapshot) {
+		this.snapshot.set(snapshot);
 	}
 	
 	/**
-	 * Updates this WorldViewer to show a new area.
+	 * Updates this WorldViewer to show a new area of the latest snapshot.
+	 * Nothing is drawn if no snapshot has been given yet.
 	 * 
 	 * @param center The center of the area to show.
 	 */
 	public void updateDisplay(Point center) {
 		this.currentCenter = center;
+		LandSnapshot s = snapshot.get();
+		if (s == null) {
+			return;
+		}
+		shown = s;
 		clearBuffers();
-		Point requested = setLandView(center);
+		Point requested = setLandView(s.getTiles(), center);
 		setTileBufferView(requested);
-		setResBufferViews(requested);
+		setSpriteBufferViews(requested);
 		drawTiles();
-		drawLocatables();
+		drawSprites(s);
 		repaint();
 	}
 	
@@ -218,15 +185,15 @@ public class WorldViewer extends JPanel {
 	 */
 	private void clearBuffers() {
 		clearTileBuffer();
-		clearResBuffers();
+		clearSpriteBuffers();
 	}
 	
 	/**
-	 * Clears the resident buffers of all content.
+	 * Clears the sprite buffers of all content.
 	 */
-	private void clearResBuffers() {
-		for (int i : resBuffers.keySet()) {
-			resBuffers.get(i).clear();
+	private void clearSpriteBuffers() {
+		for (Grid<List<Image>> buffer : spriteBuffers) {
+			buffer.clear();
 		}
 	}
 	
@@ -240,10 +207,9 @@ public class WorldViewer extends JPanel {
 		} catch (InvalidIndexException e) {
 			DialogHandler.showError(e.getMessage());
 		}
-		Point p = new Point();
-		for (p.y = 0; p.y < tileHeight; p.y++) {
-			for (p.x = 0; p.x < tileWidth; p.x++) {
-				tileBuffer.set(p, i);
+		for (int y = 0; y < tileHeight; y++) {
+			for (int x = 0; x < tileWidth; x++) {
+				tileBuffer.set(x, y, i);
 			}
 		}
 	}
@@ -274,59 +240,59 @@ public class WorldViewer extends JPanel {
 	}
 	
 	/**
-	 * Creates an empty Locatable layer with the given Z-index. If there is
-	 * already a layer with the given Z-index, it is replaced with an empty
-	 * layer.
+	 * Draws the sprites of one layer into its sprite buffer.
 	 * 
-	 * @param zIndex The Z-index of the layer to create.
-	 */
-	private void createLayer(int zIndex) {
-		Dimension d = new Dimension(tileWidth, tileHeight);
-		locatables.put(zIndex, new ArrayList<Locatable>());
-		resBuffers.put(zIndex, new ElementGrid<List<Image>>(d));
+	 * @param sprites The sprites to draw.
+	 * @param layer The index of the layer.
+	 * @param box The area of the land that is being shown.
+	 */
+	private void drawSpriteLayer(List<LandSnapshot.Sprite> sprites, int layer,
+			Rectangle box) {
+		Grid<List<Image>> bufferView = spriteBufferViews.get(layer);
+		for (LandSnapshot.Sprite sprite : sprites) {
+			if (!box.contains(sprite.x, sprite.y)) {
+				continue;
+			}
+			int x = sprite.x - box.x;
+			int y = sprite.y - box.y;
+			try {
+				Image img = images.createImage(sprite.image);
+				List<Image> imgList = bufferView.itemAt(x, y);
+				if (imgList == null) {
+					imgList = new ArrayList<Image>();
+					bufferView.set(x, y, imgList);
+				}
+				imgList.add(img);
+			} catch (InvalidIndexException e) {
+				DialogHandler.showError(e.getMessage());
+			}
+		}
 	}
 	
 	/**
-	 * Draws the locatables on the screen.
+	 * Draws the sprites of a snapshot into the sprite buffers.
+	 * 
+	 * @param s The snapshot whose sprites are to be drawn.
 	 */
-	private void drawLocatables() {
+	private void drawSprites(LandSnapshot s) {
 		Rectangle box;
 		box = new Rectangle(landView.getLocation(), landView.getSize());
-		for (int i : locatables.keySet()) {
-			ArrayList<Locatable> ls = getResidentsInBox(box, i);
-			for (Locatable l : ls) {
-				Point p = new Point(l.getLocation());
-				p.x -= box.x;
-				p.y -= box.y;
-				String imgIndex = l.getDisplayable().getOverworldImage();
-				Grid<List<Image>> bufferView = resBufferViews.get(i);
-				try {
-					Image img = images.createImage(imgIndex);
-					List<Image> imgList = bufferView.itemAt(p);
-					if (imgList == null) {
-						imgList = new ArrayList<Image>();
-						bufferView.set(p, imgList);
-					}
-					imgList.add(img);
-				} catch (InvalidIndexException e) {
-					DialogHandler.showError(e.getMessage());
-				}
-			}
-		}
+		drawSpriteLayer(s.getPortals(), 0, box);
+		drawSpriteLayer(s.getItems(), 1, box);
+		drawSpriteLayer(s.getResidents(), 2, box);
 	}
 	
 	/**
 	 * Draws the tiles in the land view onto the tile buffer.
 	 */
 	private void drawTiles() {
-		Point p = new Point(0, 0);
 		Dimension size = tileBufferView.getSize();
-		for (p.x = 0; p.x < size.width; p.x++) {
-			for (p.y = 0; p.y < size.height; p.y++) {
-				String imgIndex = landView.itemAt(p).getOverworldImage();
+		for (int y = 0; y < size.height; y++) {
+			for (int x = 0; x < size.width; x++) {
+				String imgIndex = landView.itemAt(x, y).getOverworldImage();
 				try {
 					Image img = images.createImage(imgIndex);
-					tileBufferView.set(p, img);
+					tileBufferView.set(x, y, img);
 				} catch (InvalidIndexException e) {
 					DialogHandler.showError(e.getMessage());
 				}
@@ -334,47 +300,6 @@ public class WorldViewer extends JPanel {
 		}
 	}
 	
-	/**
-	 * Gets one layer of the Locatables to be drawn on the screen.
-	 * 
-	 * @param zIndex The Z-index of the layer to get.
-	 * 
-	 * @return The layer.
-	 */
-	private List<Locatable> getLayer(int zIndex) {
-		return locatables.get(zIndex);
-	}
-	
-	/**
-	 * Gets the Locatables that fall within a certain rectangle.
-	 * 
-	 * @param box The Rectangle from within the Locatables should be drawn.
-	 * @param zIndex The Z-index of the layer of Locatables to search in.
-	 * 
-	 * @return The Locatables that currently fall within the bounding box.
-	 */
-	private ArrayList<Locatable> getResidentsInBox(Rectangle box, int zIndex) {
-		ArrayList<Locatable> desired = new ArrayList<Locatable>();
-		List<Locatable> layer = getLayer(zIndex);
-		for (Locatable l : layer) {
-			if (box.contains(l.getLocation())) {
-				desired.add(l);
-			}
-		}
-		return desired;
-	}
-	
-	/**
-	 * Checks whether a Locatable with a given Z-index exists.
-	 * 
-	 * @param zIndex The Z-index of the layer to check.
-	 * 
-	 * @return True if the layer exists; otherwise, false.
-	 */
-	private boolean layerExists(int zIndex) {
-		return (locatables.containsKey(zIndex));
-	}
-	
 	/**
 	 * Paints the elements in a buffer on to a graphical context.
 	 * 
@@ -384,13 +309,12 @@ public class WorldViewer extends JPanel {
 	private void paintElementLists(Graphics2D g, Grid<List<Image>> buffer) {
 		final int w = TILE_SIZE;
 		final int h = TILE_SIZE;
-		Point p = new Point(0, 0);
-		for (p.y = 0; p.y < tileHeight; p.y++) {
-			for (p.x = 0; p.x < tileWidth; p.x++) {
-				List<Image> imgList = buffer.itemAt(p);
+		for (int y = 0; y < tileHeight; y++) {
+			for (int x = 0; x < tileWidth; x++) {
+				List<Image> imgList = buffer.itemAt(x, y);
 				if (imgList != null) {
 					for (Image img : imgList) {
-						g.drawImage(img, p.x * w, p.y * h, w, h, this);
+						g.drawImage(img, x * w, y * h, w, h, this);
 					}
 				}
 			}
@@ -406,25 +330,23 @@ public class WorldViewer extends JPanel {
 	private void paintElements(Graphics2D g, Grid<Image> buffer) {
 		final int w = TILE_SIZE;
 		final int h = TILE_SIZE;
-		Point p = new Point(0, 0);
-		for (p.y = 0; p.y < tileHeight; p.y++) {
-			for (p.x = 0; p.x < tileWidth; p.x++) {
-				Image img = buffer.itemAt(p);
+		for (int y = 0; y < tileHeight; y++) {
+			for (int x = 0; x < tileWidth; x++) {
+				Image img = buffer.itemAt(x, y);
 				if (img != null) {
-					g.drawImage(img, p.x * w, p.y * h, w, h, this);
+					g.drawImage(img, x * w, y * h, w, h, this);
 				}
 			}
 		}
 	}
 	
 	/**
-	 * Paints the Locatables in this world viewer.
+	 * Paints the sprites in this world viewer.
 	 * 
-	 * @param g The Graphics2D context to paint the Locatables on.
+	 * @param g The Graphics2D context to paint the sprites on.
 	 */
-	private void paintLocatables(Graphics2D g) {
-		for (int i : resBuffers.keySet()) {
-			Grid<List<Image>> buffer = resBuffers.get(i);
+	private void paintSprites(Graphics2D g) {
+		for (Grid<List<Image>> buffer : spriteBuffers) {
 			paintElementLists(g, buffer);
 		}
 	}
@@ -441,11 +363,12 @@ public class WorldViewer extends JPanel {
 	/**
 	 * Gets the proper sub view centered about a point.
 	 * 
+	 * @param land The tiles of the land being shown.
 	 * @param center The center of the view to set as the sub view.
 	 * 
 	 * @return The position of the requested upper-left corner.
 	 */
-	private Point setLandView(Point center) {
+	private Point setLandView(Grid<Tile> land, Point center) {
 		Dimension size = tileBuffer.getSize();
 		Point actualLocation = new Point(center);
 		actualLocation.translate(-(size.width / 2), -(size.height / 2));
@@ -455,16 +378,15 @@ public class WorldViewer extends JPanel {
 	}
 	
 	/**
-	 * Sets the resident buffer views as the sections of the resident buffers
-	 * that contain land tiles.
+	 * Sets the sprite buffer views as the sections of the sprite buffers that
+	 * contain land tiles.
 	 * 
 	 * @param request The upper-left corner of the requested buffer view.
 	 */
-	private void setResBufferViews(Point request) {
-		for (int i : resBuffers.keySet()) {
-			Grid<List<Image>> buffer = resBuffers.get(i);
-			Grid<List<Image>> view = createBufferView(request, buffer);
-			resBufferViews.put(i, view);
+	private void setSpriteBufferViews(Point request) {
+		for (int i = 0; i < LAYER_COUNT; i++) {
+			Grid<List<Image>> buffer = spriteBuffers.get(i);
+			spriteBufferViews.set(i, createBufferView(request, buffer));
 		}
 	}
 	
@@ -482,7 +404,7 @@ public class WorldViewer extends JPanel {
 	protected void paintComponent(Graphics g) {
 		Graphics2D g2 = (Graphics2D) g;
 		paintTiles(g2);
-		paintLocatables(g2);
+		paintSprites(g2);
 	}
 	
 }
@@ -2,12 +2,12 @@ package yuuki.ui.screen;
 
 import java.util.ArrayList;
 
-import yuuki.action.Action;
 import yuuki.animation.engine.AnimationManager;
-import yuuki.buff.Buff;
 import yuuki.entity.Character;
 import yuuki.entity.Stat;
 import yuuki.sprite.FighterSprite;
+import yuuki.sprite.Sprite;
+import yuuki.ui.BattleEventQueue;
 
 /**
  * The screen shown for a battle.
@@ -64,69 +64,57 @@ public class BattleScreen extends Screen<ScreenListener> {
 	public void setInitialProperties() {}
 	
 	/**
-	 * Shows a sprite failing at an action.
+	 * Shows a battle event that was drained from a BattleEventQueue. Only
+	 * what was copied into the event is used, so the fighters and Actions of
+	 * the battle may have changed since it was put.
 	 * 
-	 * @param action The action to show.
+	 * @param e The event to show.
 	 */
-	public void showActionFailure(Action action) {
-		Character fighter = action.getOrigin();
-		FighterSprite sprite = (FighterSprite) fighter.getSprite();
-		sprite.showActionFailure(action);
-	}
-	
-	/**
-	 * Shows a sprite preparing to do an action.
-	 * 
-	 * @param action The action to show.
-	 */
-	public void showActionPreparation(Action action) {
-		Character fighter = action.getOrigin();
-		FighterSprite sprite = (FighterSprite) fighter.getSprite();
-		sprite.showActionPreparation(action);
-	}
-	
-	/**
-	 * Shows a sprite using an action.
-	 * 
-	 * @param action The action to show.
-	 */
-	public void showActionUse(Action action) {
-		Character fighter = action.getOrigin();
-		FighterSprite sprite = (FighterSprite) fighter.getSprite();
-		sprite.showActionUse(action);
-	}
-	
-	/**
-	 * Shows a buff being activated on a sprite.
-	 * 
-	 * @param buff The buff to show the activation of.
-	 */
-	public void showBuffActivation(Buff buff) {
-		Character fighter = buff.getTarget();
-		FighterSprite sprite = (FighterSprite) fighter.getSprite();
-		sprite.showBuffActivation(buff);
-	}
-	
-	/**
-	 * Shows a buff being applied to a sprite.
-	 * 
-	 * @param buff The buff to the activation of.
-	 */
-	public void showBuffApplication(Buff buff) {
-		Character fighter = buff.getTarget();
-		FighterSprite sprite = (FighterSprite) fighter.getSprite();
-		sprite.showBuffApplication(buff);
-	}
-	
-	/**
-	 * Shows a buff being deactivated on a sprite.
-	 * 
-	 * @param buff The buff to show the deactivation of.
-	 */
-	public void showBuffDeactivation(Buff buff) {
-		Character fighter = buff.getTarget();
-		FighterSprite sprite = (FighterSprite) fighter.getSprite();
-		sprite.showBuffDeactivation(buff);
+	public void showBattleEvent(BattleEventQueue.Event e) {
+		FighterSprite sprite = (FighterSprite) e.getSprite();
+		if (e.getType() == BattleEventQueue.Type.CHARACTER_VICTORY) {
+			showSpriteVictory(e.getSprites(), e.getSpriteCount());
+			return;
+		} else if (sprite == null) {
+			return;
+		}
+		switch (e.getType()) {
+			case ACTION_FAILURE:
+				sprite.showActionFailure(e.getName());
+				break;
+				
+			case ACTION_PREPARATION:
+				sprite.showActionPreparation(e.getName());
+				break;
+				
+			case ACTION_USE:
+				sprite.showActionUse(e.getName(), e.getTargets(),
+						e.getEffects(), e.getTargetCount());
+				break;
+				
+			case BUFF_ACTIVATION:
+				sprite.showBuffActivation(e.getName());
+				break;
+				
+			case BUFF_APPLICATION:
+				sprite.showBuffApplication(e.getName());
+				break;
+				
+			case BUFF_DEACTIVATION:
+				sprite.showBuffDeactivation(e.getName());
+				break;
+				
+			case CHARACTER_REMOVAL:
+				showSpriteRemoval(sprite);
+				break;
+				
+			case STAT_UPDATE:
+				sprite.showStatUpdate(e.getStats());
+				break;
+				
+			default:
+				break;
+		}
 	}
 	
 	/**
@@ -135,14 +123,7 @@ public class BattleScreen extends Screen<ScreenListener> {
 	 * @param fighter The fighter whose sprite to remove.
 	 */
 	public void showCharacterRemoval(Character fighter) {
-		FighterSprite sprite = (FighterSprite) fighter.getSprite();
-		// TODO: Search that runs better than O(n) time
-		for (ArrayList<FighterSprite> teamGraphics: fighterGraphics) {
-			if (teamGraphics.remove(sprite)) {
-				break;
-			}
-		}
-		refreshSprites();
+		showSpriteRemoval((FighterSprite) fighter.getSprite());
 	}
 	
 	/**
@@ -209,6 +190,37 @@ public class BattleScreen extends Screen<ScreenListener> {
 		sprite.showRecovery(stat, amount);
 	}
 	
+	/**
+	 * Removes a sprite from the screen. This may be used for a fighter that
+	 * has already left the battle and so no longer has its sprite.
+	 * 
+	 * @param sprite The sprite to remove.
+	 */
+	public void showSpriteRemoval(FighterSprite sprite) {
+		// TODO: Search that runs better than O(n) time
+		for (ArrayList<FighterSprite> teamGraphics: fighterGraphics) {
+			if (teamGraphics.remove(sprite)) {
+				break;
+			}
+		}
+		refreshSprites();
+	}
+	
+	/**
+	 * Shows the victory animation for the given sprites.
+	 * 
+	 * @param sprites The sprites to show the animation for. Null elements
+	 * are skipped.
+	 * @param count The number of sprites to use from the array.
+	 */
+	public void showSpriteVictory(Sprite[] sprites, int count) {
+		for (int i = 0; i < count; i++) {
+			if (sprites[i] != null) {
+				((FighterSprite) sprites[i]).showCharacterVictory();
+			}
+		}
+	}
+	
 	/**
 	 * Shows the transition into the battle.
 	 */
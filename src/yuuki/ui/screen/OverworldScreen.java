@@ -10,7 +10,6 @@ import java.awt.event.ActionListener;
 import java.awt.event.KeyAdapter;
 import java.awt.event.KeyEvent;
 import java.awt.event.KeyListener;
-import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.Set;
 
@@ -20,11 +19,8 @@ import javax.swing.JLabel;
 
 import yuuki.entity.PlayerCharacter.Orientation;
 import yuuki.graphic.ImageFactory;
-import yuuki.item.Item;
 import yuuki.ui.WorldViewer;
-import yuuki.util.Grid;
-import yuuki.world.Locatable;
-import yuuki.world.Tile;
+import yuuki.world.LandSnapshot;
 import yuuki.world.WalkGraph;
 
 /**
@@ -64,22 +60,6 @@ public class OverworldScreen extends Screen<OverworldScreenListener> {
 	 */
 	public static final int VIEWER_WIDTH = 13;
 	
-	/**
-	 * The Z-index of the layer that contains the moving characters who are not
-	 * the player.
-	 */
-	public static final int Z_INDEX_ENTITY_LAYER = 300;
-	
-	/**
-	 * The Z-index of the layer that contains the items.
-	 */
-	public static final int Z_INDEX_ITEM_LAYER = 200;
-	
-	/**
-	 * The Z-index of the layer that contains the portals.
-	 */
-	public static final int Z_INDEX_PORTAL_LAYER = 100;
-	
 	/**
 	 * Listens for clicks on this OverworldScreen's buttons.
 	 */
@@ -278,35 +258,6 @@ public class OverworldScreen extends Screen<OverworldScreenListener> {
 		movementListeners.add(l);
 	}
 	
-	/**
-	 * Adds a series of Locatable objects to the world viewer.
-	 * 
-	 * @param ls The Locatables to add.
-	 * @param zIndex The Z-index of the layer to add them to.
-	 */
-	public void addWorldLocatables(ArrayList<Locatable> ls, int zIndex) {
-		for (Locatable l : ls) {
-			worldViewer.addLocatable(l, zIndex);
-		}
-	}
-	
-	/**
-	 * Removes items from the world viewer.
-	 * 
-	 * @param items The items to remove.
-	 * @param count The number to remove.
-	 */
-	public void removeWorldItems(Item[] items, int count) {
-		worldViewer.removeLocatables(items, count, Z_INDEX_ITEM_LAYER);
-	}
-	
-	/**
-	 * Clears all of the world Locatables out of the world viewer.
-	 */
-	public void clearWorldLocatables() {
-		worldViewer.clearLocatables();
-	}
-	
 	/**
 	 * Redraws the world view.
 	 */
@@ -368,23 +319,27 @@ public class OverworldScreen extends Screen<OverworldScreenListener> {
 	}
 	
 	/**
-	 * Changes the world viewer's view of the world.
+	 * Changes the world viewer's view of the world. The new view is shown on
+	 * the next update of the viewport. This may be called from any thread.
 	 * 
-	 * @param view The grid with the view to show.
-	 * @param name The name of the land that is being displayed.
+	 * @param snapshot The snapshot of the land to show.
 	 */
-	public void setWorldView(Grid<Tile> view, String name) {
-		worldViewer.setLand(view);
-		landName.setText(name);
+	public void setWorldView(LandSnapshot snapshot) {
+		worldViewer.setSnapshot(snapshot);
 	}
 	
 	/**
-	 * Updates the world view to show a new center.
+	 * Updates the world view to show a new center. The name of the land is
+	 * updated to match the snapshot that is drawn.
 	 * 
 	 * @param center The coordinates of the new center to show.
 	 */
 	public void updateWorldViewport(Point center) {
 		worldViewer.updateDisplay(center);
+		LandSnapshot shown = worldViewer.getShownSnapshot();
+		if (shown != null && !shown.getName().equals(landName.getText())) {
+			landName.setText(shown.getName());
+		}
 	}
 	
 	/**
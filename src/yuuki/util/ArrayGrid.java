@@ -0,0 +1,145 @@
+package yuuki.util;
+
+import java.awt.Dimension;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.util.Arrays;
+
+/**
+ * A Grid whose elements are stored in a single array in row-major order.
+ * Accessing elements by coordinates does not create any objects.
+ * 
+ * @param <E> The types of the elements in the ArrayGrid.
+ */
+public class ArrayGrid<E> implements Grid<E> {
+	
+	/**
+	 * The height of this ArrayGrid.
+	 */
+	private final int height;
+	
+	/**
+	 * The element instances in this ArrayGrid. The element at (x, y) is stored
+	 * at (y * width + x).
+	 */
+	private final Object[] items;
+	
+	/**
+	 * The size of this ArrayGrid, in number of element instances.
+	 */
+	private final Dimension size;
+	
+	/**
+	 * The width of this ArrayGrid.
+	 */
+	private final int width;
+	
+	/**
+	 * Creates a new ArrayGrid of a specific size. Every element is initially
+	 * null.
+	 * 
+	 * @param size The size of the new ArrayGrid.
+	 */
+	public ArrayGrid(Dimension size) {
+		this.size = new Dimension(size.width, size.height);
+		width = size.width;
+		height = size.height;
+		items = new Object[width * height];
+	}
+	
+	/**
+	 * Creates a new ArrayGrid from an existing element array.
+	 * 
+	 * @param size The size of the element grid.
+	 * @param items The existing element array to create the ArrayGrid from, in
+	 * row-major order. The elements are copied out of the array.
+	 */
+	public ArrayGrid(Dimension size, E[] items) {
+		this(size);
+		System.arraycopy(items, 0, this.items, 0, this.items.length);
+	}
+	
+	@Override
+	public void clear() {
+		Arrays.fill(items, null);
+	}
+	
+	@Override
+	public boolean contains(int x, int y) {
+		return (x >= 0 && x < width && y >= 0 && y < height);
+	}
+	
+	@Override
+	public boolean contains(Point point) {
+		return contains(point.x, point.y);
+	}
+	
+	@Override
+	public Point getLocation() {
+		return new Point(0, 0);
+	}
+	
+	@Override
+	public Dimension getSize() {
+		return size;
+	}
+	
+	@Override
+	public Grid<E> getSubGrid(Rectangle boundingBox) {
+		return new SubGrid<E>(this, boundingBox);
+	}
+	
+	@Override
+	@SuppressWarnings("unchecked")
+	public E itemAt(int x, int y) {
+		return (E) items[index(x, y)];
+	}
+	
+	@Override
+	public E itemAt(Point point) {
+		return itemAt(point.x, point.y);
+	}
+	
+	@Override
+	public void set(int x, int y, E e) {
+		items[index(x, y)] = e;
+	}
+	
+	@Override
+	public void set(Point p, E e) {
+		set(p.x, p.y, e);
+	}
+	
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				sb.append(itemAt(x, y));
+			}
+			if (y < height - 1) {
+				sb.append('\n');
+			}
+		}
+		return sb.toString();
+	}
+	
+	/**
+	 * Gets the index of a point within the element array.
+	 * 
+	 * @param x The x-coordinate of the point.
+	 * @param y The y-coordinate of the point.
+	 * 
+	 * @return The index of the point.
+	 * 
+	 * @throws ArrayIndexOutOfBoundsException If the point is not in this
+	 * ArrayGrid.
+	 */
+	private int index(int x, int y) {
+		if (!contains(x, y)) {
+			throw new ArrayIndexOutOfBoundsException();
+		}
+		return (y * width) + x;
+	}
+	
+}
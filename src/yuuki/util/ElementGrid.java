@@ -69,6 +69,11 @@ public class ElementGrid<E> implements Grid<E> {
 		}
 	}
 	
+	@Override
+	public boolean contains(int x, int y) {
+		return (x >= 0 && x < size.width && y >= 0 && y < size.height);
+	}
+	
 	@Override
 	public boolean contains(Point point) {
 		Rectangle box = new Rectangle(getSize());
@@ -90,11 +95,25 @@ public class ElementGrid<E> implements Grid<E> {
 		return new SubGrid<E>(this, boundingBox);
 	}
 	
+	@Override
+	public E itemAt(int x, int y) {
+		return items.get(x).get(y);
+	}
+	
 	@Override
 	public E itemAt(Point point) {
 		return items.get(point.x).get(point.y);
 	}
 	
+	@Override
+	public void set(int x, int y, E e) {
+		if (contains(x, y)) {
+			items.get(x).set(y, e);
+		} else {
+			throw new ArrayIndexOutOfBoundsException();
+		}
+	}
+	
 	@Override
 	public void set(Point p, E e) {
 		if (contains(p)) {
@@ -25,6 +25,16 @@ public interface Grid<E> {
 	 */
 	public boolean contains(Point point);
 	
+	/**
+	 * Checks whether this grid contains a specific point.
+	 * 
+	 * @param x The x-coordinate of the point to check.
+	 * @param y The y-coordinate of the point to check.
+	 * 
+	 * @return True if this grid contains the given point; otherwise, false.
+	 */
+	public boolean contains(int x, int y);
+	
 	/**
 	 * Gets the relative position of this Grid.
 	 * 
@@ -61,6 +71,18 @@ public interface Grid<E> {
 	 */
 	public E itemAt(Point point);
 	
+	/**
+	 * Gets the element at a point in this grid. The origin is in the
+	 * upper-left corner and coordinates are positive below and to the right of
+	 * the origin.
+	 * 
+	 * @param x The x-coordinate of the point to get the element at.
+	 * @param y The y-coordinate of the point to get the element at.
+	 * 
+	 * @return The element at the given point.
+	 */
+	public E itemAt(int x, int y);
+	
 	/**
 	 * Sets the value of the item if a valid point is given.
 	 * 
@@ -69,4 +91,13 @@ public interface Grid<E> {
 	 */
 	public void set(Point p, E e);
 	
+	/**
+	 * Sets the value of the item if a valid point is given.
+	 * 
+	 * @param x The x-coordinate of the point to set the element at.
+	 * @param y The y-coordinate of the point to set the element at.
+	 * @param e The element to set the point's value to.
+	 */
+	public void set(int x, int y, E e);
+	
 }
@@ -75,7 +75,7 @@ public class InvalidIndexException extends Exception {
 	public InvalidIndexException(Object index) {
 		super("'" + ((index != null) ? (index.toString()) : ("null")) +
 				"' is an invalid index");
-		if (this.index == null) {
+		if (index == null) {
 			this.index = null;
 		} else {
 			this.index = index.toString();
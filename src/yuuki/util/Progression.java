@@ -1,7 +1,9 @@
 package yuuki.util;
 
 /**
- * Progress through from 0 to 1.
+ * Progress through from 0 to 1. All updates are synchronized, so a Progression
+ * can be advanced from several threads at once, such as through
+ * SubProgressions that are each used by a different thread.
  */
 public class Progression implements Progressable {
 	
@@ -16,17 +18,17 @@ public class Progression implements Progressable {
 	private String text = "";
 	
 	@Override
-	public void advanceProgress(double percent) {
+	public synchronized void advanceProgress(double percent) {
 		setProgress(progress + percent);
 	}
 	
 	@Override
-	public void finishProgress() {
+	public synchronized void finishProgress() {
 		progress = 1.0;
 	}
 	
 	@Override
-	public double getProgress() {
+	public synchronized double getProgress() {
 		return progress;
 	}
 	
@@ -37,18 +39,18 @@ public class Progression implements Progressable {
 	}
 	
 	@Override
-	public String getText() {
+	public synchronized String getText() {
 		return text;
 	}
 	
 	@Override
-	public void setProgress(double percent) {
-		progress = percent;
+	public synchronized void setProgress(double percent) {
+		progress = Math.min(1.0, percent);
 		approximateProgress();
 	}
 	
 	@Override
-	public void setText(String text) {
+	public synchronized void setText(String text) {
 		this.text = text;
 	}
 	
@@ -0,0 +1,117 @@
+package yuuki.util;
+
+import java.awt.Dimension;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A Grid that only stores the positions that hold an element. This uses
+ * memory in proportion to the number of elements rather than the size of the
+ * grid, and is intended for very large grids that are mostly empty.
+ * 
+ * @param <E> The types of the elements in the SparseGrid.
+ */
+public class SparseGrid<E> implements Grid<E> {
+	
+	/**
+	 * The elements in this SparseGrid, keyed by their packed coordinates.
+	 */
+	private final Map<Long, E> items;
+	
+	/**
+	 * The size of this SparseGrid.
+	 */
+	private final Dimension size;
+	
+	/**
+	 * Creates a new SparseGrid of a specific size. Every element is initially
+	 * null.
+	 * 
+	 * @param size The size of the new SparseGrid.
+	 */
+	public SparseGrid(Dimension size) {
+		this.size = new Dimension(size.width, size.height);
+		items = new HashMap<Long, E>();
+	}
+	
+	@Override
+	public void clear() {
+		items.clear();
+	}
+	
+	@Override
+	public boolean contains(int x, int y) {
+		return (x >= 0 && x < size.width && y >= 0 && y < size.height);
+	}
+	
+	@Override
+	public boolean contains(Point point) {
+		return contains(point.x, point.y);
+	}
+	
+	@Override
+	public Point getLocation() {
+		return new Point(0, 0);
+	}
+	
+	@Override
+	public Dimension getSize() {
+		return size;
+	}
+	
+	@Override
+	public Grid<E> getSubGrid(Rectangle boundingBox) {
+		return new SubGrid<E>(this, boundingBox);
+	}
+	
+	@Override
+	public E itemAt(int x, int y) {
+		return items.get(key(x, y));
+	}
+	
+	@Override
+	public E itemAt(Point point) {
+		return itemAt(point.x, point.y);
+	}
+	
+	@Override
+	public void set(int x, int y, E e) {
+		long k = key(x, y);
+		if (e != null) {
+			items.put(k, e);
+		} else {
+			items.remove(k);
+		}
+	}
+	
+	@Override
+	public void set(Point p, E e) {
+		set(p.x, p.y, e);
+	}
+	
+	@Override
+	public String toString() {
+		return items.toString();
+	}
+	
+	/**
+	 * Packs a point into a single key.
+	 * 
+	 * @param x The x-coordinate of the point.
+	 * @param y The y-coordinate of the point.
+	 * 
+	 * @return The key of the point.
+	 * 
+	 * @throws ArrayIndexOutOfBoundsException If the point is not in this
+	 * SparseGrid.
+	 */
+	private long key(int x, int y) {
+		if (!contains(x, y)) {
+			throw new ArrayIndexOutOfBoundsException();
+		}
+		return ((long) y << 32) | x;
+	}
+	
+}
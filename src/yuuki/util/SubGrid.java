@@ -5,7 +5,8 @@ import java.awt.Point;
 import java.awt.Rectangle;
 
 /**
- * Points to a specific region of a Grid.
+ * Points to a specific region of a Grid. Accessing elements by coordinates
+ * does not create any objects.
  * 
  * @param <E> The type of element that this sub grid's source holds.
  */
@@ -16,6 +17,26 @@ public class SubGrid<E> implements Grid<E> {
 	 */
 	private Rectangle boundingBox;
 	
+	/**
+	 * The height of the bounding box.
+	 */
+	private int height;
+	
+	/**
+	 * The width of the bounding box.
+	 */
+	private int width;
+	
+	/**
+	 * The x-coordinate of the bounding box within the source grid.
+	 */
+	private int x;
+	
+	/**
+	 * The y-coordinate of the bounding box within the source grid.
+	 */
+	private int y;
+	
 	/**
 	 * The TileGrid that this sub grid points to.
 	 */
@@ -33,26 +54,29 @@ public class SubGrid<E> implements Grid<E> {
 		super();
 		this.sourceGrid = sourceGrid;
 		this.boundingBox = resizeToFit(box);
+		x = boundingBox.x;
+		y = boundingBox.y;
+		width = boundingBox.width;
+		height = boundingBox.height;
 	}
 	
 	@Override
 	public void clear() {
-		Dimension size = getSize();
-		Point p = new Point(0, 0);
-		Point p2;
-		for (p.y = 0; p.y < size.height; p.y++) {
-			for (p.x = 0; p.x < size.width; p.x++) {
-				p2 = new Point(p);
-				transformRelativeToAbsolute(p2);
-				sourceGrid.set(p2, null);
+		for (int j = 0; j < height; j++) {
+			for (int i = 0; i < width; i++) {
+				sourceGrid.set(x + i, y + j, null);
 			}
 		}
 	}
 	
+	@Override
+	public boolean contains(int x, int y) {
+		return (x >= 0 && x < width && y >= 0 && y < height);
+	}
+	
 	@Override
 	public boolean contains(Point p) {
-		Rectangle box = new Rectangle(getSize());
-		return box.contains(p);
+		return contains(p.x, p.y);
 	}
 	
 	@Override
@@ -71,36 +95,41 @@ public class SubGrid<E> implements Grid<E> {
 	}
 	
 	@Override
-	public E itemAt(Point p) {
-		p = new Point(p);
-		if (contains(p)) {
-			transformRelativeToAbsolute(p);
-			return sourceGrid.itemAt(p);
+	public E itemAt(int x, int y) {
+		if (contains(x, y)) {
+			return sourceGrid.itemAt(this.x + x, this.y + y);
 		} else {
 			throw new ArrayIndexOutOfBoundsException();
 		}
 	}
 	
 	@Override
-	public void set(Point p, E e) {
-		p = new Point(p);
-		if (contains(p)) {
-			transformRelativeToAbsolute(p);
-			sourceGrid.set(p, e);
+	public E itemAt(Point p) {
+		return itemAt(p.x, p.y);
+	}
+	
+	@Override
+	public void set(int x, int y, E e) {
+		if (contains(x, y)) {
+			sourceGrid.set(this.x + x, this.y + y, e);
 		} else {
 			throw new ArrayIndexOutOfBoundsException();
 		}
 	}
 	
+	@Override
+	public void set(Point p, E e) {
+		set(p.x, p.y, e);
+	}
+	
 	@Override
 	public String toString() {
 		StringBuilder sb = new StringBuilder();
-		Point p = new Point();
-		for (p.y = 0; p.y < boundingBox.height; p.y++) {
-			for (p.x = 0; p.x < boundingBox.width; p.x++) {
-				sb.append(itemAt(p));
+		for (int j = 0; j < height; j++) {
+			for (int i = 0; i < width; i++) {
+				sb.append(itemAt(i, j));
 			}
-			if (p.y < boundingBox.height - 1) {
+			if (j < height - 1) {
 				sb.append('\n');
 			}
 		}
@@ -121,19 +150,4 @@ public class SubGrid<E> implements Grid<E> {
 		return box;
 	}
 	
-	/**
-	 * Transforms a relative point somewhere in this TileSubGrid to its
-	 * absolute version in the source grid.
-	 * 
-	 * @param p The relative point to transform. This reference will be
-	 * mutated.
-	 * 
-	 * @return The absolute version of the given point.
-	 */
-	private Point transformRelativeToAbsolute(Point p) {
-		p.x += boundingBox.x;
-		p.y += boundingBox.y;
-		return p;
-	}
-	
 }
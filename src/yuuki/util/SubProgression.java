@@ -1,15 +1,17 @@
 package yuuki.util;
 
 /**
- * Monitors progress through a part of another ProgressMonitor.
+ * Monitors progress through a part of another ProgressMonitor. A
+ * SubProgression keeps its own progress and passes on only the amount that it
+ * changes by, so several SubProgressions of the same monitor can be updated
+ * at the same time from different threads.
  */
 public class SubProgression implements Progressable {
 	
 	/**
-	 * The percent that the parent monitor will be at when this SubMonitor is
-	 * complete.
+	 * The percentage of the parent monitor that this SubProgression covers.
 	 */
-	private final double end;
+	private final double length;
 	
 	/**
 	 * The ProgressMonitor that this SubMonitor is running on a portion of.
@@ -17,14 +19,13 @@ public class SubProgression implements Progressable {
 	private final Progressable monitor;
 	
 	/**
-	 * The percent that the parent monitor was at when this SubMonitor was
-	 * started on it.
+	 * The current percent of progress through this SubProgression.
 	 */
-	private final double start;
+	private double progress = 0.0;
 	
 	/**
-	 * Creates a new SubMonitor that runs from the current position of the
-	 * given monitor through the given length.
+	 * Creates a new SubMonitor that runs through the given length of the
+	 * given monitor.
 	 * 
 	 * @param monitor The monitor that this SubMonitor is running on a portion
 	 * of.
@@ -33,30 +34,22 @@ public class SubProgression implements Progressable {
 	 */
 	public SubProgression(Progressable monitor, double length) {
 		this.monitor = monitor;
-		this.start = monitor.getProgress();
-		this.end = this.start + length;
+		this.length = length;
 	}
 	
 	@Override
-	public void advanceProgress(double percent) {
-		if ((getProgress() + percent) >= 1.0) {
-			finishProgress();
-		} else {
-			percent = Math.min(1 - getProgress(), percent);
-			monitor.advanceProgress(percent * getLength());
-		}
+	public synchronized void advanceProgress(double percent) {
+		setProgress(progress + percent);
 	}
 	
 	@Override
-	public void finishProgress() {
-		monitor.setProgress(end);
+	public synchronized void finishProgress() {
+		setProgress(1.0);
 	}
 	
 	@Override
-	public double getProgress() {
-		double absoluteProgress = monitor.getProgress() - start;
-		double percentProgress = absoluteProgress / getLength();
-		return percentProgress;
+	public synchronized double getProgress() {
+		return progress;
 	}
 	
 	@Override
@@ -71,10 +64,16 @@ public class SubProgression implements Progressable {
 	}
 	
 	@Override
-	public void setProgress(double percent) {
-		double absoluteProgress = percent * getLength();
-		double actualPercent = absoluteProgress + start;
-		monitor.setProgress(actualPercent);
+	public synchronized void setProgress(double percent) {
+		double bounded = Math.max(0.0, Math.min(1.0, percent));
+		if (1.0 - bounded < Progressable.PROGRESS_PRECISION) {
+			bounded = 1.0;
+		}
+		double change = bounded - progress;
+		progress = bounded;
+		if (change != 0.0) {
+			monitor.advanceProgress(change * length);
+		}
 	}
 	
 	@Override
@@ -82,14 +81,4 @@ public class SubProgression implements Progressable {
 		monitor.setText(text);
 	}
 	
-	/**
-	 * Gets the length of this SubMonitor in terms of percentage of its parent
-	 * monitor.
-	 * 
-	 * @return The percent of the parent monitor that this SubMonitor covers.
-	 */
-	private double getLength() {
-		return (end - start);
-	}
-	
 }
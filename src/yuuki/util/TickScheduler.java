@@ -0,0 +1,282 @@
+package yuuki.util;
+
+/**
+ * Paces a loop to a fixed number of ticks per second and records how long
+ * each tick takes. The loop calls beginTick() before each tick, which blocks
+ * until the tick is due, and endTick() after it.
+ * 
+ * If a tick is started late because the ticks before it took too long, the
+ * scheduler either runs the missed ticks back-to-back to catch up or skips
+ * them, depending on its policy. While paused, beginTick() waits without
+ * polling, and the schedule is restarted on resume so that the time spent
+ * paused is not caught up. Time that a tick spends blocked on something
+ * outside the loop can be left out of its duration with beginWait() and
+ * endWait().
+ */
+public class TickScheduler {
+	
+	/**
+	 * What to do about ticks that are missed because earlier ticks overran.
+	 */
+	public static enum Policy {
+		/**
+		 * Missed ticks are run immediately one after another, up to
+		 * MAX_CATCH_UP_TICKS of them.
+		 */
+		CATCH_UP,
+		
+		/**
+		 * Missed ticks are dropped and the schedule continues from the
+		 * current time.
+		 */
+		SKIP
+	}
+	
+	/**
+	 * The most missed ticks that are run back-to-back under the CATCH_UP
+	 * policy. Any beyond this are skipped.
+	 */
+	public static final int MAX_CATCH_UP_TICKS = 5;
+	
+	/**
+	 * The number of nanoseconds in a second.
+	 */
+	private static final long NANOS_PER_SECOND = 1000000000L;
+	
+	/**
+	 * The number of nanoseconds in a millisecond.
+	 */
+	private static final long NANOS_PER_MILLI = 1000000L;
+	
+	/**
+	 * The duration of the most recent tick, in nanoseconds.
+	 */
+	private long lastDuration;
+	
+	/**
+	 * The duration of the longest tick, in nanoseconds.
+	 */
+	private long maxDuration;
+	
+	/**
+	 * When the next tick is due, in terms of System.nanoTime(). This is 0
+	 * when the schedule is to be restarted on the next tick.
+	 */
+	private long nextTick;
+	
+	/**
+	 * The number of ticks that took longer than the tick period.
+	 */
+	private long overruns;
+	
+	/**
+	 * Whether ticks are paused.
+	 */
+	private boolean paused;
+	
+	/**
+	 * The time between ticks, in nanoseconds.
+	 */
+	private final long period;
+	
+	/**
+	 * What to do about missed ticks.
+	 */
+	private final Policy policy;
+	
+	/**
+	 * The number of ticks that were skipped.
+	 */
+	private long skipped;
+	
+	/**
+	 * When the current tick began, in terms of System.nanoTime().
+	 */
+	private long tickStart;
+	
+	/**
+	 * The number of ticks that have completed.
+	 */
+	private long ticks;
+	
+	/**
+	 * The total duration of all completed ticks, in nanoseconds.
+	 */
+	private long totalDuration;
+	
+	/**
+	 * When the current wait began, in terms of System.nanoTime().
+	 */
+	private long waitStart;
+	
+	/**
+	 * Creates a new TickScheduler.
+	 * 
+	 * @param ticksPerSecond The number of ticks to run each second.
+	 * @param policy What to do about missed ticks.
+	 */
+	public TickScheduler(int ticksPerSecond, Policy policy) {
+		if (ticksPerSecond <= 0) {
+			throw new IllegalArgumentException("tick rate must be positive");
+		}
+		this.period = NANOS_PER_SECOND / ticksPerSecond;
+		this.policy = policy;
+	}
+	
+	/**
+	 * Marks the start of a wait within the current tick on something other
+	 * than the loop itself, such as input from the player. The time until
+	 * endWait() is called is not counted as part of the tick.
+	 */
+	public synchronized void beginWait() {
+		waitStart = System.nanoTime();
+	}
+	
+	/**
+	 * Marks the end of a wait started with beginWait(). The time spent
+	 * waiting is taken out of the current tick's duration, and the schedule
+	 * is restarted so that ticks missed during the wait are not skipped or
+	 * caught up.
+	 */
+	public synchronized void endWait() {
+		tickStart += System.nanoTime() - waitStart;
+		nextTick = 0;
+	}
+	
+	/**
+	 * Waits until the next tick is due and marks it as started. This blocks
+	 * for as long as the scheduler is paused.
+	 * 
+	 * @throws InterruptedException If the current thread is interrupted while
+	 * waiting.
+	 */
+	public synchronized void beginTick() throws InterruptedException {
+		long now, delay;
+		do {
+			while (paused) {
+				wait();
+			}
+			now = System.nanoTime();
+			if (nextTick == 0) {
+				nextTick = now;
+			}
+			delay = nextTick - now;
+			if (delay > 0) {
+				long millis = delay / NANOS_PER_MILLI;
+				int nanos = (int) (delay % NANOS_PER_MILLI);
+				wait(millis, nanos);
+			}
+		} while (paused || delay > 0);
+		long missed = (now - nextTick) / period;
+		if (policy == Policy.SKIP || missed > MAX_CATCH_UP_TICKS) {
+			long dropped = (policy == Policy.SKIP) ? missed :
+				missed - MAX_CATCH_UP_TICKS;
+			skipped += dropped;
+			nextTick += dropped * period;
+		}
+		nextTick += period;
+		tickStart = now;
+	}
+	
+	/**
+	 * Marks the current tick as finished and records its duration.
+	 */
+	public synchronized void endTick() {
+		long duration = System.nanoTime() - tickStart;
+		lastDuration = duration;
+		maxDuration = Math.max(maxDuration, duration);
+		totalDuration += duration;
+		if (duration > period) {
+			overruns++;
+		}
+		ticks++;
+	}
+	
+	/**
+	 * Gets the average duration of the completed ticks.
+	 * 
+	 * @return The average duration, in nanoseconds, or 0 if no ticks have
+	 * completed.
+	 */
+	public synchronized long getAverageTickDuration() {
+		return (ticks > 0) ? (totalDuration / ticks) : 0;
+	}
+	
+	/**
+	 * Gets the duration of the most recently completed tick.
+	 * 
+	 * @return The duration, in nanoseconds.
+	 */
+	public synchronized long getLastTickDuration() {
+		return lastDuration;
+	}
+	
+	/**
+	 * Gets the duration of the longest completed tick.
+	 * 
+	 * @return The duration, in nanoseconds.
+	 */
+	public synchronized long getMaxTickDuration() {
+		return maxDuration;
+	}
+	
+	/**
+	 * Gets the number of ticks that took longer than the tick period.
+	 * 
+	 * @return The number of overruns.
+	 */
+	public synchronized long getOverrunCount() {
+		return overruns;
+	}
+	
+	/**
+	 * Gets the time between ticks.
+	 * 
+	 * @return The tick period, in nanoseconds.
+	 */
+	public long getPeriod() {
+		return period;
+	}
+	
+	/**
+	 * Gets the number of ticks that were skipped because they were missed.
+	 * 
+	 * @return The number of skipped ticks.
+	 */
+	public synchronized long getSkippedTickCount() {
+		return skipped;
+	}
+	
+	/**
+	 * Gets the number of ticks that have completed.
+	 * 
+	 * @return The number of ticks.
+	 */
+	public synchronized long getTickCount() {
+		return ticks;
+	}
+	
+	/**
+	 * Checks whether this TickScheduler is paused.
+	 * 
+	 * @return Whether ticks are paused.
+	 */
+	public synchronized boolean isPaused() {
+		return paused;
+	}
+	
+	/**
+	 * Pauses or resumes ticks. When ticks are resumed, the schedule restarts
+	 * from the current time.
+	 * 
+	 * @param paused Whether ticks are to be paused.
+	 */
+	public synchronized void setPaused(boolean paused) {
+		this.paused = paused;
+		if (!paused) {
+			nextTick = 0;
+		}
+		notifyAll();
+	}
+	
+}
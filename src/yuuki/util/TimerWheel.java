@@ -0,0 +1,232 @@
+package yuuki.util;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Holds elements until a given tick. The ticks are spread over a fixed ring
+ * of slots, so scheduling and cancelling an element take constant time, and
+ * advancing by one tick only looks at the elements in one slot. An element
+ * whose tick is more than one turn of the wheel away stays in its slot until
+ * the wheel comes round to it for the last time.
+ * 
+ * The wheel must be advanced once for every tick, in order.
+ * 
+ * @param <E> The type of the elements.
+ */
+public class TimerWheel<E> {
+	
+	/**
+	 * An element waiting in a slot.
+	 */
+	private static class Entry<E> {
+		
+		/**
+		 * The tick that the element is due on.
+		 */
+		public long due;
+		
+		/**
+		 * The element.
+		 */
+		public E element;
+		
+		/**
+		 * The next entry in the same slot.
+		 */
+		public Entry<E> next;
+		
+		/**
+		 * The previous entry in the same slot.
+		 */
+		public Entry<E> previous;
+		
+		/**
+		 * The index of the slot that the entry is in.
+		 */
+		public int slot;
+		
+	}
+	
+	/**
+	 * The number of slots that are used if none is given.
+	 */
+	public static final int DEFAULT_SLOT_COUNT = 256;
+	
+	/**
+	 * The entry of each scheduled element.
+	 */
+	private final Map<E, Entry<E>> entries;
+	
+	/**
+	 * Masks a tick down to the index of its slot.
+	 */
+	private final int mask;
+	
+	/**
+	 * The first entry in each slot.
+	 */
+	private final Entry<E>[] slots;
+	
+	/**
+	 * The last tick that was advanced to.
+	 */
+	private long tick;
+	
+	/**
+	 * Creates a new TimerWheel with the default number of slots.
+	 */
+	public TimerWheel() {
+		this(DEFAULT_SLOT_COUNT);
+	}
+	
+	/**
+	 * Creates a new TimerWheel.
+	 * 
+	 * @param slotCount The number of slots. This is rounded up to a power of
+	 * two.
+	 */
+	@SuppressWarnings("unchecked")
+	public TimerWheel(int slotCount) {
+		if (slotCount <= 0) {
+			throw new IllegalArgumentException("slot count must be positive");
+		}
+		int size = Integer.highestOneBit(slotCount);
+		if (size < slotCount) {
+			size <<= 1;
+		}
+		slots = (Entry<E>[]) new Entry<?>[size];
+		mask = size - 1;
+		entries = new HashMap<E, Entry<E>>();
+	}
+	
+	/**
+	 * Advances to the next tick and takes out the elements that are due on
+	 * it.
+	 * 
+	 * @param due The collection to add the due elements to.
+	 * 
+	 * @return The tick that was advanced to.
+	 */
+	public long advance(Collection<? super E> due) {
+		tick++;
+		int index = (int) (tick & mask);
+		Entry<E> e = slots[index];
+		while (e != null) {
+			Entry<E> next = e.next;
+			if (e.due <= tick) {
+				unlink(e);
+				entries.remove(e.element);
+				due.add(e.element);
+			}
+			e = next;
+		}
+		return tick;
+	}
+	
+	/**
+	 * Removes an element before it is due.
+	 * 
+	 * @param element The element to remove.
+	 * 
+	 * @return Whether the element was waiting.
+	 */
+	public boolean cancel(E element) {
+		Entry<E> e = entries.remove(element);
+		if (e == null) {
+			return false;
+		}
+		unlink(e);
+		return true;
+	}
+	
+	/**
+	 * Removes all elements.
+	 */
+	public void clear() {
+		for (int i = 0; i < slots.length; i++) {
+			slots[i] = null;
+		}
+		entries.clear();
+	}
+	
+	/**
+	 * Checks whether an element is waiting.
+	 * 
+	 * @param element The element to check.
+	 * 
+	 * @return Whether the element is waiting.
+	 */
+	public boolean contains(E element) {
+		return entries.containsKey(element);
+	}
+	
+	/**
+	 * Gets the last tick that was advanced to.
+	 * 
+	 * @return The current tick.
+	 */
+	public long getTick() {
+		return tick;
+	}
+	
+	/**
+	 * Checks whether there are no waiting elements.
+	 * 
+	 * @return Whether this TimerWheel is empty.
+	 */
+	public boolean isEmpty() {
+		return entries.isEmpty();
+	}
+	
+	/**
+	 * Adds an element to be taken out a number of ticks from now. If the
+	 * element is already waiting, it is moved to the new tick.
+	 * 
+	 * @param element The element to add.
+	 * @param delay The number of ticks to wait. Delays of less than one are
+	 * treated as one.
+	 */
+	public void schedule(E element, long delay) {
+		cancel(element);
+		Entry<E> e = new Entry<E>();
+		e.element = element;
+		e.due = tick + Math.max(1, delay);
+		e.slot = (int) (e.due & mask);
+		e.next = slots[e.slot];
+		if (e.next != null) {
+			e.next.previous = e;
+		}
+		slots[e.slot] = e;
+		entries.put(element, e);
+	}
+	
+	/**
+	 * Gets the number of waiting elements.
+	 * 
+	 * @return The number of elements.
+	 */
+	public int size() {
+		return entries.size();
+	}
+	
+	/**
+	 * Takes an entry out of its slot.
+	 * 
+	 * @param e The entry to take out.
+	 */
+	private void unlink(Entry<E> e) {
+		if (e.previous != null) {
+			e.previous.next = e.next;
+		} else {
+			slots[e.slot] = e.next;
+		}
+		if (e.next != null) {
+			e.next.previous = e.previous;
+		}
+		e.next = null;
+		e.previous = null;
+	}
+	
+}
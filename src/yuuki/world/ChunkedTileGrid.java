@@ -0,0 +1,387 @@
+package yuuki.world;
+
+import java.awt.Dimension;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import yuuki.util.Grid;
+import yuuki.util.SubGrid;
+
+/**
+ * A Grid of Tiles that keeps only part of its tile data in memory. The grid is
+ * divided into square chunks that are read from a TileChunkSource the first
+ * time that they are accessed. Once more chunks are loaded than the memory
+ * budget allows, the least recently used chunks are discarded; they are read
+ * again if they are needed later. Chunks that have been modified with set()
+ * are never discarded, as the source cannot be written to.
+ * 
+ * Reading a tile from a chunk that is loaded takes no lock, so many threads
+ * may read at once. Loaded chunks are found through a directory with one
+ * entry per chunk, and each read stamps its chunk with the current value of a
+ * clock that only advances when a chunk is read in. The lock is only taken to
+ * read a chunk in, discard chunks, or change a tile. A chunk that is
+ * discarded while a read is using it stays valid for that read.
+ */
+public class ChunkedTileGrid implements Grid<Tile> {
+	
+	/**
+	 * A single chunk of tile data.
+	 */
+	private static class Chunk {
+		
+		/**
+		 * Whether this Chunk has been modified since it was read.
+		 */
+		public volatile boolean dirty;
+		
+		/**
+		 * The index of the tile type at each position in this Chunk.
+		 */
+		public final short[] ids;
+		
+		/**
+		 * The index of this Chunk in the chunk directory.
+		 */
+		public final int index;
+		
+		/**
+		 * The value of the clock when this Chunk was last used.
+		 */
+		public volatile long lastUsed;
+		
+		/**
+		 * Creates a new Chunk.
+		 * 
+		 * @param size The width and height of the chunk.
+		 * @param index The index of the chunk in the chunk directory.
+		 */
+		public Chunk(int size, int index) {
+			this.ids = new short[size * size];
+			this.index = index;
+		}
+		
+	}
+	
+	/**
+	 * The fewest chunks that are kept in memory regardless of the memory
+	 * budget. This is enough for the chunk that a point is in and all of the
+	 * chunks around it.
+	 */
+	public static final int MIN_LOADED_CHUNKS = 9;
+	
+	/**
+	 * The number of bytes used by each tile in a chunk.
+	 */
+	private static final int TILE_BYTES = 2;
+	
+	/**
+	 * The width and height of each chunk, in tiles.
+	 */
+	private final int chunkSize;
+	
+	/**
+	 * The number of chunks across the width of this ChunkedTileGrid.
+	 */
+	private final int chunksWide;
+	
+	/**
+	 * Advances each time that a chunk is read in. Chunks are stamped with it
+	 * when they are used, so the chunk with the lowest stamp is the least
+	 * recently used.
+	 */
+	private volatile long clock;
+	
+	/**
+	 * The loaded chunk at each chunk position in row-major order, or null
+	 * where the chunk is not loaded.
+	 */
+	private final AtomicReferenceArray<Chunk> directory;
+	
+	/**
+	 * The chunks that are loaded. This is only used while holding the lock.
+	 */
+	private final List<Chunk> loaded;
+	
+	/**
+	 * The most chunks that are kept in memory at once.
+	 */
+	private final int maxChunks;
+	
+	/**
+	 * The size of this ChunkedTileGrid.
+	 */
+	private final Dimension size;
+	
+	/**
+	 * Provides the data for chunks that are not loaded. This is null once the
+	 * grid has been cleared.
+	 */
+	private TileChunkSource source;
+	
+	/**
+	 * Resolves tile indexes into Tiles.
+	 */
+	private final TileTable table;
+	
+	/**
+	 * Creates a new ChunkedTileGrid.
+	 * 
+	 * @param size The size of the new ChunkedTileGrid.
+	 * @param table The table to resolve tile indexes with.
+	 * @param chunkSize The width and height of each chunk, in tiles.
+	 * @param source Provides the tile data of each chunk. The grid takes
+	 * ownership of it and closes it when the grid is cleared.
+	 * @param memoryBudget The number of bytes of tile data to keep in memory.
+	 * At least MIN_LOADED_CHUNKS chunks are kept regardless of this value.
+	 */
+	public ChunkedTileGrid(Dimension size, TileTable table, int chunkSize,
+			TileChunkSource source, long memoryBudget) {
+		if (chunkSize <= 0) {
+			throw new IllegalArgumentException("chunk size must be positive");
+		}
+		this.size = new Dimension(size);
+		this.table = table;
+		this.chunkSize = chunkSize;
+		this.source = source;
+		long chunkBytes = (long) chunkSize * chunkSize * TILE_BYTES;
+		long budgeted = memoryBudget / chunkBytes;
+		maxChunks = (int) Math.min(Integer.MAX_VALUE,
+				Math.max(MIN_LOADED_CHUNKS, budgeted));
+		chunksWide = (size.width + chunkSize - 1) / chunkSize;
+		int chunksHigh = (size.height + chunkSize - 1) / chunkSize;
+		directory = new AtomicReferenceArray<Chunk>(chunksWide * chunksHigh);
+		loaded = new ArrayList<Chunk>();
+	}
+	
+	/**
+	 * Sets every position in this ChunkedTileGrid to the void tile. All
+	 * loaded chunks are discarded and the chunk source is closed.
+	 */
+	@Override
+	public synchronized void clear() {
+		for (Chunk c : loaded) {
+			directory.set(c.index, null);
+		}
+		loaded.clear();
+		if (source != null) {
+			source.close();
+			source = null;
+		}
+	}
+	
+	@Override
+	public boolean contains(int x, int y) {
+		return (x >= 0 && x < size.width && y >= 0 && y < size.height);
+	}
+	
+	@Override
+	public boolean contains(Point point) {
+		return contains(point.x, point.y);
+	}
+	
+	/**
+	 * Gets the width and height of the chunks in this ChunkedTileGrid.
+	 * 
+	 * @return The chunk size, in tiles.
+	 */
+	public int getChunkSize() {
+		return chunkSize;
+	}
+	
+	/**
+	 * Gets the number of chunks that are currently in memory.
+	 * 
+	 * @return The number of loaded chunks.
+	 */
+	public synchronized int getLoadedChunkCount() {
+		return loaded.size();
+	}
+	
+	@Override
+	public Point getLocation() {
+		return new Point(0, 0);
+	}
+	
+	@Override
+	public Dimension getSize() {
+		return size;
+	}
+	
+	@Override
+	public Grid<Tile> getSubGrid(Rectangle boundingBox) {
+		return new SubGrid<Tile>(this, boundingBox);
+	}
+	
+	/**
+	 * Gets the TileTable that this ChunkedTileGrid resolves its tiles with.
+	 * 
+	 * @return The TileTable.
+	 */
+	public TileTable getTable() {
+		return table;
+	}
+	
+	@Override
+	public Tile itemAt(int x, int y) {
+		checkBounds(x, y);
+		Chunk c = getChunk(x / chunkSize, y / chunkSize);
+		return table.getTile(c.ids[offset(x, y)]);
+	}
+	
+	@Override
+	public Tile itemAt(Point point) {
+		return itemAt(point.x, point.y);
+	}
+	
+	/**
+	 * Sets the tile at a point. The given Tile must have a type that is in
+	 * this ChunkedTileGrid's TileTable. The chunk containing the point is kept
+	 * in memory from then on.
+	 * 
+	 * @param x The x-coordinate of the point to set the tile at.
+	 * @param y The y-coordinate of the point to set the tile at.
+	 * @param e The Tile to set.
+	 * 
+	 * @throws IllegalArgumentException If the given Tile's type is not in the
+	 * TileTable.
+	 */
+	@Override
+	public synchronized void set(int x, int y, Tile e) {
+		checkBounds(x, y);
+		int type = table.indexOf(e.getId());
+		if (type == TileTable.NO_INDEX) {
+			throw new IllegalArgumentException("unknown tile: " + e.getName());
+		}
+		Chunk c = getChunk(x / chunkSize, y / chunkSize);
+		c.ids[offset(x, y)] = (short) type;
+		c.dirty = true;
+	}
+	
+	/**
+	 * Sets the tile at a point. The given Tile must have a type that is in
+	 * this ChunkedTileGrid's TileTable.
+	 * 
+	 * @param p The point to set the tile at.
+	 * @param e The Tile to set.
+	 * 
+	 * @throws IllegalArgumentException If the given Tile's type is not in the
+	 * TileTable.
+	 */
+	@Override
+	public void set(Point p, Tile e) {
+		set(p.x, p.y, e);
+	}
+	
+	@Override
+	public String toString() {
+		return "ChunkedTileGrid[" + size.width + "x" + size.height + ", " +
+				getLoadedChunkCount() + " chunks loaded]";
+	}
+	
+	/**
+	 * Ensures that a point is in this ChunkedTileGrid.
+	 * 
+	 * @param x The x-coordinate of the point.
+	 * @param y The y-coordinate of the point.
+	 * 
+	 * @throws ArrayIndexOutOfBoundsException If the point is not in this
+	 * ChunkedTileGrid.
+	 */
+	private void checkBounds(int x, int y) {
+		if (!contains(x, y)) {
+			throw new ArrayIndexOutOfBoundsException();
+		}
+	}
+	
+	/**
+	 * Discards the least recently used chunks until no more than the maximum
+	 * number of chunks are loaded. Modified chunks and the chunk that is
+	 * being used are never discarded. This must only be called while holding
+	 * the lock.
+	 * 
+	 * @param inUse The chunk that is being used.
+	 */
+	private void evictChunks(Chunk inUse) {
+		while (loaded.size() > maxChunks) {
+			int oldest = -1;
+			for (int i = 0; i < loaded.size(); i++) {
+				Chunk c = loaded.get(i);
+				if (!c.dirty && c != inUse && (oldest == -1 ||
+						c.lastUsed < loaded.get(oldest).lastUsed)) {
+					oldest = i;
+				}
+			}
+			if (oldest == -1) {
+				return;
+			}
+			Chunk c = loaded.get(oldest);
+			loaded.set(oldest, loaded.get(loaded.size() - 1));
+			loaded.remove(loaded.size() - 1);
+			directory.set(c.index, null);
+		}
+	}
+	
+	/**
+	 * Gets a chunk and stamps it as used. A loaded chunk is found without
+	 * taking the lock; one that is not loaded is read in from the source.
+	 * 
+	 * @param chunkX The x-coordinate of the chunk, in chunks.
+	 * @param chunkY The y-coordinate of the chunk, in chunks.
+	 * 
+	 * @return The chunk.
+	 */
+	private Chunk getChunk(int chunkX, int chunkY) {
+		int index = (chunkY * chunksWide) + chunkX;
+		Chunk c = directory.get(index);
+		if (c == null) {
+			c = loadChunk(chunkX, chunkY, index);
+		}
+		long now = clock;
+		if (c.lastUsed != now) {
+			c.lastUsed = now;
+		}
+		return c;
+	}
+	
+	/**
+	 * Reads a chunk in from the source, unless another thread did so first,
+	 * and discards chunks to make room for it.
+	 * 
+	 * @param chunkX The x-coordinate of the chunk, in chunks.
+	 * @param chunkY The y-coordinate of the chunk, in chunks.
+	 * @param index The index of the chunk in the chunk directory.
+	 * 
+	 * @return The chunk.
+	 */
+	private synchronized Chunk loadChunk(int chunkX, int chunkY, int index) {
+		Chunk c = directory.get(index);
+		if (c != null) {
+			return c;
+		}
+		c = new Chunk(chunkSize, index);
+		if (source != null) {
+			source.readChunk(chunkX, chunkY, chunkSize, c.ids);
+		}
+		c.lastUsed = ++clock;
+		loaded.add(c);
+		directory.set(index, c);
+		evictChunks(c);
+		return c;
+	}
+	
+	/**
+	 * Gets the offset of a point within the chunk that contains it.
+	 * 
+	 * @param x The x-coordinate of the point.
+	 * @param y The y-coordinate of the point.
+	 * 
+	 * @return The offset of the point in its chunk's tile data.
+	 */
+	private int offset(int x, int y) {
+		return ((y % chunkSize) * chunkSize) + (x % chunkSize);
+	}
+	
+}
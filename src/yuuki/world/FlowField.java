@@ -0,0 +1,290 @@
+package yuuki.world;
+
+import java.awt.Point;
+import java.util.Arrays;
+
+import yuuki.util.Grid;
+
+/**
+ * The distance from every tile near a target to that target, shared by all of
+ * the residents of a Land that are heading for it. The field covers the tiles
+ * within a fixed radius of the target and is built with a bucketed Dijkstra
+ * search outwards from it. Walking onto a tile costs one step, plus a penalty
+ * if the tile is occupied, so that residents spread out around each other
+ * rather than queueing behind one another.
+ * 
+ * The field is only rebuilt when the target has moved or something inside of
+ * it has changed since the last build; a resident that wants to approach the
+ * target can then find its next step by looking at its eight neighbours.
+ */
+public class FlowField {
+	
+	/**
+	 * The extra cost of walking onto an occupied tile.
+	 */
+	public static final int OCCUPIED_COST = 4;
+	
+	/**
+	 * The cost of tiles that are not reached by the field.
+	 */
+	public static final int UNREACHED = Integer.MAX_VALUE;
+	
+	/**
+	 * The number of buckets in the search queue. Every step costs less than
+	 * this, so costs that share a bucket are never pending at the same time.
+	 */
+	private static final int BUCKET_COUNT = OCCUPIED_COST + 2;
+	
+	/**
+	 * The indexes waiting to be expanded in the search, bucketed by cost.
+	 */
+	private final int[][] buckets;
+	
+	/**
+	 * The number of indexes in each bucket.
+	 */
+	private final int[] bucketSizes;
+	
+	/**
+	 * The cost of reaching the target from each tile in the field, in
+	 * row-major order.
+	 */
+	private final int[] costs;
+	
+	/**
+	 * The x-coordinate of the left edge of the field.
+	 */
+	private int left;
+	
+	/**
+	 * The number of tiles that the field extends from the target.
+	 */
+	private final int radius;
+	
+	/**
+	 * The width and height of the field.
+	 */
+	private final int span;
+	
+	/**
+	 * Whether something in the field has changed since it was last built.
+	 */
+	private boolean stale;
+	
+	/**
+	 * What the field leads to.
+	 */
+	private final Locatable target;
+	
+	/**
+	 * The x-coordinate of the target when the field was last built.
+	 */
+	private int targetX;
+	
+	/**
+	 * The y-coordinate of the target when the field was last built.
+	 */
+	private int targetY;
+	
+	/**
+	 * The y-coordinate of the top edge of the field.
+	 */
+	private int top;
+	
+	/**
+	 * Creates a new FlowField. The field is not built until update() is
+	 * called.
+	 * 
+	 * @param target What the field is to lead to.
+	 * @param radius The number of tiles that the field extends from the target
+	 * in each direction.
+	 */
+	public FlowField(Locatable target, int radius) {
+		if (radius < 0) {
+			throw new IllegalArgumentException("negative radius");
+		}
+		this.target = target;
+		this.radius = radius;
+		span = (radius * 2) + 1;
+		costs = new int[span * span];
+		Arrays.fill(costs, UNREACHED);
+		buckets = new int[BUCKET_COUNT][span];
+		bucketSizes = new int[BUCKET_COUNT];
+		stale = true;
+	}
+	
+	/**
+	 * Gets the cost of reaching the target from a tile.
+	 * 
+	 * @param x The x-coordinate of the tile.
+	 * @param y The y-coordinate of the tile.
+	 * 
+	 * @return The cost, or UNREACHED if the tile is outside of the field or
+	 * cannot reach the target.
+	 */
+	public int getCost(int x, int y) {
+		int fx = x - left;
+		int fy = y - top;
+		if (fx < 0 || fx >= span || fy < 0 || fy >= span) {
+			return UNREACHED;
+		}
+		return costs[(fy * span) + fx];
+	}
+	
+	/**
+	 * Gets the direction that leads towards the target from a tile. This is
+	 * the neighbouring tile with the lowest cost, provided that it is lower
+	 * than the cost of the tile itself. The target's own tile may always be
+	 * chosen so that the target can be bumped into.
+	 * 
+	 * @param x The x-coordinate of the tile.
+	 * @param y The y-coordinate of the tile.
+	 * @param mask The walk mask of the tile, giving the directions that may
+	 * be taken.
+	 * 
+	 * @return The direction to take, as one of the direction constants in
+	 * WalkGraph, or WalkGraph.NO_DIRECTION if no neighbour is closer to the
+	 * target.
+	 */
+	public int getNextDirection(int x, int y, byte mask) {
+		int best = getCost(x, y);
+		int direction = WalkGraph.NO_DIRECTION;
+		for (int d = 0; d < WalkGraph.DIRECTION_COUNT; d++) {
+			int nx = x + WalkGraph.getDeltaX(d);
+			int ny = y + WalkGraph.getDeltaY(d);
+			boolean isTarget = (nx == targetX && ny == targetY);
+			if (isTarget || WalkGraph.isValid(mask, d)) {
+				int cost = getCost(nx, ny);
+				if (cost < best) {
+					best = cost;
+					direction = d;
+				}
+			}
+		}
+		return direction;
+	}
+	
+	/**
+	 * Gets the number of tiles that the field extends from the target.
+	 * 
+	 * @return The radius.
+	 */
+	public int getRadius() {
+		return radius;
+	}
+	
+	/**
+	 * Gets what the field leads to.
+	 * 
+	 * @return The target.
+	 */
+	public Locatable getTarget() {
+		return target;
+	}
+	
+	/**
+	 * Notes that a tile has changed in a way that affects the field, such as
+	 * by a resident moving on or off of it. The field is rebuilt on the next
+	 * update if the tile is within it.
+	 * 
+	 * @param x The x-coordinate of the tile.
+	 * @param y The y-coordinate of the tile.
+	 */
+	public void invalidate(int x, int y) {
+		int fx = x - left;
+		int fy = y - top;
+		if (fx >= 0 && fx < span && fy >= 0 && fy < span) {
+			stale = true;
+		}
+	}
+	
+	/**
+	 * Brings the field up to date with a Land. Nothing is done if the target
+	 * has not moved and nothing within the field has changed.
+	 * 
+	 * @param land The Land that the field is over.
+	 * 
+	 * @return Whether the field was rebuilt.
+	 */
+	public boolean update(Land land) {
+		Point p = target.getLocation();
+		if (!stale && p.x == targetX && p.y == targetY) {
+			return false;
+		}
+		targetX = p.x;
+		targetY = p.y;
+		left = p.x - radius;
+		top = p.y - radius;
+		build(land.getTiles(), land);
+		stale = false;
+		return true;
+	}
+	
+	/**
+	 * Rebuilds the field around the target's current location.
+	 * 
+	 * @param tiles The tiles of the Land.
+	 * @param land The Land, for checking occupancy.
+	 */
+	private void build(Grid<Tile> tiles, Land land) {
+		Arrays.fill(costs, UNREACHED);
+		Arrays.fill(bucketSizes, 0);
+		if (!tiles.contains(targetX, targetY)) {
+			return;
+		}
+		int origin = (radius * span) + radius;
+		costs[origin] = 0;
+		push(origin, 0);
+		int pending = 1;
+		for (int cost = 0; pending > 0; cost++) {
+			int b = cost % BUCKET_COUNT;
+			while (bucketSizes[b] > 0) {
+				int current = buckets[b][--bucketSizes[b]];
+				pending--;
+				if (costs[current] != cost) {
+					continue;
+				}
+				int cx = left + (current % span);
+				int cy = top + (current / span);
+				for (int d = 0; d < WalkGraph.DIRECTION_COUNT; d++) {
+					int nx = cx + WalkGraph.getDeltaX(d);
+					int ny = cy + WalkGraph.getDeltaY(d);
+					int fx = nx - left;
+					int fy = ny - top;
+					if (fx < 0 || fx >= span || fy < 0 || fy >= span ||
+							!tiles.contains(nx, ny) ||
+							!tiles.itemAt(nx, ny).isWalkable()) {
+						continue;
+					}
+					int step = 1;
+					if (land.hasOccupantAt(nx, ny)) {
+						step += OCCUPIED_COST;
+					}
+					int next = (fy * span) + fx;
+					if (cost + step < costs[next]) {
+						costs[next] = cost + step;
+						push(next, cost + step);
+						pending++;
+					}
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Adds a tile to the search queue.
+	 * 
+	 * @param index The index of the tile in the field.
+	 * @param cost The cost of reaching the tile.
+	 */
+	private void push(int index, int cost) {
+		int b = cost % BUCKET_COUNT;
+		int[] bucket = buckets[b];
+		if (bucketSizes[b] == bucket.length) {
+			bucket = Arrays.copyOf(bucket, bucket.length * 2);
+			buckets[b] = bucket;
+		}
+		bucket[bucketSizes[b]++] = index;
+	}
+	
+}
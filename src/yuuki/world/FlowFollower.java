@@ -0,0 +1,18 @@
+package yuuki.world;
+
+/**
+ * An autonomous Movable that may head for the target of its Land's FlowField.
+ * A Land that has a flow target only builds and updates its FlowField while
+ * at least one of its residents is a FlowFollower that is following it, so
+ * Lands without any do not pay for the field.
+ */
+public interface FlowFollower extends Movable {
+	
+	/**
+	 * Checks whether this FlowFollower is currently following the FlowField.
+	 * 
+	 * @return Whether the FlowField is needed by this FlowFollower.
+	 */
+	public boolean isFollowingFlow();
+	
+}
@@ -0,0 +1,193 @@
+package yuuki.world;
+
+import java.awt.Point;
+import java.util.AbstractCollection;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import yuuki.item.Item;
+
+/**
+ * The items lying in a Land, kept as one pile per tile. Each pile is a stack
+ * with the most recently dropped item on top, so looking at or taking the top
+ * item takes constant time. As a Collection, ItemPiles is a live view of
+ * every item in every pile; iterating over it does not copy anything.
+ */
+public class ItemPiles extends AbstractCollection<Item> {
+	
+	/**
+	 * The items on a single tile.
+	 */
+	private static class Pile {
+		
+		/**
+		 * The items in this Pile, from the bottom up.
+		 */
+		public Item[] items = new Item[INITIAL_PILE_CAPACITY];
+		
+		/**
+		 * The number of items in this Pile.
+		 */
+		public int size;
+		
+	}
+	
+	/**
+	 * The number of items that a new pile has room for.
+	 */
+	private static final int INITIAL_PILE_CAPACITY = 2;
+	
+	/**
+	 * The piles that have at least one item, keyed by their points as packed
+	 * by PathMap.pack().
+	 */
+	private final Map<Long, Pile> piles;
+	
+	/**
+	 * The total number of items in all piles.
+	 */
+	private int size;
+	
+	/**
+	 * Creates a new, empty ItemPiles.
+	 */
+	public ItemPiles() {
+		piles = new HashMap<Long, Pile>();
+	}
+	
+	/**
+	 * Puts an item on top of the pile at the item's location.
+	 * 
+	 * @param item The item to add.
+	 * 
+	 * @return True, as the piles always change.
+	 */
+	@Override
+	public boolean add(Item item) {
+		Point p = item.getLocation();
+		long k = PathMap.pack(p.x, p.y);
+		Pile pile = piles.get(k);
+		if (pile == null) {
+			pile = new Pile();
+			piles.put(k, pile);
+		}
+		if (pile.size == pile.items.length) {
+			pile.items = Arrays.copyOf(pile.items, pile.size * 2);
+		}
+		pile.items[pile.size++] = item;
+		size++;
+		return true;
+	}
+	
+	@Override
+	public void clear() {
+		piles.clear();
+		size = 0;
+	}
+	
+	/**
+	 * Gets an item from a pile.
+	 * 
+	 * @param x The x-coordinate of the pile.
+	 * @param y The y-coordinate of the pile.
+	 * @param depth How far down the pile the item is, with 0 being the top.
+	 * 
+	 * @return The item, or null if the pile does not have that many items.
+	 */
+	public Item get(int x, int y, int depth) {
+		Pile pile = piles.get(PathMap.pack(x, y));
+		if (pile == null || depth < 0 || depth >= pile.size) {
+			return null;
+		}
+		return pile.items[pile.size - 1 - depth];
+	}
+	
+	/**
+	 * Gets the number of items in a pile.
+	 * 
+	 * @param x The x-coordinate of the pile.
+	 * @param y The y-coordinate of the pile.
+	 * 
+	 * @return The number of items on the tile.
+	 */
+	public int getPileSize(int x, int y) {
+		Pile pile = piles.get(PathMap.pack(x, y));
+		return (pile == null) ? 0 : pile.size;
+	}
+	
+	@Override
+	public Iterator<Item> iterator() {
+		final Iterator<Pile> pileIterator = piles.values().iterator();
+		return new Iterator<Item>() {
+			private int index;
+			private Pile pile;
+			@Override
+			public boolean hasNext() {
+				while (pile == null || index >= pile.size) {
+					if (!pileIterator.hasNext()) {
+						return false;
+					}
+					pile = pileIterator.next();
+					index = 0;
+				}
+				return true;
+			}
+			@Override
+			public Item next() {
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+				return pile.items[index++];
+			}
+			@Override
+			public void remove() {
+				throw new UnsupportedOperationException();
+			}
+		};
+	}
+	
+	/**
+	 * Gets the item on top of a pile.
+	 * 
+	 * @param x The x-coordinate of the pile.
+	 * @param y The y-coordinate of the pile.
+	 * 
+	 * @return The top item, or null if there are no items on the tile.
+	 */
+	public Item peek(int x, int y) {
+		return get(x, y, 0);
+	}
+	
+	/**
+	 * Takes the item on top of a pile.
+	 * 
+	 * @param x The x-coordinate of the pile.
+	 * @param y The y-coordinate of the pile.
+	 * 
+	 * @return The item that was taken, or null if there are no items on the
+	 * tile.
+	 */
+	public Item pop(int x, int y) {
+		long k = PathMap.pack(x, y);
+		Pile pile = piles.get(k);
+		if (pile == null) {
+			return null;
+		}
+		Item item = pile.items[--pile.size];
+		pile.items[pile.size] = null;
+		if (pile.size == 0) {
+			piles.remove(k);
+		}
+		size--;
+		return item;
+	}
+	
+	@Override
+	public int size() {
+		return size;
+	}
+	
+}
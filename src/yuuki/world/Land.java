@@ -2,17 +2,25 @@ package yuuki.world;
 
 import java.awt.Dimension;
 import java.awt.Point;
-import java.awt.Rectangle;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Random;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 import yuuki.item.Item;
-import yuuki.util.ElementGrid;
+import yuuki.util.ArrayGrid;
 import yuuki.util.Grid;
+import yuuki.util.SparseGrid;
+import yuuki.util.TimerWheel;
 
 /**
  * Holds all data for a particular land in the world. In addition to their tile
@@ -26,29 +34,238 @@ import yuuki.util.Grid;
  * 
  * A portal is a Locatable that occupies a tile and serves to link the Land it
  * is in with another. All portals are of the type Portal.
+ * 
+ * Residents that are Sleepers are put to sleep whenever they ask for no move,
+ * and are not asked for moves again until they wake; see Sleeper for what
+ * wakes them. This keeps idle residents from costing as much as busy ones.
+ * 
+ * ProximityTriggers can be added to a Land to react to the player coming near
+ * a point or a resident. Residents are kept in a SpatialHash as well as in
+ * their tiles, so checking the triggers and waking sleepers only looks at
+ * what is near the residents that are not autonomous.
  */
 public class Land {
 	
+	/**
+	 * A resident entering or leaving a ProximityTrigger.
+	 */
+	private static class TriggerEvent {
+		
+		/**
+		 * Whether the trigger was entered rather than left.
+		 */
+		public final boolean entered;
+		
+		/**
+		 * The trigger that was entered or left.
+		 */
+		public final ProximityTrigger trigger;
+		
+		/**
+		 * The resident that entered or left the trigger.
+		 */
+		public final Movable visitor;
+		
+		/**
+		 * Creates a new TriggerEvent.
+		 * 
+		 * @param trigger The trigger that was entered or left.
+		 * @param visitor The resident that entered or left it.
+		 * @param entered Whether the trigger was entered.
+		 */
+		public TriggerEvent(ProximityTrigger trigger, Movable visitor,
+				boolean entered) {
+			this.trigger = trigger;
+			this.visitor = visitor;
+			this.entered = entered;
+		}
+		
+		/**
+		 * Tells the trigger's listener about this event.
+		 */
+		public void fire() {
+			if (entered) {
+				trigger.getListener().triggerEntered(trigger, visitor);
+			} else {
+				trigger.getListener().triggerLeft(trigger, visitor);
+			}
+		}
+		
+	}
+	
+	/**
+	 * Collects the next moves of a range of residents, splitting the range
+	 * across the intent pool if it is large.
+	 */
+	@SuppressWarnings("serial")
+	private static class IntentTask extends RecursiveAction {
+		
+		/**
+		 * The index of the first resident in the range.
+		 */
+		private final int from;
+		
+		/**
+		 * Where the requested moves are stored.
+		 */
+		private final Point[] intents;
+		
+		/**
+		 * The Land that the residents are moving in.
+		 */
+		private final Land land;
+		
+		/**
+		 * The residents whose moves are being collected.
+		 */
+		private final Movable[] movers;
+		
+		/**
+		 * The index after the last resident in the range.
+		 */
+		private final int to;
+		
+		/**
+		 * Creates a new IntentTask.
+		 * 
+		 * @param land The Land that the residents are moving in.
+		 * @param movers The residents whose moves are to be collected.
+		 * @param intents Where to store the requested moves.
+		 * @param from The index of the first resident in the range.
+		 * @param to The index after the last resident in the range.
+		 */
+		public IntentTask(Land land, Movable[] movers, Point[] intents,
+				int from, int to) {
+			this.land = land;
+			this.movers = movers;
+			this.intents = intents;
+			this.from = from;
+			this.to = to;
+		}
+		
+		@Override
+		protected void compute() {
+			if (to - from <= PARALLEL_INTENT_THRESHOLD) {
+				land.collectIntents(movers, intents, from, to);
+			} else {
+				int middle = (from + to) >>> 1;
+				invokeAll(new IntentTask(land, movers, intents, from, middle),
+						new IntentTask(land, movers, intents, middle, to));
+			}
+		}
+		
+	}
+	
+	/**
+	 * The largest number of tiles that a Land can have before its occupancy
+	 * index stores only the occupied tiles rather than every tile.
+	 */
+	public static final long DENSE_OCCUPANCY_LIMIT = 1 << 20;
+	
+	/**
+	 * The most buckets that the SpatialHash of a Land's residents has.
+	 */
+	public static final int MAX_RESIDENT_BUCKETS = 1 << 16;
+	
+	/**
+	 * The largest number of tiles that a Land can have before its snapshots
+	 * stop copying its tiles. Larger Lands give each snapshot a view of the
+	 * live tiles instead, and copy a tile into the newest view only when the
+	 * tile is changed.
+	 */
+	public static final long SNAPSHOT_COPY_LIMIT = 1 << 20;
+	
+	/**
+	 * The number of residents that a Land must have before their moves are
+	 * collected in parallel. This is also the number of residents that each
+	 * parallel task handles.
+	 */
+	public static final int PARALLEL_INTENT_THRESHOLD = 64;
+	
+	/**
+	 * Runs the collection of resident moves for busy Lands.
+	 */
+	private static final ForkJoinPool INTENT_POOL = new ForkJoinPool();
+	
+	/**
+	 * The largest radius of any trigger that has been added that follows a
+	 * resident.
+	 */
+	private int anchoredRadius;
+	
+	/**
+	 * The triggers that follow residents, by the resident that they follow.
+	 */
+	private final Map<Movable, List<ProximityTrigger>> anchoredTriggers;
+	
 	/**
 	 * The bumps that happened on the last advancement.
 	 */
 	private Map<Movable, Movable> bumps;
 	
+	/**
+	 * The distances to the resident that others are heading for, or null if
+	 * there is no flow target or no resident is following it.
+	 */
+	private FlowField flowField;
+	
+	/**
+	 * The number of tiles that the FlowField extends from the flow target.
+	 */
+	private int flowRadius;
+	
+	/**
+	 * The resident that others may head for, or null if there is none.
+	 */
+	private Locatable flowTarget;
+	
+	/**
+	 * The largest radius of any trigger that has been added at a fixed point.
+	 */
+	private int fixedRadius;
+	
+	/**
+	 * The triggers at fixed points, by their centers.
+	 */
+	private final SpatialHash<ProximityTrigger> fixedTriggers;
+	
 	/**
 	 * The transfers that are waiting to come in.
 	 */
 	private List<Movable> incomingResidents;
 	
+	/**
+	 * The number of times that the items have changed.
+	 */
+	private int itemChanges;
+	
 	/**
 	 * The name of this Land.
 	 */
 	private String name;
 	
+	/**
+	 * Receives the residents found near a point. This is only used while the
+	 * Land is being advanced.
+	 */
+	private final List<Movable> nearby;
+	
 	/**
 	 * The residents that were transfered out in the last advancement.
 	 */
 	private List<Movable> outgoingResidents;
 	
+	/**
+	 * The residents of this Land indexed by the tile that they occupy.
+	 */
+	private Grid<Movable> occupants;
+	
+	/**
+	 * Finds routes through this Land. This is created the first time that it
+	 * is needed.
+	 */
+	private volatile PathMap pathMap;
+	
 	/**
 	 * The position that the player starts at.
 	 */
@@ -59,101 +276,262 @@ public class Land {
 	 */
 	private Map<Point, Portal> portals;
 	
+	/**
+	 * The number of times that the portals have changed.
+	 */
+	private int portalChanges;
+	
+	/**
+	 * Seeds the Random of each RandomMover that becomes a resident.
+	 */
+	private final Random random;
+	
+	/**
+	 * The regions of walkable tiles in this Land, or null if this Land is too
+	 * large to keep them for.
+	 */
+	private final RegionMap regions;
+	
 	/**
 	 * The Items in this Land.
 	 */
-	private Map<Point, List<Item>> items;
+	private final ItemPiles items;
+	
+	/**
+	 * The Movable objects in this Land. This is kept in insertion order so
+	 * that residents are always moved in the order that they were added.
+	 */
+	private LinkedHashSet<Movable> residents;
 	
 	/**
-	 * The Movable objects in this Land.
+	 * The number of times that a resident has been added, removed or moved.
 	 */
-	private List<Movable> residents;
+	private int residentChanges;
+	
+	/**
+	 * The residents, by the tiles that they occupy.
+	 */
+	private final SpatialHash<Movable> residentCells;
+	
+	/**
+	 * The view of the tiles that the newest snapshot shares, if this Land is
+	 * too large for its tiles to be copied into snapshots.
+	 */
+	private TileSnapshotGrid sharedTiles;
+	
+	/**
+	 * The residents that are asleep, waiting for their wake intervals to
+	 * pass.
+	 */
+	private final TimerWheel<Movable> sleepers;
+	
+	/**
+	 * The number of times that a tile has been changed.
+	 */
+	private int tileChanges;
 	
 	/**
 	 * The tiles that make up this Land.
 	 */
 	private Grid<Tile> tiles;
 	
+	/**
+	 * The number of times that an autonomous resident has been transferred
+	 * into or out of this Land.
+	 */
+	private int transferChanges;
+	
+	/**
+	 * The triggers that each resident that is not autonomous was within at
+	 * the end of the last advancement. Residents that were not within any
+	 * triggers are left out.
+	 */
+	private final Map<Movable, Set<ProximityTrigger>> triggerVisits;
+	
+	/**
+	 * The residents that are not autonomous. These are the residents that
+	 * wake sleepers and set off triggers.
+	 */
+	private final LinkedHashSet<Movable> visitors;
+	
+	/**
+	 * The largest wake radius of the residents that have been put to sleep
+	 * since there were last no sleepers.
+	 */
+	private int wakeRadius;
+	
+	/**
+	 * Receives the sleepers that wake on their own each tick.
+	 */
+	private final List<Movable> woken;
+	
 	/**
 	 * Creates a new Land.
 	 * 
 	 * @param name The name of this Land.
 	 * @param size The size of this Land, in tiles.
 	 * @param start The player start for this land.
-	 * @param tileData The tiles that makes up this Land.
+	 * @param table The table of tile types that the tile data refers to.
+	 * @param tileData The index of the tile type of each tile that makes up
+	 * this Land, in row-major order.
 	 */
-	public Land(String name, Dimension size, Point start, Tile[] tileData) {
+	public Land(String name, Dimension size, Point start, TileTable table,
+			short[] tileData) {
+		this(name, size, start, new TileGrid(size, table, tileData));
+	}
+	
+	/**
+	 * Creates a new Land from an existing grid of tiles.
+	 * 
+	 * @param name The name of this Land.
+	 * @param size The size of this Land, in tiles.
+	 * @param start The player start for this land.
+	 * @param tiles The tiles that make up this Land.
+	 */
+	public Land(String name, Dimension size, Point start, Grid<Tile> tiles) {
 		this.name = name;
 		playerStart = start;
-		tiles = new ElementGrid<Tile>(size, tileData);
-		residents = new ArrayList<Movable>();
+		this.tiles = tiles;
+		if ((long) size.width * size.height <= DENSE_OCCUPANCY_LIMIT) {
+			occupants = new ArrayGrid<Movable>(size);
+			regions = new RegionMap(tiles);
+		} else {
+			occupants = new SparseGrid<Movable>(size);
+			regions = null;
+		}
+		residents = new LinkedHashSet<Movable>();
+		random = new Random(name.hashCode());
 		portals = new HashMap<Point, Portal>();
-		items = new HashMap<Point, List<Item>>();
+		items = new ItemPiles();
 		incomingResidents = new ArrayList<Movable>();
 		outgoingResidents = new ArrayList<Movable>();
 		bumps = new HashMap<Movable, Movable>();
+		sleepers = new TimerWheel<Movable>();
+		woken = new ArrayList<Movable>();
+		int cell = SpatialHash.DEFAULT_CELL_SIZE;
+		long cells = (long) (size.width / cell + 1) * (size.height / cell + 1);
+		int buckets = (int) Math.min(cells, MAX_RESIDENT_BUCKETS);
+		residentCells = new SpatialHash<Movable>(cell, buckets);
+		nearby = new ArrayList<Movable>();
+		visitors = new LinkedHashSet<Movable>();
+		anchoredTriggers = new HashMap<Movable, List<ProximityTrigger>>();
+		fixedTriggers = new SpatialHash<ProximityTrigger>();
+		triggerVisits = new HashMap<Movable, Set<ProximityTrigger>>();
 	}
 	
 	/**
-	 * Adds an item to this map.
+	 * Adds an item to the top of the pile at the item's location.
 	 * 
 	 * @param item The item to add.
 	 */
 	public void addItem(Item item) {
-		Point p = item.getLocation();
-		List<Item> list = items.get(p);
-		if (list == null) {
-			list = new ArrayList<Item>();
-			items.put(p, list);
-		}
-		list.add(item);
+		items.add(item);
+		itemChanges++;
 	}
 	
 	/**
 	 * Gets all items at a point.
 	 * 
 	 * @param point The point to get items at.
-	 * @return A list with the items at the given point. The list is inverted;
-	 * the item on the top of the pile is the first element of the list.
+	 * @return A new array with the items at the given point. The item on the
+	 * top of the pile is the first element of the array.
 	 */
 	public Item[] getItemsAt(Point point) {
-		List<Item> list = this.items.get(point);
-		int size = (list == null) ? 0 : list.size();
-		Item[] items = new Item[size];
-		if (size != 0) {
-			Collections.reverse(list);
-			list.toArray(items);
+		int size = items.getPileSize(point.x, point.y);
+		Item[] pile = new Item[size];
+		for (int i = 0; i < size; i++) {
+			pile[i] = items.get(point.x, point.y, i);
 		}
-		return items;
+		return pile;
 	}
 	
 	/**
-	 * Removes all items from a point.
+	 * Removes items from the top of the pile at a point.
 	 * 
 	 * @param point The point to remove items from.
 	 * @param count The number to remove.
 	 */
 	public void clearItems(Point point, int count) {
-		List<Item> list = items.get(point);
 		for (int i = 0; i < count; i++) {
-			list.remove(0);
-		}
-		if (list.isEmpty()) {
-			items.remove(point);
+			items.pop(point.x, point.y);
 		}
+		itemChanges++;
 	}
 	
 	/**
 	 * Gets all items in the Land.
 	 * 
-	 * @return All items in this Land.
+	 * @return A read-only view of all items in this Land. This reflects later
+	 * changes to the items.
 	 */
-	public List<Item> getItems() {
-		List<Item> list = new ArrayList<Item>();
-		for (List<Item> i : items.values()) {
-			list.addAll(i);
+	public Collection<Item> getItems() {
+		return Collections.unmodifiableCollection(items);
+	}
+	
+	/**
+	 * Gets the item on the top of the pile at a point.
+	 * 
+	 * @param point The point to get the item from.
+	 * 
+	 * @return The top item, or null if there are no items at the point.
+	 */
+	public Item getTopItemAt(Point point) {
+		return items.peek(point.x, point.y);
+	}
+	
+	/**
+	 * Takes a snapshot of this Land as it is now. Parts of the Land that have
+	 * not changed since the previous snapshot are shared with it rather than
+	 * copied again. The tiles of a Land larger than SNAPSHOT_COPY_LIMIT are
+	 * too many to copy, so its snapshots get a copy-on-write view of the live
+	 * tiles instead, which may be read from any thread. This must not be
+	 * called while the Land is being advanced.
+	 * 
+	 * @param previous The previous snapshot, or null if there is none.
+	 * @param version The number of the tick that the snapshot is taken at.
+	 * 
+	 * @return The new snapshot.
+	 */
+	public LandSnapshot createSnapshot(LandSnapshot previous, long version) {
+		if (previous != null && previous.land != this) {
+			previous = null;
 		}
-		return list;
+		Dimension size = tiles.getSize();
+		Grid<Tile> tileCopy;
+		if (previous != null && previous.tileChanges == tileChanges) {
+			tileCopy = previous.getTiles();
+		} else if ((long) size.width * size.height > SNAPSHOT_COPY_LIMIT) {
+			sharedTiles = new TileSnapshotGrid(tiles, sharedTiles);
+			tileCopy = sharedTiles;
+		} else {
+			tileCopy = new ArrayGrid<Tile>(size);
+			for (int y = 0; y < size.height; y++) {
+				for (int x = 0; x < size.width; x++) {
+					tileCopy.set(x, y, tiles.itemAt(x, y));
+				}
+			}
+		}
+		List<LandSnapshot.Sprite> portalSprites;
+		if (previous != null && previous.portalChanges == portalChanges) {
+			portalSprites = previous.getPortals();
+		} else {
+			portalSprites = LandSnapshot.createSprites(portals.values());
+		}
+		List<LandSnapshot.Sprite> residentSprites;
+		if (previous != null && previous.residentChanges == residentChanges) {
+			residentSprites = previous.getResidents();
+		} else {
+			residentSprites = LandSnapshot.createSprites(residents);
+		}
+		List<LandSnapshot.Sprite> itemSprites;
+		if (previous != null && previous.itemChanges == itemChanges) {
+			itemSprites = previous.getItems();
+		} else {
+			itemSprites = LandSnapshot.createSprites(items);
+		}
+		return new LandSnapshot(this, version, tileCopy, tileChanges,
+				portalSprites, portalChanges, residentSprites, residentChanges,
+				itemSprites, itemChanges);
 	}
 	
 	/**
@@ -165,11 +543,13 @@ public class Land {
 		Point pos = p.getLocation();
 		if (portals.get(pos) == null) {
 			portals.put(pos, p);
+			portalChanges++;
 		}
 	}
 	
 	/**
-	 * Adds a resident to this Land if it has not already been added.
+	 * Adds a resident to this Land if it has not already been added. A
+	 * RandomMover is given a new Random seeded from this Land's Random.
 	 * 
 	 * @param r The resident to add.
 	 */
@@ -177,22 +557,79 @@ public class Land {
 		Point pos = r.getLocation();
 		if (!hasOccupantAt(pos)) {
 			residents.add(r);
-			tiles.itemAt(pos).setOccupied(true);
+			if (!r.isAutonomous()) {
+				visitors.add(r);
+			}
+			if (r instanceof RandomMover) {
+				((RandomMover) r).setRandom(new Random(random.nextLong()));
+			}
+			setOccupant(pos.x, pos.y, r);
+		}
+	}
+	
+	/**
+	 * Adds a ProximityTrigger to this Land. Its listener is told about
+	 * residents entering it from the end of the next advancement onwards.
+	 * 
+	 * @param trigger The trigger to add.
+	 */
+	public void addTrigger(ProximityTrigger trigger) {
+		Movable anchor = trigger.getAnchor();
+		if (anchor != null) {
+			List<ProximityTrigger> list = anchoredTriggers.get(anchor);
+			if (list == null) {
+				list = new ArrayList<ProximityTrigger>();
+				anchoredTriggers.put(anchor, list);
+			}
+			list.add(trigger);
+			anchoredRadius = Math.max(anchoredRadius, trigger.getRadius());
+		} else {
+			Point p = trigger.getLocation();
+			fixedTriggers.add(trigger, p.x, p.y);
+			fixedRadius = Math.max(fixedRadius, trigger.getRadius());
 		}
 	}
 	
 	/**
 	 * Advances this Land by one tick. All residents are queried for where they
 	 * wish to move, and if they make a valid request, they are moved to where
-	 * they requested.
+	 * they requested. The listeners of any ProximityTriggers that were
+	 * entered or left are then told.
 	 * 
 	 * @throws InterruptedException If the current thread is interrupted while
 	 * waiting for a move from the player.
 	 */
 	public void advance() throws InterruptedException {
 		processIncomingResidents();
+		updateFlowField();
 		moveResidents();
 		processOutgoingResidents();
+		updateTriggers();
+	}
+	
+	/**
+	 * Gets the number of changes made to this Land that would be lost if it
+	 * were loaded again from its land file. These are changes to its tiles,
+	 * portals or items, and autonomous residents being transferred into or
+	 * out of it. Residents moving around within the Land are not counted.
+	 * 
+	 * @return The number of changes that have been made since this Land was
+	 * created.
+	 */
+	public int getChangeCount() {
+		return tileChanges + portalChanges + itemChanges + transferChanges;
+	}
+	
+	/**
+	 * Gets the FlowField that leads to the flow target. The field is brought
+	 * up to date at the start of each advancement, before any resident is
+	 * asked for its move. It is only kept while a resident is following it.
+	 * 
+	 * @return The FlowField, or null if there is no flow target or no
+	 * resident was following it at the start of the last advancement.
+	 */
+	public FlowField getFlowField() {
+		return flowField;
 	}
 	
 	/**
@@ -217,6 +654,26 @@ public class Land {
 		return name;
 	}
 	
+	/**
+	 * Gets the PathMap that finds routes through this Land. It is kept up to
+	 * date with changes made through setTile().
+	 * 
+	 * @return The PathMap.
+	 */
+	public PathMap getPathMap() {
+		PathMap map = pathMap;
+		if (map == null) {
+			synchronized (this) {
+				map = pathMap;
+				if (map == null) {
+					map = new PathMap(tiles, regions);
+					pathMap = map;
+				}
+			}
+		}
+		return map;
+	}
+	
 	/**
 	 * Gets the player start.
 	 */
@@ -279,14 +736,36 @@ public class Land {
 	 * @return The WalkGraph for the given point.
 	 */
 	public WalkGraph getWalkGraph(Point center, boolean occupied) {
-		Point graphCenter = new Point(center.x - 1, center.y - 1);
-		Dimension size = new Dimension(3, 3);
-		Rectangle box = new Rectangle(graphCenter, size);
-		Grid<Tile> grid = tiles.getSubGrid(box);
-		WalkGraph graph = new WalkGraph(center, grid, occupied);
+		byte mask = getWalkMask(center.x, center.y, occupied);
+		WalkGraph graph = new WalkGraph(center, mask);
 		return graph;
 	}
 	
+	/**
+	 * Gets the walkability of the eight tiles surrounding a point. Bit n of
+	 * the returned mask is set if the tile in direction n is in this Land and
+	 * can be walked on. The directions are the constants in WalkGraph.
+	 * 
+	 * @param x The x-coordinate of the center point.
+	 * @param y The y-coordinate of the center point.
+	 * @param occupied Whether to include occupied tiles.
+	 * 
+	 * @return The walk mask for the given point.
+	 */
+	public byte getWalkMask(int x, int y, boolean occupied) {
+		int mask = 0;
+		for (int d = 0; d < WalkGraph.DIRECTION_COUNT; d++) {
+			int nx = x + WalkGraph.getDeltaX(d);
+			int ny = y + WalkGraph.getDeltaY(d);
+			if (tiles.contains(nx, ny) && tiles.itemAt(nx, ny).isWalkable()) {
+				if (occupied || occupants.itemAt(nx, ny) == null) {
+					mask |= WalkGraph.getBit(d);
+				}
+			}
+		}
+		return (byte) mask;
+	}
+	
 	/**
 	 * Checks whether a tile is occupied by a resident.
 	 * 
@@ -296,8 +775,51 @@ public class Land {
 	 * it; otherwise, false.
 	 */
 	public boolean hasOccupantAt(Point location) {
-		Tile toCheck = tiles.itemAt(location);
-		return toCheck.isOccupied();
+		return hasOccupantAt(location.x, location.y);
+	}
+	
+	/**
+	 * Checks whether a tile is occupied by a resident.
+	 * 
+	 * @param x The x-coordinate of the point to check.
+	 * @param y The y-coordinate of the point to check.
+	 * 
+	 * @return True if the tile at the given point has a resident standing on
+	 * it; otherwise, false.
+	 */
+	public boolean hasOccupantAt(int x, int y) {
+		return (occupants.itemAt(x, y) != null);
+	}
+	
+	/**
+	 * Checks whether a resident is asleep.
+	 * 
+	 * @param resident The resident to check.
+	 * 
+	 * @return Whether the resident is a Sleeper that is asleep in this Land.
+	 */
+	public boolean isAsleep(Movable resident) {
+		return sleepers.contains(resident);
+	}
+	
+	/**
+	 * Checks whether one tile can be walked to from another, ignoring
+	 * residents. For Lands that are too large to keep regions for, only the
+	 * walkability of the two tiles is checked.
+	 * 
+	 * @param x1 The x-coordinate of the first tile.
+	 * @param y1 The y-coordinate of the first tile.
+	 * @param x2 The x-coordinate of the second tile.
+	 * @param y2 The y-coordinate of the second tile.
+	 * 
+	 * @return Whether the second tile can be reached from the first.
+	 */
+	public boolean isReachable(int x1, int y1, int x2, int y2) {
+		if (regions != null) {
+			return regions.isReachable(x1, y1, x2, y2);
+		}
+		return (tiles.contains(x1, y1) && tiles.itemAt(x1, y1).isWalkable() &&
+				tiles.contains(x2, y2) && tiles.itemAt(x2, y2).isWalkable());
 	}
 	
 	/**
@@ -317,7 +839,9 @@ public class Land {
 	 * @param p The Portal to remove.
 	 */
 	public void removePortal(Portal p) {
-		portals.remove(p.getLocation());
+		if (portals.remove(p.getLocation()) != null) {
+			portalChanges++;
+		}
 	}
 	
 	/**
@@ -326,8 +850,116 @@ public class Land {
 	 * @param r The resident to remove.
 	 */
 	public void removeResident(Movable r) {
-		residents.remove(r);
-		tiles.itemAt(r.getLocation()).setOccupied(false);
+		if (residents.remove(r)) {
+			sleepers.cancel(r);
+			visitors.remove(r);
+			Point p = r.getLocation();
+			if (occupants.itemAt(p.x, p.y) == r) {
+				setOccupant(p.x, p.y, null);
+			}
+		}
+	}
+	
+	/**
+	 * Removes a ProximityTrigger from this Land. Its listener is told that
+	 * every resident that was within it has left.
+	 * 
+	 * @param trigger The trigger to remove.
+	 */
+	public void removeTrigger(ProximityTrigger trigger) {
+		Movable anchor = trigger.getAnchor();
+		if (anchor != null) {
+			List<ProximityTrigger> list = anchoredTriggers.get(anchor);
+			if (list == null || !list.remove(trigger)) {
+				return;
+			}
+			if (list.isEmpty()) {
+				anchoredTriggers.remove(anchor);
+			}
+		} else {
+			Point p = trigger.getLocation();
+			if (!fixedTriggers.remove(trigger, p.x, p.y)) {
+				return;
+			}
+		}
+		List<Movable> left = new ArrayList<Movable>();
+		Iterator<Map.Entry<Movable, Set<ProximityTrigger>>> it;
+		it = triggerVisits.entrySet().iterator();
+		while (it.hasNext()) {
+			Map.Entry<Movable, Set<ProximityTrigger>> visit = it.next();
+			if (visit.getValue().remove(trigger)) {
+				left.add(visit.getKey());
+				if (visit.getValue().isEmpty()) {
+					it.remove();
+				}
+			}
+		}
+		for (Movable visitor : left) {
+			trigger.getListener().triggerLeft(trigger, visitor);
+		}
+	}
+	
+	/**
+	 * Sets what this Land's FlowField leads to. Residents that want to reach
+	 * the target can then share the one field instead of each searching for
+	 * a route. The field is only built once a FlowFollower that is following
+	 * it is a resident, so setting a target costs nothing in Lands without
+	 * one.
+	 * 
+	 * @param target The new flow target, or null to remove the FlowField.
+	 * @param radius The number of tiles that the field extends from the
+	 * target.
+	 */
+	public void setFlowTarget(Locatable target, int radius) {
+		flowTarget = target;
+		flowRadius = radius;
+		flowField = null;
+	}
+	
+	/**
+	 * Seeds this Land's Random and gives every RandomMover among its
+	 * residents a new Random seeded from it, in the order that the residents
+	 * were added. Residents that are waiting to come in are seeded
+	 * afterwards, when they are added. A Land's Random is seeded from its
+	 * name until this is called.
+	 * 
+	 * @param seed The new seed.
+	 */
+	public void setSeed(long seed) {
+		random.setSeed(seed);
+		for (Movable r : residents) {
+			if (r instanceof RandomMover) {
+				((RandomMover) r).setRandom(new Random(random.nextLong()));
+			}
+		}
+	}
+	
+	/**
+	 * Changes the tile at a point. Routes that were found through this Land
+	 * before the change may no longer be valid. This must not be called while
+	 * the Land is being advanced.
+	 * 
+	 * @param x The x-coordinate of the tile to change.
+	 * @param y The y-coordinate of the tile to change.
+	 * @param tile The new tile.
+	 */
+	public void setTile(int x, int y, Tile tile) {
+		if (sharedTiles != null) {
+			sharedTiles.change(x, y, tile);
+		} else {
+			tiles.set(x, y, tile);
+		}
+		tileChanges++;
+		if (regions != null) {
+			regions.update(x, y);
+		}
+		PathMap map = pathMap;
+		if (map != null) {
+			map.invalidate(x, y);
+		}
+		if (flowField != null) {
+			flowField.invalidate(x, y);
+		}
 	}
 	
 	/**
@@ -339,13 +971,12 @@ public class Land {
 	@Override
 	public String toString() {
 		StringBuilder strVersion = new StringBuilder();
-		Point p = new Point();
 		Dimension d = tiles.getSize();
-		for (p.y = 0; p.y < d.height; p.y++) {
-			for (p.x = 0; p.x < d.width; p.x++) {
-				strVersion.append(tiles.itemAt(p).getDisplayChar());
+		for (int y = 0; y < d.height; y++) {
+			for (int x = 0; x < d.width; x++) {
+				strVersion.append(tiles.itemAt(x, y).getDisplayChar());
 			}
-			if (p.x < d.height - 1) {
+			if (y < d.height - 1) {
 				strVersion.append('\n');
 			}
 		}
@@ -353,12 +984,17 @@ public class Land {
 	}
 	
 	/**
-	 * Transfers in a resident to a specific point.
+	 * Transfers in a resident to a specific point. If the point is occupied,
+	 * the resident waits and is added on a later advancement once the point
+	 * is free; the transfer is still only counted as one change.
 	 * 
 	 * @param r The resident to transfer in.
 	 * @param p The point to transfer to.
 	 */
 	public void transferInResident(Movable r, Point p) {
+		if (r.isAutonomous()) {
+			transferChanges++;
+		}
 		r.setLocation(p);
 		if (!hasOccupantAt(p)) {
 			addResident(r);
@@ -367,6 +1003,55 @@ public class Land {
 		}
 	}
 	
+	/**
+	 * Lets go of the tiles of this Land. Tiles that are read from a file as
+	 * they are needed stop being read, and the file is closed. This Land must
+	 * not be used after it has been unloaded.
+	 */
+	public void unload() {
+		tiles.clear();
+	}
+	
+	/**
+	 * Wakes a sleeping resident so that it is asked for its move on the next
+	 * advancement. Nothing happens if the resident is not asleep.
+	 * 
+	 * @param resident The resident to wake.
+	 */
+	public void wakeResident(Movable resident) {
+		sleepers.cancel(resident);
+	}
+	
+	/**
+	 * Moves a resident to the location that it requested, if that location is
+	 * not occupied. If it is occupied, the resident is recorded as having
+	 * bumped into its occupant instead.
+	 * 
+	 * @param r The resident to move.
+	 * @param destination Where the resident requested to move to, or null if
+	 * it did not request a move.
+	 */
+	private void commitMove(Movable r, Point destination) {
+		Point current = r.getLocation();
+		if (destination != null && !current.equals(destination)) {
+			Movable bumpee = getOccupantAt(destination);
+			if (bumpee == null) {
+				occupants.set(current.x, current.y, null);
+				occupants.set(destination.x, destination.y, r);
+				residentCells.move(r, current.x, current.y, destination.x,
+						destination.y);
+				residentChanges += 2;
+				if (flowField != null) {
+					flowField.invalidate(current.x, current.y);
+					flowField.invalidate(destination.x, destination.y);
+				}
+				r.setLocation(destination);
+			} else {
+				bumps.put(r, bumpee);
+			}
+		}
+	}
+	
 	/**
 	 * Gets the occupant at a location.
 	 * 
@@ -376,50 +1061,165 @@ public class Land {
 	 * isn't one.
 	 */
 	private Movable getOccupantAt(Point p) {
-		Movable occupant = null;
+		return occupants.itemAt(p.x, p.y);
+	}
+	
+	/**
+	 * Finds the triggers that a resident is within. Only the residents and
+	 * fixed triggers that are close enough to the resident for any trigger
+	 * to reach it are looked at.
+	 * 
+	 * @param visitor The resident to find the triggers of.
+	 * @param found The set to add the triggers to.
+	 */
+	private void findTriggers(Movable visitor, Set<ProximityTrigger> found) {
+		Point p = visitor.getLocation();
+		if (!anchoredTriggers.isEmpty()) {
+			nearby.clear();
+			residentCells.findNear(p.x, p.y, anchoredRadius, nearby);
+			for (Movable m : nearby) {
+				List<ProximityTrigger> list = anchoredTriggers.get(m);
+				if (list != null && m != visitor) {
+					for (ProximityTrigger t : list) {
+						if (t.contains(p)) {
+							found.add(t);
+						}
+					}
+				}
+			}
+		}
+		if (!fixedTriggers.isEmpty()) {
+			List<ProximityTrigger> candidates;
+			candidates = new ArrayList<ProximityTrigger>();
+			fixedTriggers.findNear(p.x, p.y, fixedRadius, candidates);
+			for (ProximityTrigger t : candidates) {
+				if (t.contains(p)) {
+					found.add(t);
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Gets the residents that are not asleep.
+	 * 
+	 * @return The residents that are awake, in the order that they were
+	 * added.
+	 */
+	private Movable[] getAwakeResidents() {
+		if (sleepers.isEmpty()) {
+			return residents.toArray(new Movable[residents.size()]);
+		}
+		Movable[] awake = new Movable[residents.size() - sleepers.size()];
+		int count = 0;
 		for (Movable r : residents) {
-			if (r.getLocation().equals(p)) {
-				occupant = r;
-				break;
+			if (!sleepers.contains(r)) {
+				awake[count++] = r;
 			}
 		}
-		return occupant;
+		return awake;
 	}
 	
 	/**
-	 * Moves all residents. Each resident is asked where it wishes to move, and
-	 * is then moved there.
+	 * Checks whether any resident is following the FlowField.
+	 * 
+	 * @return Whether there is a FlowFollower that is following it.
+	 */
+	private boolean hasFlowFollower() {
+		for (Movable r : residents) {
+			if (r instanceof FlowFollower &&
+					((FlowFollower) r).isFollowingFlow()) {
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	/**
+	 * Moves all residents that are awake. This is done in two phases. First,
+	 * every autonomous resident is asked where it wishes to move; for busy
+	 * Lands this is done in parallel, while the Land is not being modified.
+	 * Then the moves are applied one at a time in the order that the
+	 * residents were added, with residents that are not autonomous being
+	 * asked for their move when their turn comes. A move into an occupied
+	 * tile becomes a bump instead.
+	 * 
+	 * Sleepers that asked for no move are then put to sleep, and sleepers
+	 * that were bumped into are woken.
 	 * 
 	 * @throws InterruptedException If the current thread is interrupted while
 	 * waiting on input from the player.
 	 */
 	private void moveResidents() throws InterruptedException {
 		bumps.clear();
-		for (Movable r : residents) {
-			Point current = r.getLocation();
-			Point destination = r.getNextMove(this);
-			if (!current.equals(destination)) {
-				if (!hasOccupantAt(destination)) {
-					tiles.itemAt(current).setOccupied(false);
-					tiles.itemAt(destination).setOccupied(true);
-					r.setLocation(destination);
-				} else {
-					Movable bumpee = getOccupantAt(destination);
-					bumps.put(r, bumpee);
+		wakeSleepers();
+		Movable[] movers = getAwakeResidents();
+		Point[] intents = new Point[movers.length];
+		if (movers.length >= PARALLEL_INTENT_THRESHOLD) {
+			INTENT_POOL.invoke(new IntentTask(this, movers, intents, 0,
+					movers.length));
+		} else {
+			collectIntents(movers, intents, 0, movers.length);
+		}
+		for (int i = 0; i < movers.length; i++) {
+			Movable r = movers[i];
+			Point destination = intents[i];
+			if (!r.isAutonomous()) {
+				destination = r.getNextMove(this);
+			} else if (r instanceof Sleeper) {
+				if (destination == null ||
+						destination.equals(r.getLocation())) {
+					sleep((Sleeper) r);
 				}
 			}
+			commitMove(r, destination);
+		}
+		for (Movable bumpee : bumps.values()) {
+			sleepers.cancel(bumpee);
 		}
 	}
 	
 	/**
-	 * Adds waiting incoming transfers if they can be added.
+	 * Gets the next moves of the autonomous residents in a range. The Land is
+	 * not modified by this method, so several ranges may be collected at the
+	 * same time.
+	 * 
+	 * @param movers The residents whose moves are to be collected.
+	 * @param intents Where to store each resident's requested move. Entries
+	 * for residents that are not autonomous are left as null.
+	 * @param from The index of the first resident in the range.
+	 * @param to The index after the last resident in the range.
+	 */
+	private void collectIntents(Movable[] movers, Point[] intents, int from,
+			int to) {
+		for (int i = from; i < to; i++) {
+			Movable r = movers[i];
+			if (r.isAutonomous()) {
+				try {
+					intents[i] = r.getNextMove(this);
+				} catch (InterruptedException e) {
+					// autonomous residents do not wait, so treat as no move
+					Thread.currentThread().interrupt();
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Adds waiting incoming transfers if they can be added. Residents that
+	 * are still blocked keep waiting without counting as another change.
 	 */
 	private void processIncomingResidents() {
-		Movable[] incoming = incomingResidents.toArray(new Movable[0]);
-		incomingResidents.clear();
-		for (Movable m : incoming) {
-			transferInResident(m, m.getLocation());
+		int waiting = 0;
+		for (int i = 0; i < incomingResidents.size(); i++) {
+			Movable m = incomingResidents.get(i);
+			if (!hasOccupantAt(m.getLocation())) {
+				addResident(m);
+			} else {
+				incomingResidents.set(waiting++, m);
+			}
 		}
+		incomingResidents.subList(waiting, incomingResidents.size()).clear();
 	}
 	
 	/**
@@ -433,11 +1233,149 @@ public class Land {
 			resident = it.next();
 			Point p = resident.getLocation();
 			if (resident.isTransferrable() && portals.containsKey(p)) {
-				tiles.itemAt(p).setOccupied(false);
+				setOccupant(p.x, p.y, null);
 				outgoingResidents.add(resident);
+				sleepers.cancel(resident);
+				visitors.remove(resident);
+				if (resident.isAutonomous()) {
+					transferChanges++;
+				}
 				it.remove();
 			}
 		}
 	}
 	
+	/**
+	 * Sets the occupant of a tile and notes the change in the FlowField.
+	 * 
+	 * @param x The x-coordinate of the tile.
+	 * @param y The y-coordinate of the tile.
+	 * @param r The new occupant, or null to leave the tile empty.
+	 */
+	private void setOccupant(int x, int y, Movable r) {
+		Movable previous = occupants.itemAt(x, y);
+		if (previous != null) {
+			residentCells.remove(previous, x, y);
+		}
+		if (r != null) {
+			residentCells.add(r, x, y);
+		}
+		occupants.set(x, y, r);
+		residentChanges++;
+		if (flowField != null) {
+			flowField.invalidate(x, y);
+		}
+	}
+	
+	/**
+	 * Puts a Sleeper to sleep for its wake interval. Nothing happens if its
+	 * wake interval is not positive.
+	 * 
+	 * @param s The Sleeper to put to sleep.
+	 */
+	private void sleep(Sleeper s) {
+		int interval = s.getWakeInterval();
+		if (interval > 0) {
+			sleepers.schedule(s, interval);
+			wakeRadius = Math.max(wakeRadius, s.getWakeRadius());
+		}
+	}
+	
+	/**
+	 * Brings the FlowField up to date, building it if a resident has started
+	 * following it and dropping it if none is following it any longer.
+	 */
+	private void updateFlowField() {
+		if (flowTarget == null || !hasFlowFollower()) {
+			flowField = null;
+			return;
+		}
+		if (flowField == null) {
+			flowField = new FlowField(flowTarget, flowRadius);
+		}
+		flowField.update(this);
+	}
+	
+	/**
+	 * Checks which triggers each resident that is not autonomous is within
+	 * and tells the listeners of the triggers that were entered or left since
+	 * the last advancement. The listeners are only told once every trigger
+	 * has been checked.
+	 */
+	private void updateTriggers() {
+		if (anchoredTriggers.isEmpty() && fixedTriggers.isEmpty() &&
+				triggerVisits.isEmpty()) {
+			return;
+		}
+		List<TriggerEvent> events = new ArrayList<TriggerEvent>();
+		Iterator<Map.Entry<Movable, Set<ProximityTrigger>>> it;
+		it = triggerVisits.entrySet().iterator();
+		while (it.hasNext()) {
+			Map.Entry<Movable, Set<ProximityTrigger>> visit = it.next();
+			if (!visitors.contains(visit.getKey())) {
+				for (ProximityTrigger t : visit.getValue()) {
+					events.add(new TriggerEvent(t, visit.getKey(), false));
+				}
+				it.remove();
+			}
+		}
+		for (Movable v : visitors) {
+			Set<ProximityTrigger> current = new HashSet<ProximityTrigger>();
+			findTriggers(v, current);
+			Set<ProximityTrigger> previous = triggerVisits.get(v);
+			if (previous != null) {
+				for (ProximityTrigger t : previous) {
+					if (!current.contains(t)) {
+						events.add(new TriggerEvent(t, v, false));
+					}
+				}
+			}
+			for (ProximityTrigger t : current) {
+				if (previous == null || !previous.contains(t)) {
+					events.add(new TriggerEvent(t, v, true));
+				}
+			}
+			if (current.isEmpty()) {
+				triggerVisits.remove(v);
+			} else {
+				triggerVisits.put(v, current);
+			}
+		}
+		for (TriggerEvent e : events) {
+			e.fire();
+		}
+	}
+	
+	/**
+	 * Wakes the sleepers whose wake intervals have passed, along with those
+	 * that a resident that is not autonomous has come within the wake radius
+	 * of.
+	 */
+	private void wakeSleepers() {
+		sleepers.advance(woken);
+		woken.clear();
+		if (sleepers.isEmpty()) {
+			wakeRadius = 0;
+			return;
+		}
+		if (wakeRadius == 0) {
+			return;
+		}
+		for (Movable v : visitors) {
+			Point p = v.getLocation();
+			nearby.clear();
+			residentCells.findNear(p.x, p.y, wakeRadius, nearby);
+			for (Movable m : nearby) {
+				if (sleepers.contains(m)) {
+					Point q = m.getLocation();
+					int distance = Math.max(Math.abs(q.x - p.x),
+							Math.abs(q.y - p.y));
+					if (distance <= ((Sleeper) m).getWakeRadius()) {
+						sleepers.cancel(m);
+					}
+				}
+			}
+		}
+	}
+	
 }
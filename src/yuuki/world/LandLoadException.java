@@ -0,0 +1,20 @@
+package yuuki.world;
+
+/**
+ * Thrown when a land that has not been loaded yet is needed and cannot be
+ * loaded.
+ */
+@SuppressWarnings("serial")
+public class LandLoadException extends RuntimeException {
+	
+	/**
+	 * Creates a new LandLoadException.
+	 * 
+	 * @param landName The name of the land that could not be loaded.
+	 * @param cause The reason that the land could not be loaded.
+	 */
+	public LandLoadException(String landName, Throwable cause) {
+		super(landName, cause);
+	}
+	
+}
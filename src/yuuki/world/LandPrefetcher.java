@@ -0,0 +1,180 @@
+package yuuki.world;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Loads lands on a background thread before they are needed. A land that is
+ * prefetched can be collected once it has finished loading, or waited for if
+ * it is needed before then. Only the loading itself happens on the background
+ * thread; a LandPrefetcher must otherwise be used from a single thread.
+ */
+class LandPrefetcher {
+	
+	/**
+	 * Loads a single land on the background thread.
+	 */
+	private static class Prefetch implements Callable<Land> {
+		
+		/**
+		 * Where the land is loaded from.
+		 */
+		private final LandSource source;
+		
+		/**
+		 * Creates a new Prefetch.
+		 * 
+		 * @param source Where the land is loaded from.
+		 */
+		public Prefetch(LandSource source) {
+			this.source = source;
+		}
+		
+		@Override
+		public Land call() throws Exception {
+			return source.load();
+		}
+		
+	}
+	
+	/**
+	 * The lands being loaded in the background, by name.
+	 */
+	private final Map<String, Future<Land>> pending;
+	
+	/**
+	 * Runs the background loads.
+	 */
+	private ExecutorService pool;
+	
+	/**
+	 * Creates a new LandPrefetcher. The background thread is not started
+	 * until the first land is prefetched.
+	 */
+	public LandPrefetcher() {
+		pending = new HashMap<String, Future<Land>>();
+	}
+	
+	/**
+	 * Takes the lands that have finished loading in the background. Lands that
+	 * failed to load are forgotten, so that the failure is reported when the
+	 * land is next loaded because it is needed.
+	 * 
+	 * @return The loaded lands, in order of name.
+	 */
+	public List<Land> collect() {
+		List<String> done = new ArrayList<String>();
+		for (Map.Entry<String, Future<Land>> e : pending.entrySet()) {
+			if (e.getValue().isDone()) {
+				done.add(e.getKey());
+			}
+		}
+		Collections.sort(done);
+		List<Land> loaded = new ArrayList<Land>(done.size());
+		for (String name : done) {
+			try {
+				loaded.add(pending.remove(name).get());
+			} catch (InterruptedException e) {
+				// cannot happen; the load is already done
+				Thread.currentThread().interrupt();
+			} catch (ExecutionException e) {
+				// reported when the land is needed
+			}
+		}
+		return loaded;
+	}
+	
+	/**
+	 * Checks whether a land is being loaded in the background.
+	 * 
+	 * @param name The name of the land.
+	 * 
+	 * @return Whether the land has been prefetched and not yet collected.
+	 */
+	public boolean isPending(String name) {
+		return pending.containsKey(name);
+	}
+	
+	/**
+	 * Loads a land that is needed now. If the land is already being loaded in
+	 * the background, that load is waited for; otherwise, the land is loaded
+	 * on the current thread. If the current thread is interrupted while
+	 * waiting, the wait continues and the interrupt status is restored
+	 * afterwards.
+	 * 
+	 * @param source Where the land is loaded from.
+	 * 
+	 * @return The loaded land.
+	 * 
+	 * @throws LandLoadException If the land could not be loaded.
+	 */
+	public Land load(LandSource source) {
+		Future<Land> f = pending.remove(source.getName());
+		try {
+			if (f == null) {
+				return source.load();
+			}
+			boolean interrupted = false;
+			try {
+				while (true) {
+					try {
+						return f.get();
+					} catch (InterruptedException e) {
+						interrupted = true;
+					}
+				}
+			} finally {
+				if (interrupted) {
+					Thread.currentThread().interrupt();
+				}
+			}
+		} catch (ExecutionException e) {
+			throw new LandLoadException(source.getName(), e.getCause());
+		} catch (Exception e) {
+			throw new LandLoadException(source.getName(), e);
+		}
+	}
+	
+	/**
+	 * Starts loading a land in the background. If the land is already being
+	 * loaded, this method has no effect.
+	 * 
+	 * @param source Where the land is loaded from.
+	 */
+	public void prefetch(LandSource source) {
+		if (pending.containsKey(source.getName())) {
+			return;
+		}
+		if (pool == null) {
+			pool = createPool();
+		}
+		pending.put(source.getName(), pool.submit(new Prefetch(source)));
+	}
+	
+	/**
+	 * Creates the background thread.
+	 * 
+	 * @return The executor that runs on the background thread.
+	 */
+	private ExecutorService createPool() {
+		ThreadFactory factory = new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread t = new Thread(r, "LandPrefetch");
+				t.setDaemon(true);
+				return t;
+			}
+		};
+		return Executors.newSingleThreadExecutor(factory);
+	}
+	
+}
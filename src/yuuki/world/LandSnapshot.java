@@ -0,0 +1,216 @@
+package yuuki.world;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import yuuki.util.Grid;
+
+/**
+ * What a Land looked like at the end of one tick. A snapshot is never changed
+ * once it has been made, so it can be read from any thread without locking,
+ * and a reader always sees the tiles, residents and items of a single tick.
+ * 
+ * Each part of a snapshot is only copied out of the Land if it has changed
+ * since the previous snapshot of the same Land; otherwise, the new snapshot
+ * shares that part with the previous one.
+ */
+public class LandSnapshot {
+	
+	/**
+	 * How something in the Land is to be drawn.
+	 */
+	public static class Sprite {
+		
+		/**
+		 * The image of the sprite.
+		 */
+		public final String image;
+		
+		/**
+		 * What the sprite was taken from.
+		 */
+		public final Locatable source;
+		
+		/**
+		 * The x-coordinate of the sprite.
+		 */
+		public final int x;
+		
+		/**
+		 * The y-coordinate of the sprite.
+		 */
+		public final int y;
+		
+		/**
+		 * Creates a new Sprite from the current state of a Locatable.
+		 * 
+		 * @param source The Locatable to take the sprite from.
+		 */
+		public Sprite(Locatable source) {
+			this.source = source;
+			this.image = source.getDisplayable().getOverworldImage();
+			this.x = source.getLocation().x;
+			this.y = source.getLocation().y;
+		}
+		
+	}
+	
+	/**
+	 * The items, in the order that they are to be drawn.
+	 */
+	private final List<Sprite> items;
+	
+	/**
+	 * The change count of the items when they were copied.
+	 */
+	final int itemChanges;
+	
+	/**
+	 * The Land that this snapshot was taken of. This is only used to tell
+	 * whether parts of this snapshot can be shared with the next one.
+	 */
+	final Land land;
+	
+	/**
+	 * The portals.
+	 */
+	private final List<Sprite> portals;
+	
+	/**
+	 * The change count of the portals when they were copied.
+	 */
+	final int portalChanges;
+	
+	/**
+	 * The residents.
+	 */
+	private final List<Sprite> residents;
+	
+	/**
+	 * The change count of the residents when they were copied.
+	 */
+	final int residentChanges;
+	
+	/**
+	 * The tiles.
+	 */
+	private final Grid<Tile> tiles;
+	
+	/**
+	 * The change count of the tiles when they were copied.
+	 */
+	final int tileChanges;
+	
+	/**
+	 * The number of the tick that this snapshot was taken at.
+	 */
+	private final long version;
+	
+	/**
+	 * Creates a new LandSnapshot.
+	 * 
+	 * @param land The Land that the snapshot is of.
+	 * @param version The number of the tick that the snapshot is taken at.
+	 * @param tiles A copy of the tiles that is not changed afterwards.
+	 * @param tileChanges The change count of the tiles.
+	 * @param portals The portal sprites.
+	 * @param portalChanges The change count of the portals.
+	 * @param residents The resident sprites.
+	 * @param residentChanges The change count of the residents.
+	 * @param items The item sprites.
+	 * @param itemChanges The change count of the items.
+	 */
+	LandSnapshot(Land land, long version, Grid<Tile> tiles, int tileChanges,
+			List<Sprite> portals, int portalChanges, List<Sprite> residents,
+			int residentChanges, List<Sprite> items, int itemChanges) {
+		this.land = land;
+		this.version = version;
+		this.tiles = tiles;
+		this.tileChanges = tileChanges;
+		this.portals = portals;
+		this.portalChanges = portalChanges;
+		this.residents = residents;
+		this.residentChanges = residentChanges;
+		this.items = items;
+		this.itemChanges = itemChanges;
+	}
+	
+	/**
+	 * Makes a read-only list of sprites from a group of Locatables.
+	 * 
+	 * @param sources The Locatables to take the sprites from.
+	 * 
+	 * @return The sprites, in the same order as the Locatables.
+	 */
+	static List<Sprite> createSprites(Iterable<? extends Locatable> sources) {
+		Sprite[] sprites = new Sprite[16];
+		int count = 0;
+		for (Locatable l : sources) {
+			if (count == sprites.length) {
+				sprites = Arrays.copyOf(sprites, count * 2);
+			}
+			sprites[count++] = new Sprite(l);
+		}
+		sprites = Arrays.copyOf(sprites, count);
+		return Collections.unmodifiableList(Arrays.asList(sprites));
+	}
+	
+	/**
+	 * Gets the items. Items that are in the same pile are given from the
+	 * bottom of the pile to the top.
+	 * 
+	 * @return A read-only list of the item sprites.
+	 */
+	public List<Sprite> getItems() {
+		return items;
+	}
+	
+	/**
+	 * Gets the name of the Land that this snapshot was taken of.
+	 * 
+	 * @return The name of the Land.
+	 */
+	public String getName() {
+		return land.getName();
+	}
+	
+	/**
+	 * Gets the portals.
+	 * 
+	 * @return A read-only list of the portal sprites.
+	 */
+	public List<Sprite> getPortals() {
+		return portals;
+	}
+	
+	/**
+	 * Gets the residents.
+	 * 
+	 * @return A read-only list of the resident sprites.
+	 */
+	public List<Sprite> getResidents() {
+		return residents;
+	}
+	
+	/**
+	 * Gets the tiles. The returned grid is shared with other snapshots and
+	 * must not be modified.
+	 * 
+	 * @return The tiles.
+	 */
+	public Grid<Tile> getTiles() {
+		return tiles;
+	}
+	
+	/**
+	 * Gets the number of the tick that this snapshot was taken at. Later
+	 * snapshots have higher versions.
+	 * 
+	 * @return The version.
+	 */
+	public long getVersion() {
+		return version;
+	}
+	
+}
@@ -0,0 +1,38 @@
+package yuuki.world;
+
+import java.util.List;
+
+/**
+ * Loads a Land when it is needed. A World that is given LandSources instead of
+ * Lands only loads each Land the first time that it is used, and can let go of
+ * an idle Land and load it again later.
+ */
+public interface LandSource {
+	
+	/**
+	 * Gets the name of the Land that this LandSource loads. This must be known
+	 * without loading the Land.
+	 * 
+	 * @return The name of the Land.
+	 */
+	public String getName();
+	
+	/**
+	 * Gets the portals of the Land, as they are recorded in its land file.
+	 * These must be known without loading the Land.
+	 * 
+	 * @return Where the portals are and where they lead.
+	 */
+	public List<PortalLink> getPortalLinks();
+	
+	/**
+	 * Loads the Land. This may be called from any thread and may be called
+	 * more than once; each call must create a new Land.
+	 * 
+	 * @return The loaded Land.
+	 * 
+	 * @throws Exception If the Land could not be loaded.
+	 */
+	public Land load() throws Exception;
+	
+}
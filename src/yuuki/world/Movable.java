@@ -21,6 +21,17 @@ public interface Movable extends Locatable {
 	 */
 	public Point getNextMove(Land land) throws InterruptedException;
 	
+	/**
+	 * Checks whether this Movable decides its moves on its own. The next move
+	 * of an autonomous Movable must be computed without blocking and without
+	 * modifying the Land, as it may be requested on a worker thread at the
+	 * same time as the moves of other autonomous Movables. Movables that wait
+	 * on outside input, such as the player, are not autonomous.
+	 * 
+	 * @return Whether this Movable is autonomous.
+	 */
+	public boolean isAutonomous();
+	
 	/**
 	 * Checks whether this Movable will transfer to another world if it walks
 	 * on a tile occupied by a Portal.
@@ -0,0 +1,790 @@
+package yuuki.world;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import yuuki.util.Grid;
+
+/**
+ * Finds routes through the tiles of a Land. Short routes are found with an A*
+ * search over the tiles themselves. Long routes are found over an abstraction
+ * of the Land in the style of HPA*: the Land is divided into square clusters,
+ * and a route is planned between the entrances that connect neighbouring
+ * clusters, using distances within each cluster that are worked out ahead of
+ * time. The resulting route is a list of waypoints that can each be reached
+ * from the one before it with a local search.
+ * 
+ * Clusters are built the first time that a search needs them and are kept
+ * until a tile in or on the edge of them changes. Searches only read the
+ * abstraction, so several of them can run at the same time; changing tiles
+ * while a search is running is not supported.
+ * 
+ * Only the walkability of tiles is considered. Residents that are in the way
+ * are left for the caller to avoid, which findLocalPath() can do for the
+ * tiles around the start of a path. Points are passed around packed into
+ * single longs as given by pack().
+ */
+public class PathMap {
+	
+	/**
+	 * The abstraction of a single cluster.
+	 */
+	private static class Cluster {
+		
+		/**
+		 * The number of steps between each pair of entrances, with the
+		 * distance from entrance i to entrance j at (i * count) + j. Pairs that
+		 * cannot reach each other within the cluster are UNREACHABLE.
+		 */
+		public final int[] distances;
+		
+		/**
+		 * The points of the entrances that are in this Cluster.
+		 */
+		public final long[] entrances;
+		
+		/**
+		 * The points in neighbouring clusters that each entrance leads to.
+		 */
+		public final long[][] exits;
+		
+		/**
+		 * Creates a new Cluster.
+		 * 
+		 * @param entrances The entrances in the cluster.
+		 * @param exits The points that each entrance leads to.
+		 * @param distances The distances between the entrances.
+		 */
+		public Cluster(long[] entrances, long[][] exits, int[] distances) {
+			this.entrances = entrances;
+			this.exits = exits;
+			this.distances = distances;
+		}
+		
+		/**
+		 * Finds the index of an entrance.
+		 * 
+		 * @param point The point of the entrance.
+		 * 
+		 * @return The index of the entrance, or -1 if the point is not an
+		 * entrance of this Cluster.
+		 */
+		public int indexOf(long point) {
+			for (int i = 0; i < entrances.length; i++) {
+				if (entrances[i] == point) {
+					return i;
+				}
+			}
+			return -1;
+		}
+		
+	}
+	
+	/**
+	 * A point that has been reached in a route search.
+	 */
+	private static class SearchNode implements Comparable<SearchNode> {
+		
+		/**
+		 * The steps taken to reach the point plus the estimated steps left.
+		 */
+		public final int estimate;
+		
+		/**
+		 * The number of steps taken to reach the point.
+		 */
+		public final int steps;
+		
+		/**
+		 * The point that was reached.
+		 */
+		public final long point;
+		
+		/**
+		 * Creates a new SearchNode.
+		 * 
+		 * @param point The point that was reached.
+		 * @param steps The number of steps taken to reach it.
+		 * @param estimate The estimated total length of the route.
+		 */
+		public SearchNode(long point, int steps, int estimate) {
+			this.point = point;
+			this.steps = steps;
+			this.estimate = estimate;
+		}
+		
+		@Override
+		public int compareTo(SearchNode other) {
+			if (estimate != other.estimate) {
+				return (estimate < other.estimate) ? -1 : 1;
+			}
+			if (steps != other.steps) {
+				return (steps > other.steps) ? -1 : 1;
+			}
+			return 0;
+		}
+		
+	}
+	
+	/**
+	 * The mask that allows every direction to be taken from the start of a
+	 * local search.
+	 */
+	public static final byte ALL_DIRECTIONS = (byte) 0xff;
+	
+	/**
+	 * The width and height of each cluster, in tiles.
+	 */
+	public static final int CLUSTER_SIZE = 16;
+	
+	/**
+	 * The most waypoints that a route search will consider before giving up.
+	 */
+	public static final int MAX_ROUTE_EXPANSIONS = 1 << 16;
+	
+	/**
+	 * The key that stands for the goal in a route search.
+	 */
+	private static final long GOAL = -1L;
+	
+	/**
+	 * Marks a distance between two points that cannot reach each other.
+	 */
+	private static final int UNREACHABLE = -1;
+	
+	/**
+	 * The clusters that have been built, keyed by packed cluster coordinates.
+	 */
+	private final Map<Long, Cluster> clusters;
+	
+	/**
+	 * The height of the Land, in tiles.
+	 */
+	private final int height;
+	
+	/**
+	 * The regions of the tiles, used to reject routes that cannot exist, or
+	 * null if they are not known.
+	 */
+	private final RegionMap regions;
+	
+	/**
+	 * The tiles that routes are found through.
+	 */
+	private final Grid<Tile> tiles;
+	
+	/**
+	 * Incremented each time that a tile changes.
+	 */
+	private final AtomicInteger version;
+	
+	/**
+	 * The width of the Land, in tiles.
+	 */
+	private final int width;
+	
+	/**
+	 * Creates a new PathMap. No clusters are built until they are needed.
+	 * 
+	 * @param tiles The tiles to find routes through.
+	 * @param regions The regions of the tiles, or null if they are not known.
+	 * If given, routes between different regions are rejected without a
+	 * search.
+	 */
+	public PathMap(Grid<Tile> tiles, RegionMap regions) {
+		this.tiles = tiles;
+		this.regions = regions;
+		width = tiles.getSize().width;
+		height = tiles.getSize().height;
+		clusters = new ConcurrentHashMap<Long, Cluster>();
+		version = new AtomicInteger();
+	}
+	
+	/**
+	 * Gets the distance between two points in steps, ignoring obstacles.
+	 * 
+	 * @param x1 The x-coordinate of the first point.
+	 * @param y1 The y-coordinate of the first point.
+	 * @param x2 The x-coordinate of the second point.
+	 * @param y2 The y-coordinate of the second point.
+	 * 
+	 * @return The distance. As diagonal steps are allowed, this is the larger
+	 * of the differences between the coordinates.
+	 */
+	public static int distance(int x1, int y1, int x2, int y2) {
+		return Math.max(Math.abs(x1 - x2), Math.abs(y1 - y2));
+	}
+	
+	/**
+	 * Packs a point into a single long.
+	 * 
+	 * @param x The x-coordinate of the point.
+	 * @param y The y-coordinate of the point.
+	 * 
+	 * @return The packed point.
+	 */
+	public static long pack(int x, int y) {
+		return ((long) y << 32) | (x & 0xffffffffL);
+	}
+	
+	/**
+	 * Gets the x-coordinate of a packed point.
+	 * 
+	 * @param point The packed point.
+	 * 
+	 * @return The x-coordinate.
+	 */
+	public static int unpackX(long point) {
+		return (int) point;
+	}
+	
+	/**
+	 * Gets the y-coordinate of a packed point.
+	 * 
+	 * @param point The packed point.
+	 * 
+	 * @return The y-coordinate.
+	 */
+	public static int unpackY(long point) {
+		return (int) (point >> 32);
+	}
+	
+	/**
+	 * Finds a path between two points with an A* search over the tiles. The
+	 * search is limited to the rectangle that holds both points, enlarged by
+	 * a margin on every side.
+	 * 
+	 * @param sx The x-coordinate of the start.
+	 * @param sy The y-coordinate of the start.
+	 * @param gx The x-coordinate of the goal.
+	 * @param gy The y-coordinate of the goal.
+	 * @param startMask The directions that may be taken from the start, such
+	 * as a walk mask that excludes occupied tiles. Use ALL_DIRECTIONS to only
+	 * consider the walkability of tiles.
+	 * @param margin How far outside of the rectangle holding the two points
+	 * the search may go.
+	 * 
+	 * @return The packed points of every step of the path, not including the
+	 * start, or null if there is no such path.
+	 */
+	public long[] findLocalPath(int sx, int sy, int gx, int gy,
+			byte startMask, int margin) {
+		if (!isWalkable(gx, gy)) {
+			return null;
+		}
+		if (sx == gx && sy == gy) {
+			return new long[0];
+		}
+		int left = Math.max(0, Math.min(sx, gx) - margin);
+		int top = Math.max(0, Math.min(sy, gy) - margin);
+		int right = Math.min(width, Math.max(sx, gx) + margin + 1);
+		int bottom = Math.min(height, Math.max(sy, gy) + margin + 1);
+		int span = right - left;
+		int[] steps = new int[span * (bottom - top)];
+		int[] previous = new int[steps.length];
+		Arrays.fill(steps, UNREACHABLE);
+		int start = (sy - top) * span + (sx - left);
+		int goal = (gy - top) * span + (gx - left);
+		steps[start] = 0;
+		PriorityQueue<Long> open = new PriorityQueue<Long>();
+		open.add(((long) distance(sx, sy, gx, gy) << 32) | start);
+		boolean[] closed = new boolean[steps.length];
+		while (!open.isEmpty()) {
+			int current = (int) (long) open.poll();
+			if (current == goal) {
+				return tracePath(previous, start, goal, left, top, span);
+			}
+			if (closed[current]) {
+				continue;
+			}
+			closed[current] = true;
+			int cx = left + (current % span);
+			int cy = top + (current / span);
+			for (int d = 0; d < WalkGraph.DIRECTION_COUNT; d++) {
+				if (current == start && !WalkGraph.isValid(startMask, d)) {
+					continue;
+				}
+				int nx = cx + WalkGraph.getDeltaX(d);
+				int ny = cy + WalkGraph.getDeltaY(d);
+				if (nx < left || nx >= right || ny < top || ny >= bottom ||
+						!isWalkable(nx, ny)) {
+					continue;
+				}
+				int next = (ny - top) * span + (nx - left);
+				int cost = steps[current] + 1;
+				if (steps[next] == UNREACHABLE || cost < steps[next]) {
+					steps[next] = cost;
+					previous[next] = current;
+					long f = cost + distance(nx, ny, gx, gy);
+					open.add((f << 32) | next);
+				}
+			}
+		}
+		return null;
+	}
+	
+	/**
+	 * Finds a route between two points. If the points are close together, a
+	 * local search is tried first, in which case every step of the route is
+	 * given. Otherwise, the route is planned over the cluster abstraction and
+	 * consists of waypoints that are each within the same cluster as the one
+	 * before it or in the cluster next to it; findLocalPath() with a margin
+	 * of CLUSTER_SIZE can be used to get the steps between them.
+	 * 
+	 * @param sx The x-coordinate of the start.
+	 * @param sy The y-coordinate of the start.
+	 * @param gx The x-coordinate of the goal.
+	 * @param gy The y-coordinate of the goal.
+	 * 
+	 * @return The packed waypoints of the route, not including the start but
+	 * including the goal, or null if no route could be found.
+	 */
+	public long[] findRoute(int sx, int sy, int gx, int gy) {
+		if (!isWalkable(sx, sy) || !isWalkable(gx, gy)) {
+			return null;
+		}
+		if (regions != null && !regions.isReachable(sx, sy, gx, gy)) {
+			return null;
+		}
+		if (distance(sx, sy, gx, gy) <= CLUSTER_SIZE) {
+			long[] path = findLocalPath(sx, sy, gx, gy, ALL_DIRECTIONS,
+					CLUSTER_SIZE);
+			if (path != null) {
+				return path;
+			}
+		}
+		return findAbstractRoute(sx, sy, gx, gy);
+	}
+	
+	/**
+	 * Gets the number of clusters that are currently built.
+	 * 
+	 * @return The number of built clusters.
+	 */
+	public int getClusterCount() {
+		return clusters.size();
+	}
+	
+	/**
+	 * Gets the version of the tiles that routes are found through. This
+	 * changes each time that a tile changes, after which previously found
+	 * routes may no longer be valid.
+	 * 
+	 * @return The version.
+	 */
+	public int getVersion() {
+		return version.get();
+	}
+	
+	/**
+	 * Discards the parts of the abstraction that depend on a tile. This must
+	 * be called after the tile changes. The cluster that holds the tile is
+	 * discarded, along with any neighbouring cluster whose entrances the tile
+	 * could affect.
+	 * 
+	 * @param x The x-coordinate of the tile that changed.
+	 * @param y The y-coordinate of the tile that changed.
+	 */
+	public void invalidate(int x, int y) {
+		int cx = x / CLUSTER_SIZE;
+		int cy = y / CLUSTER_SIZE;
+		int ox = x % CLUSTER_SIZE;
+		int oy = y % CLUSTER_SIZE;
+		clusters.remove(pack(cx, cy));
+		if (ox == 0) {
+			clusters.remove(pack(cx - 1, cy));
+		}
+		if (ox == CLUSTER_SIZE - 1) {
+			clusters.remove(pack(cx + 1, cy));
+		}
+		if (oy == 0) {
+			clusters.remove(pack(cx, cy - 1));
+		}
+		if (oy == CLUSTER_SIZE - 1) {
+			clusters.remove(pack(cx, cy + 1));
+		}
+		version.incrementAndGet();
+	}
+	
+	/**
+	 * Adds the entrances along one side of a cluster. The side is scanned for
+	 * runs of tiles that are walkable on both sides of the boundary, and one
+	 * entrance is placed in the middle of each run. The scan gives the same
+	 * runs from either side of the boundary, so neighbouring clusters agree
+	 * on where their shared entrances are.
+	 * 
+	 * @param entrances The entrances found so far, mapped to the points in
+	 * other clusters that they lead to.
+	 * @param x The x-coordinate of the first tile of the side.
+	 * @param y The y-coordinate of the first tile of the side.
+	 * @param length The number of tiles along the side.
+	 * @param stepX The change in x-coordinate from one tile of the side to
+	 * the next.
+	 * @param stepY The change in y-coordinate from one tile of the side to
+	 * the next.
+	 * @param outX The change in x-coordinate from a tile of the side to the
+	 * tile across the boundary.
+	 * @param outY The change in y-coordinate from a tile of the side to the
+	 * tile across the boundary.
+	 */
+	private void addEntrances(Map<Long, List<Long>> entrances, int x, int y,
+			int length, int stepX, int stepY, int outX, int outY) {
+		if (!tiles.contains(x + outX, y + outY)) {
+			return;
+		}
+		int runStart = -1;
+		for (int i = 0; i <= length; i++) {
+			int tx = x + (i * stepX);
+			int ty = y + (i * stepY);
+			boolean open = (i < length && isWalkable(tx, ty) &&
+					isWalkable(tx + outX, ty + outY));
+			if (open && runStart < 0) {
+				runStart = i;
+			} else if (!open && runStart >= 0) {
+				int mid = (runStart + i - 1) / 2;
+				int ex = x + (mid * stepX);
+				int ey = y + (mid * stepY);
+				long entrance = pack(ex, ey);
+				List<Long> exits = entrances.get(entrance);
+				if (exits == null) {
+					exits = new ArrayList<Long>();
+					entrances.put(entrance, exits);
+				}
+				exits.add(pack(ex + outX, ey + outY));
+				runStart = -1;
+			}
+		}
+	}
+	
+	/**
+	 * Builds the abstraction of a cluster.
+	 * 
+	 * @param cx The x-coordinate of the cluster, in clusters.
+	 * @param cy The y-coordinate of the cluster, in clusters.
+	 * 
+	 * @return The built cluster.
+	 */
+	private Cluster buildCluster(int cx, int cy) {
+		int left = cx * CLUSTER_SIZE;
+		int top = cy * CLUSTER_SIZE;
+		int w = Math.min(CLUSTER_SIZE, width - left);
+		int h = Math.min(CLUSTER_SIZE, height - top);
+		Map<Long, List<Long>> found = new LinkedHashMap<Long, List<Long>>();
+		addEntrances(found, left, top, w, 1, 0, 0, -1);
+		addEntrances(found, left + w - 1, top, h, 0, 1, 1, 0);
+		addEntrances(found, left, top + h - 1, w, 1, 0, 0, 1);
+		addEntrances(found, left, top, h, 0, 1, -1, 0);
+		int count = found.size();
+		long[] entrances = new long[count];
+		long[][] exits = new long[count][];
+		int i = 0;
+		for (Map.Entry<Long, List<Long>> e : found.entrySet()) {
+			entrances[i] = e.getKey();
+			List<Long> list = e.getValue();
+			exits[i] = new long[list.size()];
+			for (int j = 0; j < exits[i].length; j++) {
+				exits[i][j] = list.get(j);
+			}
+			i++;
+		}
+		int[] distances = new int[count * count];
+		for (i = 0; i < count; i++) {
+			int ex = unpackX(entrances[i]);
+			int ey = unpackY(entrances[i]);
+			int[] flood = floodCluster(ex, ey, left, top, w, h);
+			for (int j = 0; j < count; j++) {
+				int tx = unpackX(entrances[j]) - left;
+				int ty = unpackY(entrances[j]) - top;
+				distances[(i * count) + j] = flood[(ty * w) + tx];
+			}
+		}
+		return new Cluster(entrances, exits, distances);
+	}
+	
+	/**
+	 * Plans a route over the cluster abstraction.
+	 * 
+	 * @param sx The x-coordinate of the start.
+	 * @param sy The y-coordinate of the start.
+	 * @param gx The x-coordinate of the goal.
+	 * @param gy The y-coordinate of the goal.
+	 * 
+	 * @return The waypoints of the route, or null if there is no route or it
+	 * could not be found within MAX_ROUTE_EXPANSIONS waypoints.
+	 */
+	private long[] findAbstractRoute(int sx, int sy, int gx, int gy) {
+		int scx = sx / CLUSTER_SIZE;
+		int scy = sy / CLUSTER_SIZE;
+		int gcx = gx / CLUSTER_SIZE;
+		int gcy = gy / CLUSTER_SIZE;
+		Cluster startCluster = getCluster(scx, scy);
+		Cluster goalCluster = getCluster(gcx, gcy);
+		int[] fromStart = floodFrom(sx, sy, startCluster, scx, scy);
+		int[] toGoal = floodFrom(gx, gy, goalCluster, gcx, gcy);
+		Map<Long, Integer> steps = new HashMap<Long, Integer>();
+		Map<Long, Long> previous = new HashMap<Long, Long>();
+		PriorityQueue<SearchNode> open = new PriorityQueue<SearchNode>();
+		long start = pack(sx, sy);
+		if (scx == gcx && scy == gcy) {
+			int gi = (gy % CLUSTER_SIZE) * clusterWidth(scx) +
+					(gx % CLUSTER_SIZE);
+			int direct = floodCluster(sx, sy, scx * CLUSTER_SIZE,
+					scy * CLUSTER_SIZE, clusterWidth(scx),
+					clusterHeight(scy))[gi];
+			if (direct != UNREACHABLE) {
+				relax(open, steps, previous, GOAL, start, direct, 0);
+			}
+		}
+		for (int i = 0; i < startCluster.entrances.length; i++) {
+			if (fromStart[i] != UNREACHABLE) {
+				long e = startCluster.entrances[i];
+				int h = distance(unpackX(e), unpackY(e), gx, gy);
+				relax(open, steps, previous, e, start, fromStart[i], h);
+			}
+		}
+		int expansions = 0;
+		while (!open.isEmpty() && expansions < MAX_ROUTE_EXPANSIONS) {
+			SearchNode node = open.poll();
+			if (node.point == GOAL) {
+				return traceRoute(previous, start, pack(gx, gy));
+			}
+			if (node.steps != steps.get(node.point)) {
+				continue;
+			}
+			expansions++;
+			int x = unpackX(node.point);
+			int y = unpackY(node.point);
+			int cx = x / CLUSTER_SIZE;
+			int cy = y / CLUSTER_SIZE;
+			Cluster c = getCluster(cx, cy);
+			int index = c.indexOf(node.point);
+			int count = c.entrances.length;
+			if (cx == gcx && cy == gcy && toGoal[index] != UNREACHABLE) {
+				relax(open, steps, previous, GOAL, node.point,
+						node.steps + toGoal[index], 0);
+			}
+			for (int j = 0; j < count; j++) {
+				int d = c.distances[(index * count) + j];
+				if (j != index && d != UNREACHABLE) {
+					long e = c.entrances[j];
+					int h = distance(unpackX(e), unpackY(e), gx, gy);
+					relax(open, steps, previous, e, node.point,
+							node.steps + d, h);
+				}
+			}
+			for (long e : c.exits[index]) {
+				int h = distance(unpackX(e), unpackY(e), gx, gy);
+				relax(open, steps, previous, e, node.point, node.steps + 1,
+						h);
+			}
+		}
+		return null;
+	}
+	
+	/**
+	 * Gets the height of a row of clusters.
+	 * 
+	 * @param cy The y-coordinate of the cluster row, in clusters.
+	 * 
+	 * @return The height of the clusters in the row.
+	 */
+	private int clusterHeight(int cy) {
+		return Math.min(CLUSTER_SIZE, height - (cy * CLUSTER_SIZE));
+	}
+	
+	/**
+	 * Gets the width of a column of clusters.
+	 * 
+	 * @param cx The x-coordinate of the cluster column, in clusters.
+	 * 
+	 * @return The width of the clusters in the column.
+	 */
+	private int clusterWidth(int cx) {
+		return Math.min(CLUSTER_SIZE, width - (cx * CLUSTER_SIZE));
+	}
+	
+	/**
+	 * Finds the number of steps from a point to every tile of the cluster that
+	 * contains it, without leaving the cluster.
+	 * 
+	 * @param x The x-coordinate of the point.
+	 * @param y The y-coordinate of the point.
+	 * @param left The x-coordinate of the cluster's left edge.
+	 * @param top The y-coordinate of the cluster's top edge.
+	 * @param w The width of the cluster.
+	 * @param h The height of the cluster.
+	 * 
+	 * @return The distance to each tile of the cluster in row-major order,
+	 * or UNREACHABLE for tiles that cannot be reached.
+	 */
+	private int[] floodCluster(int x, int y, int left, int top, int w,
+			int h) {
+		int[] flood = new int[w * h];
+		Arrays.fill(flood, UNREACHABLE);
+		int[] queue = new int[flood.length];
+		int head = 0;
+		int tail = 0;
+		int origin = ((y - top) * w) + (x - left);
+		flood[origin] = 0;
+		queue[tail++] = origin;
+		while (head < tail) {
+			int current = queue[head++];
+			int cx = left + (current % w);
+			int cy = top + (current / w);
+			for (int d = 0; d < WalkGraph.DIRECTION_COUNT; d++) {
+				int nx = cx + WalkGraph.getDeltaX(d);
+				int ny = cy + WalkGraph.getDeltaY(d);
+				if (nx < left || nx >= left + w || ny < top ||
+						ny >= top + h) {
+					continue;
+				}
+				int next = ((ny - top) * w) + (nx - left);
+				if (flood[next] == UNREACHABLE && isWalkable(nx, ny)) {
+					flood[next] = flood[current] + 1;
+					queue[tail++] = next;
+				}
+			}
+		}
+		return flood;
+	}
+	
+	/**
+	 * Finds the number of steps from a point to each entrance of the cluster
+	 * that contains it.
+	 * 
+	 * @param x The x-coordinate of the point.
+	 * @param y The y-coordinate of the point.
+	 * @param c The cluster that contains the point.
+	 * @param cx The x-coordinate of the cluster, in clusters.
+	 * @param cy The y-coordinate of the cluster, in clusters.
+	 * 
+	 * @return The distance to each entrance, or UNREACHABLE for entrances that
+	 * cannot be reached without leaving the cluster.
+	 */
+	private int[] floodFrom(int x, int y, Cluster c, int cx, int cy) {
+		int left = cx * CLUSTER_SIZE;
+		int top = cy * CLUSTER_SIZE;
+		int w = clusterWidth(cx);
+		int[] flood = floodCluster(x, y, left, top, w, clusterHeight(cy));
+		int[] distances = new int[c.entrances.length];
+		for (int i = 0; i < distances.length; i++) {
+			int tx = unpackX(c.entrances[i]) - left;
+			int ty = unpackY(c.entrances[i]) - top;
+			distances[i] = flood[(ty * w) + tx];
+		}
+		return distances;
+	}
+	
+	/**
+	 * Gets a cluster, building it if it has not been built.
+	 * 
+	 * @param cx The x-coordinate of the cluster, in clusters.
+	 * @param cy The y-coordinate of the cluster, in clusters.
+	 * 
+	 * @return The cluster.
+	 */
+	private Cluster getCluster(int cx, int cy) {
+		long key = pack(cx, cy);
+		Cluster c = clusters.get(key);
+		if (c == null) {
+			c = buildCluster(cx, cy);
+			clusters.put(key, c);
+		}
+		return c;
+	}
+	
+	/**
+	 * Checks whether a tile can be walked on.
+	 * 
+	 * @param x The x-coordinate of the tile.
+	 * @param y The y-coordinate of the tile.
+	 * 
+	 * @return Whether the tile is in the Land and is walkable.
+	 */
+	private boolean isWalkable(int x, int y) {
+		return (tiles.contains(x, y) && tiles.itemAt(x, y).isWalkable());
+	}
+	
+	/**
+	 * Records a way of reaching a point in a route search if it is shorter
+	 * than any found before.
+	 * 
+	 * @param open The points waiting to be expanded.
+	 * @param steps The shortest known number of steps to each point.
+	 * @param previous The point before each point on its shortest route.
+	 * @param point The point that was reached.
+	 * @param from The point that it was reached from.
+	 * @param cost The number of steps taken to reach it.
+	 * @param heuristic The estimated number of steps left to the goal.
+	 */
+	private void relax(PriorityQueue<SearchNode> open, Map<Long, Integer> steps,
+			Map<Long, Long> previous, long point, long from, int cost,
+			int heuristic) {
+		Integer known = steps.get(point);
+		if (known == null || cost < known) {
+			steps.put(point, cost);
+			previous.put(point, from);
+			open.add(new SearchNode(point, cost, cost + heuristic));
+		}
+	}
+	
+	/**
+	 * Builds a path from the results of a local search.
+	 * 
+	 * @param previous The index of the tile before each tile on its path.
+	 * @param start The index of the start.
+	 * @param goal The index of the goal.
+	 * @param left The x-coordinate of the left edge of the search area.
+	 * @param top The y-coordinate of the top edge of the search area.
+	 * @param span The width of the search area.
+	 * 
+	 * @return The packed points of the path, not including the start.
+	 */
+	private long[] tracePath(int[] previous, int start, int goal, int left,
+			int top, int span) {
+		int length = 0;
+		for (int i = goal; i != start; i = previous[i]) {
+			length++;
+		}
+		long[] path = new long[length];
+		for (int i = goal; i != start; i = previous[i]) {
+			path[--length] = pack(left + (i % span), top + (i / span));
+		}
+		return path;
+	}
+	
+	/**
+	 * Builds a route from the results of a route search.
+	 * 
+	 * @param previous The point before each point on its shortest route.
+	 * @param start The start of the route.
+	 * @param goal The goal of the route.
+	 * 
+	 * @return The waypoints of the route, not including the start.
+	 */
+	private long[] traceRoute(Map<Long, Long> previous, long start,
+			long goal) {
+		List<Long> reversed = new ArrayList<Long>();
+		reversed.add(goal);
+		long p = previous.get(GOAL);
+		while (p != start) {
+			if (p != goal) {
+				reversed.add(p);
+			}
+			p = previous.get(p);
+		}
+		long[] route = new long[reversed.size()];
+		for (int i = 0; i < route.length; i++) {
+			route[i] = reversed.get(route.length - 1 - i);
+		}
+		return route;
+	}
+	
+}
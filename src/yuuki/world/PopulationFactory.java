@@ -92,6 +92,16 @@ public class PopulationFactory {
 		return tiles.createTile(id);
 	}
 	
+	/**
+	 * Gets the table of tile types that the created Tiles are from.
+	 * 
+	 * @return The TileTable.
+	 * @see TileFactory#getTileTable()
+	 */
+	public TileTable getTileTable() {
+		return tiles.getTileTable();
+	}
+	
 	/**
 	 * Creates a void Tile instance. Equivalent to calling
 	 * createTile(VOID_TILE).
@@ -0,0 +1,313 @@
+package yuuki.world;
+
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * How the lands of a World are connected by their portals. The graph is built
+ * once from the portal records of each land, which are known from the land
+ * files without loading the lands, after which the shortest chain of portals
+ * between every pair of lands is worked out with a breadth-first search from
+ * each land. Queries then only look up the stored results.
+ * 
+ * Portals to lands that are not in the graph, or back into the land that
+ * they are in, are not used for routes. If a land has several portals to the
+ * same land, routes use the one nearest the top left of the land, and if
+ * several routes are equally short, the one through the alphabetically first
+ * lands is used, so routes do not depend on the order in which portals were
+ * loaded.
+ */
+public class PortalGraph {
+	
+	/**
+	 * The distance between two lands that are not connected.
+	 */
+	public static final int NO_ROUTE = -1;
+	
+	/**
+	 * The number of portals on the shortest route between each pair of lands,
+	 * indexed by the source land and then the destination land.
+	 */
+	private final int[][] distances;
+	
+	/**
+	 * The portals that routes use to leave each land, in the same order as
+	 * the links.
+	 */
+	private final PortalLink[][] exits;
+	
+	/**
+	 * The index of each land, by name.
+	 */
+	private final Map<String, Integer> indexes;
+	
+	/**
+	 * The indexes of the lands that each land has a portal to, in ascending
+	 * order.
+	 */
+	private final int[][] links;
+	
+	/**
+	 * The names of the lands in the graph, in order of index.
+	 */
+	private final String[] names;
+	
+	/**
+	 * The lands that each land has a portal to, in order of index.
+	 */
+	private final List<List<String>> neighbours;
+	
+	/**
+	 * The index of the first land to go to on the shortest route between each
+	 * pair of lands, indexed by the source land and then the destination land.
+	 */
+	private final int[][] nextLands;
+	
+	/**
+	 * Creates a new PortalGraph and finds the routes between all of the given
+	 * lands.
+	 * 
+	 * @param portals The portals in each land, by the name of the land.
+	 */
+	public PortalGraph(Map<String, ? extends Collection<PortalLink>> portals) {
+		int count = portals.size();
+		names = portals.keySet().toArray(new String[count]);
+		Arrays.sort(names);
+		indexes = new HashMap<String, Integer>();
+		for (int i = 0; i < count; i++) {
+			indexes.put(names[i], i);
+		}
+		links = new int[count][];
+		exits = new PortalLink[count][];
+		neighbours = new ArrayList<List<String>>(count);
+		for (int i = 0; i < count; i++) {
+			findExits(i, portals.get(names[i]));
+			List<String> n = new ArrayList<String>(links[i].length);
+			for (int j : links[i]) {
+				n.add(names[j]);
+			}
+			neighbours.add(Collections.unmodifiableList(n));
+		}
+		distances = new int[count][count];
+		nextLands = new int[count][count];
+		for (int i = 0; i < count; i++) {
+			findRoutesFrom(i);
+		}
+	}
+	
+	/**
+	 * Finds the shortest chain of portals from one land to another.
+	 * 
+	 * @param from The name of the land to start in.
+	 * @param to The name of the land to reach.
+	 * 
+	 * @return The portals to go through, in order; the last one arrives in
+	 * the destination. This is empty if the two lands are the same, and null
+	 * if there is no route or either land is not in the graph.
+	 */
+	public List<PortalLink> findRoute(String from, String to) {
+		Integer source = indexes.get(from);
+		Integer target = indexes.get(to);
+		if (source == null || target == null ||
+				distances[source][target] == NO_ROUTE) {
+			return null;
+		}
+		int length = distances[source][target];
+		List<PortalLink> route = new ArrayList<PortalLink>(length);
+		int current = source;
+		while (current != target) {
+			int next = nextLands[current][target];
+			route.add(getExit(current, next));
+			current = next;
+		}
+		return route;
+	}
+	
+	/**
+	 * Gets the number of portals on the shortest route between two lands.
+	 * 
+	 * @param from The name of the land to start in.
+	 * @param to The name of the land to reach.
+	 * 
+	 * @return The number of portals, or NO_ROUTE if there is no route or
+	 * either land is not in the graph.
+	 */
+	public int getDistance(String from, String to) {
+		Integer source = indexes.get(from);
+		Integer target = indexes.get(to);
+		if (source == null || target == null) {
+			return NO_ROUTE;
+		}
+		return distances[source][target];
+	}
+	
+	/**
+	 * Gets the names of the lands in this PortalGraph.
+	 * 
+	 * @return The land names, in alphabetical order.
+	 */
+	public List<String> getLandNames() {
+		return Collections.unmodifiableList(Arrays.asList(names));
+	}
+	
+	/**
+	 * Gets the other lands that can be reached from a land through at most a
+	 * given number of portals.
+	 * 
+	 * @param land The name of the land to start in.
+	 * @param distance The most portals to go through.
+	 * 
+	 * @return The names of the lands, nearest first and then in alphabetical
+	 * order, or an empty list if the land is not in the graph.
+	 */
+	public List<String> getLandsWithin(String land, int distance) {
+		Integer source = indexes.get(land);
+		if (source == null) {
+			return Collections.emptyList();
+		}
+		int[] dist = distances[source];
+		List<String> within = new ArrayList<String>();
+		for (int d = 1; d <= distance; d++) {
+			for (int i = 0; i < names.length; i++) {
+				if (dist[i] == d) {
+					within.add(names[i]);
+				}
+			}
+		}
+		return within;
+	}
+	
+	/**
+	 * Gets the lands that a land has portals to.
+	 * 
+	 * @param land The name of the land.
+	 * 
+	 * @return The names of the linked lands in alphabetical order, or an empty
+	 * list if the land is not in the graph.
+	 */
+	public List<String> getNeighbours(String land) {
+		Integer index = indexes.get(land);
+		if (index == null) {
+			return Collections.emptyList();
+		}
+		return neighbours.get(index);
+	}
+	
+	/**
+	 * Gets the first portal to go through on the way from one land to
+	 * another.
+	 * 
+	 * @param from The name of the land to start in.
+	 * @param to The name of the land to reach.
+	 * 
+	 * @return The portal, or null if the lands are the same, there is no
+	 * route, or either land is not in the graph.
+	 */
+	public PortalLink getNextPortal(String from, String to) {
+		Integer source = indexes.get(from);
+		Integer target = indexes.get(to);
+		if (source == null || target == null || source.equals(target) ||
+				distances[source][target] == NO_ROUTE) {
+			return null;
+		}
+		return getExit(source, nextLands[source][target]);
+	}
+	
+	/**
+	 * Finds the shortest routes from one land to every other with a
+	 * breadth-first search.
+	 * 
+	 * @param source The index of the land to start from.
+	 */
+	private void findRoutesFrom(int source) {
+		int[] dist = distances[source];
+		int[] first = nextLands[source];
+		Arrays.fill(dist, NO_ROUTE);
+		dist[source] = 0;
+		int[] queue = new int[names.length];
+		int head = 0;
+		int tail = 0;
+		queue[tail++] = source;
+		while (head < tail) {
+			int current = queue[head++];
+			for (int next : links[current]) {
+				if (dist[next] == NO_ROUTE) {
+					dist[next] = dist[current] + 1;
+					first[next] = (current == source) ? next : first[current];
+					queue[tail++] = next;
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Finds the portals of a land that can be used in routes, and stores them
+	 * with the lands that they lead to.
+	 * 
+	 * @param index The index of the land.
+	 * @param portals The portals in the land, or null if it has none.
+	 */
+	private void findExits(int index, Collection<PortalLink> portals) {
+		PortalLink[] best = new PortalLink[names.length];
+		int count = 0;
+		if (portals != null) {
+			for (PortalLink p : portals) {
+				Integer i = indexes.get(p.getLinkedLand());
+				if (i == null || i == index) {
+					continue;
+				}
+				if (best[i] == null) {
+					count++;
+					best[i] = p;
+				} else if (isBefore(p, best[i])) {
+					best[i] = p;
+				}
+			}
+		}
+		links[index] = new int[count];
+		exits[index] = new PortalLink[count];
+		int n = 0;
+		for (int i = 0; i < best.length; i++) {
+			if (best[i] != null) {
+				links[index][n] = i;
+				exits[index][n] = best[i];
+				n++;
+			}
+		}
+	}
+	
+	/**
+	 * Gets the portal that routes use to go from one land to a land that it
+	 * links to.
+	 * 
+	 * @param from The index of the land to leave.
+	 * @param to The index of the linked land.
+	 * 
+	 * @return The portal.
+	 */
+	private PortalLink getExit(int from, int to) {
+		return exits[from][Arrays.binarySearch(links[from], to)];
+	}
+	
+	/**
+	 * Checks whether a portal is nearer the top left of its land than
+	 * another, going by rows and then columns.
+	 * 
+	 * @param a The first portal.
+	 * @param b The second portal.
+	 * 
+	 * @return Whether the first portal comes before the second.
+	 */
+	private static boolean isBefore(PortalLink a, PortalLink b) {
+		Point p = a.getLocation();
+		Point q = b.getLocation();
+		return (p.y < q.y) || (p.y == q.y && p.x < q.x);
+	}
+	
+}
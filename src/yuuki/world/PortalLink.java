@@ -0,0 +1,96 @@
+package yuuki.world;
+
+import java.awt.Point;
+
+/**
+ * A portal as recorded in a land file: where it is, the Land that it leads
+ * to, and where it arrives there. These are known without loading the Land
+ * that the portal is in, so they can be used to plan routes between Lands
+ * that are not loaded.
+ */
+public class PortalLink {
+	
+	/**
+	 * The name of the Land that the portal is in.
+	 */
+	private final String land;
+	
+	/**
+	 * The point in the linked Land that the portal arrives at.
+	 */
+	private final Point link;
+	
+	/**
+	 * The name of the Land that the portal leads to.
+	 */
+	private final String linkedLand;
+	
+	/**
+	 * The location of the portal in its Land.
+	 */
+	private final Point location;
+	
+	/**
+	 * Creates a new PortalLink.
+	 * 
+	 * @param land The name of the Land that the portal is in.
+	 * @param location The location of the portal in its Land.
+	 * @param linkedLand The name of the Land that the portal leads to.
+	 * @param link The point in the linked Land that the portal arrives at.
+	 */
+	public PortalLink(String land, Point location, String linkedLand,
+			Point link) {
+		this.land = land;
+		this.location = new Point(location);
+		this.linkedLand = linkedLand;
+		this.link = new Point(link);
+	}
+	
+	/**
+	 * Creates a new PortalLink from a portal in a Land.
+	 * 
+	 * @param land The name of the Land that the portal is in.
+	 * @param portal The portal.
+	 */
+	public PortalLink(String land, Portal portal) {
+		this(land, portal.getLocation(), portal.getLinkedLand(),
+				portal.getLink());
+	}
+	
+	/**
+	 * Gets the name of the Land that the portal is in.
+	 * 
+	 * @return The name of the Land.
+	 */
+	public String getLand() {
+		return land;
+	}
+	
+	/**
+	 * Gets the point in the linked Land that the portal arrives at.
+	 * 
+	 * @return The arrival point.
+	 */
+	public Point getLink() {
+		return new Point(link);
+	}
+	
+	/**
+	 * Gets the name of the Land that the portal leads to.
+	 * 
+	 * @return The name of the linked Land.
+	 */
+	public String getLinkedLand() {
+		return linkedLand;
+	}
+	
+	/**
+	 * Gets the location of the portal in its Land.
+	 * 
+	 * @return The location.
+	 */
+	public Point getLocation() {
+		return new Point(location);
+	}
+	
+}
@@ -0,0 +1,30 @@
+package yuuki.world;
+
+/**
+ * Listens for residents coming near a ProximityTrigger and going away from
+ * it again. Listeners are called by the Land that the trigger is in, at the
+ * end of the advancement in which the change happened and on the thread that
+ * advanced the Land. They may add or remove triggers and wake residents, but
+ * must not block.
+ */
+public interface ProximityListener {
+	
+	/**
+	 * Fired when a resident comes within the radius of a trigger.
+	 * 
+	 * @param trigger The trigger that was entered.
+	 * @param visitor The resident that entered it.
+	 */
+	public void triggerEntered(ProximityTrigger trigger, Movable visitor);
+	
+	/**
+	 * Fired when a resident that was within the radius of a trigger is no
+	 * longer within it, either because it moved away, it left the Land, or
+	 * the trigger was removed.
+	 * 
+	 * @param trigger The trigger that was left.
+	 * @param visitor The resident that left it.
+	 */
+	public void triggerLeft(ProximityTrigger trigger, Movable visitor);
+	
+}
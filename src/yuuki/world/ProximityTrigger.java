@@ -0,0 +1,133 @@
+package yuuki.world;
+
+import java.awt.Point;
+
+/**
+ * An area of a Land that reacts to residents coming into it, such as the
+ * range at which a monster notices the player, the range at which an NPC
+ * starts talking, or a trap tile. The area is a square centered either on a
+ * fixed point or on a resident that it follows around.
+ * 
+ * Triggers only react to residents that are not autonomous, such as the
+ * player. Distance is measured as the larger of the distances along each
+ * axis, so a trigger with a radius of 0 only covers the tile it is on.
+ */
+public class ProximityTrigger {
+	
+	/**
+	 * The resident that the trigger follows, or null if it is fixed.
+	 */
+	private final Movable anchor;
+	
+	/**
+	 * Is told when residents come into and go out of the trigger.
+	 */
+	private final ProximityListener listener;
+	
+	/**
+	 * The center of the trigger if it is fixed, or null if it follows a
+	 * resident.
+	 */
+	private final Point location;
+	
+	/**
+	 * The number of tiles that the trigger reaches from its center.
+	 */
+	private final int radius;
+	
+	/**
+	 * Creates a new ProximityTrigger that follows a resident.
+	 * 
+	 * @param anchor The resident to center the trigger on. It must be a
+	 * resident of the Land that the trigger is added to.
+	 * @param radius The number of tiles that the trigger reaches.
+	 * @param listener Is told when residents come near the anchor.
+	 */
+	public ProximityTrigger(Movable anchor, int radius,
+			ProximityListener listener) {
+		this(anchor, null, radius, listener);
+	}
+	
+	/**
+	 * Creates a new ProximityTrigger at a fixed point.
+	 * 
+	 * @param location The center of the trigger.
+	 * @param radius The number of tiles that the trigger reaches.
+	 * @param listener Is told when residents come near the point.
+	 */
+	public ProximityTrigger(Point location, int radius,
+			ProximityListener listener) {
+		this(null, new Point(location), radius, listener);
+	}
+	
+	/**
+	 * Creates a new ProximityTrigger.
+	 * 
+	 * @param anchor The resident to follow, or null.
+	 * @param location The fixed center, or null.
+	 * @param radius The number of tiles that the trigger reaches.
+	 * @param listener Is told when residents come near.
+	 */
+	private ProximityTrigger(Movable anchor, Point location, int radius,
+			ProximityListener listener) {
+		if (radius < 0) {
+			throw new IllegalArgumentException("radius must not be negative");
+		}
+		this.anchor = anchor;
+		this.location = location;
+		this.radius = radius;
+		this.listener = listener;
+	}
+	
+	/**
+	 * Checks whether a point is within this ProximityTrigger.
+	 * 
+	 * @param p The point to check.
+	 * 
+	 * @return Whether the point is within the radius of the center.
+	 */
+	public boolean contains(Point p) {
+		Point center = getLocation();
+		return Math.abs(p.x - center.x) <= radius &&
+				Math.abs(p.y - center.y) <= radius;
+	}
+	
+	/**
+	 * Gets the resident that this ProximityTrigger follows.
+	 * 
+	 * @return The anchor, or null if this trigger is at a fixed point.
+	 */
+	public Movable getAnchor() {
+		return anchor;
+	}
+	
+	/**
+	 * Gets the listener of this ProximityTrigger.
+	 * 
+	 * @return The listener.
+	 */
+	public ProximityListener getListener() {
+		return listener;
+	}
+	
+	/**
+	 * Gets the current center of this ProximityTrigger.
+	 * 
+	 * @return The location of the anchor, or the fixed point if there is no
+	 * anchor.
+	 */
+	public Point getLocation() {
+		return (anchor != null) ? anchor.getLocation() : location;
+	}
+	
+	/**
+	 * Gets the number of tiles that this ProximityTrigger reaches from its
+	 * center.
+	 * 
+	 * @return The radius.
+	 */
+	public int getRadius() {
+		return radius;
+	}
+	
+}
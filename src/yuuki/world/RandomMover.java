@@ -0,0 +1,22 @@
+package yuuki.world;
+
+import java.util.Random;
+
+/**
+ * An autonomous Movable whose moves are partly chosen at random. Each Land
+ * gives every RandomMover that becomes its resident a Random of its own,
+ * seeded from the Land's Random in the order that the residents were added.
+ * Moves are asked for on several threads at once, so drawing from one Random
+ * per resident keeps the outcome of a tick from depending on which thread
+ * asked first.
+ */
+public interface RandomMover extends Movable {
+	
+	/**
+	 * Sets the Random that this RandomMover chooses its moves with.
+	 * 
+	 * @param random The Random to use. It is only used by this RandomMover.
+	 */
+	public void setRandom(Random random);
+	
+}
@@ -0,0 +1,339 @@
+package yuuki.world;
+
+import java.util.Arrays;
+
+import yuuki.util.Grid;
+
+/**
+ * Labels the walkable tiles of a Land by the region that they are in, where a
+ * region is a group of tiles that can all be walked between. Each tile holds
+ * a label, and labels that have been found to be connected are joined in a
+ * union-find structure, so checking whether one tile can be reached from
+ * another takes constant time.
+ * 
+ * When a tile becomes walkable, the regions around it are joined. When a tile
+ * stops being walkable, the tiles around it are checked to see whether they
+ * are still connected to each other without it; only if they might not be is
+ * the region that it was in labelled again. Other regions are not touched.
+ */
+public class RegionMap {
+	
+	/**
+	 * The region of tiles that cannot be walked on.
+	 */
+	public static final int NO_REGION = -1;
+	
+	/**
+	 * The number of tiles in the Land.
+	 */
+	private final int area;
+	
+	/**
+	 * The label of each tile in row-major order, or NO_REGION for tiles that
+	 * are not walkable.
+	 */
+	private final int[] labels;
+	
+	/**
+	 * The number of labels that have been given out.
+	 */
+	private int labelCount;
+	
+	/**
+	 * The label that each label has been joined to, or the label itself if
+	 * it is the root of its region.
+	 */
+	private int[] parents;
+	
+	/**
+	 * The number of tiles in the region of each root label.
+	 */
+	private int[] sizes;
+	
+	/**
+	 * The tiles that the regions are found from.
+	 */
+	private final Grid<Tile> tiles;
+	
+	/**
+	 * The width of the Land, in tiles.
+	 */
+	private final int width;
+	
+	/**
+	 * Creates a new RegionMap and labels every tile.
+	 * 
+	 * @param tiles The tiles to find the regions of.
+	 */
+	public RegionMap(Grid<Tile> tiles) {
+		this.tiles = tiles;
+		width = tiles.getSize().width;
+		area = width * tiles.getSize().height;
+		labels = new int[area];
+		relabel();
+	}
+	
+	/**
+	 * Gets the region that a tile is in.
+	 * 
+	 * @param x The x-coordinate of the tile.
+	 * @param y The y-coordinate of the tile.
+	 * 
+	 * @return The region, or NO_REGION if the tile is not in the Land or is
+	 * not walkable. Two tiles are in the same region only if this gives the
+	 * same value for both.
+	 */
+	public int getRegion(int x, int y) {
+		if (!tiles.contains(x, y)) {
+			return NO_REGION;
+		}
+		int label = labels[(y * width) + x];
+		return (label == NO_REGION) ? NO_REGION : find(label);
+	}
+	
+	/**
+	 * Checks whether one tile can be walked to from another.
+	 * 
+	 * @param x1 The x-coordinate of the first tile.
+	 * @param y1 The y-coordinate of the first tile.
+	 * @param x2 The x-coordinate of the second tile.
+	 * @param y2 The y-coordinate of the second tile.
+	 * 
+	 * @return Whether both tiles are walkable and in the same region.
+	 */
+	public boolean isReachable(int x1, int y1, int x2, int y2) {
+		int region = getRegion(x1, y1);
+		return (region != NO_REGION && region == getRegion(x2, y2));
+	}
+	
+	/**
+	 * Updates the regions after a tile has changed. This must be called after
+	 * the tile is changed.
+	 * 
+	 * @param x The x-coordinate of the tile that changed.
+	 * @param y The y-coordinate of the tile that changed.
+	 */
+	public void update(int x, int y) {
+		int index = (y * width) + x;
+		boolean walkable = tiles.itemAt(x, y).isWalkable();
+		if (walkable && labels[index] == NO_REGION) {
+			int label = newLabel();
+			labels[index] = label;
+			for (int d = 0; d < WalkGraph.DIRECTION_COUNT; d++) {
+				int nx = x + WalkGraph.getDeltaX(d);
+				int ny = y + WalkGraph.getDeltaY(d);
+				if (tiles.contains(nx, ny)) {
+					int other = labels[(ny * width) + nx];
+					if (other != NO_REGION) {
+						union(label, other);
+					}
+				}
+			}
+		} else if (!walkable && labels[index] != NO_REGION) {
+			int root = find(labels[index]);
+			labels[index] = NO_REGION;
+			sizes[root]--;
+			if (!isRingConnected(x, y)) {
+				splitRegion(x, y, root);
+			}
+		}
+	}
+	
+	/**
+	 * Finds the root label of a label.
+	 * 
+	 * @param label The label to find the root of.
+	 * 
+	 * @return The root label.
+	 */
+	private int find(int label) {
+		while (parents[label] != label) {
+			label = parents[label];
+		}
+		return label;
+	}
+	
+	/**
+	 * Checks whether the walkable tiles around a tile are connected to each
+	 * other without passing through the tile itself. If they are, making the
+	 * tile unwalkable cannot split its region.
+	 * 
+	 * @param x The x-coordinate of the tile.
+	 * @param y The y-coordinate of the tile.
+	 * 
+	 * @return Whether the walkable tiles around the tile form a single group
+	 * among themselves.
+	 */
+	private boolean isRingConnected(int x, int y) {
+		int open = 0;
+		for (int d = 0; d < WalkGraph.DIRECTION_COUNT; d++) {
+			int nx = x + WalkGraph.getDeltaX(d);
+			int ny = y + WalkGraph.getDeltaY(d);
+			if (tiles.contains(nx, ny) && labels[(ny * width) + nx] !=
+					NO_REGION) {
+				open |= WalkGraph.getBit(d);
+			}
+		}
+		if (open == 0) {
+			return true;
+		}
+		int first = Integer.numberOfTrailingZeros(open);
+		int reached = WalkGraph.getBit(first);
+		int frontier = reached;
+		while (frontier != 0) {
+			int d = Integer.numberOfTrailingZeros(frontier);
+			frontier &= ~WalkGraph.getBit(d);
+			for (int e = 0; e < WalkGraph.DIRECTION_COUNT; e++) {
+				int bit = WalkGraph.getBit(e);
+				if ((open & bit) == 0 || (reached & bit) != 0) {
+					continue;
+				}
+				int dx = WalkGraph.getDeltaX(d) - WalkGraph.getDeltaX(e);
+				int dy = WalkGraph.getDeltaY(d) - WalkGraph.getDeltaY(e);
+				if (Math.abs(dx) <= 1 && Math.abs(dy) <= 1) {
+					reached |= bit;
+					frontier |= bit;
+				}
+			}
+		}
+		return (reached == open);
+	}
+	
+	/**
+	 * Gives out a new label that is the root of its own region of one tile.
+	 * 
+	 * @return The new label.
+	 */
+	private int newLabel() {
+		if (labelCount == parents.length) {
+			int capacity = Math.max(16, parents.length * 2);
+			parents = Arrays.copyOf(parents, capacity);
+			sizes = Arrays.copyOf(sizes, capacity);
+		}
+		int label = labelCount++;
+		parents[label] = label;
+		sizes[label] = 1;
+		return label;
+	}
+	
+	/**
+	 * Labels every tile from scratch. Each region gets a single label.
+	 */
+	private void relabel() {
+		Arrays.fill(labels, NO_REGION);
+		parents = new int[16];
+		sizes = new int[16];
+		labelCount = 0;
+		int[] queue = new int[area];
+		for (int start = 0; start < area; start++) {
+			if (labels[start] != NO_REGION ||
+					!tiles.itemAt(start % width, start / width).isWalkable()) {
+				continue;
+			}
+			int label = newLabel();
+			labels[start] = label;
+			int head = 0;
+			int tail = 0;
+			queue[tail++] = start;
+			while (head < tail) {
+				int current = queue[head++];
+				int cx = current % width;
+				int cy = current / width;
+				for (int d = 0; d < WalkGraph.DIRECTION_COUNT; d++) {
+					int nx = cx + WalkGraph.getDeltaX(d);
+					int ny = cy + WalkGraph.getDeltaY(d);
+					if (!tiles.contains(nx, ny)) {
+						continue;
+					}
+					int next = (ny * width) + nx;
+					if (labels[next] == NO_REGION &&
+							tiles.itemAt(nx, ny).isWalkable()) {
+						labels[next] = label;
+						queue[tail++] = next;
+					}
+				}
+			}
+			sizes[label] = tail;
+		}
+	}
+	
+	/**
+	 * Labels a region again after a tile in it has stopped being walkable.
+	 * Every tile of the region can be reached from one of the tiles around
+	 * the removed tile, so a flood from each of those tiles that has not yet
+	 * been relabelled gives each part of the split region its own label. If
+	 * too many old labels have built up, the whole Land is labelled again
+	 * instead.
+	 * 
+	 * @param x The x-coordinate of the tile that stopped being walkable.
+	 * @param y The y-coordinate of the tile that stopped being walkable.
+	 * @param root The root label of the region that the tile was in.
+	 */
+	private void splitRegion(int x, int y, int root) {
+		if (labelCount > area) {
+			relabel();
+			return;
+		}
+		int firstNew = labelCount;
+		int[] queue = new int[sizes[root]];
+		for (int d = 0; d < WalkGraph.DIRECTION_COUNT; d++) {
+			int sx = x + WalkGraph.getDeltaX(d);
+			int sy = y + WalkGraph.getDeltaY(d);
+			if (!tiles.contains(sx, sy)) {
+				continue;
+			}
+			int start = (sy * width) + sx;
+			int old = labels[start];
+			if (old == NO_REGION || old >= firstNew) {
+				continue;
+			}
+			int label = newLabel();
+			labels[start] = label;
+			int head = 0;
+			int tail = 0;
+			queue[tail++] = start;
+			while (head < tail) {
+				int current = queue[head++];
+				int cx = current % width;
+				int cy = current / width;
+				for (int e = 0; e < WalkGraph.DIRECTION_COUNT; e++) {
+					int nx = cx + WalkGraph.getDeltaX(e);
+					int ny = cy + WalkGraph.getDeltaY(e);
+					if (!tiles.contains(nx, ny)) {
+						continue;
+					}
+					int next = (ny * width) + nx;
+					int l = labels[next];
+					if (l != NO_REGION && l < firstNew && find(l) == root) {
+						labels[next] = label;
+						queue[tail++] = next;
+					}
+				}
+			}
+			sizes[label] = tail;
+		}
+	}
+	
+	/**
+	 * Joins the regions of two labels. The smaller region is placed under the
+	 * larger so that finding a root stays quick.
+	 * 
+	 * @param a The first label.
+	 * @param b The second label.
+	 */
+	private void union(int a, int b) {
+		int rootA = find(a);
+		int rootB = find(b);
+		if (rootA == rootB) {
+			return;
+		}
+		if (sizes[rootA] < sizes[rootB]) {
+			int swap = rootA;
+			rootA = rootB;
+			rootB = swap;
+		}
+		parents[rootB] = rootA;
+		sizes[rootA] += sizes[rootB];
+	}
+	
+}
@@ -0,0 +1,33 @@
+package yuuki.world;
+
+/**
+ * An autonomous Movable that can be left alone while it is idle. Whenever a
+ * Sleeper asks for no move, the Land puts it to sleep and stops asking it for
+ * moves until it wakes. It wakes once its wake interval has passed, when a
+ * resident that is not autonomous comes within its wake radius, or when
+ * another resident bumps into it. It is then asked for its move as normal,
+ * and goes back to sleep if it still asks for none.
+ * 
+ * A sleeping Sleeper keeps its place in the Land and is still drawn.
+ */
+public interface Sleeper extends Movable {
+	
+	/**
+	 * Gets the number of ticks that this Sleeper sleeps for before it wakes
+	 * on its own.
+	 * 
+	 * @return The wake interval, or 0 if this Sleeper is never to sleep.
+	 */
+	public int getWakeInterval();
+	
+	/**
+	 * Gets how close a resident that is not autonomous, such as the player,
+	 * must come to wake this Sleeper. Distance is measured as the larger of
+	 * the distances along each axis.
+	 * 
+	 * @return The wake radius in tiles, or 0 if this Sleeper is not woken by
+	 * other residents coming close.
+	 */
+	public int getWakeRadius();
+	
+}
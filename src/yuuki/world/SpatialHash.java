@@ -0,0 +1,329 @@
+package yuuki.world;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Finds the elements near a point without looking at every element. The
+ * plane is cut into square cells of equal size, and each element is kept in
+ * the cell that its point falls in. Only the cells that overlap the area
+ * being searched are looked at, so the cost of a search depends on how many
+ * elements are close by rather than on how many there are in total.
+ * 
+ * Cells are hashed into a fixed number of buckets rather than each being
+ * given its own storage, so a large and mostly empty area takes up no more
+ * space than a small one. Cells that share a bucket are told apart by the
+ * coordinates stored with each element.
+ * 
+ * Coordinates must not be negative.
+ * 
+ * @param <E> The type of the elements.
+ */
+public class SpatialHash<E> {
+	
+	/**
+	 * An element and where it is.
+	 */
+	private static class Entry<E> {
+		
+		/**
+		 * The element.
+		 */
+		public final E element;
+		
+		/**
+		 * The x-coordinate of the element.
+		 */
+		public int x;
+		
+		/**
+		 * The y-coordinate of the element.
+		 */
+		public int y;
+		
+		/**
+		 * Creates a new Entry.
+		 * 
+		 * @param element The element.
+		 * @param x The x-coordinate of the element.
+		 * @param y The y-coordinate of the element.
+		 */
+		public Entry(E element, int x, int y) {
+			this.element = element;
+			this.x = x;
+			this.y = y;
+		}
+		
+	}
+	
+	/**
+	 * The number of buckets that are used if none is given.
+	 */
+	public static final int DEFAULT_BUCKET_COUNT = 1024;
+	
+	/**
+	 * The width and height of a cell if none is given.
+	 */
+	public static final int DEFAULT_CELL_SIZE = 8;
+	
+	/**
+	 * The elements in each bucket. A bucket is only created once something
+	 * is put in it.
+	 */
+	private final List<Entry<E>>[] buckets;
+	
+	/**
+	 * The width and height of each cell.
+	 */
+	private final int cellSize;
+	
+	/**
+	 * Masks a cell hash down to the index of its bucket.
+	 */
+	private final int mask;
+	
+	/**
+	 * The number of elements.
+	 */
+	private int size;
+	
+	/**
+	 * Creates a new SpatialHash with the default cell size and number of
+	 * buckets.
+	 */
+	public SpatialHash() {
+		this(DEFAULT_CELL_SIZE, DEFAULT_BUCKET_COUNT);
+	}
+	
+	/**
+	 * Creates a new SpatialHash.
+	 * 
+	 * @param cellSize The width and height of each cell.
+	 * @param bucketCount The number of buckets. This is rounded up to a power
+	 * of two. There is no need for more buckets than the area to be covered
+	 * has cells.
+	 */
+	@SuppressWarnings("unchecked")
+	public SpatialHash(int cellSize, int bucketCount) {
+		if (cellSize <= 0) {
+			throw new IllegalArgumentException("cell size must be positive");
+		}
+		if (bucketCount <= 0) {
+			throw new IllegalArgumentException("bucket count must be positive");
+		}
+		int count = Integer.highestOneBit(bucketCount);
+		if (count < bucketCount) {
+			count <<= 1;
+		}
+		this.cellSize = cellSize;
+		this.buckets = (List<Entry<E>>[]) new List<?>[count];
+		this.mask = count - 1;
+	}
+	
+	/**
+	 * Adds an element at a point. An element may be added at more than one
+	 * point.
+	 * 
+	 * @param element The element to add.
+	 * @param x The x-coordinate of the point.
+	 * @param y The y-coordinate of the point.
+	 */
+	public void add(E element, int x, int y) {
+		addEntry(new Entry<E>(element, x, y));
+		size++;
+	}
+	
+	/**
+	 * Removes all elements.
+	 */
+	public void clear() {
+		for (int i = 0; i < buckets.length; i++) {
+			buckets[i] = null;
+		}
+		size = 0;
+	}
+	
+	/**
+	 * Finds the elements that are within a distance of a point. Distance is
+	 * measured as the larger of the distances along each axis, so the area
+	 * searched is a square.
+	 * 
+	 * @param x The x-coordinate of the point.
+	 * @param y The y-coordinate of the point.
+	 * @param radius The largest distance of the elements to find.
+	 * @param found The collection to add the elements that are found to.
+	 */
+	public void findNear(int x, int y, int radius,
+			Collection<? super E> found) {
+		if (size == 0 || radius < 0) {
+			return;
+		}
+		int left = Math.max(0, x - radius) / cellSize;
+		int top = Math.max(0, y - radius) / cellSize;
+		int right = (x + radius) / cellSize;
+		int bottom = (y + radius) / cellSize;
+		for (int cy = top; cy <= bottom; cy++) {
+			for (int cx = left; cx <= right; cx++) {
+				List<Entry<E>> bucket = buckets[getBucket(cx, cy)];
+				if (bucket == null) {
+					continue;
+				}
+				for (int i = 0; i < bucket.size(); i++) {
+					Entry<E> e = bucket.get(i);
+					if (e.x / cellSize == cx && e.y / cellSize == cy &&
+							Math.abs(e.x - x) <= radius &&
+							Math.abs(e.y - y) <= radius) {
+						found.add(e.element);
+					}
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Checks whether there are no elements.
+	 * 
+	 * @return Whether this SpatialHash is empty.
+	 */
+	public boolean isEmpty() {
+		return size == 0;
+	}
+	
+	/**
+	 * Moves an element from one point to another. This is quicker than
+	 * removing the element and adding it again, especially when both points
+	 * are in the same bucket.
+	 * 
+	 * @param element The element to move.
+	 * @param fromX The x-coordinate of the point that it was added at.
+	 * @param fromY The y-coordinate of the point that it was added at.
+	 * @param toX The x-coordinate of the point to move it to.
+	 * @param toY The y-coordinate of the point to move it to.
+	 * 
+	 * @return Whether the element was at the old point. If it was not, it is
+	 * not added at the new one.
+	 */
+	public boolean move(E element, int fromX, int fromY, int toX, int toY) {
+		int from = getBucket(fromX / cellSize, fromY / cellSize);
+		int to = getBucket(toX / cellSize, toY / cellSize);
+		Entry<E> e = (from == to) ? findEntry(from, element, fromX, fromY) :
+			removeEntry(from, element, fromX, fromY);
+		if (e == null) {
+			return false;
+		}
+		e.x = toX;
+		e.y = toY;
+		if (from != to) {
+			addEntry(e);
+		}
+		return true;
+	}
+	
+	/**
+	 * Removes an element from a point.
+	 * 
+	 * @param element The element to remove.
+	 * @param x The x-coordinate of the point that it was added at.
+	 * @param y The y-coordinate of the point that it was added at.
+	 * 
+	 * @return Whether the element was at the point.
+	 */
+	public boolean remove(E element, int x, int y) {
+		int bucket = getBucket(x / cellSize, y / cellSize);
+		if (removeEntry(bucket, element, x, y) == null) {
+			return false;
+		}
+		size--;
+		return true;
+	}
+	
+	/**
+	 * Gets the number of elements.
+	 * 
+	 * @return The number of elements.
+	 */
+	public int size() {
+		return size;
+	}
+	
+	/**
+	 * Puts an entry in the bucket of its cell.
+	 * 
+	 * @param e The entry to put in.
+	 */
+	private void addEntry(Entry<E> e) {
+		int index = getBucket(e.x / cellSize, e.y / cellSize);
+		List<Entry<E>> bucket = buckets[index];
+		if (bucket == null) {
+			bucket = new ArrayList<Entry<E>>();
+			buckets[index] = bucket;
+		}
+		bucket.add(e);
+	}
+	
+	/**
+	 * Finds the entry of an element at a point.
+	 * 
+	 * @param index The index of the bucket that the point hashes to.
+	 * @param element The element to find.
+	 * @param x The x-coordinate of the point.
+	 * @param y The y-coordinate of the point.
+	 * 
+	 * @return The entry, or null if the element is not at the point.
+	 */
+	private Entry<E> findEntry(int index, E element, int x, int y) {
+		List<Entry<E>> bucket = buckets[index];
+		if (bucket != null) {
+			for (int i = 0; i < bucket.size(); i++) {
+				Entry<E> e = bucket.get(i);
+				if (e.element == element && e.x == x && e.y == y) {
+					return e;
+				}
+			}
+		}
+		return null;
+	}
+	
+	/**
+	 * Gets the bucket that a cell hashes to.
+	 * 
+	 * @param cx The x-coordinate of the cell.
+	 * @param cy The y-coordinate of the cell.
+	 * 
+	 * @return The index of the bucket.
+	 */
+	private int getBucket(int cx, int cy) {
+		return ((cx * 73856093) ^ (cy * 19349663)) & mask;
+	}
+	
+	/**
+	 * Takes the entry of an element at a point out of its bucket.
+	 * 
+	 * @param index The index of the bucket that the point hashes to.
+	 * @param element The element to take out.
+	 * @param x The x-coordinate of the point.
+	 * @param y The y-coordinate of the point.
+	 * 
+	 * @return The entry that was taken out, or null if the element is not at
+	 * the point.
+	 */
+	private Entry<E> removeEntry(int index, E element, int x, int y) {
+		List<Entry<E>> bucket = buckets[index];
+		if (bucket != null) {
+			for (int i = 0; i < bucket.size(); i++) {
+				Entry<E> e = bucket.get(i);
+				if (e.element == element && e.x == x && e.y == y) {
+					int last = bucket.size() - 1;
+					bucket.set(i, bucket.get(last));
+					bucket.remove(last);
+					return e;
+				}
+			}
+		}
+		return null;
+	}
+	
+}
@@ -3,7 +3,9 @@ package yuuki.world;
 import yuuki.ui.Displayable;
 
 /**
- * A single tile in a land.
+ * A type of tile in a land. Tiles are flyweights; a single instance is shared
+ * by every position in every Land that holds a tile of its type, so Tiles are
+ * immutable once created.
  */
 public class Tile implements Displayable {
 	
@@ -32,41 +34,38 @@ public class Tile implements Displayable {
 	/**
 	 * The ID of this Tile, used for getting the representative character.
 	 */
-	private int id;
+	private final int id;
 	
 	/**
 	 * The image for this tile as displayed in the world viewer.
 	 */
-	private String image;
+	private final String image;
 	
 	/**
 	 * The name of this tile. This may be used for identifying different types
 	 * of tiles for graphical representation.
 	 */
-	private String name;
-	
-	/**
-	 * Whether this tile currently has occupants.
-	 */
-	private boolean occupied;
+	private final String name;
 	
 	/**
 	 * Whether this tile can be walked on.
 	 */
-	private boolean walkable;
+	private final boolean walkable;
 	
 	/**
 	 * Creates a new Tile.
 	 * 
+	 * @param id The ID of the new Tile. This is the integer version of the
+	 * character that represents it.
 	 * @param name The name of the new Tile.
 	 * @param walkable Whether this Tile may be walked on.
 	 * @param image The image to show for this Tile on the overworld.
 	 */
-	public Tile(String name, boolean walkable, String image) {
+	public Tile(int id, String name, boolean walkable, String image) {
+		this.id = id;
 		this.name = name;
 		this.walkable = walkable;
 		this.image = image;
-		occupied = false;
 	}
 	
 	@Override
@@ -79,6 +78,15 @@ public class Tile implements Displayable {
 		return ((char) id);
 	}
 	
+	/**
+	 * Gets the ID of this Tile.
+	 * 
+	 * @return The ID.
+	 */
+	public int getId() {
+		return id;
+	}
+	
 	/**
 	 * Gets the name of this Tile, normalized to lower-case.
 	 * 
@@ -93,15 +101,6 @@ public class Tile implements Displayable {
 		return image;
 	}
 	
-	/**
-	 * Checks whether this Tile is occupied.
-	 * 
-	 * @return True if there is some occupant on this tile; otherwise, false.
-	 */
-	public boolean isOccupied() {
-		return occupied;
-	}
-	
 	/**
 	 * Checks whether this Tile is walkable.
 	 * 
@@ -111,33 +110,6 @@ public class Tile implements Displayable {
 		return walkable;
 	}
 	
-	/**
-	 * Sets the ID of this Tile.
-	 * 
-	 * @param id The ID to set it to.
-	 */
-	public void setId(int id) {
-		this.id = id;
-	}
-	
-	/**
-	 * Sets whether this Tile is occupied.
-	 * 
-	 * @param occupied What to set this Tile's occupied status to.
-	 */
-	public void setOccupied(boolean occupied) {
-		this.occupied = occupied;
-	}
-	
-	/**
-	 * Sets whether this Tile is walkable.
-	 * 
-	 * @param walkable What to set this Tile's walkable status to.
-	 */
-	public void setWalkable(boolean walkable) {
-		this.walkable = walkable;
-	}
-	
 	@Override
 	public String toString() {
 		return "" + getDisplayChar();
@@ -0,0 +1,30 @@
+package yuuki.world;
+
+/**
+ * Provides the tile data of a land one chunk at a time. A chunk is a square
+ * section of a land whose upper-left corner lies on a multiple of the chunk
+ * size.
+ */
+public interface TileChunkSource {
+	
+	/**
+	 * Releases any resources held by this source, such as an open file. No
+	 * chunks are read after this is called. Errors are handled by the source
+	 * itself.
+	 */
+	public void close();
+	
+	/**
+	 * Reads the tile indexes of a single chunk.
+	 * 
+	 * @param chunkX The x-coordinate of the chunk, in chunks.
+	 * @param chunkY The y-coordinate of the chunk, in chunks.
+	 * @param chunkSize The width and height of the chunk, in tiles.
+	 * @param ids The array to read the tile indexes into, in row-major order.
+	 * This is (chunkSize * chunkSize) long and is filled with the void tile
+	 * before being given to this method; positions that lie outside of the
+	 * land or that cannot be read are to be left untouched.
+	 */
+	public void readChunk(int chunkX, int chunkY, int chunkSize, short[] ids);
+	
+}
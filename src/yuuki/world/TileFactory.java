@@ -29,6 +29,12 @@ public class TileFactory implements Mergeable<Map<Integer, Tile.Definition>> {
 	 */
 	private Map<Integer, Deque<Tile.Definition>> definitions;
 	
+	/**
+	 * The table of the current tile types. This is created when it is first
+	 * requested and discarded whenever the definitions change.
+	 */
+	private TileTable table;
+	
 	/**
 	 * Creates a new TileFactory.
 	 */
@@ -59,28 +65,46 @@ public class TileFactory implements Mergeable<Map<Integer, Tile.Definition>> {
 			definitions.put(id, d);
 		}
 		d.push(def);
+		table = null;
 	}
 	
 	/**
-	 * Creates a Tile from an ID.
+	 * Gets a Tile from an ID. Tiles are shared, so every call with the same ID
+	 * returns the same instance until the definitions in this TileFactory
+	 * change.
 	 * 
-	 * @param id The ID of the Tile to create. This is the integer version of
-	 * the character representing it.
+	 * @param id The ID of the Tile to get. This is the integer version of the
+	 * character representing it.
 	 * 
-	 * @return The created Tile.
+	 * @return The Tile.
 	 * 
 	 * @throws InvalidIndexException If the given ID does not refer to a valid
 	 * Tile.
 	 */
 	public Tile createTile(int id) throws InvalidIndexException {
-		Deque<Tile.Definition> tdDeque = definitions.get(id);
-		if (tdDeque == null) {
+		TileTable types = getTileTable();
+		int index = types.indexOf(id);
+		if (index == TileTable.NO_INDEX) {
 			throw new InvalidIndexException(id);
 		}
-		Tile.Definition def = tdDeque.peek();
-		Tile tile = new Tile(def.name, def.walkable, def.image);
-		tile.setId(id);
-		return tile;
+		return types.getTile(index);
+	}
+	
+	/**
+	 * Gets the table of the tile types currently defined in this TileFactory.
+	 * 
+	 * @return The TileTable.
+	 */
+	public TileTable getTileTable() {
+		if (table == null) {
+			Map<Integer, Tile.Definition> current;
+			current = new HashMap<Integer, Tile.Definition>();
+			for (int id : definitions.keySet()) {
+				current.put(id, definitions.get(id).peek());
+			}
+			table = new TileTable(current);
+		}
+		return table;
 	}
 	
 	@Override
@@ -103,6 +127,7 @@ public class TileFactory implements Mergeable<Map<Integer, Tile.Definition>> {
 				}
 			}
 		}
+		table = null;
 	}
 	
 }
@@ -0,0 +1,173 @@
+package yuuki.world;
+
+import java.awt.Dimension;
+import java.awt.Point;
+import java.awt.Rectangle;
+
+import yuuki.util.Grid;
+import yuuki.util.SubGrid;
+
+/**
+ * A Grid of Tiles that stores only the index of each position's tile type.
+ * Tiles are resolved through a TileTable when they are requested, so no Tile
+ * instances are held by the grid itself.
+ */
+public class TileGrid implements Grid<Tile> {
+	
+	/**
+	 * The index of the tile type at each position. The index of the tile at
+	 * (x, y) is stored at (y * width + x).
+	 */
+	private final short[] ids;
+	
+	/**
+	 * The size of this TileGrid.
+	 */
+	private final Dimension size;
+	
+	/**
+	 * Resolves tile indexes into Tiles.
+	 */
+	private final TileTable table;
+	
+	/**
+	 * Creates a new TileGrid.
+	 * 
+	 * @param size The size of the new TileGrid.
+	 * @param table The table to resolve tile indexes with.
+	 * @param ids The index of the tile type at each position, in row-major
+	 * order. This array is used directly rather than being copied.
+	 */
+	public TileGrid(Dimension size, TileTable table, short[] ids) {
+		if (ids.length != size.width * size.height) {
+			throw new IllegalArgumentException("tile data does not match size");
+		}
+		this.size = new Dimension(size);
+		this.table = table;
+		this.ids = ids;
+	}
+	
+	/**
+	 * Sets every position in this TileGrid to the void tile. Positions in a
+	 * TileGrid cannot hold null.
+	 */
+	@Override
+	public void clear() {
+		for (int i = 0; i < ids.length; i++) {
+			ids[i] = TileTable.VOID_INDEX;
+		}
+	}
+	
+	@Override
+	public boolean contains(int x, int y) {
+		return (x >= 0 && x < size.width && y >= 0 && y < size.height);
+	}
+	
+	@Override
+	public boolean contains(Point point) {
+		return contains(point.x, point.y);
+	}
+	
+	@Override
+	public Point getLocation() {
+		return new Point(0, 0);
+	}
+	
+	@Override
+	public Dimension getSize() {
+		return size;
+	}
+	
+	@Override
+	public Grid<Tile> getSubGrid(Rectangle boundingBox) {
+		return new SubGrid<Tile>(this, boundingBox);
+	}
+	
+	/**
+	 * Gets the TileTable that this TileGrid resolves its tiles with.
+	 * 
+	 * @return The TileTable.
+	 */
+	public TileTable getTable() {
+		return table;
+	}
+	
+	@Override
+	public Tile itemAt(int x, int y) {
+		return table.getTile(ids[index(x, y)]);
+	}
+	
+	@Override
+	public Tile itemAt(Point point) {
+		return itemAt(point.x, point.y);
+	}
+	
+	/**
+	 * Sets the tile at a point. The given Tile must have a type that is in
+	 * this TileGrid's TileTable.
+	 * 
+	 * @param x The x-coordinate of the point to set the tile at.
+	 * @param y The y-coordinate of the point to set the tile at.
+	 * @param e The Tile to set.
+	 * 
+	 * @throws IllegalArgumentException If the given Tile's type is not in the
+	 * TileTable.
+	 */
+	@Override
+	public void set(int x, int y, Tile e) {
+		int type = table.indexOf(e.getId());
+		if (type == TileTable.NO_INDEX) {
+			throw new IllegalArgumentException("unknown tile: " + e.getName());
+		}
+		ids[index(x, y)] = (short) type;
+	}
+	
+	/**
+	 * Sets the tile at a point. The given Tile must have a type that is in
+	 * this TileGrid's TileTable.
+	 * 
+	 * @param p The point to set the tile at.
+	 * @param e The Tile to set.
+	 * 
+	 * @throws IllegalArgumentException If the given Tile's type is not in the
+	 * TileTable.
+	 */
+	@Override
+	public void set(Point p, Tile e) {
+		set(p.x, p.y, e);
+	}
+	
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		for (int y = 0; y < size.height; y++) {
+			for (int x = 0; x < size.width; x++) {
+				int type = ids[(y * size.width) + x];
+				sb.append(table.getTile(type).getDisplayChar());
+			}
+			if (y < size.height - 1) {
+				sb.append('\n');
+			}
+		}
+		return sb.toString();
+	}
+	
+	/**
+	 * Gets the index of a point within the tile data.
+	 * 
+	 * @param x The x-coordinate of the point.
+	 * @param y The y-coordinate of the point.
+	 * 
+	 * @return The index of the point.
+	 * 
+	 * @throws ArrayIndexOutOfBoundsException If the point is not in this
+	 * TileGrid.
+	 */
+	private int index(int x, int y) {
+		if (!contains(x, y)) {
+			throw new ArrayIndexOutOfBoundsException();
+		}
+		return (y * size.width) + x;
+	}
+	
+}
@@ -0,0 +1,154 @@
+package yuuki.world;
+
+import java.awt.Dimension;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.util.HashMap;
+import java.util.Map;
+
+import yuuki.util.Grid;
+import yuuki.util.SubGrid;
+
+/**
+ * A read-only view of a Land's tiles as they were when a snapshot was taken,
+ * for lands that are too large to copy. The view shares the live tile grid,
+ * and the Land copies a tile into the newest view just before changing it,
+ * so the view keeps showing the old tile. When a newer view is taken, this
+ * view stops receiving copies and defers to the newer view for every tile
+ * that it did not copy itself.
+ * 
+ * The live grid is used as the lock for every read and every change, so a
+ * view may be read from another thread while the Land changes its tiles.
+ */
+class TileSnapshotGrid implements Grid<Tile> {
+	
+	/**
+	 * The live tile grid of the Land.
+	 */
+	private final Grid<Tile> live;
+	
+	/**
+	 * The view that was taken after this one, or null if this is the newest.
+	 */
+	private TileSnapshotGrid newer;
+	
+	/**
+	 * The tiles that were changed after this view was taken and before a
+	 * newer view was, as they were before the change. Keyed by packed
+	 * coordinates.
+	 */
+	private final Map<Long, Tile> preserved;
+	
+	/**
+	 * Creates a new TileSnapshotGrid of a Land's tiles as they are now.
+	 * 
+	 * @param live The live tile grid of the Land.
+	 * @param older The previous view of the same grid, or null if there is
+	 * none. It stops receiving copies and defers to the new view.
+	 */
+	public TileSnapshotGrid(Grid<Tile> live, TileSnapshotGrid older) {
+		this.live = live;
+		this.preserved = new HashMap<Long, Tile>();
+		if (older != null) {
+			synchronized (live) {
+				older.newer = this;
+			}
+		}
+	}
+	
+	/**
+	 * Changes a tile of the live grid, first copying the old tile into this
+	 * view if it has not already been copied. This must only be called on
+	 * the newest view.
+	 * 
+	 * @param x The x-coordinate of the tile to change.
+	 * @param y The y-coordinate of the tile to change.
+	 * @param tile The new tile.
+	 */
+	public void change(int x, int y, Tile tile) {
+		synchronized (live) {
+			Long key = PathMap.pack(x, y);
+			if (!preserved.containsKey(key)) {
+				preserved.put(key, live.itemAt(x, y));
+			}
+			live.set(x, y, tile);
+		}
+	}
+	
+	/**
+	 * Not supported; a snapshot's tiles cannot be changed.
+	 */
+	@Override
+	public void clear() {
+		throw new UnsupportedOperationException();
+	}
+	
+	@Override
+	public boolean contains(int x, int y) {
+		return live.contains(x, y);
+	}
+	
+	@Override
+	public boolean contains(Point point) {
+		return live.contains(point);
+	}
+	
+	@Override
+	public Point getLocation() {
+		return live.getLocation();
+	}
+	
+	@Override
+	public Dimension getSize() {
+		return live.getSize();
+	}
+	
+	@Override
+	public Grid<Tile> getSubGrid(Rectangle boundingBox) {
+		return new SubGrid<Tile>(this, boundingBox);
+	}
+	
+	/**
+	 * Gets the tile at a point as it was when this view was taken.
+	 * 
+	 * @param x The x-coordinate of the tile.
+	 * @param y The y-coordinate of the tile.
+	 * 
+	 * @return The tile.
+	 */
+	@Override
+	public Tile itemAt(int x, int y) {
+		Long key = PathMap.pack(x, y);
+		synchronized (live) {
+			for (TileSnapshotGrid v = this; v != null; v = v.newer) {
+				Tile t = v.preserved.get(key);
+				if (t != null) {
+					return t;
+				}
+			}
+			return live.itemAt(x, y);
+		}
+	}
+	
+	@Override
+	public Tile itemAt(Point point) {
+		return itemAt(point.x, point.y);
+	}
+	
+	/**
+	 * Not supported; a snapshot's tiles cannot be changed.
+	 */
+	@Override
+	public void set(int x, int y, Tile e) {
+		throw new UnsupportedOperationException();
+	}
+	
+	/**
+	 * Not supported; a snapshot's tiles cannot be changed.
+	 */
+	@Override
+	public void set(Point p, Tile e) {
+		throw new UnsupportedOperationException();
+	}
+	
+}
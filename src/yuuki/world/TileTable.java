@@ -0,0 +1,111 @@
+package yuuki.world;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * An immutable table of tile types. Each type of Tile in the table is given a
+ * small index, which is what Lands store for each of their positions instead
+ * of a reference to a Tile; the index is resolved back into the shared Tile
+ * instance through the table.
+ */
+public class TileTable {
+	
+	/**
+	 * The index returned for IDs that are not in a TileTable.
+	 */
+	public static final int NO_INDEX = -1;
+	
+	/**
+	 * The index of the void tile. This is always the first type in a table.
+	 */
+	public static final int VOID_INDEX = 0;
+	
+	/**
+	 * Maps tile IDs to the index of their Tile in the types array. Tile IDs
+	 * are characters, so every possible ID has an entry.
+	 */
+	private final short[] indexes;
+	
+	/**
+	 * The Tile types in this TileTable, ordered by index.
+	 */
+	private final Tile[] types;
+	
+	/**
+	 * Creates a new TileTable from a set of definitions.
+	 * 
+	 * @param definitions The definitions of the tiles in the new table, mapped
+	 * by tile ID. This must contain a definition for the void tile.
+	 */
+	public TileTable(Map<Integer, Tile.Definition> definitions) {
+		if (definitions.size() > Short.MAX_VALUE) {
+			throw new IllegalArgumentException("too many tile types");
+		}
+		indexes = new short[Character.MAX_VALUE + 1];
+		Arrays.fill(indexes, (short) NO_INDEX);
+		types = new Tile[definitions.size()];
+		Tile.Definition voidDef = definitions.get((int) TileFactory.VOID_CHAR);
+		if (voidDef == null) {
+			throw new IllegalArgumentException("no void tile definition");
+		}
+		int next = VOID_INDEX;
+		addType(next++, TileFactory.VOID_CHAR, voidDef);
+		for (int id : definitions.keySet()) {
+			if (id != TileFactory.VOID_CHAR) {
+				addType(next++, id, definitions.get(id));
+			}
+		}
+	}
+	
+	/**
+	 * Gets the Tile at an index.
+	 * 
+	 * @param index The index of the Tile.
+	 * 
+	 * @return The Tile at the given index.
+	 */
+	public Tile getTile(int index) {
+		return types[index];
+	}
+	
+	/**
+	 * Gets the index of the Tile with the given ID.
+	 * 
+	 * @param id The ID of the Tile.
+	 * 
+	 * @return The index of the Tile, or NO_INDEX if there is no Tile with the
+	 * given ID in this TileTable.
+	 */
+	public int indexOf(int id) {
+		if (id < 0 || id >= indexes.length) {
+			return NO_INDEX;
+		}
+		return indexes[id];
+	}
+	
+	/**
+	 * Gets the number of Tile types in this TileTable.
+	 * 
+	 * @return The number of types.
+	 */
+	public int size() {
+		return types.length;
+	}
+	
+	/**
+	 * Creates the Tile for a definition and adds it to this table.
+	 * 
+	 * @param index The index to add the Tile at.
+	 * @param id The ID of the Tile.
+	 * @param def The definition of the Tile.
+	 */
+	private void addType(int index, int id, Tile.Definition def) {
+		if (id < 0 || id >= indexes.length) {
+			throw new IllegalArgumentException("invalid tile ID: " + id);
+		}
+		types[index] = new Tile(id, def.name, def.walkable, def.image);
+		indexes[id] = (short) index;
+	}
+	
+}
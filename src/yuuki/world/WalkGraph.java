@@ -1,72 +1,182 @@
 package yuuki.world;
 
-import java.awt.Dimension;
 import java.awt.Point;
 
-import yuuki.util.Grid;
-
 /**
- * Contains the walkable points adjacent to some other point.
+ * Contains the walkable points adjacent to some other point. The walkability
+ * of the eight surrounding points is stored as a mask with one bit per
+ * direction; Land.getWalkMask() produces such masks directly for callers that
+ * do not need the Point-based view.
  */
 public class WalkGraph {
 	
 	/**
-	 * Whether the east point is valid.
+	 * The number of directions in a walk mask.
+	 */
+	public static final int DIRECTION_COUNT = 8;
+	
+	/**
+	 * The direction of the eastern tile.
+	 */
+	public static final int EAST = 2;
+	
+	/**
+	 * Indicates that no direction was chosen.
+	 */
+	public static final int NO_DIRECTION = -1;
+	
+	/**
+	 * The direction of the northern tile.
+	 */
+	public static final int NORTH = 0;
+	
+	/**
+	 * The direction of the north-eastern tile.
+	 */
+	public static final int NORTH_EAST = 1;
+	
+	/**
+	 * The direction of the north-western tile.
+	 */
+	public static final int NORTH_WEST = 7;
+	
+	/**
+	 * The direction of the southern tile.
 	 */
-	private boolean hasEast;
+	public static final int SOUTH = 4;
 	
 	/**
-	 * Whether the north point is valid.
+	 * The direction of the south-eastern tile.
 	 */
-	private boolean hasNorth;
+	public static final int SOUTH_EAST = 3;
 	
 	/**
-	 * Whether the north-east point is valid.
+	 * The direction of the south-western tile.
 	 */
-	private boolean hasNorthEast;
+	public static final int SOUTH_WEST = 5;
 	
 	/**
-	 * Whether the north-west point is valid.
+	 * The direction of the western tile.
 	 */
-	private boolean hasNorthWest;
+	public static final int WEST = 6;
 	
 	/**
-	 * Whether the south point is valid.
+	 * The change in x-coordinate for each direction.
 	 */
-	private boolean hasSouth;
+	private static final int[] DELTA_X = {0, 1, 1, 1, 0, -1, -1, -1};
 	
 	/**
-	 * Whether the south-east point is valid.
+	 * The change in y-coordinate for each direction.
 	 */
-	private boolean hasSouthEast;
+	private static final int[] DELTA_Y = {-1, -1, 0, 1, 1, 1, 0, -1};
 	
 	/**
-	 * Whether the south-west point is valid.
+	 * The number of valid directions in each possible mask.
 	 */
-	private boolean hasSouthWest;
+	private static final byte[] VALID_COUNTS = new byte[256];
+	
+	static {
+		for (int i = 0; i < VALID_COUNTS.length; i++) {
+			VALID_COUNTS[i] = (byte) Integer.bitCount(i);
+		}
+	}
 	
 	/**
-	 * Whether the west point is valid.
+	 * The walkability of each direction, with bit n set if direction n is
+	 * valid.
 	 */
-	private boolean hasWest;
+	private final byte mask;
 	
 	/**
 	 * The coordinates of the center of this WalkGraph.
 	 */
-	private Point p;
+	private final Point p;
 	
 	/**
 	 * Creates a new WalkGraph.
 	 * 
 	 * @param position The position of the center tile of this WalkGraph,
 	 * relative to the Land that it came from.
-	 * @param tiles An array containing the center tile and the surrounding
-	 * eight tiles.
-	 * @param occupied Whether to include the occupied tiles.
+	 * @param mask The walk mask of the surrounding eight tiles.
 	 */
-	public WalkGraph(Point position, Grid<Tile> tiles, boolean occupied) {
+	public WalkGraph(Point position, byte mask) {
 		this.p = position;
-		setValidity(tiles, occupied);
+		this.mask = mask;
+	}
+	
+	/**
+	 * Gets the bit that represents a direction in a walk mask.
+	 * 
+	 * @param direction The direction to get the bit for.
+	 * 
+	 * @return The bit for the given direction.
+	 */
+	public static int getBit(int direction) {
+		return (1 << direction);
+	}
+	
+	/**
+	 * Gets the change in x-coordinate of moving in a direction.
+	 * 
+	 * @param direction The direction to move in.
+	 * 
+	 * @return The change in x-coordinate.
+	 */
+	public static int getDeltaX(int direction) {
+		return DELTA_X[direction];
+	}
+	
+	/**
+	 * Gets the change in y-coordinate of moving in a direction.
+	 * 
+	 * @param direction The direction to move in.
+	 * 
+	 * @return The change in y-coordinate.
+	 */
+	public static int getDeltaY(int direction) {
+		return DELTA_Y[direction];
+	}
+	
+	/**
+	 * Gets the direction that a change in position moves in.
+	 * 
+	 * @param dx The change in x-coordinate.
+	 * @param dy The change in y-coordinate.
+	 * 
+	 * @return The direction whose deltas are the given ones, or NO_DIRECTION
+	 * if the change is not a move to an adjacent tile.
+	 */
+	public static int getDirection(int dx, int dy) {
+		for (int d = 0; d < DIRECTION_COUNT; d++) {
+			if (DELTA_X[d] == dx && DELTA_Y[d] == dy) {
+				return d;
+			}
+		}
+		return NO_DIRECTION;
+	}
+	
+	/**
+	 * Gets the number of valid directions in a walk mask.
+	 * 
+	 * @param mask The walk mask.
+	 * 
+	 * @return The number of valid directions.
+	 */
+	public static int getValidCount(byte mask) {
+		return VALID_COUNTS[mask & 0xff];
+	}
+	
+	/**
+	 * Checks whether a direction is valid in a walk mask.
+	 * 
+	 * @param mask The walk mask to check.
+	 * @param direction The direction to check.
+	 * 
+	 * @return True if the tile in the given direction is walkable; otherwise,
+	 * false.
+	 */
+	public static boolean isValid(byte mask, int direction) {
+		return ((mask & (1 << direction)) != 0);
 	}
 	
 	/**
@@ -76,7 +186,16 @@ public class WalkGraph {
 	 * tile to walk on; otherwise, null.
 	 */
 	public Point getEast() {
-		return (hasEast) ? new Point(p.x + 1, p.y) : null;
+		return getPoint(EAST);
+	}
+	
+	/**
+	 * Gets the walk mask that this WalkGraph is a view of.
+	 * 
+	 * @return The walk mask.
+	 */
+	public byte getMask() {
+		return mask;
 	}
 	
 	/**
@@ -86,7 +205,7 @@ public class WalkGraph {
 	 * tile to walk on; otherwise, null.
 	 */
 	public Point getNorth() {
-		return (hasNorth) ? new Point(p.x, p.y - 1) : null;
+		return getPoint(NORTH);
 	}
 	
 	/**
@@ -96,7 +215,7 @@ public class WalkGraph {
 	 * tile to walk on; otherwise, null.
 	 */
 	public Point getNorthEast() {
-		return (hasNorthEast) ? new Point(p.x + 1, p.y - 1) : null;
+		return getPoint(NORTH_EAST);
 	}
 	
 	/**
@@ -106,7 +225,25 @@ public class WalkGraph {
 	 * tile to walk on; otherwise, null.
 	 */
 	public Point getNorthWest() {
-		return (hasNorthWest) ? new Point(p.x - 1, p.y - 1) : null;
+		return getPoint(NORTH_WEST);
+	}
+	
+	/**
+	 * Gets the coordinates of the tile in a direction.
+	 * 
+	 * @param direction The direction of the tile.
+	 * 
+	 * @return The point containing the coordinates of the tile if is a valid
+	 * tile to walk on; otherwise, null.
+	 */
+	public Point getPoint(int direction) {
+		Point dest = null;
+		if (isValid(mask, direction)) {
+			int x = p.x + DELTA_X[direction];
+			int y = p.y + DELTA_Y[direction];
+			dest = new Point(x, y);
+		}
+		return dest;
 	}
 	
 	/**
@@ -125,7 +262,7 @@ public class WalkGraph {
 	 * tile to walk on; otherwise, null.
 	 */
 	public Point getSouth() {
-		return (hasSouth) ? new Point(p.x, p.y + 1) : null;
+		return getPoint(SOUTH);
 	}
 	
 	/**
@@ -135,7 +272,7 @@ public class WalkGraph {
 	 * tile to walk on; otherwise, null.
 	 */
 	public Point getSouthEast() {
-		return (hasSouthEast) ? new Point(p.x + 1, p.y + 1) : null;
+		return getPoint(SOUTH_EAST);
 	}
 	
 	/**
@@ -145,7 +282,7 @@ public class WalkGraph {
 	 * tile to walk on; otherwise, null.
 	 */
 	public Point getSouthWest() {
-		return (hasSouthWest) ? new Point(p.x - 1, p.y + 1) : null;
+		return getPoint(SOUTH_WEST);
 	}
 	
 	/**
@@ -154,32 +291,7 @@ public class WalkGraph {
 	 * @return The number of valid direction.
 	 */
 	public int getValidCount() {
-		int c = 0;
-		if (hasNorthWest) {
-			c++;
-		}
-		if (hasNorth) {
-			c++;
-		}
-		if (hasNorthEast) {
-			c++;
-		}
-		if (hasWest) {
-			c++;
-		}
-		if (hasEast) {
-			c++;
-		}
-		if (hasSouthWest) {
-			c++;
-		}
-		if (hasSouth) {
-			c++;
-		}
-		if (hasSouthEast) {
-			c++;
-		}
-		return c;
+		return getValidCount(mask);
 	}
 	
 	/**
@@ -189,7 +301,7 @@ public class WalkGraph {
 	 * tile to walk on; otherwise, null.
 	 */
 	public Point getWest() {
-		return (hasWest) ? new Point(p.x - 1, p.y) : null;
+		return getPoint(WEST);
 	}
 	
 	/**
@@ -200,48 +312,7 @@ public class WalkGraph {
 	 * directions; otherwise, false.
 	 */
 	public boolean isFullyValid() {
-		return (getValidCount() == 8);
-	}
-	
-	/**
-	 * Checks if the tile at the given position is walkable.
-	 * 
-	 * @param grid The grid of tiles to check.
-	 * @param p The point to check.
-	 * @param occupied Whether to include the occupied tiles.
-	 * 
-	 * @return True if a tile exists at the given coordinates, it is walkable,
-	 * and has no occupants on it; otherwise, false.
-	 */
-	private boolean checkTile(Grid<Tile> grid, Point p, boolean occupied) {
-		boolean valid = false;
-		if (grid.contains(p)) {
-			Tile t = grid.itemAt(p);
-			valid = (t.isWalkable() && (occupied || !t.isOccupied()));
-		}
-		return valid;
-	}
-	
-	/**
-	 * Sets whether each direction is valid based on whether the tile in each
-	 * direction is walkable.
-	 * 
-	 * @param tiles An array containing the center tile and the surrounding
-	 * eight tiles.
-	 * @param occ Whether to include the occupied tiles.
-	 */
-	private void setValidity(Grid<Tile> tiles, boolean occ) {
-		Dimension d = tiles.getSize();
-		int xOff = 3 - d.width;
-		int yOff = 3 - d.height;
-		hasNorthWest	= checkTile(tiles, new Point(0 - xOff, 0 - yOff), occ);
-		hasNorth		= checkTile(tiles, new Point(1 - xOff, 0 - yOff), occ);
-		hasNorthEast	= checkTile(tiles, new Point(2 - xOff, 0 - yOff), occ);
-		hasWest			= checkTile(tiles, new Point(0 - xOff, 1 - yOff), occ);
-		hasEast			= checkTile(tiles, new Point(2 - xOff, 1 - yOff), occ);
-		hasSouthWest	= checkTile(tiles, new Point(0 - xOff, 2 - yOff), occ);
-		hasSouth		= checkTile(tiles, new Point(1 - xOff, 2 - yOff), occ);
-		hasSouthEast	= checkTile(tiles, new Point(2 - xOff, 2 - yOff), occ);
+		return (getValidCount() == DIRECTION_COUNT);
 	}
 	
 }
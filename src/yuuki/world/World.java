@@ -1,13 +1,29 @@
 package yuuki.world;
 
+import java.awt.Dimension;
 import java.awt.Point;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.Deque;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
+import java.util.Random;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicReference;
 
 import yuuki.content.Mergeable;
 import yuuki.item.Item;
@@ -18,105 +34,375 @@ import yuuki.util.InvalidIndexException;
  * Handles overworld navigation and data. The World class is responsible for
  * loading land data, keeping track of entities on the current land, and
  * modifying the current land.
+ * 
+ * Inactive lands may optionally be advanced in the background. When this is
+ * enabled, every few ticks each inactive land is advanced once on a worker
+ * pool while the active land advances on the calling thread. The background
+ * advancements are waited for at the start of the next tick or when the
+ * active land is changed, and the residents that they transfer are then moved
+ * in order of land name so that the outcome does not depend on which worker
+ * finished first.
+ * 
+ * Lands may also be added as LandSources, in which case each land is only
+ * loaded when it is first needed. Whenever the active land changes, the lands
+ * that its portals lead to are loaded in the background so that they are
+ * usually ready by the time they are entered. If a land budget is set, lands
+ * that were loaded from a source and have not been changed since are let go
+ * of, least recently active first, while the loaded lands are estimated to
+ * use more memory than the budget; they are loaded again if they are needed.
  */
 public class World implements Mergeable<Map<String, Land>> {
 	
+	/**
+	 * Advances a single inactive land.
+	 */
+	private static class BackgroundTick implements Callable<Void> {
+		
+		/**
+		 * The land to advance.
+		 */
+		private final Land land;
+		
+		/**
+		 * Creates a new BackgroundTick.
+		 * 
+		 * @param land The land to advance.
+		 */
+		public BackgroundTick(Land land) {
+			this.land = land;
+		}
+		
+		@Override
+		public Void call() throws InterruptedException {
+			land.advance();
+			return null;
+		}
+		
+	}
+	
+	/**
+	 * A resident that is waiting to be moved through a portal.
+	 */
+	private static class Transfer {
+		
+		/**
+		 * The land that the resident is moving to.
+		 */
+		public final Land destination;
+		
+		/**
+		 * The portal that the resident stepped on.
+		 */
+		public final Portal portal;
+		
+		/**
+		 * The resident being moved.
+		 */
+		public final Movable resident;
+		
+		/**
+		 * Creates a new Transfer.
+		 * 
+		 * @param resident The resident being moved.
+		 * @param portal The portal that the resident stepped on.
+		 * @param destination The land that the resident is moving to.
+		 */
+		public Transfer(Movable resident, Portal portal, Land destination) {
+			this.resident = resident;
+			this.portal = portal;
+			this.destination = destination;
+		}
+		
+	}
+	
+	/**
+	 * The estimated number of bytes of memory that a land uses for each of
+	 * its tiles, counting its tile grid, occupancy index and walkable regions.
+	 */
+	public static final int ESTIMATED_BYTES_PER_TILE = 16;
+	
+	/**
+	 * The most portals that a land may be away from the active land for it to
+	 * be loaded in the background when the active land changes.
+	 */
+	public static final int PREFETCH_DISTANCE = 2;
+	
 	/**
 	 * The land currently being controlled by this World.
 	 */
 	private Land activeLand;
 	
+	/**
+	 * The number of ticks between background advancements of inactive lands,
+	 * or 0 if inactive lands are not advanced.
+	 */
+	private int backgroundInterval;
+	
+	/**
+	 * The lands being advanced in the background, in order of name. This is
+	 * null when there is no background advancement in progress.
+	 */
+	private List<Land> backgroundLands;
+	
+	/**
+	 * Runs the background advancements.
+	 */
+	private ExecutorService backgroundPool;
+	
+	/**
+	 * The results of the background advancements in progress, in the same
+	 * order as the lands being advanced.
+	 */
+	private List<Future<Void>> backgroundTicks;
+	
+	/**
+	 * Changes to the active land that are waiting to be made between ticks.
+	 */
+	private final Queue<Runnable> changes;
+	
+	/**
+	 * Transfers into lands that were being advanced in the background at the
+	 * time the transfer occurred. These are finished once the background
+	 * advancement completes.
+	 */
+	private List<Transfer> deferredTransfers;
+	
 	/**
 	 * The residents that are being transferred from the active land to an
 	 * inactive land.
 	 */
 	private Map<Movable, String> externalTransfers;
 	
+	/**
+	 * The number of tiles that the active land's FlowField extends from the
+	 * flow target.
+	 */
+	private int flowRadius;
+	
+	/**
+	 * What the active land's FlowField leads to, or null if there is none.
+	 */
+	private Locatable flowTarget;
+	
+	/**
+	 * The estimated number of bytes of memory that the loaded lands may use
+	 * before idle lands are let go of, or 0 if lands are never let go of.
+	 */
+	private long landBudget;
+	
 	/**
 	 * All lands loaded, indexed by land name.
 	 */
 	private Map<String, Deque<Land>> lands;
 	
+	/**
+	 * The tick at which each land was last the active land.
+	 */
+	private Map<String, Long> lastActive;
+	
+	/**
+	 * The change count of each land that was loaded from a LandSource at the
+	 * time that it was loaded.
+	 */
+	private Map<Land, Integer> loadedChangeCounts;
+	
+	/**
+	 * How the lands are connected.
+	 */
+	private PortalGraph portalGraph;
+	
+	/**
+	 * Loads lands from their sources in the background.
+	 */
+	private final LandPrefetcher prefetcher;
+	
+	/**
+	 * The seed that the Random of each land is seeded from, together with
+	 * the land's name.
+	 */
+	private long seed;
+	
+	/**
+	 * The latest snapshot of the active land.
+	 */
+	private final AtomicReference<LandSnapshot> snapshot;
+	
+	/**
+	 * Where the lands that are loaded when needed come from, by land name.
+	 */
+	private Map<String, LandSource> sources;
+	
+	/**
+	 * The number of ticks that this World has advanced.
+	 */
+	private long ticks;
+	
 	/**
 	 * Creates a new, empty World.
 	 */
 	public World() {
 		lands = new HashMap<String, Deque<Land>>();
+		sources = new HashMap<String, LandSource>();
+		lastActive = new HashMap<String, Long>();
+		loadedChangeCounts = new HashMap<Land, Integer>();
+		prefetcher = new LandPrefetcher();
+		deferredTransfers = new ArrayList<Transfer>();
+		externalTransfers = new HashMap<Movable, String>();
+		snapshot = new AtomicReference<LandSnapshot>();
+		changes = new ConcurrentLinkedQueue<Runnable>();
+		seed = new Random().nextLong();
+		buildPortalGraph();
 	}
 	
 	/**
 	 * Adds an item to the current land. The location to add it to is extracted
-	 * from the item via its getLocation() method.
+	 * from the item via its getLocation() method. The item is added between
+	 * ticks, as with queueChange().
 	 * 
 	 * @param item The item to add.
 	 */
-	public void addItem(Item item) {
-		activeLand.addItem(item);
+	public void addItem(final Item item) {
+		queueChange(new Runnable() {
+			@Override
+			public void run() {
+				activeLand.addItem(item);
+			}
+		});
 	}
 	
 	/**
-	 * Adds a new Land to this world.
+	 * Adds a new Land to this world. The PortalGraph is built again, so
+	 * several lands are better added at once with merge().
 	 * 
 	 * @param land The Land to add.
 	 */
 	public void addLand(Land land) {
-		Deque<Land> d = lands.get(land.getName());
-		if (d == null) {
-			d = new ArrayDeque<Land>();
-			lands.put(land.getName(), d);
+		pushLand(land);
+		buildPortalGraph();
+	}
+	
+	/**
+	 * Adds lands that are to be loaded when they are first needed. If a land
+	 * of the same name has already been loaded, its source is only used if
+	 * that land is let go of. The PortalGraph is built again from the portal
+	 * records of the sources.
+	 * 
+	 * @param landSources Where the lands are loaded from.
+	 */
+	public void addLandSources(Collection<LandSource> landSources) {
+		for (LandSource s : landSources) {
+			sources.put(s.getName(), s);
 		}
-		d.push(land);
+		buildPortalGraph();
 	}
 	
 	/**
-	 * Adds a resident to the active land.
+	 * Adds a resident to the active land. The resident is added between
+	 * ticks, as with queueChange().
 	 * 
 	 * @param resident The resident to add.
 	 */
-	public void addResident(Movable resident) {
-		activeLand.addResident(resident);
+	public void addResident(final Movable resident) {
+		queueChange(new Runnable() {
+			@Override
+			public void run() {
+				activeLand.addResident(resident);
+			}
+		});
 	}
 	
 	/**
 	 * Advances the world by one tick. The current Land is instructed to
-	 * advance.
+	 * advance. If background advancement is enabled and is due this tick, the
+	 * inactive lands are advanced on the worker pool at the same time. Queued
+	 * changes are made before and after the active land advances, and a new
+	 * snapshot is published at the end of the tick.
 	 * 
 	 * @throws InterruptedException If the current thread is interrupted while
 	 * waiting for a move from the player.
 	 */
 	public void advance() throws InterruptedException {
+		finishBackgroundTicks();
+		collectPrefetchedLands();
+		applyQueuedChanges();
+		if (backgroundInterval > 0 && ticks % backgroundInterval == 0) {
+			startBackgroundTicks();
+		}
+		ticks++;
 		activeLand.advance();
-		moveTransfers();
+		externalTransfers = new HashMap<Movable, String>(3);
+		moveTransfers(activeLand);
+		applyQueuedChanges();
+		publishSnapshot();
 	}
 	
 	/**
-	 * Changes the active land.
+	 * Changes the active land. Any background advancement in progress is
+	 * finished first. If the land has not been loaded yet, this blocks until
+	 * it has been. Queued changes are made to the old active land before it is
+	 * left. The lands that the new active land's portals lead to then start
+	 * loading in the background, and idle lands are let go of if the land
+	 * budget is exceeded.
 	 * 
 	 * @param landName The name of the land to switch to.
 	 * @throws InvalidIndexException If the given name does not refer to an
 	 * existing Land.
+	 * @throws LandLoadException If the land needs to be loaded and cannot be.
 	 */
 	public void changeLand(String landName) throws InvalidIndexException {
-		activeLand = getLand(landName);
+		finishBackgroundTicks();
+		collectPrefetchedLands();
+		Land next = getLand(landName);
+		applyQueuedChanges();
+		if (activeLand != null) {
+			activeLand.setFlowTarget(null, 0);
+			lastActive.put(activeLand.getName(), ticks);
+		}
+		activeLand = next;
+		activeLand.setFlowTarget(flowTarget, flowRadius);
+		lastActive.put(landName, ticks);
+		prefetchNearbyLands();
+		evictIdleLands();
+		publishSnapshot();
 	}
 	
 	/**
-	 * Clears items from a point in the active land.
+	 * Clears items from a point in the active land. The items are cleared
+	 * between ticks, as with queueChange().
 	 * 
 	 * @param point The point to clear them from.
 	 * @param count The number to remove.
 	 */
-	public void clearItems(Point point, int count) {
-		activeLand.clearItems(point, count);
+	public void clearItems(final Point point, final int count) {
+		queueChange(new Runnable() {
+			@Override
+			public void run() {
+				activeLand.clearItems(point, count);
+			}
+		});
+	}
+	
+	/**
+	 * Makes the queued changes to the active land at once and publishes a new
+	 * snapshot. This must only be called while this World is not being
+	 * advanced, such as when it is being set up before the first tick.
+	 */
+	public void flushChanges() {
+		applyQueuedChanges();
+		if (activeLand != null) {
+			publishSnapshot();
+		}
 	}
 	
 	/**
-	 * Gets the names of all lands in this World.
+	 * Gets the names of all lands in this World, including those that have
+	 * not been loaded yet.
 	 * 
-	 * @return An array containing the names of all loaded Lands.
+	 * @return An array containing the names of all Lands.
 	 */
 	public String[] getAllLandNames() {
-		Set<String> nameSet = lands.keySet();
+		Set<String> nameSet = new HashSet<String>(lands.keySet());
+		nameSet.addAll(sources.keySet());
 		String[] names = new String[nameSet.size()];
 		nameSet.toArray(names);
 		return names;
@@ -136,9 +422,9 @@ public class World implements Mergeable<Map<String, Land>> {
 	/**
 	 * Gets all items in the active land.
 	 * 
-	 * @return All Items in the active land.
+	 * @return A read-only view of all Items in the active land.
 	 */
-	public List<Item> getItems() {
+	public Collection<Item> getItems() {
 		return activeLand.getItems();
 	}
 	
@@ -151,6 +437,17 @@ public class World implements Mergeable<Map<String, Land>> {
 		return activeLand.getItemsAt(point);
 	}
 	
+	/**
+	 * Gets the item on the top of the pile at a point in the active land.
+	 * 
+	 * @param point The point to get the item from.
+	 * 
+	 * @return The top item, or null if there are no items at the point.
+	 */
+	public Item getTopItemAt(Point point) {
+		return activeLand.getTopItemAt(point);
+	}
+	
 	/**
 	 * Gets the name of the current Land.
 	 * 
@@ -182,6 +479,20 @@ public class World implements Mergeable<Map<String, Land>> {
 		return activeLand.getPlayerStart();
 	}
 	
+	/**
+	 * Gets how the lands of this World are connected by their portals. Lands
+	 * that have a LandSource are linked by the portal records in their land
+	 * files, so the graph covers lands that are not loaded and does not
+	 * change when lands are loaded or let go of. Lands that were added
+	 * directly are linked by their portals as they were when they were
+	 * added. The graph is built when lands or sources are added or removed.
+	 * 
+	 * @return The PortalGraph of every land.
+	 */
+	public PortalGraph getPortalGraph() {
+		return portalGraph;
+	}
+	
 	/**
 	 * Gets the portals in the current land.
 	 * 
@@ -200,6 +511,18 @@ public class World implements Mergeable<Map<String, Land>> {
 		return activeLand.getResidents();
 	}
 	
+	/**
+	 * Gets the latest snapshot of the active land. A new snapshot is published
+	 * by the thread advancing this World at the end of every tick and whenever
+	 * the active land is changed, so the returned snapshot can be drawn from
+	 * any thread while the world keeps advancing.
+	 * 
+	 * @return The latest snapshot, or null if there is no active land yet.
+	 */
+	public LandSnapshot getSnapshot() {
+		return snapshot.get();
+	}
+	
 	/**
 	 * Gets the tiles in the current Land.
 	 * 
@@ -209,20 +532,137 @@ public class World implements Mergeable<Map<String, Land>> {
 		return activeLand.getTiles();
 	}
 	
+	/**
+	 * Checks whether a land is currently loaded.
+	 * 
+	 * @param name The name of the land.
+	 * 
+	 * @return Whether the land is loaded.
+	 */
+	public boolean isLoaded(String name) {
+		return lands.containsKey(name);
+	}
+	
+	/**
+	 * Checks whether one point in the active land can be walked to from
+	 * another.
+	 * 
+	 * @param from The point to walk from.
+	 * @param to The point to walk to.
+	 * 
+	 * @return Whether the second point can be reached from the first.
+	 */
+	public boolean isReachable(Point from, Point to) {
+		return activeLand.isReachable(from.x, from.y, to.x, to.y);
+	}
+	
 	@Override
 	public void merge(Map<String, Land> content) {
 		for (Land l : content.values()) {
-			addLand(l);
+			pushLand(l);
 		}
+		buildPortalGraph();
 	}
 	
 	/**
-	 * Removes a resident from the active land.
+	 * Queues a change to the active land. Changes are made in the order that
+	 * they were queued by the thread that advances this World, between ticks,
+	 * so they may be queued from any thread, such as the event thread, even
+	 * while a tick is waiting for the player's move. A change may queue
+	 * further changes, which are made straight after it. Changes queued
+	 * before there is an active land wait until there is one.
+	 * 
+	 * @param change The code that makes the change.
+	 */
+	public void queueChange(Runnable change) {
+		changes.add(change);
+	}
+	
+	/**
+	 * Removes a resident from the active land. The resident is removed
+	 * between ticks, as with queueChange().
 	 * 
 	 * @param resident The resident to remove.
 	 */
-	public void removeResident(Movable resident) {
-		activeLand.removeResident(resident);
+	public void removeResident(final Movable resident) {
+		queueChange(new Runnable() {
+			@Override
+			public void run() {
+				activeLand.removeResident(resident);
+			}
+		});
+	}
+	
+	/**
+	 * Sets how often inactive lands are advanced in the background. Setting
+	 * the interval to 0 stops background advancement and shuts down the
+	 * worker pool once any advancement in progress has finished.
+	 * 
+	 * @param interval The number of ticks of the active land between each
+	 * background advancement of the inactive lands, or 0 to disable it.
+	 */
+	public void setBackgroundInterval(int interval) {
+		if (interval < 0) {
+			throw new IllegalArgumentException("negative interval");
+		}
+		backgroundInterval = interval;
+		if (interval == 0 && backgroundPool != null) {
+			finishBackgroundTicks();
+			backgroundPool.shutdown();
+			backgroundPool = null;
+		}
+	}
+	
+	/**
+	 * Sets what the active land's FlowField leads to. The target follows the
+	 * active land when it changes.
+	 * 
+	 * @param target The new flow target, or null to remove it.
+	 * @param radius The number of tiles that the FlowField extends from the
+	 * target.
+	 */
+	public void setFlowTarget(Locatable target, int radius) {
+		flowTarget = target;
+		flowRadius = radius;
+		if (activeLand != null) {
+			activeLand.setFlowTarget(target, radius);
+		}
+	}
+	
+	/**
+	 * Sets the memory budget for loaded lands. While the loaded lands are
+	 * estimated to use more than this, lands that were loaded from a
+	 * LandSource and are idle are let go of. A land is idle if it is neither
+	 * the active land nor linked to by its portals, and has no changes that
+	 * would be lost by loading it again.
+	 * 
+	 * @param bytes The estimated number of bytes that the loaded lands may
+	 * use, or 0 to never let go of lands.
+	 */
+	public void setLandBudget(long bytes) {
+		if (bytes < 0) {
+			throw new IllegalArgumentException("negative budget");
+		}
+		landBudget = bytes;
+	}
+	
+	/**
+	 * Sets the seed that the Random of each land is seeded from. Each land is
+	 * seeded from this and its name, so the random choices made in a land do
+	 * not depend on the order in which lands are advanced. Every loaded land
+	 * is seeded again, as is every land that is added or loaded later. The
+	 * seed is chosen at random until this is called.
+	 * 
+	 * @param seed The new seed.
+	 */
+	public void setSeed(long seed) {
+		finishBackgroundTicks();
+		this.seed = seed;
+		for (Deque<Land> d : lands.values()) {
+			for (Land l : d) {
+				l.setSeed(getLandSeed(l.getName()));
+			}
+		}
 	}
 	
 	@Override
@@ -236,34 +676,299 @@ public class World implements Mergeable<Map<String, Land>> {
 				}
 			}
 		}
+		buildPortalGraph();
+	}
+	
+	/**
+	 * Adds a land that was loaded from its LandSource.
+	 * 
+	 * @param land The land that was loaded.
+	 */
+	private void addSourcedLand(Land land) {
+		pushLand(land);
+		loadedChangeCounts.put(land, land.getChangeCount());
+	}
+	
+	/**
+	 * Makes the queued changes to the active land, if there is one.
+	 */
+	private void applyQueuedChanges() {
+		if (activeLand == null) {
+			return;
+		}
+		Runnable change;
+		while ((change = changes.poll()) != null) {
+			change.run();
+		}
+	}
+	
+	/**
+	 * Builds the PortalGraph from the portal records of the sources and the
+	 * portals of the lands that were added directly.
+	 */
+	private void buildPortalGraph() {
+		Map<String, List<PortalLink>> portals;
+		portals = new HashMap<String, List<PortalLink>>();
+		for (LandSource s : sources.values()) {
+			portals.put(s.getName(), s.getPortalLinks());
+		}
+		for (Deque<Land> d : lands.values()) {
+			Land l = d.peek();
+			if (!loadedChangeCounts.containsKey(l)) {
+				portals.put(l.getName(), getPortalLinks(l));
+			}
+		}
+		portalGraph = new PortalGraph(portals);
+	}
+	
+	/**
+	 * Adds the lands that have finished loading in the background. Lands that
+	 * were loaded in the meantime because they were needed are not added
+	 * again.
+	 */
+	private void collectPrefetchedLands() {
+		List<Land> loaded = prefetcher.collect();
+		for (Land l : loaded) {
+			if (!lands.containsKey(l.getName())) {
+				addSourcedLand(l);
+			}
+		}
+		if (!loaded.isEmpty()) {
+			evictIdleLands();
+		}
+	}
+	
+	/**
+	 * Creates the worker pool for background advancement.
+	 * 
+	 * @return The worker pool.
+	 */
+	private ExecutorService createBackgroundPool() {
+		int threads = Runtime.getRuntime().availableProcessors() - 1;
+		ThreadFactory factory = new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread t = new Thread(r, "LandSimulation");
+				t.setDaemon(true);
+				return t;
+			}
+		};
+		return Executors.newFixedThreadPool(Math.max(1, threads), factory);
+	}
+	
+	/**
+	 * Estimates the memory used by a land.
+	 * 
+	 * @param land The land.
+	 * 
+	 * @return The estimated number of bytes.
+	 */
+	private static long estimateSize(Land land) {
+		Dimension size = land.getSize();
+		return (long) size.width * size.height * ESTIMATED_BYTES_PER_TILE;
+	}
+	
+	/**
+	 * Lets go of idle lands, least recently active first, until the loaded
+	 * lands are estimated to fit in the land budget. Lands that have never
+	 * been active are let go of before all others. This must not be called
+	 * while lands are being advanced in the background.
+	 */
+	private void evictIdleLands() {
+		if (landBudget == 0 || activeLand == null) {
+			return;
+		}
+		long total = 0;
+		for (Deque<Land> d : lands.values()) {
+			for (Land l : d) {
+				total += estimateSize(l);
+			}
+		}
+		if (total <= landBudget) {
+			return;
+		}
+		List<String> linked;
+		linked = portalGraph.getNeighbours(activeLand.getName());
+		List<String> idle = new ArrayList<String>();
+		for (Map.Entry<String, Deque<Land>> e : lands.entrySet()) {
+			String name = e.getKey();
+			Land l = e.getValue().peek();
+			if (e.getValue().size() == 1 && l != activeLand &&
+					!linked.contains(name) && isUnchanged(l)) {
+				idle.add(name);
+			}
+		}
+		Collections.sort(idle, new Comparator<String>() {
+			@Override
+			public int compare(String a, String b) {
+				long ta = getLastActive(a);
+				long tb = getLastActive(b);
+				if (ta != tb) {
+					return (ta < tb) ? -1 : 1;
+				}
+				return a.compareTo(b);
+			}
+		});
+		for (String name : idle) {
+			if (total <= landBudget) {
+				break;
+			}
+			Land l = lands.remove(name).peek();
+			l.unload();
+			loadedChangeCounts.remove(l);
+			total -= estimateSize(l);
+		}
+	}
+	
+	/**
+	 * Waits for the background advancement in progress to complete and then
+	 * moves the residents that were transferred during it. Transfers are
+	 * moved first in the order that they were deferred and then in order of
+	 * the name of the land that they left. If there is no background
+	 * advancement in progress, this method has no effect.
+	 * 
+	 * If the current thread is interrupted while waiting, the wait continues
+	 * and the interrupt status is restored afterwards.
+	 */
+	private void finishBackgroundTicks() {
+		if (backgroundLands == null) {
+			return;
+		}
+		boolean interrupted = false;
+		RuntimeException failure = null;
+		for (Future<Void> f : backgroundTicks) {
+			boolean done = false;
+			while (!done) {
+				try {
+					f.get();
+					done = true;
+				} catch (InterruptedException e) {
+					interrupted = true;
+				} catch (ExecutionException e) {
+					done = true;
+					if (failure == null) {
+						failure = wrapFailure(e.getCause());
+					}
+				}
+			}
+		}
+		List<Land> finished = backgroundLands;
+		backgroundLands = null;
+		backgroundTicks = null;
+		for (Transfer t : deferredTransfers) {
+			t.destination.transferInResident(t.resident, t.portal.getLink());
+		}
+		deferredTransfers.clear();
+		for (Land l : finished) {
+			moveTransfers(l);
+		}
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+		if (failure != null) {
+			throw failure;
+		}
 	}
 	
 	/**
-	 * Gets a Land object by name.
+	 * Gets the tick at which a land was last the active land.
+	 * 
+	 * @param name The name of the land.
+	 * 
+	 * @return The tick, or -1 if the land has never been active.
+	 */
+	private long getLastActive(String name) {
+		Long tick = lastActive.get(name);
+		return (tick == null) ? -1 : tick;
+	}
+	
+	/**
+	 * Gets a Land object by name. If the land has not been loaded yet, it is
+	 * loaded from its LandSource first.
 	 * 
 	 * @param name The name of the Land object.
 	 * @return The Land referred to by the name.
 	 * @throws InvalidIndexException If the name does not refer to an existing
 	 * Land.
+	 * @throws LandLoadException If the land needs to be loaded and cannot be.
 	 */
 	private Land getLand(String name) throws InvalidIndexException {
 		Deque<Land> landDeque = lands.get(name);
 		if (landDeque == null) {
-			throw new InvalidIndexException(name);
+			LandSource source = sources.get(name);
+			if (source == null) {
+				throw new InvalidIndexException(name);
+			}
+			addSourcedLand(prefetcher.load(source));
+			landDeque = lands.get(name);
 		}
 		Land l = landDeque.peek();
 		return l;
 	}
 	
 	/**
-	 * Finalizes the transfers out of the active land and moves them to the
-	 * land that they are transferring to.
+	 * Gets the seed of a land's Random.
+	 * 
+	 * @param name The name of the land.
+	 * 
+	 * @return The seed, made from the world seed and the land's name.
+	 */
+	private long getLandSeed(String name) {
+		return (seed * 31) + name.hashCode();
+	}
+	
+	/**
+	 * Gets the portals of a land as PortalLinks.
+	 * 
+	 * @param land The land.
+	 * 
+	 * @return Where the land's portals are and where they lead.
 	 */
-	private void moveTransfers() {
-		List<Movable> moves = activeLand.getTransfers();
-		externalTransfers = new HashMap<Movable, String>(3);
+	private List<PortalLink> getPortalLinks(Land land) {
+		List<Portal> portals = land.getPortals();
+		List<PortalLink> links = new ArrayList<PortalLink>(portals.size());
+		for (Portal p : portals) {
+			links.add(new PortalLink(land.getName(), p));
+		}
+		return links;
+	}
+	
+	/**
+	 * Checks whether a land is currently being advanced in the background.
+	 * 
+	 * @param land The land to check.
+	 * 
+	 * @return True if the given land is being advanced in the background;
+	 * otherwise, false.
+	 */
+	private boolean isInBackground(Land land) {
+		return (backgroundLands != null && backgroundLands.contains(land));
+	}
+	
+	/**
+	 * Checks whether a land can be let go of without losing anything.
+	 * 
+	 * @param land The land to check.
+	 * 
+	 * @return Whether the land was loaded from a LandSource and has not been
+	 * changed since.
+	 */
+	private boolean isUnchanged(Land land) {
+		Integer count = loadedChangeCounts.get(land);
+		return (count != null && count == land.getChangeCount());
+	}
+	
+	/**
+	 * Finalizes the transfers out of a land and moves them to the land that
+	 * they are transferring to. Transfers into a land that is being advanced
+	 * in the background are deferred until its advancement has finished.
+	 * 
+	 * @param source The land whose transfers are to be moved.
+	 */
+	private void moveTransfers(Land source) {
+		List<Movable> moves = source.getTransfers();
 		for (Movable m : moves) {
-			Portal p = activeLand.portalAt(m.getLocation());
+			Portal p = source.portalAt(m.getLocation());
 			String linked = p.getLinkedLand();
 			Land destination;
 			try {
@@ -271,10 +976,93 @@ public class World implements Mergeable<Map<String, Land>> {
 			} catch (InvalidIndexException e) {
 				throw new InvalidLinkNameException(p.getLinkedLand());
 			}
-			if (!activeLand.getName().equals(linked)) {
+			if (source == activeLand && !source.getName().equals(linked)) {
 				externalTransfers.put(m, linked);
 			}
-			destination.transferInResident(m, p.getLink());
+			if (isInBackground(destination)) {
+				deferredTransfers.add(new Transfer(m, p, destination));
+			} else {
+				destination.transferInResident(m, p.getLink());
+			}
+		}
+	}
+	
+	/**
+	 * Starts loading the lands that are within PREFETCH_DISTANCE portals of
+	 * the active land, nearest first, if they are not loaded yet.
+	 */
+	private void prefetchNearbyLands() {
+		List<String> nearby = portalGraph.getLandsWithin(
+				activeLand.getName(), PREFETCH_DISTANCE);
+		for (String name : nearby) {
+			LandSource source = sources.get(name);
+			if (!lands.containsKey(name) && source != null) {
+				prefetcher.prefetch(source);
+			}
+		}
+	}
+	
+	/**
+	 * Adds a land on top of any other land of the same name and seeds it.
+	 * 
+	 * @param land The land to add.
+	 */
+	private void pushLand(Land land) {
+		land.setSeed(getLandSeed(land.getName()));
+		Deque<Land> d = lands.get(land.getName());
+		if (d == null) {
+			d = new ArrayDeque<Land>();
+			lands.put(land.getName(), d);
+		}
+		d.push(land);
+	}
+	
+	/**
+	 * Takes a snapshot of the active land and makes it the latest one. This is
+	 * only called by the thread advancing this World, outside of a tick, so
+	 * snapshots are published in order.
+	 */
+	private void publishSnapshot() {
+		LandSnapshot previous = snapshot.get();
+		snapshot.set(activeLand.createSnapshot(previous, ticks));
+	}
+	
+	/**
+	 * Starts advancing every inactive land on the worker pool.
+	 */
+	private void startBackgroundTicks() {
+		if (backgroundPool == null) {
+			backgroundPool = createBackgroundPool();
+		}
+		String[] names = lands.keySet().toArray(new String[lands.size()]);
+		Arrays.sort(names);
+		backgroundLands = new ArrayList<Land>(names.length);
+		backgroundTicks = new ArrayList<Future<Void>>(names.length);
+		for (String n : names) {
+			Land l = lands.get(n).peek();
+			if (l != activeLand) {
+				backgroundLands.add(l);
+				BackgroundTick tick = new BackgroundTick(l);
+				backgroundTicks.add(backgroundPool.submit(tick));
+			}
+		}
+	}
+	
+	/**
+	 * Converts the cause of a failed background advancement into an
+	 * unchecked exception so that it can be rethrown on the World thread.
+	 * 
+	 * @param cause The exception thrown by the advancement.
+	 * 
+	 * @return The exception to rethrow.
+	 */
+	private RuntimeException wrapFailure(Throwable cause) {
+		if (cause instanceof RuntimeException) {
+			return (RuntimeException) cause;
+		} else if (cause instanceof Error) {
+			throw (Error) cause;
+		} else {
+			return new RuntimeException(cause);
 		}
 	}
 	